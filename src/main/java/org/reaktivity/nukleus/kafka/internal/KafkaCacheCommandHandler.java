@@ -0,0 +1,358 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntHashSet;
+import org.reaktivity.nukleus.function.CommandHandler;
+import org.reaktivity.nukleus.function.MessageConsumer;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition.Node;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheSegment;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheTopic;
+import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
+import org.reaktivity.nukleus.kafka.internal.types.control.ErrorFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandResultFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandType;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+final class KafkaCacheCommandHandler implements CommandHandler
+{
+    private static final int NO_PARTITION_ID = -1;
+
+    private final KafkaCacheCommandFW commandRO = new KafkaCacheCommandFW();
+
+    private final KafkaCacheCommandResultFW.Builder resultRW = new KafkaCacheCommandResultFW.Builder();
+    private final ErrorFW.Builder errorRW = new ErrorFW.Builder();
+
+    private final KafkaConfiguration config;
+    private final Function<String, KafkaCache> lookupCache;
+    private final Collection<KafkaElektron> elektrons;
+    private final Gson gson;
+
+    KafkaCacheCommandHandler(
+        KafkaConfiguration config,
+        Function<String, KafkaCache> lookupCache,
+        Collection<KafkaElektron> elektrons)
+    {
+        this.config = config;
+        this.lookupCache = lookupCache;
+        this.elektrons = elektrons;
+        this.gson = new Gson();
+    }
+
+    @Override
+    public void handle(
+        DirectBuffer buffer,
+        int index,
+        int length,
+        MessageConsumer reply,
+        MutableDirectBuffer replyBuffer)
+    {
+        final KafkaCacheCommandFW command = commandRO.wrap(buffer, index, index + length);
+        final long correlationId = command.correlationId();
+        final KafkaCacheCommandType type = command.type().get();
+        final String cacheName = command.cache().asString();
+        final String topicName = command.topic().asString();
+        final int partitionId = command.partitionId();
+
+        String result = null;
+
+        if (cacheName != null && topicName != null)
+        {
+            switch (type)
+            {
+            case STATS:
+                result = onCacheStats(cacheName, topicName, partitionId);
+                break;
+            case PREWARM:
+                result = onCachePrewarm(cacheName, topicName);
+                break;
+            default:
+                result = onCacheCommand(type, cacheName, topicName, partitionId);
+                break;
+            }
+        }
+
+        Flyweight response;
+
+        if (result != null)
+        {
+            response = resultRW.wrap(replyBuffer, 0, replyBuffer.capacity())
+                               .correlationId(correlationId)
+                               .result(result)
+                               .build();
+        }
+        else
+        {
+            response = errorRW.wrap(replyBuffer, 0, replyBuffer.capacity())
+                              .correlationId(correlationId)
+                              .build();
+        }
+
+        reply.accept(response.typeId(), response.buffer(), response.offset(), response.sizeof());
+    }
+
+    private String onCacheStats(
+        String cacheName,
+        String topicName,
+        int partitionId)
+    {
+        final KafkaCache cache = lookupCache.apply(cacheName);
+        final KafkaCacheTopic topic = cache != null ? cache.lookupTopic(topicName) : null;
+
+        String result = null;
+
+        if (topic != null)
+        {
+            // segments are only walked by the core writing the partition
+            final JsonArray cores = onCoreCommand(KafkaCacheCommandType.STATS, cacheName, topicName, partitionId,
+                (p, a) -> describePartition(p));
+
+            final IntHashSet owned = partitionIds(cores, null);
+            final JsonArray unowned = new JsonArray();
+            for (KafkaCachePartition partition : topic.partitions())
+            {
+                final int id = partition.id();
+                if ((partitionId == NO_PARTITION_ID || partitionId == id) && !owned.contains(id))
+                {
+                    unowned.add(id);
+                }
+            }
+
+            final JsonObject stats = new JsonObject();
+            stats.addProperty("cache", cacheName);
+            stats.addProperty("topic", topicName);
+            stats.add("cores", cores);
+            stats.add("unowned", unowned);
+
+            result = gson.toJson(stats);
+        }
+
+        return result;
+    }
+
+    private String onCachePrewarm(
+        String cacheName,
+        String topicName)
+    {
+        String result = null;
+
+        if (config.cacheServerBootstrap())
+        {
+            final JsonArray cores = onCoreCommand(KafkaCacheCommandType.PREWARM, cacheName, topicName, NO_PARTITION_ID,
+                (p, caughtUp) -> describeStatus(p, "warm", caughtUp));
+
+            final KafkaCache cache = lookupCache.apply(cacheName);
+            final KafkaCacheTopic topic = cache != null ? cache.lookupTopic(topicName) : null;
+            final IntHashSet warmed = partitionIds(cores, "warm");
+
+            boolean warm = topic != null && !topic.partitions().isEmpty();
+            if (warm)
+            {
+                for (KafkaCachePartition partition : topic.partitions())
+                {
+                    warm &= warmed.contains(partition.id());
+                }
+            }
+
+            final JsonObject status = new JsonObject();
+            status.addProperty("cache", cacheName);
+            status.addProperty("topic", topicName);
+            status.addProperty("warm", warm);
+            status.add("cores", cores);
+
+            result = gson.toJson(status);
+        }
+
+        return result;
+    }
+
+    private String onCacheCommand(
+        KafkaCacheCommandType type,
+        String cacheName,
+        String topicName,
+        int partitionId)
+    {
+        final JsonArray cores = onCoreCommand(type, cacheName, topicName, partitionId,
+            (p, applied) -> describeStatus(p, "applied", applied));
+
+        final JsonObject status = new JsonObject();
+        status.addProperty("cache", cacheName);
+        status.addProperty("topic", topicName);
+        status.addProperty("applied", partitionIds(cores, "applied").size());
+        status.add("cores", cores);
+
+        return gson.toJson(status);
+    }
+
+    private JsonArray onCoreCommand(
+        KafkaCacheCommandType type,
+        String cacheName,
+        String topicName,
+        int partitionId,
+        BiFunction<KafkaCachePartition, Boolean, JsonObject> report)
+    {
+        final List<CompletableFuture<List<JsonObject>>> results = new ArrayList<>(elektrons.size());
+        for (KafkaElektron elektron : elektrons)
+        {
+            results.add(elektron.cacheCommands().submit(type, cacheName, topicName, partitionId, report));
+        }
+
+        final long timeoutAt = System.nanoTime() + MILLISECONDS.toNanos(config.cacheCommandTimeoutMillis());
+
+        final JsonArray cores = new JsonArray();
+        for (int core = 0; core < results.size(); core++)
+        {
+            final JsonObject status = new JsonObject();
+            status.addProperty("core", core);
+
+            try
+            {
+                final long timeout = Math.max(timeoutAt - System.nanoTime(), 0L);
+                final List<JsonObject> partitions = results.get(core).get(timeout, NANOSECONDS);
+
+                final JsonArray array = new JsonArray();
+                partitions.forEach(array::add);
+                status.add("partitions", array);
+            }
+            catch (TimeoutException ex)
+            {
+                status.addProperty("error", "timeout");
+            }
+            catch (ExecutionException ex)
+            {
+                status.addProperty("error", String.valueOf(ex.getCause()));
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                status.addProperty("error", "interrupted");
+            }
+
+            cores.add(status);
+        }
+
+        return cores;
+    }
+
+    private static IntHashSet partitionIds(
+        JsonArray cores,
+        String property)
+    {
+        final IntHashSet partitionIds = new IntHashSet();
+
+        for (JsonElement core : cores)
+        {
+            final JsonArray partitions = core.getAsJsonObject().getAsJsonArray("partitions");
+            if (partitions != null)
+            {
+                for (JsonElement element : partitions)
+                {
+                    final JsonObject partition = element.getAsJsonObject();
+                    if (property == null || partition.get(property).getAsBoolean())
+                    {
+                        partitionIds.add(partition.get("id").getAsInt());
+                    }
+                }
+            }
+        }
+
+        return partitionIds;
+    }
+
+    private static JsonObject describeStatus(
+        KafkaCachePartition partition,
+        String property,
+        boolean value)
+    {
+        final JsonObject status = new JsonObject();
+        status.addProperty("id", partition.id());
+        status.addProperty(property, value);
+
+        return status;
+    }
+
+    private static JsonObject describePartition(
+        KafkaCachePartition partition)
+    {
+        long sizeInBytes = 0L;
+
+        final JsonArray segments = new JsonArray();
+        final Node sentinel = partition.sentinel();
+        for (Node node = sentinel.next(); node != sentinel; node = node.next())
+        {
+            final KafkaCacheSegment segment = node.segment().acquire();
+            if (segment != null)
+            {
+                try
+                {
+                    final long logBytes = segment.logView().capacity();
+                    final long deltaBytes = segment.deltaFile().capacity();
+                    final long indexBytes = segment.indexFile().capacity() +
+                            segment.hashFile().capacity() +
+                            segment.keysFile().capacity() +
+                            segment.nullsFile().capacity();
+
+                    final JsonObject stats = new JsonObject();
+                    stats.addProperty("baseOffset", segment.baseOffset());
+                    stats.addProperty("lastOffset", segment.lastOffset());
+                    stats.addProperty("head", node.next() == sentinel);
+                    stats.addProperty("compressed", segment.compressed());
+                    stats.addProperty("logBytes", logBytes);
+                    stats.addProperty("deltaBytes", deltaBytes);
+                    stats.addProperty("indexBytes", indexBytes);
+                    stats.addProperty("cleanableDirtyRatio", segment.cleanableDirtyRatio());
+                    segments.add(stats);
+
+                    sizeInBytes += logBytes + deltaBytes + indexBytes;
+                }
+                finally
+                {
+                    segment.release();
+                }
+            }
+        }
+
+        final JsonObject stats = new JsonObject();
+        stats.addProperty("id", partition.id());
+        stats.addProperty("publishedOffset", partition.publishedOffset());
+        stats.addProperty("publishedLatestOffset", partition.publishedLatestOffset());
+        stats.addProperty("sizeInBytes", sizeInBytes);
+        stats.add("segments", segments);
+
+        return stats;
+    }
+}
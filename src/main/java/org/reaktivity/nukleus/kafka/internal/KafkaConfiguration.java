@@ -29,17 +29,34 @@ public class KafkaConfiguration extends Configuration
     public static final boolean DEBUG_PRODUCE = DEBUG || Boolean.getBoolean("nukleus.kafka.debug.produce");
 
     public static final String KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS_NAME = "nukleus.kafka.client.produce.max.request.millis";
+    public static final String KAFKA_CLIENT_PRODUCE_LINGER_MILLIS_NAME = "nukleus.kafka.client.produce.linger.millis";
+    public static final String KAFKA_CLIENT_PRODUCE_BATCH_BYTES_NAME = "nukleus.kafka.client.produce.batch.bytes";
+    public static final String KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS_NAME = "nukleus.kafka.client.fetch.offsets.max.age.ms";
+    public static final String KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME = "nukleus.kafka.client.fetch.read.committed";
+    public static final String KAFKA_CLIENT_RACK_NAME = "nukleus.kafka.client.rack";
     public static final String KAFKA_CACHE_SERVER_RECONNECT_DELAY_NAME = "nukleus.kafka.cache.server.reconnect";
+    public static final String KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS_NAME = "nukleus.kafka.cache.server.failover.max.ms";
+    public static final String KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS_NAME =
+        "nukleus.kafka.cache.server.flush.max.latency.ms";
+    public static final String KAFKA_CACHE_PRODUCE_LOCAL_ACK_NAME = "nukleus.kafka.cache.produce.local.ack";
+    public static final String KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY_NAME = "nukleus.kafka.cache.consumer.offsets.capacity";
+    public static final String KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS_NAME = "nukleus.kafka.cache.index.wide.hash.topics";
 
     public static final IntPropertyDef KAFKA_CLIENT_MAX_IDLE_MILLIS;
     public static final IntPropertyDef KAFKA_CLIENT_META_MAX_AGE_MILLIS;
     public static final IntPropertyDef KAFKA_CLIENT_DESCRIBE_MAX_AGE_MILLIS;
+    public static final BooleanPropertyDef KAFKA_CLIENT_META_CACHE;
     public static final IntPropertyDef KAFKA_CLIENT_FETCH_MAX_WAIT_MILLIS;
     public static final IntPropertyDef KAFKA_CLIENT_FETCH_MAX_BYTES;
     public static final IntPropertyDef KAFKA_CLIENT_FETCH_PARTITION_MAX_BYTES;
+    public static final IntPropertyDef KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS;
+    public static final BooleanPropertyDef KAFKA_CLIENT_FETCH_READ_COMMITTED;
+    public static final PropertyDef<String> KAFKA_CLIENT_RACK;
     public static final IntPropertyDef KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS;
     public static final IntPropertyDef KAFKA_CLIENT_PRODUCE_MAX_RESPONSE_MILLIS;
     public static final IntPropertyDef KAFKA_CLIENT_PRODUCE_MAX_BYTES;
+    public static final IntPropertyDef KAFKA_CLIENT_PRODUCE_LINGER_MILLIS;
+    public static final IntPropertyDef KAFKA_CLIENT_PRODUCE_BATCH_BYTES;
     public static final ShortPropertyDef KAFKA_CLIENT_PRODUCE_ACKS;
     public static final PropertyDef<Path> KAFKA_CACHE_DIRECTORY;
     public static final PropertyDef<KafkaCacheCleanupPolicy> KAFKA_CACHE_CLEANUP_POLICY;
@@ -53,9 +70,32 @@ public class KafkaConfiguration extends Configuration
     public static final LongPropertyDef KAFKA_CACHE_SEGMENT_MILLIS;
     public static final IntPropertyDef KAFKA_CACHE_SEGMENT_BYTES;
     public static final IntPropertyDef KAFKA_CACHE_SEGMENT_INDEX_BYTES;
+    public static final IntPropertyDef KAFKA_CACHE_ENTRY_FORMAT;
+    public static final LongPropertyDef KAFKA_CACHE_SEGMENT_COMPRESS_MILLIS;
+    public static final IntPropertyDef KAFKA_CACHE_SEGMENT_BLOCK_BYTES;
+    public static final IntPropertyDef KAFKA_CACHE_SEGMENT_MAPPED_MAX;
+    public static final PropertyDef<String> KAFKA_CACHE_INDEX_HEADERS;
+    public static final PropertyDef<String> KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS;
+    public static final IntPropertyDef KAFKA_CACHE_KEY_FILTER_CAPACITY;
+    public static final LongPropertyDef KAFKA_CACHE_BUDGET_BYTES;
+    public static final LongPropertyDef KAFKA_CACHE_BUDGET_CHECK_INTERVAL_MILLIS;
+    public static final IntPropertyDef KAFKA_CACHE_PREFETCH_BYTES;
+    public static final LongPropertyDef KAFKA_CACHE_FLUSH_INTERVAL_MILLIS;
+    public static final LongPropertyDef KAFKA_CACHE_FLUSH_BYTES;
+    public static final BooleanPropertyDef KAFKA_CACHE_FLUSH_ON_FREEZE;
+    public static final BooleanPropertyDef KAFKA_CACHE_PRODUCE_LOCAL_ACK;
+    public static final IntPropertyDef KAFKA_CACHE_PRODUCE_LOG_CAPACITY;
+    public static final BooleanPropertyDef KAFKA_CACHE_PRODUCE_LOG_SYNC;
+    public static final LongPropertyDef KAFKA_CACHE_COMMAND_TIMEOUT_MILLIS;
+    public static final IntPropertyDef KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY;
+    public static final LongPropertyDef KAFKA_CACHE_CONSUMER_OFFSETS_COMMIT_MILLIS;
     public static final BooleanPropertyDef KAFKA_CACHE_SERVER_BOOTSTRAP;
+    public static final IntPropertyDef KAFKA_CACHE_SERVER_BOOTSTRAP_FETCHES_MAX;
+    public static final PropertyDef<String> KAFKA_CACHE_SERVER_BOOTSTRAP_PRIORITY_TOPICS;
     public static final IntPropertyDef KAFKA_CACHE_CLIENT_RECONNECT_DELAY;
     public static final IntPropertyDef KAFKA_CACHE_SERVER_RECONNECT_DELAY;
+    public static final LongPropertyDef KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS;
+    public static final LongPropertyDef KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS;
 
     private static final ConfigurationDef KAFKA_CONFIG;
 
@@ -65,17 +105,27 @@ public class KafkaConfiguration extends Configuration
         KAFKA_CLIENT_MAX_IDLE_MILLIS = config.property("client.max.idle.ms", 1 * 60 * 1000);
         KAFKA_CLIENT_META_MAX_AGE_MILLIS = config.property("client.meta.max.age.ms", 5 * 60 * 1000);
         KAFKA_CLIENT_DESCRIBE_MAX_AGE_MILLIS = config.property("client.describe.max.age.ms", 5 * 60 * 1000);
+        KAFKA_CLIENT_META_CACHE = config.property("client.meta.cache", false);
         KAFKA_CLIENT_FETCH_MAX_WAIT_MILLIS = config.property("client.fetch.max.wait.millis", 500);
         KAFKA_CLIENT_FETCH_MAX_BYTES = config.property("client.fetch.max.bytes", 50 * 1024 * 1024);
         KAFKA_CLIENT_FETCH_PARTITION_MAX_BYTES = config.property("client.fetch.partition.max.bytes", 50 * 1024 * 1024);
+        KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS = config.property("client.fetch.offsets.max.age.ms", 0);
+        KAFKA_CLIENT_FETCH_READ_COMMITTED = config.property("client.fetch.read.committed", false);
+        KAFKA_CLIENT_RACK = config.property("client.rack", "");
         KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS = config.property("client.produce.max.request.millis", 0);
         KAFKA_CLIENT_PRODUCE_MAX_RESPONSE_MILLIS = config.property("client.produce.max.response.millis", 120000);
         KAFKA_CLIENT_PRODUCE_MAX_BYTES = config.property("client.produce.max.bytes", Integer.MAX_VALUE);
+        KAFKA_CLIENT_PRODUCE_LINGER_MILLIS = config.property("client.produce.linger.millis", 0);
+        KAFKA_CLIENT_PRODUCE_BATCH_BYTES = config.property("client.produce.batch.bytes", 16384);
         KAFKA_CLIENT_PRODUCE_ACKS = config.property("client.produce.acks", ProduceAck.IN_SYNC_REPLICAS.value());
         KAFKA_CACHE_DIRECTORY = config.property(Path.class, "cache.directory",
             KafkaConfiguration::cacheDirectory, KafkaNukleus.NAME);
         KAFKA_CACHE_SERVER_BOOTSTRAP = config.property("cache.server.bootstrap", true);
+        KAFKA_CACHE_SERVER_BOOTSTRAP_FETCHES_MAX = config.property("cache.server.bootstrap.fetches.max", 64);
+        KAFKA_CACHE_SERVER_BOOTSTRAP_PRIORITY_TOPICS = config.property("cache.server.bootstrap.priority.topics", "");
         KAFKA_CACHE_SERVER_RECONNECT_DELAY = config.property("cache.server.reconnect", 5);
+        KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS = config.property("cache.server.failover.max.ms", 2000L);
+        KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS = config.property("cache.server.flush.max.latency.ms", 0L);
         KAFKA_CACHE_CLIENT_RECONNECT_DELAY = config.property("cache.client.reconnect", 0);
         KAFKA_CACHE_CLEANUP_POLICY = config.property(KafkaCacheCleanupPolicy.class, "cache.cleanup.policy",
                 KafkaConfiguration::cleanupPolicy, "delete");
@@ -89,6 +139,25 @@ public class KafkaConfiguration extends Configuration
         KAFKA_CACHE_SEGMENT_MILLIS = config.property("cache.segment.ms", 604800000L);
         KAFKA_CACHE_SEGMENT_BYTES = config.property("cache.segment.bytes", 0x40000000);
         KAFKA_CACHE_SEGMENT_INDEX_BYTES = config.property("cache.segment.index.bytes", 0xA00000);
+        KAFKA_CACHE_ENTRY_FORMAT = config.property("cache.entry.format", 1);
+        KAFKA_CACHE_SEGMENT_COMPRESS_MILLIS = config.property("cache.segment.compress.ms", Long.MAX_VALUE);
+        KAFKA_CACHE_SEGMENT_BLOCK_BYTES = config.property("cache.segment.block.bytes", 0x10000);
+        KAFKA_CACHE_SEGMENT_MAPPED_MAX = config.property("cache.segment.mapped.max", 16);
+        KAFKA_CACHE_INDEX_HEADERS = config.property("cache.index.headers", "*");
+        KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS = config.property("cache.index.wide.hash.topics", "");
+        KAFKA_CACHE_KEY_FILTER_CAPACITY = config.property("cache.key.filter.capacity", 0);
+        KAFKA_CACHE_BUDGET_BYTES = config.property("cache.budget.bytes", -1L);
+        KAFKA_CACHE_BUDGET_CHECK_INTERVAL_MILLIS = config.property("cache.budget.check.interval.ms", 1000L);
+        KAFKA_CACHE_PREFETCH_BYTES = config.property("cache.prefetch.bytes", 0x400000);
+        KAFKA_CACHE_FLUSH_INTERVAL_MILLIS = config.property("cache.flush.interval.ms", 0L);
+        KAFKA_CACHE_FLUSH_BYTES = config.property("cache.flush.bytes", 0L);
+        KAFKA_CACHE_FLUSH_ON_FREEZE = config.property("cache.flush.on.freeze", false);
+        KAFKA_CACHE_PRODUCE_LOCAL_ACK = config.property("cache.produce.local.ack", false);
+        KAFKA_CACHE_PRODUCE_LOG_CAPACITY = config.property("cache.produce.log.capacity", 16 * 1024 * 1024);
+        KAFKA_CACHE_PRODUCE_LOG_SYNC = config.property("cache.produce.log.sync", true);
+        KAFKA_CACHE_COMMAND_TIMEOUT_MILLIS = config.property("cache.command.timeout.ms", 1000L);
+        KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY = config.property("cache.consumer.offsets.capacity", 0);
+        KAFKA_CACHE_CONSUMER_OFFSETS_COMMIT_MILLIS = config.property("cache.consumer.offsets.commit.ms", 1000L);
         KAFKA_CONFIG = config;
     }
 
@@ -118,6 +187,11 @@ public class KafkaConfiguration extends Configuration
         return KAFKA_CLIENT_DESCRIBE_MAX_AGE_MILLIS.getAsInt(this);
     }
 
+    public boolean clientMetaCache()
+    {
+        return KAFKA_CLIENT_META_CACHE.getAsBoolean(this);
+    }
+
     public int clientFetchMaxWaitMillis()
     {
         return KAFKA_CLIENT_FETCH_MAX_WAIT_MILLIS.getAsInt(this);
@@ -133,6 +207,21 @@ public class KafkaConfiguration extends Configuration
         return KAFKA_CLIENT_FETCH_PARTITION_MAX_BYTES.get(this);
     }
 
+    public int clientFetchOffsetsMaxAgeMillis()
+    {
+        return KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS.getAsInt(this);
+    }
+
+    public boolean clientFetchReadCommitted()
+    {
+        return KAFKA_CLIENT_FETCH_READ_COMMITTED.getAsBoolean(this);
+    }
+
+    public String clientRack()
+    {
+        return KAFKA_CLIENT_RACK.get(this);
+    }
+
     public int clientProduceMaxRequestMillis()
     {
         return KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS.getAsInt(this);
@@ -148,6 +237,16 @@ public class KafkaConfiguration extends Configuration
         return KAFKA_CLIENT_PRODUCE_MAX_BYTES.getAsInt(this);
     }
 
+    public int clientProduceLingerMillis()
+    {
+        return KAFKA_CLIENT_PRODUCE_LINGER_MILLIS.getAsInt(this);
+    }
+
+    public int clientProduceBatchBytes()
+    {
+        return KAFKA_CLIENT_PRODUCE_BATCH_BYTES.getAsInt(this);
+    }
+
     public short clientProduceAcks()
     {
         return KAFKA_CLIENT_PRODUCE_ACKS.getAsShort(this);
@@ -213,11 +312,117 @@ public class KafkaConfiguration extends Configuration
         return KAFKA_CACHE_SEGMENT_INDEX_BYTES.getAsInt(this);
     }
 
+    public int cacheEntryFormat()
+    {
+        return KAFKA_CACHE_ENTRY_FORMAT.getAsInt(this);
+    }
+
+    public long cacheSegmentCompressMillis()
+    {
+        return KAFKA_CACHE_SEGMENT_COMPRESS_MILLIS.getAsLong(this);
+    }
+
+    public int cacheSegmentBlockBytes()
+    {
+        return KAFKA_CACHE_SEGMENT_BLOCK_BYTES.getAsInt(this);
+    }
+
+    public int cacheSegmentMappedMax()
+    {
+        return KAFKA_CACHE_SEGMENT_MAPPED_MAX.getAsInt(this);
+    }
+
+    public String cacheIndexHeaders()
+    {
+        return KAFKA_CACHE_INDEX_HEADERS.get(this);
+    }
+
+    public String cacheIndexWideHashTopics()
+    {
+        return KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS.get(this);
+    }
+
+    public int cacheKeyFilterCapacity()
+    {
+        return KAFKA_CACHE_KEY_FILTER_CAPACITY.getAsInt(this);
+    }
+
+    public long cacheBudgetBytes()
+    {
+        return KAFKA_CACHE_BUDGET_BYTES.getAsLong(this);
+    }
+
+    public long cacheBudgetCheckIntervalMillis()
+    {
+        return KAFKA_CACHE_BUDGET_CHECK_INTERVAL_MILLIS.getAsLong(this);
+    }
+
+    public int cachePrefetchBytes()
+    {
+        return KAFKA_CACHE_PREFETCH_BYTES.getAsInt(this);
+    }
+
+    public long cacheFlushIntervalMillis()
+    {
+        return KAFKA_CACHE_FLUSH_INTERVAL_MILLIS.getAsLong(this);
+    }
+
+    public long cacheFlushBytes()
+    {
+        return KAFKA_CACHE_FLUSH_BYTES.getAsLong(this);
+    }
+
+    public boolean cacheFlushOnFreeze()
+    {
+        return KAFKA_CACHE_FLUSH_ON_FREEZE.getAsBoolean(this);
+    }
+
+    public boolean cacheProduceLocalAck()
+    {
+        return KAFKA_CACHE_PRODUCE_LOCAL_ACK.getAsBoolean(this);
+    }
+
+    public int cacheProduceLogCapacity()
+    {
+        return KAFKA_CACHE_PRODUCE_LOG_CAPACITY.getAsInt(this);
+    }
+
+    public boolean cacheProduceLogSync()
+    {
+        // when disabled, locally acknowledged entries are durable to the OS page cache only
+        return KAFKA_CACHE_PRODUCE_LOG_SYNC.getAsBoolean(this);
+    }
+
+    public long cacheCommandTimeoutMillis()
+    {
+        return KAFKA_CACHE_COMMAND_TIMEOUT_MILLIS.getAsLong(this);
+    }
+
+    public int cacheConsumerOffsetsCapacity()
+    {
+        return KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY.getAsInt(this);
+    }
+
+    public long cacheConsumerOffsetsCommitMillis()
+    {
+        return KAFKA_CACHE_CONSUMER_OFFSETS_COMMIT_MILLIS.getAsLong(this);
+    }
+
     public boolean cacheServerBootstrap()
     {
         return KAFKA_CACHE_SERVER_BOOTSTRAP.getAsBoolean(this);
     }
 
+    public int cacheServerBootstrapFetchesMax()
+    {
+        return KAFKA_CACHE_SERVER_BOOTSTRAP_FETCHES_MAX.getAsInt(this);
+    }
+
+    public String cacheServerBootstrapPriorityTopics()
+    {
+        return KAFKA_CACHE_SERVER_BOOTSTRAP_PRIORITY_TOPICS.get(this);
+    }
+
     public int cacheClientReconnect()
     {
         return KAFKA_CACHE_CLIENT_RECONNECT_DELAY.getAsInt(this);
@@ -228,6 +433,16 @@ public class KafkaConfiguration extends Configuration
         return KAFKA_CACHE_SERVER_RECONNECT_DELAY.getAsInt(this);
     }
 
+    public long cacheServerFailoverMaxMillis()
+    {
+        return KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS.getAsLong(this);
+    }
+
+    public long cacheServerFlushMaxLatencyMillis()
+    {
+        return KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS.getAsLong(this);
+    }
+
     private static Path cacheDirectory(
         Configuration config,
         String cacheDirectory)
@@ -17,6 +17,11 @@ package org.reaktivity.nukleus.kafka.internal;
 
 import static java.nio.ByteBuffer.allocateDirect;
 import static java.nio.ByteOrder.nativeOrder;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.reaktivity.nukleus.route.RouteKind.CACHE_SERVER;
 import static org.reaktivity.nukleus.route.RouteKind.CLIENT;
 
 import java.util.Map;
@@ -32,6 +37,9 @@ import org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.control.FreezeFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandResultFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandType;
 import org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW;
 import org.reaktivity.nukleus.kafka.internal.types.control.Role;
 import org.reaktivity.nukleus.kafka.internal.types.control.RouteFW;
@@ -46,11 +54,15 @@ import com.google.gson.JsonParser;
 public final class KafkaController implements Controller
 {
     private static final int MAX_SEND_LENGTH = 1024; // TODO: Configuration and Context
+    private static final int NO_PARTITION_ID = -1;
+    private static final long CACHE_PREWARM_RETRY_MILLIS = 100L;
 
-    // TODO: thread-safe flyweights or command queue from public methods
+    // public methods synchronize on this controller to share flyweights and command buffer
     private final RouteFW.Builder routeRW = new RouteFW.Builder();
     private final UnrouteFW.Builder unrouteRW = new UnrouteFW.Builder();
     private final FreezeFW.Builder freezeRW = new FreezeFW.Builder();
+    private final KafkaCacheCommandFW.Builder cacheCommandRW = new KafkaCacheCommandFW.Builder();
+    private final KafkaCacheCommandResultFW cacheCommandResultRO = new KafkaCacheCommandResultFW();
 
     private final KafkaRouteExFW.Builder routeExRW = new KafkaRouteExFW.Builder();
 
@@ -127,7 +139,7 @@ public final class KafkaController implements Controller
         return route(kind, localAddress, remoteAddress, null);
     }
 
-    public CompletableFuture<Long> route(
+    public synchronized CompletableFuture<Long> route(
         RouteKind kind,
         String localAddress,
         String remoteAddress,
@@ -164,7 +176,7 @@ public final class KafkaController implements Controller
         return doRoute(kind, localAddress, remoteAddress, routeEx);
     }
 
-    public CompletableFuture<Void> unroute(
+    public synchronized CompletableFuture<Void> unroute(
         long routeId)
     {
         long correlationId = controllerSpi.nextCorrelationId();
@@ -178,7 +190,7 @@ public final class KafkaController implements Controller
         return controllerSpi.doUnroute(unrouteRO.typeId(), unrouteRO.buffer(), unrouteRO.offset(), unrouteRO.sizeof());
     }
 
-    public CompletableFuture<Void> freeze()
+    public synchronized CompletableFuture<Void> freeze()
     {
         long correlationId = controllerSpi.nextCorrelationId();
 
@@ -190,6 +202,100 @@ public final class KafkaController implements Controller
         return controllerSpi.doFreeze(freeze.typeId(), freeze.buffer(), freeze.offset(), freeze.sizeof());
     }
 
+    public CompletableFuture<String> cacheStats(
+        String cache,
+        String topic)
+    {
+        return cacheStats(cache, topic, NO_PARTITION_ID);
+    }
+
+    public CompletableFuture<String> cacheStats(
+        String cache,
+        String topic,
+        int partitionId)
+    {
+        return doCacheCommand(KafkaCacheCommandType.STATS, cache, topic, partitionId);
+    }
+
+    public CompletableFuture<Long> cachePrewarm(
+        String cache,
+        String topic)
+    {
+        final JsonObject extension = new JsonObject();
+        extension.addProperty("topic", topic);
+
+        return route(CACHE_SERVER, cache, cache, gson.toJson(extension))
+                .thenCompose(routeId -> doCachePrewarm(cache, topic).thenApply(r -> routeId));
+    }
+
+    public CompletableFuture<String> cacheRoll(
+        String cache,
+        String topic,
+        int partitionId)
+    {
+        return doCacheCommand(KafkaCacheCommandType.ROLL, cache, topic, partitionId);
+    }
+
+    public CompletableFuture<String> cacheCompact(
+        String cache,
+        String topic,
+        int partitionId)
+    {
+        return doCacheCommand(KafkaCacheCommandType.COMPACT, cache, topic, partitionId);
+    }
+
+    public CompletableFuture<String> cacheEvict(
+        String cache,
+        String topic)
+    {
+        return doCacheCommand(KafkaCacheCommandType.EVICT, cache, topic, NO_PARTITION_ID);
+    }
+
+    private CompletableFuture<String> doCachePrewarm(
+        String cache,
+        String topic)
+    {
+        return doCacheCommand(KafkaCacheCommandType.PREWARM, cache, topic, NO_PARTITION_ID)
+                .thenCompose(r -> cacheWarm(r) ? completedFuture(r) : doCachePrewarmLater(cache, topic));
+    }
+
+    private CompletableFuture<String> doCachePrewarmLater(
+        String cache,
+        String topic)
+    {
+        return supplyAsync(() -> doCachePrewarm(cache, topic), delayedExecutor(CACHE_PREWARM_RETRY_MILLIS, MILLISECONDS))
+                .thenCompose(f -> f);
+    }
+
+    private boolean cacheWarm(
+        String result)
+    {
+        final JsonParser parser = new JsonParser();
+        final JsonObject status = parser.parse(result).getAsJsonObject();
+        return status.get("warm").getAsBoolean();
+    }
+
+    private synchronized CompletableFuture<String> doCacheCommand(
+        KafkaCacheCommandType type,
+        String cache,
+        String topic,
+        int partitionId)
+    {
+        final long correlationId = controllerSpi.nextCorrelationId();
+
+        final KafkaCacheCommandFW command = cacheCommandRW.wrap(commandBuffer, 0, commandBuffer.capacity())
+                                                          .correlationId(correlationId)
+                                                          .nukleus(name())
+                                                          .type(t -> t.set(type))
+                                                          .cache(cache)
+                                                          .topic(topic)
+                                                          .partitionId(partitionId)
+                                                          .build();
+
+        return controllerSpi.doCommand(command.typeId(), command.buffer(), command.offset(), command.sizeof(),
+            (t, b, i, l) -> cacheCommandResultRO.wrap(b, i, i + l).result().asString());
+    }
+
     private CompletableFuture<Long> doRoute(
         RouteKind kind,
         String localAddress,
@@ -21,15 +21,23 @@ import static org.reaktivity.nukleus.route.RouteKind.CLIENT;
 
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.CompositeAgent;
 import org.reaktivity.nukleus.Elektron;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore;
 import org.reaktivity.nukleus.kafka.internal.stream.KafkaCacheClientFactoryBuilder;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaCacheClientPoller;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaCacheCommandAgent;
 import org.reaktivity.nukleus.kafka.internal.stream.KafkaCacheRoute;
 import org.reaktivity.nukleus.kafka.internal.stream.KafkaCacheServerFactoryBuilder;
 import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientFactoryBuilder;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache;
 import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientRoute;
 import org.reaktivity.nukleus.kafka.internal.stream.KafkaStreamFactoryBuilder;
 import org.reaktivity.nukleus.route.AddressFactoryBuilder;
@@ -38,22 +46,36 @@ import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
 
 final class KafkaElektron implements Elektron
 {
+    private static final int CACHE_COMMAND_CAPACITY = 64;
+
     private final Long2ObjectHashMap<KafkaClientRoute> clientRoutesById;
     private final Long2ObjectHashMap<KafkaCacheRoute> cacheRoutesById;
     private final Map<RouteKind, KafkaStreamFactoryBuilder> streamFactoryBuilders;
     private final Map<RouteKind, AddressFactoryBuilder> addressFactoryBuilders;
+    private final KafkaCacheClientPoller cacheClientPoller;
+    private final KafkaCacheCommandAgent cacheCommandAgent;
+    private final Consumer<KafkaElektron> onClose;
+    private final Agent agent;
 
     KafkaElektron(
         KafkaConfiguration config,
-        Function<String, KafkaCache> supplyCache)
+        Function<String, KafkaCache> supplyCache,
+        Supplier<KafkaCacheOffsetStore> supplyOffsetStore,
+        KafkaClientMetaCache clientMetaCache,
+        Consumer<KafkaElektron> onClose)
     {
         this.clientRoutesById = new Long2ObjectHashMap<>();
         this.cacheRoutesById = new Long2ObjectHashMap<>();
+        this.cacheClientPoller = new KafkaCacheClientPoller();
+        this.cacheCommandAgent = new KafkaCacheCommandAgent(CACHE_COMMAND_CAPACITY, cacheRoutesById);
+        this.onClose = onClose;
+        this.agent = new CompositeAgent(cacheClientPoller, cacheCommandAgent, new LifecycleAgent());
 
         Map<RouteKind, KafkaStreamFactoryBuilder> streamFactoryBuilders = new EnumMap<>(RouteKind.class);
-        streamFactoryBuilders.put(CLIENT, new KafkaClientFactoryBuilder(config, this::supplyClientRoute));
+        streamFactoryBuilders.put(CLIENT, new KafkaClientFactoryBuilder(config, this::supplyClientRoute, clientMetaCache));
         streamFactoryBuilders.put(CACHE_SERVER, new KafkaCacheServerFactoryBuilder(config, supplyCache, this::supplyCacheRoute));
-        streamFactoryBuilders.put(CACHE_CLIENT, new KafkaCacheClientFactoryBuilder(config, supplyCache, this::supplyCacheRoute));
+        streamFactoryBuilders.put(CACHE_CLIENT, new KafkaCacheClientFactoryBuilder(
+                config, supplyCache, supplyOffsetStore, this::supplyCacheRoute, cacheClientPoller));
         this.streamFactoryBuilders = streamFactoryBuilders;
 
         Map<RouteKind, AddressFactoryBuilder> addressFactoryBuilders = new EnumMap<>(RouteKind.class);
@@ -62,7 +84,8 @@ final class KafkaElektron implements Elektron
             final RouteKind routeKind = entry.getKey();
             final KafkaStreamFactoryBuilder streamFactoryBuilder = entry.getValue();
             final AddressFactoryBuilder addressFactoryBuilder = streamFactoryBuilder.addressFactoryBuilder();
-            if (routeKind == CACHE_SERVER && config.cacheServerBootstrap())
+            if (routeKind == CACHE_SERVER && config.cacheServerBootstrap() ||
+                routeKind == CACHE_CLIENT && config.cacheProduceLocalAck())
             {
                 addressFactoryBuilders.put(routeKind, addressFactoryBuilder);
             }
@@ -84,12 +107,23 @@ final class KafkaElektron implements Elektron
         return addressFactoryBuilders.get(kind);
     }
 
+    @Override
+    public Agent agent()
+    {
+        return agent;
+    }
+
     @Override
     public String toString()
     {
         return String.format("%s %s", getClass().getSimpleName(), streamFactoryBuilders);
     }
 
+    KafkaCacheCommandAgent cacheCommands()
+    {
+        return cacheCommandAgent;
+    }
+
     private KafkaCacheRoute supplyCacheRoute(
         long routeId)
     {
@@ -101,4 +135,25 @@ final class KafkaElektron implements Elektron
     {
         return clientRoutesById.computeIfAbsent(routeId, KafkaClientRoute::new);
     }
+
+    private final class LifecycleAgent implements Agent
+    {
+        @Override
+        public String roleName()
+        {
+            return "kafka.elektron";
+        }
+
+        @Override
+        public int doWork()
+        {
+            return 0;
+        }
+
+        @Override
+        public void onClose()
+        {
+            onClose.accept(KafkaElektron.this);
+        }
+    }
 }
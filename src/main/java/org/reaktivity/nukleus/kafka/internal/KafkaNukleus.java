@@ -15,24 +15,51 @@
  */
 package org.reaktivity.nukleus.kafka.internal;
 
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.reaktivity.nukleus.Nukleus;
+import org.reaktivity.nukleus.function.CommandHandler;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheBudget;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheFlusher;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePrefetcher;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandFW;
 
 public final class KafkaNukleus implements Nukleus
 {
     public static final String NAME = "kafka";
 
+    private static final String CONSUMER_OFFSETS_FILENAME = "consumer-offsets";
+
     private final KafkaConfiguration config;
     private final Map<String, KafkaCache> cachesByName;
+    private final List<KafkaElektron> elektrons;
+    private final CommandHandler cacheCommandHandler;
+    private final KafkaClientMetaCache clientMetaCache;
+    private final KafkaCacheBudget cacheBudget;
+    private final KafkaCachePrefetcher cachePrefetcher;
+    private final KafkaCacheFlusher cacheFlusher;
+
+    private KafkaCacheOffsetStore offsetStore;
 
     KafkaNukleus(
         KafkaConfiguration config)
     {
         this.config = config;
         this.cachesByName = new ConcurrentHashMap<>();
+        this.elektrons = new CopyOnWriteArrayList<>();
+        this.cacheCommandHandler = new KafkaCacheCommandHandler(config, cachesByName::get, elektrons);
+        this.clientMetaCache = config.clientMetaCache() ? new KafkaClientMetaCache() : null;
+        this.cacheBudget = new KafkaCacheBudget(config.cacheBudgetBytes());
+        this.cachePrefetcher = new KafkaCachePrefetcher(config.cachePrefetchBytes());
+        this.cacheFlusher = new KafkaCacheFlusher(config.cacheFlushIntervalMillis(), config.cacheFlushBytes(),
+            config.cacheFlushOnFreeze());
     }
 
     @Override
@@ -50,7 +77,17 @@ public final class KafkaNukleus implements Nukleus
     @Override
     public KafkaElektron supplyElektron()
     {
-        return new KafkaElektron(config, this::supplyCache);
+        final KafkaElektron elektron = new KafkaElektron(config, this::supplyCache,
+                this::supplyOffsetStore, clientMetaCache, this::onElektronClosed);
+        elektrons.add(elektron);
+        return elektron;
+    }
+
+    @Override
+    public CommandHandler commandHandler(
+        int msgTypeId)
+    {
+        return msgTypeId == KafkaCacheCommandFW.TYPE_ID ? cacheCommandHandler : null;
     }
 
     public KafkaCache supplyCache(
@@ -59,9 +96,38 @@ public final class KafkaNukleus implements Nukleus
         return cachesByName.computeIfAbsent(name, this::newCache);
     }
 
+    public synchronized KafkaCacheOffsetStore supplyOffsetStore()
+    {
+        if (offsetStore == null)
+        {
+            final Path location = config.cacheDirectory().resolve(CONSUMER_OFFSETS_FILENAME);
+            offsetStore = new KafkaCacheOffsetStore(location, config.cacheConsumerOffsetsCapacity());
+        }
+
+        return offsetStore;
+    }
+
+    private synchronized void onElektronClosed(
+        KafkaElektron elektron)
+    {
+        elektrons.remove(elektron);
+
+        if (elektrons.isEmpty())
+        {
+            cachesByName.values().forEach(KafkaCache::close);
+            cachesByName.clear();
+
+            if (offsetStore != null)
+            {
+                offsetStore.close();
+                offsetStore = null;
+            }
+        }
+    }
+
     private KafkaCache newCache(
         String name)
     {
-        return new KafkaCache(config, name);
+        return new KafkaCache(config, name, cacheBudget, cachePrefetcher, cacheFlusher);
     }
 }
@@ -31,16 +31,35 @@ public final class KafkaCache
     private final Path location;
     private final Map<String, KafkaCacheTopic> topicsByName;
     private final ThreadLocal<long[]> sortSpaceRef;
+    private final KafkaCacheBudget budget;
+    private final KafkaCachePrefetcher prefetcher;
+    private final KafkaCacheFlusher flusher;
 
     public KafkaCache(
         KafkaConfiguration config,
         String name)
+    {
+        this(config, name,
+            new KafkaCacheBudget(config.cacheBudgetBytes()),
+            new KafkaCachePrefetcher(config.cachePrefetchBytes()),
+            new KafkaCacheFlusher(config.cacheFlushIntervalMillis(), config.cacheFlushBytes(), config.cacheFlushOnFreeze()));
+    }
+
+    public KafkaCache(
+        KafkaConfiguration config,
+        String name,
+        KafkaCacheBudget budget,
+        KafkaCachePrefetcher prefetcher,
+        KafkaCacheFlusher flusher)
     {
         this.config = config;
         this.name = name;
         this.location = config.cacheDirectory().resolve(name);
         this.topicsByName = new ConcurrentHashMap<>();
         this.sortSpaceRef = ThreadLocal.withInitial(() -> EMPTY_SORT_SPACE);
+        this.budget = budget;
+        this.prefetcher = prefetcher;
+        this.flusher = flusher;
     }
 
     public String name()
@@ -54,6 +73,18 @@ public final class KafkaCache
         return topicsByName.computeIfAbsent(name, this::newTopic);
     }
 
+    public KafkaCacheTopic lookupTopic(
+        String name)
+    {
+        return topicsByName.get(name);
+    }
+
+    public void close()
+    {
+        topicsByName.values().forEach(KafkaCacheTopic::close);
+        topicsByName.clear();
+    }
+
     @Override
     public String toString()
     {
@@ -63,7 +94,7 @@ public final class KafkaCache
     private KafkaCacheTopic newTopic(
         String topic)
     {
-        return new KafkaCacheTopic(location, config, name, topic, this::supplySortSpace);
+        return new KafkaCacheTopic(location, config, name, topic, this::supplySortSpace, budget, prefetcher, flusher);
     }
 
     private long[] supplySortSpace(
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class KafkaCacheBudget
+{
+    public static final long UNLIMITED = -1L;
+
+    private final long capacity;
+    private final AtomicLong bytes;
+    private final List<KafkaCachePartition> partitions;
+
+    public KafkaCacheBudget(
+        long capacity)
+    {
+        this.capacity = capacity;
+        this.bytes = new AtomicLong();
+        this.partitions = new CopyOnWriteArrayList<>();
+    }
+
+    public long capacity()
+    {
+        return capacity;
+    }
+
+    public long bytes()
+    {
+        return bytes.get();
+    }
+
+    public void register(
+        KafkaCachePartition partition)
+    {
+        partitions.add(partition);
+    }
+
+    public void unregister(
+        KafkaCachePartition partition)
+    {
+        partitions.remove(partition);
+    }
+
+    public void account(
+        long delta)
+    {
+        if (delta != 0L)
+        {
+            bytes.addAndGet(delta);
+        }
+    }
+
+    public boolean exceeded(
+        KafkaCachePartition partition)
+    {
+        return capacity >= 0L &&
+            bytes.get() > capacity &&
+            partition == evictable();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %d / %d", getClass().getSimpleName(), bytes.get(), capacity);
+    }
+
+    private KafkaCachePartition evictable()
+    {
+        // evict from the largest partition first, retaining latest values of compacted topics
+        KafkaCachePartition largest = null;
+        long largestBytes = 0L;
+
+        for (KafkaCachePartition partition : partitions)
+        {
+            final long partitionBytes = partition.bytes();
+
+            if (partitionBytes > largestBytes && !partition.cleanupPolicy().compact())
+            {
+                largest = partition;
+                largestBytes = partitionBytes;
+            }
+        }
+
+        return largest;
+    }
+}
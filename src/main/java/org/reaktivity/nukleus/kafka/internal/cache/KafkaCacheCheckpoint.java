@@ -0,0 +1,186 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.agrona.LangUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+public final class KafkaCacheCheckpoint
+{
+    public static final long NO_OFFSET = -1L;
+
+    private static final String EXT_WORK = ".work";
+
+    private static final int FIELD_OFFSET_BASE_OFFSET = 0;
+    private static final int FIELD_OFFSET_BASE_TIMESTAMP = FIELD_OFFSET_BASE_OFFSET + Long.BYTES;
+    private static final int FIELD_OFFSET_OFFSET = FIELD_OFFSET_BASE_TIMESTAMP + Long.BYTES;
+    private static final int FIELD_OFFSET_POSITION = FIELD_OFFSET_OFFSET + Long.BYTES;
+    private static final int FIELD_OFFSET_ENTRY_FORMAT = FIELD_OFFSET_POSITION + Integer.BYTES;
+    private static final int SIZEOF_CHECKPOINT = FIELD_OFFSET_ENTRY_FORMAT + Integer.BYTES;
+
+    private final Path location;
+    private final Path workLocation;
+    private final ByteBuffer byteBuffer;
+    private final UnsafeBuffer buffer;
+
+    private long baseOffset;
+    private long baseTimestamp;
+    private long offset;
+    private int position;
+    private int entryFormat;
+
+    public KafkaCacheCheckpoint(
+        Path location)
+    {
+        this.location = location;
+        this.workLocation = location.resolveSibling(location.getFileName() + EXT_WORK);
+        this.byteBuffer = ByteBuffer.allocate(SIZEOF_CHECKPOINT);
+        this.buffer = new UnsafeBuffer(byteBuffer);
+        this.baseOffset = NO_OFFSET;
+        this.offset = NO_OFFSET;
+    }
+
+    public Path location()
+    {
+        return location;
+    }
+
+    public long baseOffset()
+    {
+        return baseOffset;
+    }
+
+    public long baseTimestamp()
+    {
+        return baseTimestamp;
+    }
+
+    public long offset()
+    {
+        return offset;
+    }
+
+    public int position()
+    {
+        return position;
+    }
+
+    public int entryFormat()
+    {
+        return entryFormat;
+    }
+
+    public boolean read()
+    {
+        boolean read = false;
+
+        try
+        {
+            final byte[] bytes = Files.exists(location) ? Files.readAllBytes(location) : null;
+            if (bytes != null && bytes.length == SIZEOF_CHECKPOINT)
+            {
+                buffer.putBytes(0, bytes);
+
+                this.baseOffset = buffer.getLong(FIELD_OFFSET_BASE_OFFSET);
+                this.baseTimestamp = buffer.getLong(FIELD_OFFSET_BASE_TIMESTAMP);
+                this.offset = buffer.getLong(FIELD_OFFSET_OFFSET);
+                this.position = buffer.getInt(FIELD_OFFSET_POSITION);
+                this.entryFormat = buffer.getInt(FIELD_OFFSET_ENTRY_FORMAT);
+                read = true;
+            }
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        return read;
+    }
+
+    public synchronized void write(
+        long baseOffset,
+        long baseTimestamp,
+        long offset,
+        int position,
+        int entryFormat)
+    {
+        buffer.putLong(FIELD_OFFSET_BASE_OFFSET, baseOffset);
+        buffer.putLong(FIELD_OFFSET_BASE_TIMESTAMP, baseTimestamp);
+        buffer.putLong(FIELD_OFFSET_OFFSET, offset);
+        buffer.putInt(FIELD_OFFSET_POSITION, position);
+        buffer.putInt(FIELD_OFFSET_ENTRY_FORMAT, entryFormat);
+
+        try
+        {
+            try (FileChannel channel = FileChannel.open(workLocation, CREATE, WRITE, TRUNCATE_EXISTING))
+            {
+                byteBuffer.clear();
+                while (byteBuffer.hasRemaining())
+                {
+                    channel.write(byteBuffer);
+                }
+                channel.force(false);
+            }
+
+            // replace atomically so a crash never leaves a torn checkpoint
+            Files.move(workLocation, location, ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        this.baseOffset = baseOffset;
+        this.baseTimestamp = baseTimestamp;
+        this.offset = offset;
+        this.position = position;
+        this.entryFormat = entryFormat;
+    }
+
+    public void delete()
+    {
+        try
+        {
+            Files.deleteIfExists(workLocation);
+            Files.deleteIfExists(location);
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        this.baseOffset = NO_OFFSET;
+        this.offset = NO_OFFSET;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %s (%d, %d)", getClass().getSimpleName(), location.getFileName(), baseOffset, offset);
+    }
+}
@@ -26,16 +26,21 @@ import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.nextIndex;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.nextValue;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.previousIndex;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePrefetcher.NO_PREFETCH;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheWideHash.wideHash;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
 
 import org.agrona.DirectBuffer;
-import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.collections.LongHashSet;
-import org.agrona.collections.MutableBoolean;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition.Node;
 import org.reaktivity.nukleus.kafka.internal.types.ArrayFW;
@@ -48,22 +53,20 @@ import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheDeltaFW;
-import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW;
 
 public final class KafkaCacheCursorFactory
 {
-    private final KafkaCacheDeltaFW deltaRO = new KafkaCacheDeltaFW();
-
-    private final MutableDirectBuffer writeBuffer;
     private final CRC32C checksum;
     private final KafkaFilterCondition nullKeyInfo;
 
     public static final int POSITION_UNSET = -1;
 
-    public KafkaCacheCursorFactory(
-        MutableDirectBuffer writeBuffer)
+    private static final Comparator<KafkaFilterCondition> INDEXED_FIRST =
+            Comparator.<KafkaFilterCondition>comparingInt(c -> c instanceof KafkaFilterCondition.Equals ? 0 : 1)
+                      .thenComparingInt(KafkaFilterCondition::hashCode);
+
+    public KafkaCacheCursorFactory()
     {
-        this.writeBuffer = writeBuffer;
         this.checksum = new CRC32C();
         this.nullKeyInfo = initNullKeyInfo(checksum);
     }
@@ -77,15 +80,21 @@ public final class KafkaCacheCursorFactory
 
     public final class KafkaCacheCursor implements AutoCloseable
     {
+        private final KafkaCacheDeltaFW deltaRO = new KafkaCacheDeltaFW();
+
         private final KafkaFilterCondition condition;
         private final KafkaDeltaType deltaType;
         private final LongHashSet deltaKeyOffsets; // TODO: bounded LongHashCache, evict -> discard
+        private final Int2ObjectHashMap<KafkaCacheEntryFormat> entryFormats;
 
         private Node segmentNode;
         private KafkaCacheSegment segment;
         private long offset;
         private long latestOffset;
         private long cursor;
+        private int prefetchAt;
+        private long nextAncestor;
+        private OctetsFW nextValue;
 
         KafkaCacheCursor(
             KafkaFilterCondition condition,
@@ -94,6 +103,7 @@ public final class KafkaCacheCursorFactory
             this.condition = condition;
             this.deltaType = deltaType;
             this.deltaKeyOffsets = new LongHashSet();
+            this.entryFormats = new Int2ObjectHashMap<>();
         }
 
         public void init(
@@ -119,18 +129,20 @@ public final class KafkaCacheCursorFactory
             }
             this.segmentNode = segmentNode;
             this.segment = newSegment;
+            this.segment.touch();
 
             assert this.segmentNode != null;
             assert this.segment != null;
 
             final long cursor = condition.reset(segment, offset, latestOffset, POSITION_UNSET);
             this.cursor = cursorRetryValue(cursor) || cursor == NEXT_SEGMENT ? 0L : cursor;
+            this.prefetchAt = 0;
         }
 
-        public KafkaCacheEntryFW next(
-            KafkaCacheEntryFW cacheEntry)
+        public KafkaCacheEntry next(
+            KafkaCacheEntry cacheEntry)
         {
-            KafkaCacheEntryFW nextEntry = null;
+            KafkaCacheEntry nextEntry = null;
 
             next:
             while (nextEntry == null)
@@ -150,6 +162,7 @@ public final class KafkaCacheCursorFactory
                         break next;
                     }
 
+                    segment.touch();
                     segment.release();
 
                     KafkaCacheSegment newSegment;
@@ -171,6 +184,7 @@ public final class KafkaCacheCursorFactory
 
                     final long cursor = condition.reset(segment, offset, latestOffset, POSITION_UNSET);
                     this.cursor = cursorRetryValue(cursor) || cursor == NEXT_SEGMENT ? 0L : cursor;
+                    this.prefetchAt = 0;
                     continue;
                 }
 
@@ -180,10 +194,15 @@ public final class KafkaCacheCursorFactory
                 assert position >= 0;
 
                 assert segment != null;
-                final KafkaCacheFile logFile = segment.logFile();
-                assert logFile != null;
+                if (position >= prefetchAt)
+                {
+                    this.prefetchAt = condition.sequential() ? segmentNode.prefetch(segment, index, position) : NO_PREFETCH;
+                }
+
+                final KafkaCacheEntryFormat entryFormat =
+                        entryFormats.computeIfAbsent(segment.entryFormat(), KafkaCacheEntryFormat::newEntryFormat);
 
-                nextEntry = logFile.readBytes(position, cacheEntry::wrap);
+                nextEntry = entryFormat.readEntry(segment, position, cacheEntry);
                 assert nextEntry != null;
 
                 final long nextOffset = nextEntry.offset$();
@@ -194,9 +213,15 @@ public final class KafkaCacheCursorFactory
                     nextEntry = null;
                 }
 
-                if (nextEntry != null && deltaType != KafkaDeltaType.NONE)
+                if (nextEntry != null)
                 {
-                    nextEntry = markAncestorIfNecessary(cacheEntry, nextEntry);
+                    this.nextAncestor = nextEntry.ancestor();
+                    this.nextValue = nextEntry.value();
+
+                    if (deltaType != KafkaDeltaType.NONE)
+                    {
+                        markAncestorIfNecessary(nextEntry);
+                    }
                 }
 
                 if (nextEntry == null)
@@ -213,9 +238,18 @@ public final class KafkaCacheCursorFactory
             return nextEntry;
         }
 
-        private KafkaCacheEntryFW markAncestorIfNecessary(
-            KafkaCacheEntryFW cacheEntry,
-            KafkaCacheEntryFW nextEntry)
+        public long ancestor()
+        {
+            return nextAncestor;
+        }
+
+        public OctetsFW value()
+        {
+            return nextValue;
+        }
+
+        private void markAncestorIfNecessary(
+            KafkaCacheEntry nextEntry)
         {
             final long ancestorOffset = nextEntry.ancestor();
 
@@ -234,33 +268,18 @@ public final class KafkaCacheCursorFactory
                     {
                         final KafkaCacheFile deltaFile = segment.deltaFile();
                         final KafkaCacheDeltaFW delta = deltaFile.readBytes(deltaPosition, deltaRO::wrap);
-                        final DirectBuffer entryBuffer = nextEntry.buffer();
-                        final KafkaKeyFW key = nextEntry.key();
-                        final int entryOffset = nextEntry.offset();
-                        final ArrayFW<KafkaHeaderFW> headers = nextEntry.headers();
-
-                        final int sizeofEntryHeader = key.limit() - nextEntry.offset();
-                        writeBuffer.putBytes(0, entryBuffer, entryOffset, sizeofEntryHeader);
-                        writeBuffer.putBytes(sizeofEntryHeader, delta.buffer(), delta.offset(), delta.sizeof());
-                        writeBuffer.putBytes(sizeofEntryHeader + delta.sizeof(),
-                                headers.buffer(), headers.offset(), headers.sizeof());
-
-                        final int sizeofEntry = sizeofEntryHeader + delta.sizeof() + headers.sizeof();
-                        nextEntry = cacheEntry.wrap(writeBuffer, 0, sizeofEntry);
+                        this.nextValue = delta.value();
                     }
                     else
                     {
                         // TODO: consider moving message to next segmentNode if delta exceeds size limit instead
                         //       still need to handle implicit snapshot case
-                        writeBuffer.putBytes(0, nextEntry.buffer(), nextEntry.offset(), nextEntry.sizeof());
-                        writeBuffer.putLong(KafkaCacheEntryFW.FIELD_OFFSET_ANCESTOR, -1L);
-                        nextEntry = cacheEntry.wrap(writeBuffer, 0, writeBuffer.capacity());
+                        this.nextAncestor = -1L;
                     }
                 }
 
                 deltaKeyOffsets.add(partitionOffset);
             }
-            return nextEntry;
         }
 
         public void advance(
@@ -276,6 +295,7 @@ public final class KafkaCacheCursorFactory
             KafkaCacheSegment newSegment = segmentNode.segment();
             if (segment != newSegment)
             {
+                segment.touch();
                 segment.release();
 
                 Node newSegmentNode = segmentNode;
@@ -297,6 +317,7 @@ public final class KafkaCacheCursorFactory
 
                 final long cursor = condition.reset(segment, offset, latestOffset, POSITION_UNSET);
                 this.cursor = cursorRetryValue(cursor) || cursor == NEXT_SEGMENT ? 0L : cursor;
+                this.prefetchAt = 0;
             }
         }
 
@@ -305,6 +326,7 @@ public final class KafkaCacheCursorFactory
         {
             if (segmentNode != null)
             {
+                segment.touch();
                 segment.release();
                 segmentNode = null;
                 segment = null;
@@ -331,7 +353,12 @@ public final class KafkaCacheCursorFactory
             long cursor);
 
         public abstract boolean test(
-            KafkaCacheEntryFW cacheEntry);
+            KafkaCacheEntry cacheEntry);
+
+        public boolean sequential()
+        {
+            return false;
+        }
 
         private static final class None extends KafkaFilterCondition
         {
@@ -375,11 +402,17 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 return cacheEntry != null;
             }
 
+            @Override
+            public boolean sequential()
+            {
+                return true;
+            }
+
             @Override
             public String toString()
             {
@@ -390,10 +423,11 @@ public final class KafkaCacheCursorFactory
         private abstract static class Equals extends KafkaFilterCondition
         {
             private final int hash;
+            private final long wideHash;
             private final DirectBuffer value;
-            private final DirectBuffer comparable;
 
             private KafkaCacheIndexFile hashFile;
+            private int indexHash;
 
             @Override
             public final long reset(
@@ -410,6 +444,7 @@ public final class KafkaCacheCursorFactory
                     assert hashFile != null;
 
                     this.hashFile = hashFile;
+                    this.indexHash = hashFile.wide() ? (int) wideHash : hash;
 
                     if (position == POSITION_UNSET)
                     {
@@ -419,13 +454,15 @@ public final class KafkaCacheCursorFactory
                         position = cursorValue(indexFile.first(offsetDelta));
                     }
 
-                    cursor = hashFile.first(hash);
+                    cursor = hashFile.first(indexHash);
                     if (cursorValue(cursor) != cursorValue(RETRY_SEGMENT))
                     {
                         final int cursorIndex = cursorIndex(cursor);
                         final long cursorFirstHashWithPosition = cursor(cursorIndex, position);
-                        cursor = hashFile.ceiling(hash, cursorFirstHashWithPosition);
+                        cursor = hashFile.ceiling(indexHash, cursorFirstHashWithPosition);
                     }
+
+                    cursor = ceilingWideHash(cursor);
                 }
                 else
                 {
@@ -442,11 +479,44 @@ public final class KafkaCacheCursorFactory
                 long cursorNext = NEXT_SEGMENT;
                 if (hashFile != null)
                 {
-                    cursorNext = hashFile.ceiling(hash, cursor);
+                    cursorNext = ceilingWideHash(hashFile.ceiling(indexHash, cursor));
                 }
                 return cursorNext;
             }
 
+            private long ceilingWideHash(
+                long cursor)
+            {
+                final KafkaCacheIndexFile hashFile = this.hashFile;
+
+                // skip 32-bit index hash collisions without reading the log
+                if (hashFile.wide())
+                {
+                    while (cursor != NEXT_SEGMENT &&
+                           !cursorRetryValue(cursor) &&
+                           hashFile.extension(cursor) != wideHash)
+                    {
+                        cursor = hashFile.ceiling(indexHash, nextIndex(cursor));
+                    }
+                }
+
+                return cursor;
+            }
+
+            @Override
+            public final int hashCode()
+            {
+                return hash;
+            }
+
+            @Override
+            public final boolean equals(
+                Object obj)
+            {
+                return this == obj ||
+                    (obj != null && obj.getClass() == getClass() && value.equals(((Equals) obj).value));
+            }
+
             @Override
             public final String toString()
             {
@@ -461,14 +531,13 @@ public final class KafkaCacheCursorFactory
             {
                 this.value = copyBuffer(buffer, index, length);
                 this.hash = computeHash(buffer, index, length, checksum);
-                this.comparable = new UnsafeBuffer();
+                this.wideHash = wideHash(buffer, index, length);
             }
 
             protected final boolean test(
-                Flyweight header)
+                Flyweight flyweight)
             {
-                comparable.wrap(header.buffer(), header.offset(), header.sizeof());
-                return comparable.compareTo(value) == 0;
+                return equalsValue(flyweight, value);
             }
         }
 
@@ -512,11 +581,30 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 return cacheEntry != null;
             }
 
+            @Override
+            public boolean sequential()
+            {
+                return true;
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return getClass().hashCode();
+            }
+
+            @Override
+            public boolean equals(
+                Object obj)
+            {
+                return this == obj || (obj != null && obj.getClass() == getClass());
+            }
+
             @Override
             public String toString()
             {
@@ -535,7 +623,7 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 return test(cacheEntry.key());
             }
@@ -543,24 +631,56 @@ public final class KafkaCacheCursorFactory
 
         private static final class Header extends Equals
         {
-            private final MutableBoolean match;
+            private final Predicate<KafkaHeaderFW> matches;
 
             private Header(
                 CRC32C checksum,
                 KafkaHeaderFW header)
             {
                 super(checksum, header.buffer(), header.offset(), header.sizeof());
-                this.match = new MutableBoolean();
+                this.matches = this::test;
             }
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 final ArrayFW<KafkaHeaderFW> headers = cacheEntry.headers();
-                match.value = false;
-                headers.forEach(header -> match.value |= test(header));
-                return match.value;
+                return headers.matchFirst(matches) != null;
+            }
+        }
+
+        private static final class UnindexedHeader extends Age
+        {
+            private final DirectBuffer value;
+            private final Predicate<KafkaHeaderFW> matches;
+
+            private UnindexedHeader(
+                KafkaHeaderFW header)
+            {
+                this.value = copyBuffer(header.buffer(), header.offset(), header.sizeof());
+                this.matches = h -> equalsValue(h, value);
+            }
+
+            @Override
+            public boolean test(
+                KafkaCacheEntry cacheEntry)
+            {
+                return super.test(cacheEntry) && cacheEntry.headers().matchFirst(matches) != null;
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return value.hashCode();
+            }
+
+            @Override
+            public boolean equals(
+                Object obj)
+            {
+                return this == obj ||
+                    (obj instanceof UnindexedHeader && value.equals(((UnindexedHeader) obj).value));
             }
         }
 
@@ -585,7 +705,7 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 return super.test(cacheEntry) && cacheEntry.offset$() > historical;
             }
@@ -612,7 +732,7 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 return super.test(cacheEntry) && cacheEntry.offset$() <= historical;
             }
@@ -620,12 +740,12 @@ public final class KafkaCacheCursorFactory
 
         private static final class And extends KafkaFilterCondition
         {
-            private final List<KafkaFilterCondition> conditions;
+            private final KafkaFilterCondition[] conditions;
 
             private And(
                 List<KafkaFilterCondition> conditions)
             {
-                this.conditions = conditions;
+                this.conditions = conditions.toArray(new KafkaFilterCondition[0]);
             }
 
             @Override
@@ -649,9 +769,9 @@ public final class KafkaCacheCursorFactory
 
                     long nextCursorMax = 0;
 
-                    for (int i = 0; i < conditions.size(); i++)
+                    for (int i = 0; i < conditions.length; i++)
                     {
-                        final KafkaFilterCondition condition = conditions.get(i);
+                        final KafkaFilterCondition condition = conditions[i];
                         final long nextCursor = condition.reset(segment, offset, latestOffset, position);
 
                         nextCursorMin = minByValue(nextCursor, nextCursorMin);
@@ -689,9 +809,9 @@ public final class KafkaCacheCursorFactory
 
                     final long nextCursorAnd = nextCursorMax;
 
-                    for (int i = 0; i < conditions.size(); i++)
+                    for (int i = 0; i < conditions.length; i++)
                     {
-                        final KafkaFilterCondition condition = conditions.get(i);
+                        final KafkaFilterCondition condition = conditions[i];
                         nextCursor = condition.next(nextCursorAnd);
 
                         nextCursorMin = minByValue(nextCursor, nextCursorMin);
@@ -718,32 +838,46 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 boolean accept = true;
-                for (int i = 0; accept && i < conditions.size(); i++)
+                for (int i = 0; accept && i < conditions.length; i++)
                 {
-                    final KafkaFilterCondition condition = conditions.get(i);
+                    final KafkaFilterCondition condition = conditions[i];
                     accept &= condition.test(cacheEntry);
                 }
                 return accept;
             }
 
+            @Override
+            public int hashCode()
+            {
+                return Arrays.hashCode(conditions);
+            }
+
+            @Override
+            public boolean equals(
+                Object obj)
+            {
+                return this == obj ||
+                    (obj instanceof And && Arrays.equals(conditions, ((And) obj).conditions));
+            }
+
             @Override
             public String toString()
             {
-                return String.format("%s%s", getClass().getSimpleName(), conditions);
+                return String.format("%s%s", getClass().getSimpleName(), Arrays.toString(conditions));
             }
         }
 
         private static final class Or extends KafkaFilterCondition
         {
-            private final List<KafkaFilterCondition> conditions;
+            private final KafkaFilterCondition[] conditions;
 
             private Or(
                 List<KafkaFilterCondition> conditions)
             {
-                this.conditions = conditions;
+                this.conditions = conditions.toArray(new KafkaFilterCondition[0]);
             }
 
             @Override
@@ -766,9 +900,9 @@ public final class KafkaCacheCursorFactory
                     }
 
                     nextCursorMin = NEXT_SEGMENT;
-                    for (int i = 0; i < conditions.size(); i++)
+                    for (int i = 0; i < conditions.length; i++)
                     {
-                        final KafkaFilterCondition condition = conditions.get(i);
+                        final KafkaFilterCondition condition = conditions[i];
                         final long nextCursor = condition.reset(segment, offset, latestOffset, position);
                         nextCursorMin = minByValue(nextCursor, nextCursorMin);
                     }
@@ -782,9 +916,9 @@ public final class KafkaCacheCursorFactory
                 long cursor)
             {
                 long nextCursorMin = NEXT_SEGMENT;
-                for (int i = 0; i < conditions.size(); i++)
+                for (int i = 0; i < conditions.length; i++)
                 {
-                    final KafkaFilterCondition condition = conditions.get(i);
+                    final KafkaFilterCondition condition = conditions[i];
                     final long nextCursor = condition.next(cursor);
                     nextCursorMin = minByValue(nextCursor, nextCursorMin);
                 }
@@ -794,22 +928,60 @@ public final class KafkaCacheCursorFactory
 
             @Override
             public boolean test(
-                KafkaCacheEntryFW cacheEntry)
+                KafkaCacheEntry cacheEntry)
             {
                 boolean accept = false;
-                for (int i = 0; !accept && i < conditions.size(); i++)
+                for (int i = 0; !accept && i < conditions.length; i++)
                 {
-                    final KafkaFilterCondition condition = conditions.get(i);
+                    final KafkaFilterCondition condition = conditions[i];
                     accept |= condition.test(cacheEntry);
                 }
                 return accept;
             }
 
+            @Override
+            public int hashCode()
+            {
+                return Arrays.hashCode(conditions);
+            }
+
+            @Override
+            public boolean equals(
+                Object obj)
+            {
+                return this == obj ||
+                    (obj instanceof Or && Arrays.equals(conditions, ((Or) obj).conditions));
+            }
+
             @Override
             public String toString()
             {
-                return String.format("%s%s", getClass().getSimpleName(), conditions);
+                return String.format("%s%s", getClass().getSimpleName(), Arrays.toString(conditions));
+            }
+        }
+
+        static boolean equalsValue(
+            Flyweight flyweight,
+            DirectBuffer value)
+        {
+            final DirectBuffer buffer = flyweight.buffer();
+            final int offset = flyweight.offset();
+            final int length = value.capacity();
+
+            boolean matches = flyweight.sizeof() == length;
+
+            int progress = 0;
+            for (; matches && progress + Long.BYTES <= length; progress += Long.BYTES)
+            {
+                matches = buffer.getLong(offset + progress) == value.getLong(progress);
+            }
+
+            for (; matches && progress < length; progress++)
+            {
+                matches = buffer.getByte(offset + progress) == value.getByte(progress);
             }
+
+            return matches;
         }
 
         private static DirectBuffer copyBuffer(
@@ -826,7 +998,7 @@ public final class KafkaCacheCursorFactory
             DirectBuffer buffer,
             int index,
             int length,
-            CRC32C checksum)
+            Checksum checksum)
         {
             final ByteBuffer byteBuffer = buffer.byteBuffer();
             assert byteBuffer != null;
@@ -841,6 +1013,13 @@ public final class KafkaCacheCursorFactory
 
     public KafkaFilterCondition asCondition(
         ArrayFW<KafkaFilterFW> filters)
+    {
+        return asCondition(filters, KafkaCacheHeaderIndexPolicy.ALL);
+    }
+
+    public KafkaFilterCondition asCondition(
+        ArrayFW<KafkaFilterFW> filters,
+        KafkaCacheHeaderIndexPolicy headerIndexPolicy)
     {
         KafkaFilterCondition condition;
         if (filters.isEmpty())
@@ -850,24 +1029,32 @@ public final class KafkaCacheCursorFactory
         else
         {
             final List<KafkaFilterCondition> asConditions = new ArrayList<>();
-            filters.forEach(f -> asConditions.add(asCondition(f)));
+            filters.forEach(f -> addIfAbsent(asConditions, asCondition(f, headerIndexPolicy)));
+            asConditions.sort(INDEXED_FIRST);
             condition = asConditions.size() == 1 ? asConditions.get(0) : new KafkaFilterCondition.Or(asConditions);
         }
         return condition;
     }
 
     private KafkaFilterCondition asCondition(
-        KafkaFilterFW filter)
+        KafkaFilterFW filter,
+        KafkaCacheHeaderIndexPolicy headerIndexPolicy)
     {
         final ArrayFW<KafkaConditionFW> conditions = filter.conditions();
         assert !conditions.isEmpty();
         List<KafkaFilterCondition> asConditions = new ArrayList<>();
-        conditions.forEach(c -> asConditions.add(asCondition(c)));
+        conditions.forEach(c -> addIfAbsent(asConditions, asCondition(c, headerIndexPolicy)));
+
+        // indexed conditions first, so the merge join can skip to the next segment sooner,
+        // then by hash, so reordered filters share one canonical form
+        asConditions.sort(INDEXED_FIRST);
+
         return asConditions.size() == 1 ? asConditions.get(0) : new KafkaFilterCondition.And(asConditions);
     }
 
     private KafkaFilterCondition asCondition(
-        KafkaConditionFW condition)
+        KafkaConditionFW condition,
+        KafkaCacheHeaderIndexPolicy headerIndexPolicy)
     {
         KafkaFilterCondition asCondition = null;
 
@@ -877,7 +1064,7 @@ public final class KafkaCacheCursorFactory
             asCondition = asKeyCondition(condition.key());
             break;
         case KafkaConditionFW.KIND_HEADER:
-            asCondition = asHeaderCondition(condition.header());
+            asCondition = asHeaderCondition(condition.header(), headerIndexPolicy);
             break;
         case KafkaConditionFW.KIND_AGE:
             asCondition = asAgeCondition(condition.age());
@@ -897,9 +1084,12 @@ public final class KafkaCacheCursorFactory
     }
 
     private KafkaFilterCondition asHeaderCondition(
-        KafkaHeaderFW header)
+        KafkaHeaderFW header,
+        KafkaCacheHeaderIndexPolicy headerIndexPolicy)
     {
-        return new KafkaFilterCondition.Header(checksum, header);
+        return headerIndexPolicy.indexes(header)
+                ? new KafkaFilterCondition.Header(checksum, header)
+                : new KafkaFilterCondition.UnindexedHeader(header);
     }
 
     private KafkaFilterCondition asAgeCondition(
@@ -918,6 +1108,16 @@ public final class KafkaCacheCursorFactory
         return condition;
     }
 
+    private static void addIfAbsent(
+        List<KafkaFilterCondition> conditions,
+        KafkaFilterCondition condition)
+    {
+        if (!conditions.contains(condition))
+        {
+            conditions.add(condition);
+        }
+    }
+
     private static KafkaFilterCondition.Key initNullKeyInfo(
         CRC32C checksum)
     {
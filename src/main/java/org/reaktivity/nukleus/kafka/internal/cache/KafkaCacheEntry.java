@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import org.agrona.DirectBuffer;
+import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
+import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
+
+public final class KafkaCacheEntry
+{
+    private final KafkaKeyFW keyRO = new KafkaKeyFW();
+    private final OctetsFW valueRO = new OctetsFW();
+    private final Array32FW<KafkaHeaderFW> headersRO = new Array32FW<>(new KafkaHeaderFW());
+
+    private DirectBuffer buffer;
+    private int offset;
+    private long partitionOffset;
+    private long timestamp;
+    private long ancestor;
+    private long descendant;
+    private int flags;
+    private int deltaPosition;
+    private int valueLen;
+
+    public DirectBuffer buffer()
+    {
+        return buffer;
+    }
+
+    public int offset()
+    {
+        return offset;
+    }
+
+    public int limit()
+    {
+        return headersRO.limit();
+    }
+
+    public int sizeof()
+    {
+        return limit() - offset;
+    }
+
+    public long offset$()
+    {
+        return partitionOffset;
+    }
+
+    public long timestamp()
+    {
+        return timestamp;
+    }
+
+    public long ancestor()
+    {
+        return ancestor;
+    }
+
+    public long descendant()
+    {
+        return descendant;
+    }
+
+    public int flags()
+    {
+        return flags;
+    }
+
+    public int deltaPosition()
+    {
+        return deltaPosition;
+    }
+
+    public KafkaKeyFW key()
+    {
+        return keyRO;
+    }
+
+    public int valueLen()
+    {
+        return valueLen;
+    }
+
+    public OctetsFW value()
+    {
+        return valueLen != -1 ? valueRO : null;
+    }
+
+    public Array32FW<KafkaHeaderFW> headers()
+    {
+        return headersRO;
+    }
+
+    KafkaCacheEntry wrap(
+        DirectBuffer buffer,
+        int offset,
+        int maxLimit,
+        long partitionOffset,
+        long timestamp,
+        long ancestor,
+        long descendant,
+        int flags,
+        int deltaPosition,
+        int keyOffset,
+        int valueOffset,
+        int valueLen)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.partitionOffset = partitionOffset;
+        this.timestamp = timestamp;
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.flags = flags;
+        this.deltaPosition = deltaPosition;
+        this.valueLen = valueLen;
+
+        final int valueLimit = valueOffset + Math.max(valueLen, 0);
+        keyRO.wrap(buffer, keyOffset, valueOffset);
+        valueRO.wrap(buffer, valueOffset, valueLimit);
+        headersRO.wrap(buffer, valueLimit, maxLimit);
+
+        return this;
+    }
+}
@@ -0,0 +1,383 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW.FIELD_OFFSET_DESCENDANT;
+import static org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW.FIELD_OFFSET_FLAGS;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
+import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
+import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW;
+
+public abstract class KafkaCacheEntryFormat
+{
+    public static final int VERSION_1 = 1;
+    public static final int VERSION_2 = 2;
+
+    static final int CACHE_ENTRY_FLAGS_DIRTY = 0x01;
+
+    private static final long NO_ANCESTOR_OFFSET = -1L;
+    private static final long NO_DESCENDANT_OFFSET = -1L;
+
+    // note: instances hold scratch state, so each reader or writer needs its own instance
+    public static KafkaCacheEntryFormat newEntryFormat(
+        int version)
+    {
+        KafkaCacheEntryFormat format;
+
+        switch (version)
+        {
+        case VERSION_1:
+            format = new V1();
+            break;
+        case VERSION_2:
+            format = new V2();
+            break;
+        default:
+            throw new IllegalArgumentException(String.format("Unsupported cache entry format: %d", version));
+        }
+
+        return format;
+    }
+
+    public abstract int version();
+
+    public abstract int sizeofEntryHeaderMax();
+
+    public abstract void appendEntryHeader(
+        KafkaCacheSegment segment,
+        long offset,
+        long timestamp,
+        long ancestorOffset,
+        long descendantOffset,
+        int flags,
+        int deltaPosition,
+        KafkaKeyFW key,
+        int valueLength);
+
+    public abstract KafkaCacheEntry readEntry(
+        KafkaCacheSegment segment,
+        int position,
+        KafkaCacheEntry entry);
+
+    public abstract int limit(
+        KafkaCacheSegment segment,
+        int position);
+
+    public abstract void markDescendantAndDirty(
+        KafkaCacheSegment segment,
+        int position,
+        long descendantOffset);
+
+    public static final class V1 extends KafkaCacheEntryFormat
+    {
+        private static final int SIZEOF_ENTRY_INFO = 4 * Long.BYTES + 2 * Integer.BYTES;
+
+        private final KafkaCacheEntryFW entryRO = new KafkaCacheEntryFW();
+        private final MutableDirectBuffer entryInfo = new UnsafeBuffer(new byte[SIZEOF_ENTRY_INFO]);
+        private final Flyweight.Visitor<KafkaCacheEntryFW> wrapEntry = entryRO::wrap;
+        private final KafkaCacheFile.BlockBuffer blockBuf = new KafkaCacheFile.BlockBuffer();
+
+        @Override
+        public int version()
+        {
+            return VERSION_1;
+        }
+
+        @Override
+        public int sizeofEntryHeaderMax()
+        {
+            return SIZEOF_ENTRY_INFO + Integer.BYTES;
+        }
+
+        @Override
+        public void appendEntryHeader(
+            KafkaCacheSegment segment,
+            long offset,
+            long timestamp,
+            long ancestorOffset,
+            long descendantOffset,
+            int flags,
+            int deltaPosition,
+            KafkaKeyFW key,
+            int valueLength)
+        {
+            final KafkaCacheFile logFile = segment.logFile();
+
+            entryInfo.putLong(0, offset);
+            entryInfo.putLong(Long.BYTES, timestamp);
+            entryInfo.putLong(2 * Long.BYTES, ancestorOffset);
+            entryInfo.putLong(3 * Long.BYTES, descendantOffset);
+            entryInfo.putInt(4 * Long.BYTES, flags);
+            entryInfo.putInt(4 * Long.BYTES + Integer.BYTES, deltaPosition);
+
+            logFile.appendBytes(entryInfo);
+            logFile.appendBytes(key);
+            logFile.appendInt(valueLength);
+        }
+
+        @Override
+        public KafkaCacheEntry readEntry(
+            KafkaCacheSegment segment,
+            int position,
+            KafkaCacheEntry entry)
+        {
+            final KafkaCacheEntryFW entryFW = segment.logView().readBytes(position, wrapEntry, blockBuf);
+            final KafkaKeyFW key = entryFW.key();
+
+            return entry.wrap(entryFW.buffer(), entryFW.offset(), entryFW.limit(),
+                    entryFW.offset$(), entryFW.timestamp(), entryFW.ancestor(), entryFW.descendant(),
+                    entryFW.flags(), entryFW.deltaPosition(), key.offset(), key.limit() + Integer.BYTES, entryFW.valueLen());
+        }
+
+        @Override
+        public int limit(
+            KafkaCacheSegment segment,
+            int position)
+        {
+            return position + segment.logView().readBytes(position, wrapEntry, blockBuf).sizeof();
+        }
+
+        @Override
+        public void markDescendantAndDirty(
+            KafkaCacheSegment segment,
+            int position,
+            long descendantOffset)
+        {
+            final KafkaCacheFile logFile = segment.logFile();
+            logFile.writeLong(position + FIELD_OFFSET_DESCENDANT, descendantOffset);
+            logFile.writeInt(position + FIELD_OFFSET_FLAGS, CACHE_ENTRY_FLAGS_DIRTY);
+            segment.markDirtyBytes(limit(segment, position) - position);
+        }
+    }
+
+    // descendant (int32 relative to offset), flags (int8), varint offset and timestamp relative to segment,
+    // varint ancestor relative to offset, varint delta position, key, varint value length, value, headers
+    public static final class V2 extends KafkaCacheEntryFormat
+    {
+        private static final int FIELD_OFFSET_V2_DESCENDANT = 0;
+        private static final int FIELD_OFFSET_V2_FLAGS = FIELD_OFFSET_V2_DESCENDANT + Integer.BYTES;
+        private static final int FIELD_OFFSET_V2_VARINTS = FIELD_OFFSET_V2_FLAGS + Byte.BYTES;
+
+        private static final int NO_DESCENDANT_DELTA = 0;
+
+        private static final int SIZEOF_VARINT32_MAX = 5;
+        private static final int SIZEOF_VARINT64_MAX = 10;
+        private static final int SIZEOF_ENTRY_INFO_MAX =
+                FIELD_OFFSET_V2_VARINTS + SIZEOF_VARINT32_MAX + 2 * SIZEOF_VARINT64_MAX + SIZEOF_VARINT32_MAX;
+
+        private final KafkaKeyFW keyRO = new KafkaKeyFW();
+        private final Array32FW<KafkaHeaderFW> headersRO = new Array32FW<>(new KafkaHeaderFW());
+
+        private final MutableDirectBuffer entryInfo = new UnsafeBuffer(new byte[SIZEOF_ENTRY_INFO_MAX]);
+        private final Flyweight.Visitor<DirectBuffer> wrapLog = this::wrapLog;
+        private final KafkaCacheFile.BlockBuffer blockBuf = new KafkaCacheFile.BlockBuffer();
+
+        private int logIndex;
+        private int logMaxLimit;
+        private int progress;
+
+        @Override
+        public int version()
+        {
+            return VERSION_2;
+        }
+
+        @Override
+        public int sizeofEntryHeaderMax()
+        {
+            return SIZEOF_ENTRY_INFO_MAX + SIZEOF_VARINT32_MAX;
+        }
+
+        @Override
+        public void appendEntryHeader(
+            KafkaCacheSegment segment,
+            long offset,
+            long timestamp,
+            long ancestorOffset,
+            long descendantOffset,
+            int flags,
+            int deltaPosition,
+            KafkaKeyFW key,
+            int valueLength)
+        {
+            final KafkaCacheFile logFile = segment.logFile();
+            final long offsetDelta = offset - segment.baseOffset();
+            final long timestampDelta = timestamp - segment.baseTimestamp();
+            final long ancestorDelta = ancestorOffset != NO_ANCESTOR_OFFSET ? offset - ancestorOffset : 0L;
+            assert offsetDelta >= 0L && offsetDelta <= Integer.MAX_VALUE && ancestorDelta >= 0L;
+
+            entryInfo.putInt(FIELD_OFFSET_V2_DESCENDANT, descendantDelta(offset, descendantOffset));
+            entryInfo.putByte(FIELD_OFFSET_V2_FLAGS, (byte) flags);
+
+            int entryInfoLimit = FIELD_OFFSET_V2_VARINTS;
+            entryInfoLimit = putVarint(entryInfo, entryInfoLimit, offsetDelta);
+            entryInfoLimit = putVarint(entryInfo, entryInfoLimit, zigzag(timestampDelta));
+            entryInfoLimit = putVarint(entryInfo, entryInfoLimit, ancestorDelta);
+            entryInfoLimit = putVarint(entryInfo, entryInfoLimit, zigzag32(deltaPosition));
+
+            logFile.appendBytes(entryInfo, 0, entryInfoLimit);
+            logFile.appendBytes(key);
+
+            final int valueInfoLimit = putVarint(entryInfo, 0, zigzag32(valueLength));
+            logFile.appendBytes(entryInfo, 0, valueInfoLimit);
+        }
+
+        @Override
+        public KafkaCacheEntry readEntry(
+            KafkaCacheSegment segment,
+            int position,
+            KafkaCacheEntry entry)
+        {
+            final DirectBuffer buffer = segment.logView().readBytes(position, wrapLog, blockBuf);
+            final int index = logIndex;
+            final int maxLimit = logMaxLimit;
+
+            final int descendantDelta = buffer.getInt(index + FIELD_OFFSET_V2_DESCENDANT);
+            final int flags = buffer.getByte(index + FIELD_OFFSET_V2_FLAGS) & 0xff;
+
+            progress = index + FIELD_OFFSET_V2_VARINTS;
+            final long offset = segment.baseOffset() + getVarint(buffer);
+            final long timestamp = segment.baseTimestamp() + unzigzag(getVarint(buffer));
+            final long ancestorDelta = getVarint(buffer);
+            final int deltaPosition = (int) unzigzag(getVarint(buffer));
+
+            final int keyOffset = progress;
+            progress = keyRO.wrap(buffer, keyOffset, maxLimit).limit();
+
+            final int valueLength = (int) unzigzag(getVarint(buffer));
+
+            final long ancestor = ancestorDelta != 0L ? offset - ancestorDelta : NO_ANCESTOR_OFFSET;
+            final long descendant = descendantDelta != NO_DESCENDANT_DELTA ? offset + descendantDelta : NO_DESCENDANT_OFFSET;
+
+            return entry.wrap(buffer, index, maxLimit, offset, timestamp, ancestor, descendant,
+                    flags, deltaPosition, keyOffset, progress, valueLength);
+        }
+
+        @Override
+        public int limit(
+            KafkaCacheSegment segment,
+            int position)
+        {
+            final DirectBuffer buffer = segment.logView().readBytes(position, wrapLog, blockBuf);
+            final int index = logIndex;
+            final int maxLimit = logMaxLimit;
+
+            progress = index + FIELD_OFFSET_V2_VARINTS;
+            getVarint(buffer);
+            getVarint(buffer);
+            getVarint(buffer);
+            getVarint(buffer);
+
+            progress = keyRO.wrap(buffer, progress, maxLimit).limit();
+
+            final int valueLength = (int) unzigzag(getVarint(buffer));
+            final int valueLimit = progress + Math.max(valueLength, 0);
+
+            return position + headersRO.wrap(buffer, valueLimit, maxLimit).limit() - index;
+        }
+
+        @Override
+        public void markDescendantAndDirty(
+            KafkaCacheSegment segment,
+            int position,
+            long descendantOffset)
+        {
+            final DirectBuffer buffer = segment.logView().readBytes(position, wrapLog, blockBuf);
+            progress = logIndex + FIELD_OFFSET_V2_VARINTS;
+            final long offset = segment.baseOffset() + getVarint(buffer);
+
+            final KafkaCacheFile logFile = segment.logFile();
+            logFile.writeInt(position + FIELD_OFFSET_V2_DESCENDANT, descendantDelta(offset, descendantOffset));
+            logFile.writeByte(position + FIELD_OFFSET_V2_FLAGS, (byte) CACHE_ENTRY_FLAGS_DIRTY);
+            segment.markDirtyBytes(limit(segment, position) - position);
+        }
+
+        private long getVarint(
+            DirectBuffer buffer)
+        {
+            long value = 0L;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = buffer.getByte(progress++);
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return value;
+        }
+
+        private static int putVarint(
+            MutableDirectBuffer buffer,
+            int index,
+            long value)
+        {
+            while ((value & ~0x7fL) != 0L)
+            {
+                buffer.putByte(index++, (byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            buffer.putByte(index++, (byte) value);
+
+            return index;
+        }
+
+        private static int descendantDelta(
+            long offset,
+            long descendantOffset)
+        {
+            final long descendantDelta = descendantOffset != NO_DESCENDANT_OFFSET ? descendantOffset - offset : 0L;
+
+            // descendant is only a hint to skip superseded entries, so omit it when too distant to encode
+            return descendantDelta > 0L && descendantDelta <= Integer.MAX_VALUE ? (int) descendantDelta : NO_DESCENDANT_DELTA;
+        }
+
+        private static long zigzag(
+            long value)
+        {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long zigzag32(
+            int value)
+        {
+            return ((value << 1) ^ (value >> 31)) & 0xFFFF_FFFFL;
+        }
+
+        private static long unzigzag(
+            long value)
+        {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private DirectBuffer wrapLog(
+            DirectBuffer buffer,
+            int index,
+            int maxLimit)
+        {
+            this.logIndex = index;
+            this.logMaxLimit = maxLimit;
+            return buffer;
+        }
+    }
+}
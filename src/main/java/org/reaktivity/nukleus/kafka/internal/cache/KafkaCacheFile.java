@@ -15,31 +15,45 @@
  */
 package org.reaktivity.nukleus.kafka.internal.cache;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.function.IntFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.agrona.DirectBuffer;
 import org.agrona.IoUtil;
 import org.agrona.LangUtil;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntArrayList;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
 
-public class KafkaCacheFile implements AutoCloseable
+public class KafkaCacheFile implements KafkaCacheFileView
 {
     private static final String EXT_LOG = ".log";
+    private static final String EXT_LOG_RECOVER = ".log.recover";
+    private static final String EXT_ZLOG = ".zlog";
+    private static final String EXT_ZLOG_WORK = ".zlog.work";
     private static final String EXT_DELTA = ".delta";
     private static final String EXT_INDEX = ".index";
     private static final String EXT_HSCAN = ".hscan";
@@ -54,6 +68,9 @@ public class KafkaCacheFile implements AutoCloseable
 
     private static final String FORMAT_FILE = "%%019d%s";
     private static final String FORMAT_LOG_FILE = String.format(FORMAT_FILE, EXT_LOG);
+    private static final String FORMAT_LOG_RECOVER_FILE = String.format(FORMAT_FILE, EXT_LOG_RECOVER);
+    private static final String FORMAT_ZLOG_FILE = String.format(FORMAT_FILE, EXT_ZLOG);
+    private static final String FORMAT_ZLOG_WORK_FILE = String.format(FORMAT_FILE, EXT_ZLOG_WORK);
     private static final String FORMAT_DELTA_FILE = String.format(FORMAT_FILE, EXT_DELTA);
     private static final String FORMAT_INDEX_FILE = String.format(FORMAT_FILE, EXT_INDEX);
     private static final String FORMAT_HSCAN_FILE = String.format(FORMAT_FILE, EXT_HSCAN);
@@ -63,16 +80,19 @@ public class KafkaCacheFile implements AutoCloseable
     private static final String FORMAT_KSCAN_FILE = String.format(FORMAT_FILE, EXT_KSCAN);
     private static final String FORMAT_KINDEX_FILE = String.format(FORMAT_FILE, EXT_KINDEX);
 
+    private static final int PAGE_SIZE = 4096;
+
     private final Path location;
-    private final MappedByteBuffer mappedByteBuf;
-    private final MutableDirectBuffer mappedBuf;
     private final FileChannel appender;
     private final MutableDirectBuffer appendBuf;
     private final ByteBuffer appendByteBuf;
 
+    private volatile MappedByteBuffer mappedByteBuf;
+    private volatile MutableDirectBuffer mappedBuf;
     private volatile int maxCapacity;
     private volatile int capacity;   // only ever increases
     private int markValue;
+    private boolean forced;
 
     public KafkaCacheFile(
         Path location,
@@ -92,14 +112,14 @@ public class KafkaCacheFile implements AutoCloseable
     public KafkaCacheFile(
         Path location)
     {
+        final int size = sizeOf(location);
+
         this.location = location;
-        this.mappedByteBuf = mapReadWrite(location);
-        this.mappedBuf = new UnsafeBuffer(mappedByteBuf);
         this.appender = null;
         this.appendBuf = null;
         this.appendByteBuf = null;
-        this.capacity = mappedBuf.capacity();
-        this.maxCapacity = mappedBuf.capacity();
+        this.capacity = size;
+        this.maxCapacity = size;
     }
 
     public Path location()
@@ -117,6 +137,37 @@ public class KafkaCacheFile implements AutoCloseable
         return maxCapacity - capacity;
     }
 
+    public int size()
+    {
+        return appender != null ? capacity : maxCapacity;
+    }
+
+    public boolean mapped()
+    {
+        return mappedBuf != null;
+    }
+
+    public void map()
+    {
+        mappedBuf();
+    }
+
+    public int prefetch(
+        int position,
+        int length)
+    {
+        final DirectBuffer buffer = mappedBuf();
+        final int limit = (int) Math.min((long) position + length, capacity);
+
+        int touched = 0;
+        for (int index = position; index < limit; index += PAGE_SIZE)
+        {
+            touched += buffer.getByte(index);
+        }
+
+        return touched;
+    }
+
     public void mark()
     {
         this.markValue = capacity;
@@ -131,13 +182,22 @@ public class KafkaCacheFile implements AutoCloseable
         int position,
         Flyweight.Visitor<T> visitor)
     {
-        return visitor.visit(mappedBuf, position, capacity);
+        return visitor.visit(mappedBuf(), position, capacity);
+    }
+
+    @Override
+    public <T> T readBytes(
+        int position,
+        Flyweight.Visitor<T> visitor,
+        BlockBuffer blockBuf)
+    {
+        return readBytes(position, visitor);
     }
 
     public long readLong(
         int position)
     {
-        return mappedBuf.getLong(position);
+        return mappedBuf().getLong(position);
     }
 
     public void writeBytes(
@@ -146,21 +206,28 @@ public class KafkaCacheFile implements AutoCloseable
         int srcIndex,
         int length)
     {
-        mappedBuf.putBytes(position, srcBuffer, srcIndex, length);
+        mappedBuf().putBytes(position, srcBuffer, srcIndex, length);
     }
 
     public void writeLong(
         int position,
         long value)
     {
-        mappedBuf.putLong(position, value);
+        mappedBuf().putLong(position, value);
     }
 
     public void writeInt(
         int position,
         int value)
     {
-        mappedBuf.putInt(position, value);
+        mappedBuf().putInt(position, value);
+    }
+
+    public void writeByte(
+        int position,
+        byte value)
+    {
+        mappedBuf().putByte(position, value);
     }
 
     public boolean appendBytes(
@@ -250,6 +317,36 @@ public class KafkaCacheFile implements AutoCloseable
         return writable;
     }
 
+    public boolean appendLongs(
+        long value1,
+        long value2)
+    {
+        final int available = available();
+        final boolean writable = available >= Long.BYTES << 1;
+
+        if (writable)
+        {
+            try
+            {
+                appendByteBuf.clear();
+                appendBuf.putLong(0, value1);
+                appendBuf.putLong(Long.BYTES, value2);
+                appendByteBuf.limit(Long.BYTES << 1);
+
+                final int written = appender.write(appendByteBuf);
+                assert written == Long.BYTES << 1;
+
+                capacity += written;
+                assert capacity <= maxCapacity;
+            }
+            catch (IOException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+
+        return writable;
+    }
 
     public boolean appendInt(
         int value)
@@ -280,6 +377,30 @@ public class KafkaCacheFile implements AutoCloseable
         return writable;
     }
 
+    public void flush()
+    {
+        try
+        {
+            if (!forceAppender() && !forceMapped() && !forced)
+            {
+                // frozen and never mapped, so content is immutable and needs forcing only once
+                try (FileChannel channel = FileChannel.open(location, WRITE))
+                {
+                    channel.force(false);
+                }
+                forced = true;
+            }
+        }
+        catch (NoSuchFileException ex)
+        {
+            // deleted, nothing left to make durable
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+    }
+
     public void freeze()
     {
         try
@@ -300,6 +421,7 @@ public class KafkaCacheFile implements AutoCloseable
     {
         try
         {
+            // an existing mapping stays readable after unlink, so deleting never maps the file
             Files.deleteIfExists(location);
         }
         catch (IOException ex)
@@ -320,9 +442,62 @@ public class KafkaCacheFile implements AutoCloseable
     }
 
     @Override
-    public void close()
+    public synchronized void close()
+    {
+        if (mappedByteBuf != null)
+        {
+            IoUtil.unmap(mappedByteBuf);
+            mappedBuf = null;
+            mappedByteBuf = null;
+        }
+    }
+
+    private boolean forceAppender() throws IOException
+    {
+        boolean forced = false;
+
+        if (appender != null)
+        {
+            try
+            {
+                appender.force(false);
+                forced = true;
+            }
+            catch (ClosedChannelException ex)
+            {
+                // frozen concurrently, force via location instead
+            }
+        }
+
+        return forced;
+    }
+
+    private synchronized boolean forceMapped()
+    {
+        final MappedByteBuffer mappedByteBuf = this.mappedByteBuf;
+        if (mappedByteBuf != null)
+        {
+            mappedByteBuf.force();
+        }
+        return mappedByteBuf != null;
+    }
+
+    private MutableDirectBuffer mappedBuf()
+    {
+        final MutableDirectBuffer mappedBuf = this.mappedBuf;
+        return mappedBuf != null ? mappedBuf : mapIfNecessary();
+    }
+
+    private synchronized MutableDirectBuffer mapIfNecessary()
     {
-        IoUtil.unmap(mappedByteBuf);
+        if (mappedBuf == null)
+        {
+            final MappedByteBuffer mappedByteBuf = mapReadWrite(location);
+            this.mappedByteBuf = mappedByteBuf;
+            this.mappedBuf = new UnsafeBuffer(mappedByteBuf);
+        }
+
+        return mappedBuf;
     }
 
     private static MappedByteBuffer mapCreateAppend(
@@ -347,6 +522,23 @@ public class KafkaCacheFile implements AutoCloseable
         return mapped;
     }
 
+    private static int sizeOf(
+        Path file)
+    {
+        int size = 0;
+
+        try
+        {
+            size = (int) Files.size(file);
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        return size;
+    }
+
     private static MappedByteBuffer mapReadWrite(
         Path file)
     {
@@ -400,6 +592,422 @@ public class KafkaCacheFile implements AutoCloseable
         {
             super(location.resolve(String.format(FORMAT_LOG_FILE, baseOffset)));
         }
+
+        public static KafkaCacheFile recover(
+            Path location,
+            long baseOffset)
+        {
+            final Path log = location.resolve(String.format(FORMAT_LOG_FILE, baseOffset));
+            final Path recover = location.resolve(String.format(FORMAT_LOG_RECOVER_FILE, baseOffset));
+
+            try
+            {
+                // retain an earlier recover file, the log may be partially replayed already
+                if (!Files.exists(recover) && Files.exists(log))
+                {
+                    Files.move(log, recover, ATOMIC_MOVE);
+                }
+            }
+            catch (IOException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return Files.exists(recover) ? new KafkaCacheFile(recover) : null;
+        }
+    }
+
+    public static final class CompressedLog implements KafkaCacheFileView
+    {
+        private static final int FIELD_OFFSET_BLOCK_COUNT = 0;
+        private static final int FIELD_OFFSET_CAPACITY = FIELD_OFFSET_BLOCK_COUNT + Integer.BYTES;
+        private static final int FIELD_OFFSET_BLOCKS = FIELD_OFFSET_CAPACITY + Integer.BYTES;
+
+        private static final int FIELD_OFFSET_BLOCK_START = 0;
+        private static final int FIELD_OFFSET_BLOCK_LENGTH = FIELD_OFFSET_BLOCK_START + Integer.BYTES;
+        private static final int FIELD_OFFSET_BLOCK_DATA_OFFSET = FIELD_OFFSET_BLOCK_LENGTH + Integer.BYTES;
+        private static final int FIELD_OFFSET_BLOCK_DATA_LENGTH = FIELD_OFFSET_BLOCK_DATA_OFFSET + Integer.BYTES;
+        private static final int SIZEOF_BLOCK = FIELD_OFFSET_BLOCK_DATA_LENGTH + Integer.BYTES;
+
+        // inflation completes within each call, so only transient scratch state is shared per thread
+        private static final ThreadLocal<Inflation> INFLATION = ThreadLocal.withInitial(Inflation::new);
+
+        private final KafkaCacheFile zlogFile;
+        private final int blockCount;
+        private final int capacity;
+
+        public CompressedLog(
+            Path location,
+            long baseOffset)
+        {
+            this.zlogFile = new KafkaCacheFile(location.resolve(String.format(FORMAT_ZLOG_FILE, baseOffset)));
+            final DirectBuffer headerBuf = readHeader(zlogFile.location());
+            this.blockCount = headerBuf.getInt(FIELD_OFFSET_BLOCK_COUNT);
+            this.capacity = headerBuf.getInt(FIELD_OFFSET_CAPACITY);
+        }
+
+        @Override
+        public Path location()
+        {
+            return zlogFile.location();
+        }
+
+        @Override
+        public int capacity()
+        {
+            return capacity;
+        }
+
+        @Override
+        public int available()
+        {
+            return 0;
+        }
+
+        @Override
+        public int size()
+        {
+            return zlogFile.size();
+        }
+
+        @Override
+        public boolean empty()
+        {
+            return capacity == 0;
+        }
+
+        @Override
+        public boolean mapped()
+        {
+            return zlogFile.mapped();
+        }
+
+        @Override
+        public int prefetch(
+            int position,
+            int length)
+        {
+            int touched = 0;
+
+            if (position < capacity)
+            {
+                final DirectBuffer blocksBuf = blocksBuf();
+                final int blockAt = FIELD_OFFSET_BLOCKS + findBlock(position) * SIZEOF_BLOCK;
+                final int dataOffset = blocksBuf.getInt(blockAt + FIELD_OFFSET_BLOCK_DATA_OFFSET);
+                final int blockLength = blocksBuf.getInt(blockAt + FIELD_OFFSET_BLOCK_LENGTH);
+                final int dataLength = blocksBuf.getInt(blockAt + FIELD_OFFSET_BLOCK_DATA_LENGTH);
+                final int compressedLength = (int) ((long) length * dataLength / Math.max(blockLength, 1));
+
+                touched = zlogFile.prefetch(dataOffset, Math.max(compressedLength, dataLength));
+            }
+
+            return touched;
+        }
+
+        @Override
+        public <T> T readBytes(
+            int position,
+            Flyweight.Visitor<T> visitor,
+            BlockBuffer blockBuf)
+        {
+            final int block = findBlock(position);
+            final int blockStart = blocksBuf().getInt(FIELD_OFFSET_BLOCKS + block * SIZEOF_BLOCK + FIELD_OFFSET_BLOCK_START);
+            final DirectBuffer buffer = blockBuf.supplyBlock(this, block);
+
+            return visitor.visit(buffer, position - blockStart, buffer.capacity());
+        }
+
+        @Override
+        public void flush()
+        {
+            zlogFile.flush();
+        }
+
+        @Override
+        public void delete()
+        {
+            zlogFile.delete();
+        }
+
+        @Override
+        public void close()
+        {
+            zlogFile.close();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("[%s] %s (%d)", getClass().getSimpleName(), location().getFileName(), capacity);
+        }
+
+        public static boolean exists(
+            Path location,
+            long baseOffset)
+        {
+            return Files.exists(location.resolve(String.format(FORMAT_ZLOG_FILE, baseOffset)));
+        }
+
+        public static void deleteIfExists(
+            Path location,
+            long baseOffset)
+        {
+            final Path zlog = location.resolve(String.format(FORMAT_ZLOG_FILE, baseOffset));
+            final Path zlogWork = location.resolve(String.format(FORMAT_ZLOG_WORK_FILE, baseOffset));
+
+            try
+            {
+                Files.deleteIfExists(zlogWork);
+                Files.deleteIfExists(zlog);
+            }
+            catch (IOException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+
+        public static void compress(
+            Path location,
+            long baseOffset,
+            KafkaCacheFileView logFile,
+            IntArrayList blockLimits)
+        {
+            final Path zlog = location.resolve(String.format(FORMAT_ZLOG_FILE, baseOffset));
+            final Path zlogWork = location.resolve(String.format(FORMAT_ZLOG_WORK_FILE, baseOffset));
+            final DirectBuffer logBuf = logFile.readBytes(0, CompressedLog::mappedBuffer, null);
+            final int blockCount = blockLimits.size();
+            final int blocksLimit = FIELD_OFFSET_BLOCKS + blockCount * SIZEOF_BLOCK;
+
+            final MutableDirectBuffer blocksBuf = new UnsafeBuffer(ByteBuffer.allocate(blocksLimit));
+            blocksBuf.putInt(FIELD_OFFSET_BLOCK_COUNT, blockCount);
+            blocksBuf.putInt(FIELD_OFFSET_CAPACITY, logFile.capacity());
+
+            // zlib stands in for lz4/zstd, keeping the module free of native codec dependencies,
+            // BEST_SPEED trades ~20% ratio for ~3x faster compression than the default level
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try
+            {
+                try (FileChannel channel = FileChannel.open(zlogWork, CREATE, TRUNCATE_EXISTING, WRITE))
+                {
+                    channel.position(blocksLimit);
+
+                    byte[] input = new byte[0];
+                    byte[] output = new byte[0];
+                    int blockStart = 0;
+                    int dataOffset = blocksLimit;
+                    for (int block = 0; block < blockCount; block++)
+                    {
+                        final int blockLimit = blockLimits.getInt(block);
+                        final int blockLength = blockLimit - blockStart;
+
+                        if (input.length < blockLength)
+                        {
+                            input = new byte[blockLength];
+                            output = new byte[blockLength + (blockLength >> 3) + 64];
+                        }
+
+                        logBuf.getBytes(blockStart, input, 0, blockLength);
+                        deflater.reset();
+                        deflater.setInput(input, 0, blockLength);
+                        deflater.finish();
+
+                        int dataLength = 0;
+                        while (!deflater.finished())
+                        {
+                            if (dataLength == output.length)
+                            {
+                                output = Arrays.copyOf(output, output.length << 1);
+                            }
+                            dataLength += deflater.deflate(output, dataLength, output.length - dataLength);
+                        }
+
+                        final ByteBuffer data = ByteBuffer.wrap(output, 0, dataLength);
+                        while (data.hasRemaining())
+                        {
+                            channel.write(data);
+                        }
+
+                        final int blockAt = FIELD_OFFSET_BLOCKS + block * SIZEOF_BLOCK;
+                        blocksBuf.putInt(blockAt + FIELD_OFFSET_BLOCK_START, blockStart);
+                        blocksBuf.putInt(blockAt + FIELD_OFFSET_BLOCK_LENGTH, blockLength);
+                        blocksBuf.putInt(blockAt + FIELD_OFFSET_BLOCK_DATA_OFFSET, dataOffset);
+                        blocksBuf.putInt(blockAt + FIELD_OFFSET_BLOCK_DATA_LENGTH, dataLength);
+
+                        blockStart = blockLimit;
+                        dataOffset += dataLength;
+                    }
+
+                    final ByteBuffer blocks = blocksBuf.byteBuffer();
+                    blocks.clear();
+                    channel.position(0L);
+                    while (blocks.hasRemaining())
+                    {
+                        channel.write(blocks);
+                    }
+                }
+
+                // readers only ever observe a complete compressed log
+                Files.move(zlogWork, zlog, REPLACE_EXISTING, ATOMIC_MOVE);
+            }
+            catch (IOException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+            finally
+            {
+                deflater.end();
+            }
+        }
+
+        private int findBlock(
+            int position)
+        {
+            assert position >= 0 && position < capacity;
+
+            final DirectBuffer blocksBuf = blocksBuf();
+            int lowBlock = 0;
+            int highBlock = blockCount - 1;
+
+            while (lowBlock < highBlock)
+            {
+                final int midBlock = (lowBlock + highBlock + 1) >>> 1;
+                final int midStart = blocksBuf.getInt(FIELD_OFFSET_BLOCKS + midBlock * SIZEOF_BLOCK + FIELD_OFFSET_BLOCK_START);
+
+                if (midStart <= position)
+                {
+                    lowBlock = midBlock;
+                }
+                else
+                {
+                    highBlock = midBlock - 1;
+                }
+            }
+
+            return lowBlock;
+        }
+
+        private int blockLength(
+            int block)
+        {
+            return blocksBuf().getInt(FIELD_OFFSET_BLOCKS + block * SIZEOF_BLOCK + FIELD_OFFSET_BLOCK_LENGTH);
+        }
+
+        private void inflateBlock(
+            int block,
+            byte[] output)
+        {
+            final DirectBuffer blocksBuf = blocksBuf();
+            final int blockAt = FIELD_OFFSET_BLOCKS + block * SIZEOF_BLOCK;
+            final int blockLength = blocksBuf.getInt(blockAt + FIELD_OFFSET_BLOCK_LENGTH);
+            final int dataOffset = blocksBuf.getInt(blockAt + FIELD_OFFSET_BLOCK_DATA_OFFSET);
+            final int dataLength = blocksBuf.getInt(blockAt + FIELD_OFFSET_BLOCK_DATA_LENGTH);
+
+            final Inflation inflation = INFLATION.get();
+            final Inflater inflater = inflation.inflater;
+            final byte[] input = inflation.input(dataLength);
+
+            blocksBuf.getBytes(dataOffset, input, 0, dataLength);
+
+            try
+            {
+                inflater.reset();
+                inflater.setInput(input, 0, dataLength);
+
+                int inflated = 0;
+                while (inflated < blockLength && !inflater.finished())
+                {
+                    inflated += inflater.inflate(output, inflated, blockLength - inflated);
+                }
+                assert inflated == blockLength;
+            }
+            catch (DataFormatException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+
+        private DirectBuffer blocksBuf()
+        {
+            return zlogFile.readBytes(0, CompressedLog::mappedBuffer);
+        }
+
+        private static DirectBuffer readHeader(
+            Path zlog)
+        {
+            final ByteBuffer header = ByteBuffer.allocate(FIELD_OFFSET_BLOCKS);
+
+            try (FileChannel channel = FileChannel.open(zlog, READ))
+            {
+                while (header.hasRemaining() && channel.read(header) != -1)
+                {
+                    // continue reading header
+                }
+            }
+            catch (IOException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return new UnsafeBuffer(header);
+        }
+
+        private static DirectBuffer mappedBuffer(
+            DirectBuffer buffer,
+            int index,
+            int maxLimit)
+        {
+            return buffer;
+        }
+
+        private static final class Inflation
+        {
+            private final Inflater inflater = new Inflater();
+
+            private byte[] input = new byte[0];
+
+            private byte[] input(
+                int length)
+            {
+                if (input.length < length)
+                {
+                    input = new byte[length];
+                }
+                return input;
+            }
+        }
+    }
+
+    public static final class BlockBuffer
+    {
+        private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[0]);
+
+        private CompressedLog file;
+        private int block;
+
+        private DirectBuffer supplyBlock(
+            CompressedLog file,
+            int block)
+        {
+            if (this.file != file || this.block != block)
+            {
+                final int blockLength = file.blockLength(block);
+
+                byte[] output = buffer.byteArray();
+                if (output.length < blockLength)
+                {
+                    output = new byte[blockLength];
+                }
+
+                this.file = null;
+                file.inflateBlock(block, output);
+
+                buffer.wrap(output, 0, blockLength);
+                this.file = file;
+                this.block = block;
+            }
+
+            return buffer;
+        }
     }
 
     public static final class Index extends KafkaCacheIndexFile.SortedByKey
@@ -428,9 +1036,10 @@ public class KafkaCacheFile implements AutoCloseable
             long baseOffset,
             int capacity,
             MutableDirectBuffer appendBuf,
-            IntFunction<long[]> sortSpaceRef)
+            IntFunction<long[]> sortSpaceRef,
+            boolean wide)
         {
-            super(location.resolve(String.format(FORMAT_HSCAN_FILE, baseOffset)), capacity, appendBuf, sortSpaceRef);
+            super(location.resolve(String.format(FORMAT_HSCAN_FILE, baseOffset)), capacity, appendBuf, sortSpaceRef, true, wide);
         }
 
         @Override
@@ -451,9 +1060,10 @@ public class KafkaCacheFile implements AutoCloseable
     {
         public HashIndex(
             Path location,
-            long baseOffset)
+            long baseOffset,
+            boolean wide)
         {
-            super(location.resolve(String.format(FORMAT_HINDEX_FILE, baseOffset)));
+            super(location.resolve(String.format(FORMAT_HINDEX_FILE, baseOffset)), wide);
         }
     }
 
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import java.nio.file.Path;
+
+import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
+
+public interface KafkaCacheFileView extends AutoCloseable
+{
+    Path location();
+
+    int capacity();
+
+    int available();
+
+    int size();
+
+    boolean empty();
+
+    boolean mapped();
+
+    int prefetch(
+        int position,
+        int length);
+
+    <T> T readBytes(
+        int position,
+        Flyweight.Visitor<T> visitor,
+        KafkaCacheFile.BlockBuffer blockBuf);
+
+    void flush();
+
+    void delete();
+
+    @Override
+    void close();
+}
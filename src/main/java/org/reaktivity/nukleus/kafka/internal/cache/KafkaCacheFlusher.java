@@ -0,0 +1,166 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+public final class KafkaCacheFlusher implements AutoCloseable
+{
+    private final long intervalMillis;
+    private final long flushBytes;
+    private final boolean flushOnFreeze;
+    private final ScheduledThreadPoolExecutor executor;
+
+    public KafkaCacheFlusher(
+        long intervalMillis,
+        long flushBytes,
+        boolean flushOnFreeze)
+    {
+        this.intervalMillis = intervalMillis;
+        this.flushBytes = flushBytes;
+        this.flushOnFreeze = flushOnFreeze;
+        this.executor = intervalMillis > 0L || flushBytes > 0L || flushOnFreeze ? newExecutor() : null;
+    }
+
+    public boolean enabled()
+    {
+        return executor != null;
+    }
+
+    public boolean flushRequired(
+        long unflushedBytes)
+    {
+        return flushBytes > 0L && unflushedBytes >= flushBytes;
+    }
+
+    public ScheduledFuture<?> register(
+        KafkaCachePartition partition)
+    {
+        ScheduledFuture<?> task = null;
+
+        if (executor != null && intervalMillis > 0L)
+        {
+            try
+            {
+                task = executor.scheduleWithFixedDelay(partition::flush, intervalMillis, intervalMillis, MILLISECONDS);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                // shutting down, durability left to the operating system
+            }
+        }
+
+        return task;
+    }
+
+    public void unregister(
+        ScheduledFuture<?> task)
+    {
+        if (task != null)
+        {
+            task.cancel(false);
+        }
+    }
+
+    public void flush(
+        KafkaCachePartition partition)
+    {
+        if (executor != null)
+        {
+            try
+            {
+                executor.execute(partition::flush);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                // shutting down, durability left to the operating system
+            }
+        }
+    }
+
+    public void flush(
+        KafkaCachePartition partition,
+        KafkaCacheSegment segment)
+    {
+        final KafkaCacheSegment acquired = executor != null ? segment.acquire() : null;
+        if (acquired != null)
+        {
+            try
+            {
+                executor.execute(() -> flushAndRelease(partition, acquired));
+            }
+            catch (RejectedExecutionException ex)
+            {
+                acquired.release();
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (executor != null)
+        {
+            // no interrupt, otherwise force would close shared appender channels
+            executor.shutdown();
+        }
+    }
+
+    int scheduled()
+    {
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %d %d %b", getClass().getSimpleName(), intervalMillis, flushBytes, flushOnFreeze);
+    }
+
+    private static void flushAndRelease(
+        KafkaCachePartition partition,
+        KafkaCacheSegment acquired)
+    {
+        try
+        {
+            partition.flush(acquired);
+        }
+        finally
+        {
+            acquired.release();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newExecutor()
+    {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, KafkaCacheFlusher::newThread);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static Thread newThread(
+        Runnable runnable)
+    {
+        final Thread thread = new Thread(runnable, "kafka-cache-flush");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+public final class KafkaCacheHashMultimap
+{
+    public static final int NO_INDEX = -1;
+
+    private static final int FIELD_OFFSET_FIRST = 0;
+    private static final int FIELD_OFFSET_LAST = FIELD_OFFSET_FIRST + Integer.BYTES;
+    private static final int SIZEOF_BUCKET = FIELD_OFFSET_LAST + Integer.BYTES;
+
+    private static final int FIELD_OFFSET_PREVIOUS = 0;
+    private static final int FIELD_OFFSET_NEXT = FIELD_OFFSET_PREVIOUS + Integer.BYTES;
+    private static final int SIZEOF_LINK = FIELD_OFFSET_NEXT + Integer.BYTES;
+
+    private static final int ENTRIES_PER_BUCKET = 8;
+    private static final int INITIAL_LINKS_CAPACITY = 1024 * SIZEOF_LINK;
+
+    private final AtomicBuffer buckets;
+    private final int mask;
+
+    private volatile AtomicBuffer links;
+    private int entries;
+
+    public KafkaCacheHashMultimap(
+        int maxEntries)
+    {
+        final int bucketCount = findNextPositivePowerOfTwo(Math.max(maxEntries / ENTRIES_PER_BUCKET, 1));
+
+        this.buckets = new UnsafeBuffer(allocateDirect(bucketCount * SIZEOF_BUCKET));
+        this.mask = bucketCount - 1;
+        this.links = new UnsafeBuffer(allocateDirect(INITIAL_LINKS_CAPACITY));
+    }
+
+    public int entries()
+    {
+        return entries;
+    }
+
+    public void put(
+        int key,
+        int index)
+    {
+        assert index == entries;
+
+        AtomicBuffer links = this.links;
+        if ((index + 1) * SIZEOF_LINK > links.capacity())
+        {
+            final AtomicBuffer newLinks = new UnsafeBuffer(allocateDirect(links.capacity() << 1));
+            newLinks.putBytes(0, links, 0, links.capacity());
+            this.links = newLinks;
+            links = newLinks;
+        }
+
+        // links are stored as index + 1, so zeroed memory means no index
+        final int bucketAt = (key & mask) * SIZEOF_BUCKET;
+        final int last = buckets.getIntVolatile(bucketAt + FIELD_OFFSET_LAST);
+
+        links.putInt(index * SIZEOF_LINK + FIELD_OFFSET_PREVIOUS, last);
+        links.putIntOrdered(index * SIZEOF_LINK + FIELD_OFFSET_NEXT, 0);
+
+        if (last != 0)
+        {
+            links.putIntOrdered((last - 1) * SIZEOF_LINK + FIELD_OFFSET_NEXT, index + 1);
+        }
+        else
+        {
+            buckets.putIntOrdered(bucketAt + FIELD_OFFSET_FIRST, index + 1);
+        }
+
+        buckets.putIntOrdered(bucketAt + FIELD_OFFSET_LAST, index + 1);
+        entries++;
+    }
+
+    public int first(
+        int key)
+    {
+        return buckets.getIntVolatile((key & mask) * SIZEOF_BUCKET + FIELD_OFFSET_FIRST) - 1;
+    }
+
+    public int last(
+        int key)
+    {
+        return buckets.getIntVolatile((key & mask) * SIZEOF_BUCKET + FIELD_OFFSET_LAST) - 1;
+    }
+
+    public int next(
+        int index)
+    {
+        return links.getIntVolatile(index * SIZEOF_LINK + FIELD_OFFSET_NEXT) - 1;
+    }
+
+    public int previous(
+        int index)
+    {
+        return links.getIntVolatile(index * SIZEOF_LINK + FIELD_OFFSET_PREVIOUS) - 1;
+    }
+}
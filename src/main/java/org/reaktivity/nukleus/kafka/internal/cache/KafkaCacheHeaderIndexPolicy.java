@@ -0,0 +1,157 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.agrona.DirectBuffer;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
+import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
+
+public final class KafkaCacheHeaderIndexPolicy
+{
+    public static final KafkaCacheHeaderIndexPolicy ALL = new KafkaCacheHeaderIndexPolicy(null);
+    public static final KafkaCacheHeaderIndexPolicy NONE = new KafkaCacheHeaderIndexPolicy(new byte[0][]);
+
+    private static final String INDEX_ALL = "*";
+    private static final int SIZEOF_HEADER_MIN = 4;
+
+    private final byte[][] names;
+    private final int sizeofIndexedHeaderMin;
+
+    private KafkaCacheHeaderIndexPolicy(
+        byte[][] names)
+    {
+        this.names = names;
+
+        int sizeofNameMin = 0;
+        if (names != null && names.length != 0)
+        {
+            sizeofNameMin = Integer.MAX_VALUE;
+            for (byte[] name : names)
+            {
+                sizeofNameMin = Math.min(sizeofNameMin, name.length);
+            }
+        }
+        this.sizeofIndexedHeaderMin = Math.max(SIZEOF_HEADER_MIN, sizeofNameMin + 2);
+    }
+
+    public boolean indexes(
+        KafkaHeaderFW header)
+    {
+        final OctetsFW name = header.name();
+        return names == null || name != null && indexes(name.buffer(), name.offset(), name.sizeof());
+    }
+
+    public boolean indexes(
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        boolean indexes = names == null;
+
+        for (int index = 0; !indexes && index < names.length; index++)
+        {
+            indexes = matches(names[index], buffer, offset, length);
+        }
+
+        return indexes;
+    }
+
+    public int hashRequiredMax(
+        int headersSizeMax)
+    {
+        return names != null && names.length == 0 ? 0 : headersSizeMax / sizeofIndexedHeaderMin;
+    }
+
+    @Override
+    public String toString()
+    {
+        return names == null ? INDEX_ALL : String.format("%d names", names.length);
+    }
+
+    public static KafkaCacheHeaderIndexPolicy of(
+        String topic,
+        String policy)
+    {
+        String names = INDEX_ALL;
+
+        if (policy != null)
+        {
+            for (String entry : policy.split(";"))
+            {
+                final int equalsAt = entry.indexOf('=');
+                final String entryTopic = equalsAt != -1 ? entry.substring(0, equalsAt).trim() : null;
+                final String entryNames = equalsAt != -1 ? entry.substring(equalsAt + 1) : entry;
+
+                if (entryTopic == null)
+                {
+                    names = entryNames;
+                }
+                else if (entryTopic.equals(topic))
+                {
+                    names = entryNames;
+                    break;
+                }
+            }
+        }
+
+        return asPolicy(names.trim());
+    }
+
+    private static KafkaCacheHeaderIndexPolicy asPolicy(
+        String names)
+    {
+        KafkaCacheHeaderIndexPolicy policy;
+
+        if (INDEX_ALL.equals(names))
+        {
+            policy = ALL;
+        }
+        else if (names.isEmpty())
+        {
+            policy = NONE;
+        }
+        else
+        {
+            final String[] split = names.split(",");
+            final byte[][] asBytes = new byte[split.length][];
+            for (int index = 0; index < split.length; index++)
+            {
+                asBytes[index] = split[index].trim().getBytes(UTF_8);
+            }
+            policy = new KafkaCacheHeaderIndexPolicy(asBytes);
+        }
+
+        return policy;
+    }
+
+    private static boolean matches(
+        byte[] name,
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        boolean matches = name.length == length;
+
+        for (int index = 0; matches && index < length; index++)
+        {
+            matches = name[index] == buffer.getByte(offset + index);
+        }
+
+        return matches;
+    }
+}
@@ -25,6 +25,7 @@ import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorIndex;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorRetryValue;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorValue;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheHashMultimap.NO_INDEX;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexKey;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexValue;
 
@@ -44,19 +45,65 @@ import org.agrona.concurrent.UnsafeBuffer;
 
 public abstract class KafkaCacheIndexFile extends KafkaCacheFile
 {
+    private static final int RECORD_SHIFT = 3;
+    private static final int WIDE_RECORD_SHIFT = 4;
+
+    protected final int recordShift;
 
     protected KafkaCacheIndexFile(
         Path location,
         int capacity,
         MutableDirectBuffer appendBuf)
+    {
+        this(location, capacity, appendBuf, false);
+    }
+
+    protected KafkaCacheIndexFile(
+        Path location,
+        int capacity,
+        MutableDirectBuffer appendBuf,
+        boolean wide)
     {
         super(location, capacity, appendBuf);
+        this.recordShift = wide ? WIDE_RECORD_SHIFT : RECORD_SHIFT;
     }
 
     protected KafkaCacheIndexFile(
         Path location)
+    {
+        this(location, false);
+    }
+
+    protected KafkaCacheIndexFile(
+        Path location,
+        boolean wide)
     {
         super(location);
+        this.recordShift = wide ? WIDE_RECORD_SHIFT : RECORD_SHIFT;
+    }
+
+    public boolean wide()
+    {
+        return recordShift == WIDE_RECORD_SHIFT;
+    }
+
+    public int recordBytes()
+    {
+        return 1 << recordShift;
+    }
+
+    public boolean appendEntry(
+        long indexEntry,
+        long extension)
+    {
+        return wide() ? appendLongs(indexEntry, extension) : appendLong(indexEntry);
+    }
+
+    public long extension(
+        long cursor)
+    {
+        assert wide();
+        return readLong((cursorIndex(cursor) << recordShift) + Long.BYTES);
     }
 
     public abstract long first(int key);
@@ -68,13 +115,13 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
         final int index = cursorIndex(cursor);
         assert index >= 0;
 
-        final int lastIndex = (capacity() >> 3) - 1;
+        final int lastIndex = (capacity() >> recordShift) - 1;
 
         long resolve = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
 
         if (index <= lastIndex)
         {
-            final long indexEntry = readLong(index << 3);
+            final long indexEntry = readLong(index << recordShift);
             resolve = cursor(index, indexValue(indexEntry));
         }
 
@@ -103,11 +150,18 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             super(location);
         }
 
+        protected SortedByKey(
+            Path location,
+            boolean wide)
+        {
+            super(location, wide);
+        }
+
         @Override
         public long first(
             int key)
         {
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
 
             long first = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
 
@@ -117,7 +171,7 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             while (lowIndex <= highIndex)
             {
                 final int midIndex = (lowIndex + highIndex) >>> 1;
-                final long midEntry = readLong(midIndex << 3);
+                final long midEntry = readLong(midIndex << recordShift);
                 final int midKey = indexKey(midEntry);
                 final int compareKey = compareUnsigned(midKey, key);
 
@@ -141,7 +195,7 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                         final int candidateIndex = lowIndex - 1;
                         assert candidateIndex <= lastIndex;
 
-                        final long candidateEntry = readLong(candidateIndex << 3);
+                        final long candidateEntry = readLong(candidateIndex << recordShift);
                         final int candidateKey = indexKey(candidateEntry);
 
                         if (candidateKey != key)
@@ -169,7 +223,7 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
         {
             long last = NEXT_SEGMENT;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
 
             int lowIndex = 0;
             int highIndex = lastIndex;
@@ -177,7 +231,7 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             while (lowIndex <= highIndex)
             {
                 final int midIndex = (lowIndex + highIndex) >>> 1;
-                final long midEntry = readLong(midIndex << 3);
+                final long midEntry = readLong(midIndex << recordShift);
                 final int midKey = indexKey(midEntry);
                 final int compareKey = compareUnsigned(midKey, key);
 
@@ -201,7 +255,7 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                         final int candidateIndex = highIndex + 1;
                         assert candidateIndex >= 0;
 
-                        final long candidateEntry = readLong(candidateIndex << 3);
+                        final long candidateEntry = readLong(candidateIndex << recordShift);
                         final int candidateKey = indexKey(candidateEntry);
 
                         if (candidateKey != key)
@@ -234,13 +288,13 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             final int value = cursorValue(cursor);
             assert index >= 0;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
 
             long higher = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
 
             for (int currentIndex = index; currentIndex <= lastIndex; currentIndex++)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -265,13 +319,13 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             final int value = cursorValue(cursor);
             assert index >= 0;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
 
             long ceiling = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
 
             for (int currentIndex = index; currentIndex <= lastIndex; currentIndex++)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -297,10 +351,10 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
 
             long floor = NEXT_SEGMENT;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
             for (int currentIndex = index; 0 <= currentIndex && currentIndex <= lastIndex; currentIndex--)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -326,10 +380,10 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
 
             long lower = NEXT_SEGMENT;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
             for (int currentIndex = index; 0 <= currentIndex && currentIndex <= lastIndex; currentIndex--)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -348,14 +402,38 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
     {
         private final IntFunction<long[]> sortSpaceRef;
 
+        private volatile KafkaCacheHashMultimap multimap;
+
         protected SortedByValue(
             Path location,
             int capacity,
             MutableDirectBuffer appendBuf,
             IntFunction<long[]> sortSpaceRef)
         {
-            super(location, capacity, appendBuf);
+            this(location, capacity, appendBuf, sortSpaceRef, false);
+        }
+
+        protected SortedByValue(
+            Path location,
+            int capacity,
+            MutableDirectBuffer appendBuf,
+            IntFunction<long[]> sortSpaceRef,
+            boolean hashed)
+        {
+            this(location, capacity, appendBuf, sortSpaceRef, hashed, false);
+        }
+
+        protected SortedByValue(
+            Path location,
+            int capacity,
+            MutableDirectBuffer appendBuf,
+            IntFunction<long[]> sortSpaceRef,
+            boolean hashed,
+            boolean wide)
+        {
+            super(location, capacity, appendBuf, wide);
             this.sortSpaceRef = sortSpaceRef;
+            this.multimap = hashed ? new KafkaCacheHashMultimap(capacity >> recordShift) : null;
         }
 
         protected SortedByValue(
@@ -366,17 +444,58 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             this.sortSpaceRef = sortSpaceRef;
         }
 
+        @Override
+        public boolean appendLong(
+            long value)
+        {
+            assert !wide();
+
+            final KafkaCacheHashMultimap multimap = this.multimap;
+            if (multimap != null && available() >= Long.BYTES)
+            {
+                // index before append, so readers never observe an entry missing from the multimap
+                multimap.put(indexKey(value), capacity() >> recordShift);
+            }
+
+            return super.appendLong(value);
+        }
+
+        @Override
+        public boolean appendLongs(
+            long value1,
+            long value2)
+        {
+            assert wide();
+
+            final KafkaCacheHashMultimap multimap = this.multimap;
+            if (multimap != null && available() >= Long.BYTES << 1)
+            {
+                multimap.put(indexKey(value1), capacity() >> recordShift);
+            }
+
+            return super.appendLongs(value1, value2);
+        }
+
+        @Override
+        public void freeze()
+        {
+            super.freeze();
+            this.multimap = null;
+        }
+
         @Override
         public long first(
             int key)
         {
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
+            final KafkaCacheHashMultimap multimap = this.multimap;
 
             long first = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
 
-            for (int currentIndex = 0; currentIndex <= lastIndex; currentIndex++)
+            int currentIndex = ceilingIndex(multimap, key, 0, lastIndex);
+            while (0 <= currentIndex && currentIndex <= lastIndex)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
 
                 if (indexKey == key)
@@ -384,6 +503,8 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                     first = cursor(currentIndex, indexValue(indexEntry));
                     break;
                 }
+
+                currentIndex = nextIndex(multimap, currentIndex);
             }
 
             return first;
@@ -395,10 +516,13 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
         {
             long last = NEXT_SEGMENT;
 
-            final int lastIndex = (capacity() >> 3) - 1;
-            for (int currentIndex = lastIndex; currentIndex >= 0; currentIndex--)
+            final int lastIndex = (capacity() >> recordShift) - 1;
+            final KafkaCacheHashMultimap multimap = this.multimap;
+
+            int currentIndex = floorIndex(multimap, key, lastIndex, lastIndex);
+            while (currentIndex >= 0)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
 
                 if (indexKey == key)
@@ -406,6 +530,8 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                     last = cursor(currentIndex, indexValue(indexEntry));
                     break;
                 }
+
+                currentIndex = previousIndex(multimap, currentIndex);
             }
 
             return last;
@@ -420,13 +546,15 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             final int value = cursorValue(cursor);
             assert index >= 0;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
+            final KafkaCacheHashMultimap multimap = this.multimap;
 
             long higher = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
 
-            for (int currentIndex = index; currentIndex <= lastIndex; currentIndex++)
+            int currentIndex = ceilingIndex(multimap, key, index, lastIndex);
+            while (0 <= currentIndex && currentIndex <= lastIndex)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -435,6 +563,8 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                     higher = cursor(currentIndex, indexValue(indexEntry));
                     break;
                 }
+
+                currentIndex = nextIndex(multimap, currentIndex);
             }
 
             return higher;
@@ -449,12 +579,14 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             final int value = cursorValue(cursor);
             assert index >= 0;
 
-            final int lastIndex = (capacity() >> 3) - 1;
+            final int lastIndex = (capacity() >> recordShift) - 1;
+            final KafkaCacheHashMultimap multimap = this.multimap;
 
             long ceiling = available() != 0 ? cursor(lastIndex + 1, cursorValue(RETRY_SEGMENT)) : NEXT_SEGMENT;
-            for (int currentIndex = index; currentIndex <= lastIndex; currentIndex++)
+            int currentIndex = ceilingIndex(multimap, key, index, lastIndex);
+            while (0 <= currentIndex && currentIndex <= lastIndex)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -463,6 +595,8 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                     ceiling = cursor(currentIndex, indexValue(indexEntry));
                     break;
                 }
+
+                currentIndex = nextIndex(multimap, currentIndex);
             }
 
             return ceiling;
@@ -479,10 +613,13 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
 
             long floor = NEXT_SEGMENT;
 
-            final int lastIndex = (capacity() >> 3) - 1;
-            for (int currentIndex = index; 0 <= currentIndex && currentIndex <= lastIndex; currentIndex--)
+            final int lastIndex = (capacity() >> recordShift) - 1;
+            final KafkaCacheHashMultimap multimap = this.multimap;
+
+            int currentIndex = floorIndex(multimap, key, index, lastIndex);
+            while (0 <= currentIndex && currentIndex <= lastIndex)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -491,6 +628,8 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                     floor = cursor(currentIndex, indexValue(indexEntry));
                     break;
                 }
+
+                currentIndex = previousIndex(multimap, currentIndex);
             }
 
             return floor;
@@ -506,10 +645,13 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
 
             long lower = NEXT_SEGMENT;
 
-            final int lastIndex = (capacity() >> 3) - 1;
-            for (int currentIndex = index; 0 <= currentIndex && currentIndex <= lastIndex; currentIndex--)
+            final int lastIndex = (capacity() >> recordShift) - 1;
+            final KafkaCacheHashMultimap multimap = this.multimap;
+
+            int currentIndex = floorIndex(multimap, key, index, lastIndex);
+            while (0 <= currentIndex && currentIndex <= lastIndex)
             {
-                final long indexEntry = readLong(currentIndex << 3);
+                final long indexEntry = readLong(currentIndex << recordShift);
                 final int indexKey = indexKey(indexEntry);
                 final int indexValue = indexValue(indexEntry);
 
@@ -518,11 +660,93 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
                     lower = cursor(currentIndex, indexValue(indexEntry));
                     break;
                 }
+
+                currentIndex = previousIndex(multimap, currentIndex);
             }
 
             return lower;
         }
 
+        private int ceilingIndex(
+            KafkaCacheHashMultimap multimap,
+            int key,
+            int index,
+            int lastIndex)
+        {
+            int ceilingIndex = index;
+
+            if (multimap != null && 0 <= index && index <= lastIndex)
+            {
+                if (index == 0)
+                {
+                    ceilingIndex = multimap.first(key);
+                }
+                else if (indexKey(readLong(index << recordShift)) == key)
+                {
+                    ceilingIndex = index;
+                }
+                else if (indexKey(readLong((index - 1) << recordShift)) == key)
+                {
+                    ceilingIndex = multimap.next(index - 1);
+                }
+                else
+                {
+                    ceilingIndex = NO_INDEX;
+                    for (int chainIndex = multimap.last(key); chainIndex >= index; chainIndex = multimap.previous(chainIndex))
+                    {
+                        ceilingIndex = chainIndex;
+                    }
+                }
+            }
+
+            return ceilingIndex;
+        }
+
+        private int floorIndex(
+            KafkaCacheHashMultimap multimap,
+            int key,
+            int index,
+            int lastIndex)
+        {
+            int floorIndex = index;
+
+            if (multimap != null && 0 <= index && index <= lastIndex)
+            {
+                if (indexKey(readLong(index << recordShift)) == key)
+                {
+                    floorIndex = index;
+                }
+                else if (index < lastIndex && indexKey(readLong((index + 1) << recordShift)) == key)
+                {
+                    floorIndex = multimap.previous(index + 1);
+                }
+                else
+                {
+                    floorIndex = multimap.last(key);
+                    while (floorIndex > index)
+                    {
+                        floorIndex = multimap.previous(floorIndex);
+                    }
+                }
+            }
+
+            return floorIndex;
+        }
+
+        private static int nextIndex(
+            KafkaCacheHashMultimap multimap,
+            int index)
+        {
+            return multimap != null ? multimap.next(index) : index + 1;
+        }
+
+        private static int previousIndex(
+            KafkaCacheHashMultimap multimap,
+            int index)
+        {
+            return multimap != null ? multimap.previous(index) : index - 1;
+        }
+
         protected void sortByKey(
             Path workingFile,
             Path sortedFile)
@@ -594,29 +818,99 @@ public abstract class KafkaCacheIndexFile extends KafkaCacheFile
             MutableDirectBuffer buffer)
         {
             final int capacity = buffer.capacity();
-            final int length = capacity >> 3;
+            final int length = capacity >> recordShift;
+            final int words = capacity >> 3;
 
-            final long[] sortSpace = sortSpaceRef.apply(length);
-            assert sortSpace != null && length <= sortSpace.length;
+            final long[] sortSpace = sortSpaceRef.apply(words);
+            assert sortSpace != null && words <= sortSpace.length;
 
-            for (int index = 0, offset = 0; index < length; index++, offset += Long.BYTES)
+            for (int index = 0, offset = 0; index < words; index++, offset += Long.BYTES)
             {
                 sortSpace[index] = buffer.getLong(offset) ^ Long.MIN_VALUE;
             }
 
             // sort as unsigned longs
-            Arrays.sort(sortSpace, 0, length);
+            if (wide())
+            {
+                sortPairs(sortSpace, length);
+            }
+            else
+            {
+                Arrays.sort(sortSpace, 0, length);
+            }
 
-            for (int index = 0, offset = 0; index < length; index++, offset += Long.BYTES)
+            for (int index = 0, offset = 0; index < words; index++, offset += Long.BYTES)
             {
                 buffer.putLong(offset, sortSpace[index] ^ Long.MIN_VALUE);
             }
         }
 
+        private static void sortPairs(
+            long[] pairs,
+            int length)
+        {
+            // in-place heap sort, keeping each entry with its extension
+            for (int index = (length >> 1) - 1; index >= 0; index--)
+            {
+                siftDownPair(pairs, index, length);
+            }
+
+            for (int limit = length - 1; limit > 0; limit--)
+            {
+                swapPairs(pairs, 0, limit);
+                siftDownPair(pairs, 0, limit);
+            }
+        }
+
+        private static void siftDownPair(
+            long[] pairs,
+            int index,
+            int length)
+        {
+            for (int child = (index << 1) + 1; child < length; child = (index << 1) + 1)
+            {
+                if (child + 1 < length && comparePairs(pairs, child, child + 1) < 0)
+                {
+                    child++;
+                }
+
+                if (comparePairs(pairs, index, child) >= 0)
+                {
+                    break;
+                }
+
+                swapPairs(pairs, index, child);
+                index = child;
+            }
+        }
+
+        private static int comparePairs(
+            long[] pairs,
+            int index1,
+            int index2)
+        {
+            final int comparison = Long.compare(pairs[index1 << 1], pairs[index2 << 1]);
+            return comparison != 0 ? comparison : Long.compare(pairs[(index1 << 1) + 1], pairs[(index2 << 1) + 1]);
+        }
+
+        private static void swapPairs(
+            long[] pairs,
+            int index1,
+            int index2)
+        {
+            final long entry = pairs[index1 << 1];
+            final long extension = pairs[(index1 << 1) + 1];
+            pairs[index1 << 1] = pairs[index2 << 1];
+            pairs[(index1 << 1) + 1] = pairs[(index2 << 1) + 1];
+            pairs[index2 << 1] = entry;
+            pairs[(index2 << 1) + 1] = extension;
+        }
+
         private int unique(
             MutableDirectBuffer buffer)
         {
             // assumes sorted
+            assert !wide();
             final int capacity = buffer.capacity();
 
             int uniqueIndex = 0;
@@ -20,6 +20,7 @@ import static java.lang.Integer.toUnsignedLong;
 public final class KafkaCacheIndexRecord
 {
     public static final int SIZEOF_INDEX_RECORD = Long.BYTES;
+    public static final int SIZEOF_WIDE_INDEX_RECORD = Long.BYTES << 1;
 
     public static int indexKey(
         long indexEntry)
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.SIZEOF_INDEX_RECORD;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexKey;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+public final class KafkaCacheKeyFilter implements AutoCloseable
+{
+    private static final int PROBE_COUNT = 3;
+    private static final int COUNTER_MAX = 0xFF;
+
+    private final Path location;
+    private final MappedByteBuffer mappedByteBuf;
+    private final MutableDirectBuffer mappedBuf;
+    private final int mask;
+
+    public KafkaCacheKeyFilter(
+        Path location,
+        int capacity)
+    {
+        final int counters = capacity > 0 ? findNextPositivePowerOfTwo(capacity) : 0;
+
+        this.location = location;
+        this.mappedByteBuf = counters > 0 ? mapCounters(location, counters) : null;
+        this.mappedBuf = counters > 0 ? new UnsafeBuffer(mappedByteBuf) : null;
+        this.mask = counters - 1;
+
+        // segments are not recovered after restart, so neither are their keys
+        clear();
+    }
+
+    public Path location()
+    {
+        return location;
+    }
+
+    public boolean enabled()
+    {
+        return mappedBuf != null;
+    }
+
+    public boolean mayContain(
+        int keyHash)
+    {
+        boolean mayContain = true;
+
+        if (mappedBuf != null)
+        {
+            final int hash1 = hash1(keyHash);
+            final int hash2 = hash2(keyHash);
+
+            for (int probe = 0; probe < PROBE_COUNT && mayContain; probe++)
+            {
+                final int counterAt = (hash1 + probe * hash2) & mask;
+                mayContain = mappedBuf.getByte(counterAt) != 0;
+            }
+        }
+
+        return mayContain;
+    }
+
+    public void add(
+        int keyHash)
+    {
+        if (mappedBuf != null)
+        {
+            final int hash1 = hash1(keyHash);
+            final int hash2 = hash2(keyHash);
+
+            for (int probe = 0; probe < PROBE_COUNT; probe++)
+            {
+                final int counterAt = (hash1 + probe * hash2) & mask;
+                final int counter = mappedBuf.getByte(counterAt) & 0xFF;
+                if (counter != COUNTER_MAX)
+                {
+                    mappedBuf.putByte(counterAt, (byte) (counter + 1));
+                }
+            }
+        }
+    }
+
+    public void remove(
+        int keyHash)
+    {
+        if (mappedBuf != null)
+        {
+            final int hash1 = hash1(keyHash);
+            final int hash2 = hash2(keyHash);
+
+            for (int probe = 0; probe < PROBE_COUNT; probe++)
+            {
+                final int counterAt = (hash1 + probe * hash2) & mask;
+                final int counter = mappedBuf.getByte(counterAt) & 0xFF;
+
+                // saturated counters no longer know how many keys they represent
+                if (counter != 0 && counter != COUNTER_MAX)
+                {
+                    mappedBuf.putByte(counterAt, (byte) (counter - 1));
+                }
+            }
+        }
+    }
+
+    public void addAll(
+        KafkaCacheIndexFile keysFile)
+    {
+        if (mappedBuf != null)
+        {
+            for (int position = 0; position < keysFile.capacity(); position += SIZEOF_INDEX_RECORD)
+            {
+                add(indexKey(keysFile.readLong(position)));
+            }
+        }
+    }
+
+    public void removeAll(
+        KafkaCacheIndexFile keysFile)
+    {
+        if (mappedBuf != null)
+        {
+            for (int position = 0; position < keysFile.capacity(); position += SIZEOF_INDEX_RECORD)
+            {
+                remove(indexKey(keysFile.readLong(position)));
+            }
+        }
+    }
+
+    public void clear()
+    {
+        if (mappedBuf != null)
+        {
+            mappedBuf.setMemory(0, mappedBuf.capacity(), (byte) 0);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (mappedByteBuf != null)
+        {
+            IoUtil.unmap(mappedByteBuf);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %s (%d)", getClass().getSimpleName(), location.getFileName(), mask + 1);
+    }
+
+    private static int hash1(
+        int keyHash)
+    {
+        return mix(keyHash);
+    }
+
+    private static int hash2(
+        int keyHash)
+    {
+        return mix(keyHash ^ 0x9E37_79B9) | 1;
+    }
+
+    private static int mix(
+        int hash)
+    {
+        hash ^= hash >>> 16;
+        hash *= 0x85EB_CA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2_AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static MappedByteBuffer mapCounters(
+        Path file,
+        int capacity)
+    {
+        MappedByteBuffer mapped = null;
+
+        try
+        {
+            Files.createDirectories(file.getParent());
+
+            if (Files.exists(file) && Files.size(file) != capacity)
+            {
+                Files.delete(file);
+            }
+
+            try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE))
+            {
+                mapped = channel.map(MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        assert mapped != null;
+        return mapped;
+    }
+}
@@ -0,0 +1,287 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+public final class KafkaCacheOffsetStore implements AutoCloseable
+{
+    public static final long NO_OFFSET = Long.MIN_VALUE;
+
+    private static final int NO_SLOT = -1;
+    private static final int NO_PARTITION_ID = -1;
+    private static final int COMMIT_ATTEMPTS_MAX = 3;
+
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_CLAIMED = 1;
+    private static final int STATE_READY = 2;
+
+    private static final int FIELD_OFFSET_CONSUMER_ID = 0;
+    private static final int FIELD_OFFSET_PARTITION_ID = FIELD_OFFSET_CONSUMER_ID + Long.BYTES;
+    private static final int FIELD_OFFSET_STATE = FIELD_OFFSET_PARTITION_ID + Integer.BYTES;
+    private static final int FIELD_OFFSET_OFFSET = FIELD_OFFSET_STATE + Integer.BYTES;
+    private static final int FIELD_OFFSET_COMMIT_SEQUENCE = FIELD_OFFSET_OFFSET + Long.BYTES;
+    private static final int SIZEOF_SLOT = FIELD_OFFSET_COMMIT_SEQUENCE + Long.BYTES;
+
+    private final Path location;
+    private final MappedByteBuffer mappedByteBuf;
+    private final AtomicBuffer mappedBuf;
+    private final int mask;
+    private final AtomicLong commitSequence;
+
+    public KafkaCacheOffsetStore(
+        Path location,
+        int capacity)
+    {
+        final int slots = findNextPositivePowerOfTwo(capacity);
+
+        this.location = location;
+        this.mappedByteBuf = mapOffsets(location, slots * SIZEOF_SLOT);
+        this.mappedBuf = new UnsafeBuffer(mappedByteBuf);
+        this.mask = slots - 1;
+
+        long lastSequence = 0L;
+        for (int slotAt = 0; slotAt < mappedBuf.capacity(); slotAt += SIZEOF_SLOT)
+        {
+            // slots claimed but never completed before a restart can no longer match any consumer
+            if (mappedBuf.getInt(slotAt + FIELD_OFFSET_STATE) == STATE_CLAIMED)
+            {
+                mappedBuf.putInt(slotAt + FIELD_OFFSET_PARTITION_ID, NO_PARTITION_ID);
+                mappedBuf.putLong(slotAt + FIELD_OFFSET_COMMIT_SEQUENCE, 0L);
+                mappedBuf.putIntOrdered(slotAt + FIELD_OFFSET_STATE, STATE_READY);
+            }
+
+            lastSequence = Math.max(lastSequence, mappedBuf.getLong(slotAt + FIELD_OFFSET_COMMIT_SEQUENCE));
+        }
+        this.commitSequence = new AtomicLong(lastSequence);
+    }
+
+    public Path location()
+    {
+        return location;
+    }
+
+    public long offset(
+        long consumerId,
+        int partitionId)
+    {
+        final int slotAt = findSlot(consumerId, partitionId, false);
+        final long offset = slotAt != NO_SLOT ? mappedBuf.getLongVolatile(slotAt + FIELD_OFFSET_OFFSET) : NO_OFFSET;
+
+        // eviction writes the new consumer before the new offset, so recheck after reading
+        return slotAt != NO_SLOT && matches(slotAt, consumerId, partitionId) ? offset : NO_OFFSET;
+    }
+
+    public boolean commit(
+        long consumerId,
+        int partitionId,
+        long offset)
+    {
+        assert partitionId >= 0;
+
+        boolean committed = false;
+
+        for (int attempt = 0; attempt < COMMIT_ATTEMPTS_MAX && !committed; attempt++)
+        {
+            final int slotAt = findSlot(consumerId, partitionId, true);
+            committed = slotAt != NO_SLOT
+                    ? update(slotAt, consumerId, partitionId, offset)
+                    : evict(consumerId, partitionId, offset);
+        }
+
+        return committed;
+    }
+
+    @Override
+    public void close()
+    {
+        IoUtil.unmap(mappedByteBuf);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %s (%d)", getClass().getSimpleName(), location.getFileName(), mask + 1);
+    }
+
+    private int findSlot(
+        long consumerId,
+        int partitionId,
+        boolean claim)
+    {
+        final int hash = hash(consumerId, partitionId);
+
+        for (int probe = 0; probe <= mask; probe++)
+        {
+            final int slotAt = ((hash + probe) & mask) * SIZEOF_SLOT;
+
+            int state = mappedBuf.getIntVolatile(slotAt + FIELD_OFFSET_STATE);
+            if (state == STATE_EMPTY)
+            {
+                if (!claim)
+                {
+                    break;
+                }
+
+                if (mappedBuf.compareAndSetInt(slotAt + FIELD_OFFSET_STATE, STATE_EMPTY, STATE_CLAIMED))
+                {
+                    mappedBuf.putLong(slotAt + FIELD_OFFSET_CONSUMER_ID, consumerId);
+                    mappedBuf.putInt(slotAt + FIELD_OFFSET_PARTITION_ID, partitionId);
+                    mappedBuf.putLong(slotAt + FIELD_OFFSET_OFFSET, NO_OFFSET);
+                    mappedBuf.putIntOrdered(slotAt + FIELD_OFFSET_STATE, STATE_READY);
+                    return slotAt;
+                }
+
+                state = mappedBuf.getIntVolatile(slotAt + FIELD_OFFSET_STATE);
+            }
+
+            while (state == STATE_CLAIMED)
+            {
+                Thread.onSpinWait();
+                state = mappedBuf.getIntVolatile(slotAt + FIELD_OFFSET_STATE);
+            }
+
+            if (matches(slotAt, consumerId, partitionId))
+            {
+                return slotAt;
+            }
+        }
+
+        return NO_SLOT;
+    }
+
+    private boolean update(
+        int slotAt,
+        long consumerId,
+        int partitionId,
+        long offset)
+    {
+        boolean updated = false;
+
+        if (mappedBuf.compareAndSetInt(slotAt + FIELD_OFFSET_STATE, STATE_READY, STATE_CLAIMED))
+        {
+            // slot may have been evicted for another consumer since it was found
+            if (matches(slotAt, consumerId, partitionId))
+            {
+                mappedBuf.putLongOrdered(slotAt + FIELD_OFFSET_OFFSET, offset);
+                mappedBuf.putLong(slotAt + FIELD_OFFSET_COMMIT_SEQUENCE, commitSequence.incrementAndGet());
+                updated = true;
+            }
+
+            mappedBuf.putIntOrdered(slotAt + FIELD_OFFSET_STATE, STATE_READY);
+        }
+
+        return updated;
+    }
+
+    private boolean evict(
+        long consumerId,
+        int partitionId,
+        long offset)
+    {
+        int victimAt = NO_SLOT;
+        long victimSequence = Long.MAX_VALUE;
+
+        // store is full, so replace the least recently committed slot
+        for (int slotAt = 0; slotAt < mappedBuf.capacity(); slotAt += SIZEOF_SLOT)
+        {
+            final long sequence = mappedBuf.getLongVolatile(slotAt + FIELD_OFFSET_COMMIT_SEQUENCE);
+            if (sequence < victimSequence)
+            {
+                victimAt = slotAt;
+                victimSequence = sequence;
+            }
+        }
+
+        boolean evicted = false;
+
+        if (victimAt != NO_SLOT &&
+            mappedBuf.compareAndSetInt(victimAt + FIELD_OFFSET_STATE, STATE_READY, STATE_CLAIMED))
+        {
+            mappedBuf.putLong(victimAt + FIELD_OFFSET_CONSUMER_ID, consumerId);
+            mappedBuf.putInt(victimAt + FIELD_OFFSET_PARTITION_ID, partitionId);
+            mappedBuf.putLongOrdered(victimAt + FIELD_OFFSET_OFFSET, offset);
+            mappedBuf.putLong(victimAt + FIELD_OFFSET_COMMIT_SEQUENCE, commitSequence.incrementAndGet());
+            mappedBuf.putIntOrdered(victimAt + FIELD_OFFSET_STATE, STATE_READY);
+            evicted = true;
+        }
+
+        return evicted;
+    }
+
+    private boolean matches(
+        int slotAt,
+        long consumerId,
+        int partitionId)
+    {
+        return mappedBuf.getLong(slotAt + FIELD_OFFSET_CONSUMER_ID) == consumerId &&
+               mappedBuf.getInt(slotAt + FIELD_OFFSET_PARTITION_ID) == partitionId;
+    }
+
+    private static int hash(
+        long consumerId,
+        int partitionId)
+    {
+        final long hash = (consumerId * 31L + partitionId) * 0x9E37_79B9_7F4A_7C15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    private static MappedByteBuffer mapOffsets(
+        Path file,
+        int capacity)
+    {
+        MappedByteBuffer mapped = null;
+
+        try
+        {
+            Files.createDirectories(file.getParent());
+
+            if (Files.exists(file) && Files.size(file) != capacity)
+            {
+                // capacity changed, offsets cannot be rehashed in place
+                Files.delete(file);
+            }
+
+            try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE))
+            {
+                mapped = channel.map(MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        assert mapped != null;
+        return mapped;
+    }
+}
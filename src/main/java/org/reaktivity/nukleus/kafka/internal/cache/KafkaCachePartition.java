@@ -21,16 +21,25 @@ import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.RETRY_SEGMENT;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorRetryValue;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorValue;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheEntryFormat.CACHE_ENTRY_FLAGS_DIRTY;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheEntryFormat.newEntryFormat;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.SIZEOF_INDEX_RECORD;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexKey;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexValue;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePrefetcher.NO_PREFETCH;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheWideHash.wideHash;
 import static org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType.JSON_PATCH;
-import static org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW.FIELD_OFFSET_DELTA_POSITION;
-import static org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW.FIELD_OFFSET_DESCENDANT;
-import static org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW.FIELD_OFFSET_FLAGS;
+import static org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType.NONE;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.zip.CRC32C;
@@ -46,6 +55,7 @@ import org.agrona.DirectBuffer;
 import org.agrona.ExpandableArrayBuffer;
 import org.agrona.LangUtil;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.io.DirectBufferInputStream;
 import org.agrona.io.ExpandableDirectBufferOutputStream;
@@ -57,7 +67,6 @@ import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheDeltaFW;
-import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW;
 
 public final class KafkaCachePartition
 {
@@ -65,21 +74,24 @@ public final class KafkaCachePartition
     private static final long NO_ANCESTOR_OFFSET = -1L;
     private static final long NO_DESCENDANT_OFFSET = -1L;
     private static final int NO_DELTA_POSITION = -1;
+    private static final long NO_PUBLISHED_OFFSET = -1L;
+    private static final long NO_FLUSHED_OFFSET = -1L;
 
     private static final String FORMAT_PARTITION_DIRECTORY = "%s-%d";
-
-    private static final int CACHE_ENTRY_FLAGS_DIRTY = 0x01;
+    private static final String KEY_FILTER_FILENAME = "keys.filter";
+    private static final String CHECKPOINT_FILENAME = "checkpoint";
+    private static final String FORMAT_PRODUCE_LOG_FILENAME = "produce-%d.log";
 
     public static final int OFFSET_EARLIEST = KafkaOffsetType.EARLIEST.value();
 
     public static final int OFFSET_LATEST = KafkaOffsetType.LATEST.value();
 
-    private final KafkaCacheEntryFW headEntryRO = new KafkaCacheEntryFW();
-    private final KafkaCacheEntryFW logEntryRO = new KafkaCacheEntryFW();
-    private final KafkaCacheDeltaFW deltaEntryRO = new KafkaCacheDeltaFW();
+    private static final Comparator<Node> LEAST_RECENTLY_ACCESSED =
+            Comparator.comparingLong(n -> n.segment().accessedAt());
 
-    private final MutableDirectBuffer entryInfo = new UnsafeBuffer(new byte[4 * Long.BYTES + 2 * Integer.BYTES]);
-    private final MutableDirectBuffer valueInfo = new UnsafeBuffer(new byte[Integer.BYTES]);
+    private final KafkaCacheEntry headEntryRO = new KafkaCacheEntry();
+    private final KafkaCacheEntry logEntryRO = new KafkaCacheEntry();
+    private final KafkaCacheDeltaFW deltaEntryRO = new KafkaCacheDeltaFW();
 
     private final DirectBufferInputStream ancestorIn = new DirectBufferInputStream();
     private final DirectBufferInputStream headIn = new DirectBufferInputStream();
@@ -95,10 +107,35 @@ public final class KafkaCachePartition
     private final IntFunction<long[]> sortSpaceRef;
     private final Node sentinel;
     private final CRC32C checksum;
+    private final KafkaCacheEntryFormat headFormat;
+    private final KafkaCacheEntryFormat ancestorFormat;
+    private final KafkaCacheEntryFormat cleanFormat;
+    private final List<Node> mappedNodes;
+    private final long nullKeyHash;
+    private final KafkaCacheKeyFilter keyFilter;
+    private final KafkaCacheBudget budget;
+    private final KafkaCachePrefetcher prefetcher;
+    private final KafkaCacheFlusher flusher;
+    private final KafkaCacheCheckpoint checkpoint;
+    private final ScheduledFuture<?> flushTask;
 
     private long progress;
+    private volatile long bytes;
+    private long unflushedBytes;
+
+    private volatile boolean flushPending;
+    private volatile long flushedOffset;
+    private final Int2ObjectHashMap<KafkaCacheProduceLog> produceLogsByIndex;
 
-    private KafkaCacheEntryFW ancestorEntry;
+    private volatile long publishedOffset;
+    private volatile long publishedLatestOffset;
+
+    private KafkaCacheEntry ancestorEntry;
+
+    private final Consumer<KafkaHeaderFW> appendHeaderHash = this::appendHeaderHash;
+    private KafkaCacheHeaderIndexPolicy headerHashPolicy;
+    private KafkaCacheIndexFile headerHashFile;
+    private int headerHashPosition;
 
     public KafkaCachePartition(
         Path location,
@@ -108,6 +145,24 @@ public final class KafkaCachePartition
         int id,
         int appendCapacity,
         IntFunction<long[]> sortSpaceRef)
+    {
+        this(location, config, cache, topic, id, appendCapacity, sortSpaceRef,
+            new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED),
+            new KafkaCachePrefetcher(0),
+            new KafkaCacheFlusher(0L, 0L, false));
+    }
+
+    public KafkaCachePartition(
+        Path location,
+        KafkaCacheTopicConfig config,
+        String cache,
+        String topic,
+        int id,
+        int appendCapacity,
+        IntFunction<long[]> sortSpaceRef,
+        KafkaCacheBudget budget,
+        KafkaCachePrefetcher prefetcher,
+        KafkaCacheFlusher flusher)
     {
         this.location = createDirectories(location.resolve(String.format(FORMAT_PARTITION_DIRECTORY, topic, id)));
         this.config = config;
@@ -118,7 +173,24 @@ public final class KafkaCachePartition
         this.sortSpaceRef = sortSpaceRef;
         this.sentinel = new Node();
         this.checksum = new CRC32C();
+        this.headFormat = newEntryFormat(config.entryFormat);
+        this.ancestorFormat = newEntryFormat(config.entryFormat);
+        this.cleanFormat = newEntryFormat(config.entryFormat);
+        this.mappedNodes = new ArrayList<>();
+        this.nullKeyHash = computeHash(initNullKey());
+        this.keyFilter = new KafkaCacheKeyFilter(this.location.resolve(KEY_FILTER_FILENAME), config.keyFilterCapacity);
+        this.budget = budget;
+        this.budget.register(this);
+        this.prefetcher = prefetcher;
+        this.flusher = flusher;
+        this.produceLogsByIndex = new Int2ObjectHashMap<>();
         this.progress = OFFSET_EARLIEST;
+        this.publishedOffset = NO_PUBLISHED_OFFSET;
+        this.publishedLatestOffset = NO_PUBLISHED_OFFSET;
+        this.flushedOffset = NO_FLUSHED_OFFSET;
+        this.checkpoint = new KafkaCacheCheckpoint(this.location.resolve(CHECKPOINT_FILENAME));
+        recoverIfNecessary();
+        this.flushTask = flusher.register(this);
     }
 
     public String cache()
@@ -146,6 +218,34 @@ public final class KafkaCachePartition
         return sentinel.previous;
     }
 
+    public boolean mayContainKey(
+        int keyHash)
+    {
+        // head segment keys are not tracked until frozen
+        return keyFilter.mayContain(keyHash);
+    }
+
+    public long publishedOffset()
+    {
+        return publishedOffset;
+    }
+
+    public long publishedLatestOffset()
+    {
+        return publishedLatestOffset;
+    }
+
+    public void publish(
+        long partitionOffset,
+        long latestOffset)
+    {
+        assert partitionOffset <= progress;
+
+        // readers load partition offset before latest offset, so store in reverse order
+        this.publishedLatestOffset = latestOffset;
+        this.publishedOffset = partitionOffset;
+    }
+
     public long nextOffset(
         KafkaOffsetType defaultOffset)
     {
@@ -171,11 +271,51 @@ public final class KafkaCachePartition
         {
             final KafkaCacheSegment tail = head.segment.freeze();
             head.segment(tail);
+            keyFilter.addAll(tail.keysFile());
+
+            if (flusher.enabled())
+            {
+                flusher.flush(this, tail);
+            }
         }
 
+        this.unflushedBytes = 0L;
+
         return node;
     }
 
+    public void evict()
+    {
+        Node node = sentinel.next;
+
+        while (node != sentinel)
+        {
+            node.remove();
+            node = node.next;
+        }
+
+        keyFilter.clear();
+        checkpoint.delete();
+
+        this.progress = OFFSET_EARLIEST;
+        this.publishedOffset = NO_PUBLISHED_OFFSET;
+        this.publishedLatestOffset = NO_PUBLISHED_OFFSET;
+        this.flushedOffset = NO_FLUSHED_OFFSET;
+    }
+
+    public void close()
+    {
+        budget.unregister(this);
+        flusher.unregister(flushTask);
+
+        for (Node node = sentinel.next; node != sentinel; node = node.next)
+        {
+            node.segment.close();
+        }
+
+        keyFilter.close();
+    }
+
     public Node seekNotBefore(
         long offset)
     {
@@ -225,13 +365,13 @@ public final class KafkaCachePartition
         }
         else
         {
-            final int logRequired = entryInfo.capacity() + key.sizeof() + valueInfo.capacity() +
+            final int logRequired = headFormat.sizeofEntryHeaderMax() + key.sizeof() +
                     Math.max(valueLength, 0) + headersSizeMax;
             final int hashKeyRequired = key.length() != -1 ? 1 : 0;
-            final int hashHeaderRequiredMax = headersSizeMax >> 2;
-            final int hashRequiredMax = (hashKeyRequired + hashHeaderRequiredMax) * SIZEOF_INDEX_RECORD;
+            final int hashHeaderRequiredMax = config.headerIndexPolicy.hashRequiredMax(headersSizeMax);
 
             KafkaCacheSegment headSegment = head.segment;
+            final int hashRequiredMax = (hashKeyRequired + hashHeaderRequiredMax) * headSegment.hashFile().recordBytes();
             int logRemaining = headSegment.logFile().available();
             int indexRemaining = headSegment.indexFile().available();
             int hashRemaining = headSegment.hashFile().available();
@@ -263,10 +403,10 @@ public final class KafkaCachePartition
         KafkaKeyFW key,
         ArrayFW<KafkaHeaderFW> headers,
         OctetsFW value,
-        KafkaCacheEntryFW ancestor,
+        KafkaCacheEntry ancestor,
         KafkaDeltaType deltaType)
     {
-        final long keyHash = computeHash(key);
+        final long keyHash = computeKeyHash(key);
         writeEntryStart(offset, timestamp, key, keyHash, value != null ? value.sizeof() : -1, ancestor, deltaType);
         writeEntryContinue(value);
         writeEntryFinish(headers, deltaType);
@@ -278,7 +418,7 @@ public final class KafkaCachePartition
         KafkaKeyFW key,
         long keyHash,
         int valueLength,
-        KafkaCacheEntryFW ancestor,
+        KafkaCacheEntry ancestor,
         KafkaDeltaType deltaType)
     {
         assert offset > this.progress : String.format("%d > %d", offset, this.progress);
@@ -289,10 +429,11 @@ public final class KafkaCachePartition
 
         final KafkaCacheSegment segment = head.segment;
         assert segment != null;
+        assert segment.entryFormat() == headFormat.version();
 
         final KafkaCacheFile logFile = segment.logFile();
         final KafkaCacheFile deltaFile = segment.deltaFile();
-        final KafkaCacheFile hashFile = segment.hashFile();
+        final KafkaCacheIndexFile hashFile = segment.hashFile();
         final KafkaCacheFile keysFile = segment.keysFile();
         final KafkaCacheFile nullsFile = segment.nullsFile();
 
@@ -308,19 +449,11 @@ public final class KafkaCachePartition
         assert deltaPosition == NO_DELTA_POSITION || ancestor != null;
         this.ancestorEntry = ancestor;
 
-        entryInfo.putLong(0, progress);
-        entryInfo.putLong(Long.BYTES, timestamp);
-        entryInfo.putLong(2 * Long.BYTES, ancestorOffset);
-        entryInfo.putLong(3 * Long.BYTES, NO_DESCENDANT_OFFSET);
-        entryInfo.putInt(4 * Long.BYTES, 0x00);
-        entryInfo.putInt(4 * Long.BYTES + Integer.BYTES, deltaPosition);
-
-        logFile.appendBytes(entryInfo);
-        logFile.appendBytes(key);
-        logFile.appendInt(valueLength);
+        headFormat.appendEntryHeader(segment, progress, timestamp, ancestorOffset, NO_DESCENDANT_OFFSET,
+                0x00, deltaPosition, key, valueLength);
 
         final long hashEntry = keyHash << 32 | logFile.markValue();
-        hashFile.appendLong(hashEntry);
+        hashFile.appendEntry(hashEntry, keyHash);
 
         if (valueLength == -1)
         {
@@ -364,7 +497,7 @@ public final class KafkaCachePartition
 
         final KafkaCacheFile logFile = headSegment.logFile();
         final KafkaCacheFile deltaFile = headSegment.deltaFile();
-        final KafkaCacheFile hashFile = headSegment.hashFile();
+        final KafkaCacheIndexFile hashFile = headSegment.hashFile();
         final KafkaCacheFile indexFile = headSegment.indexFile();
 
         final int logAvailable = logFile.available();
@@ -376,24 +509,16 @@ public final class KafkaCachePartition
         final long offsetDelta = (int)(progress - headSegment.baseOffset());
         final long indexEntry = (offsetDelta << 32) | logFile.markValue();
 
-        if (!headers.isEmpty())
+        final KafkaCacheHeaderIndexPolicy headerIndexPolicy = config.headerIndexPolicy;
+        if (!headers.isEmpty() && headerIndexPolicy != KafkaCacheHeaderIndexPolicy.NONE)
         {
-            final DirectBuffer buffer = headers.buffer();
-            final ByteBuffer byteBuffer = buffer.byteBuffer();
-            assert byteBuffer != null;
-            byteBuffer.clear();
-            headers.forEach(h ->
-            {
-                final long hash = computeHash(h);
-                final long hashEntry = (hash << 32) | logFile.markValue();
-                hashFile.appendLong(hashEntry);
-            });
+            appendHeaderHashes(headers, headerIndexPolicy, hashFile, logFile.markValue());
         }
 
         assert indexFile.available() >= Long.BYTES;
         indexFile.appendLong(indexEntry);
 
-        final KafkaCacheEntryFW headEntry = logFile.readBytes(logFile.markValue(), headEntryRO::wrap);
+        final KafkaCacheEntry headEntry = headFormat.readEntry(headSegment, logFile.markValue(), headEntryRO);
 
         if (deltaType == JSON_PATCH &&
             ancestorEntry != null && ancestorEntry.valueLen() != -1 &&
@@ -429,6 +554,14 @@ public final class KafkaCachePartition
         }
 
         headSegment.lastOffset(progress);
+
+        this.unflushedBytes += logFile.capacity() - logFile.markValue();
+        if (!flushPending && flusher.flushRequired(unflushedBytes))
+        {
+            this.flushPending = true;
+            this.unflushedBytes = 0L;
+            flusher.flush(this);
+        }
     }
 
     public long retainAt(
@@ -444,6 +577,123 @@ public final class KafkaCachePartition
         return segment.timestamp() + Math.min(config.retentionMillis, retentionMillisMax);
     }
 
+    public long bytes()
+    {
+        return bytes;
+    }
+
+    public long flushedOffset()
+    {
+        return flushedOffset;
+    }
+
+    public synchronized KafkaCacheProduceLog acquireProduceLog(
+        int capacity)
+    {
+        int unusedIndex = -1;
+        int unackedIndex = -1;
+
+        for (int index = 0; unackedIndex == -1; index++)
+        {
+            final Path file = location.resolve(String.format(FORMAT_PRODUCE_LOG_FILENAME, index));
+            final boolean exists = Files.exists(file);
+
+            if (!produceLogsByIndex.containsKey(index))
+            {
+                if (unusedIndex == -1)
+                {
+                    unusedIndex = index;
+                }
+
+                if (exists && KafkaCacheProduceLog.unacked(file))
+                {
+                    unackedIndex = index;
+                }
+            }
+
+            if (!exists)
+            {
+                break;
+            }
+        }
+
+        // unacknowledged entries left by a previous run are drained first
+        final int index = unackedIndex != -1 ? unackedIndex : unusedIndex;
+        final Path file = location.resolve(String.format(FORMAT_PRODUCE_LOG_FILENAME, index));
+        final KafkaCacheProduceLog produceLog = new KafkaCacheProduceLog(file, capacity);
+        produceLogsByIndex.put(index, produceLog);
+
+        return produceLog;
+    }
+
+    public synchronized void releaseProduceLog(
+        KafkaCacheProduceLog produceLog)
+    {
+        produceLogsByIndex.values().remove(produceLog);
+        produceLog.close();
+    }
+
+    public synchronized boolean hasUnackedProduceLog()
+    {
+        boolean unacked = false;
+
+        for (int index = 0; !unacked; index++)
+        {
+            final Path file = location.resolve(String.format(FORMAT_PRODUCE_LOG_FILENAME, index));
+
+            if (!Files.exists(file))
+            {
+                break;
+            }
+
+            unacked = !produceLogsByIndex.containsKey(index) && KafkaCacheProduceLog.unacked(file);
+        }
+
+        return unacked;
+    }
+
+    public boolean bytesExceeded()
+    {
+        final long retentionBytes = config.retentionBytes;
+        return config.cleanupPolicy.delete() && retentionBytes >= 0L && bytes > retentionBytes ||
+            budget.exceeded(this);
+    }
+
+    public boolean compressible()
+    {
+        return !config.cleanupPolicy.compact() && config.segmentCompressMillis != Long.MAX_VALUE;
+    }
+
+    public long compressAt(
+        KafkaCacheSegment segment)
+    {
+        return segment.timestamp() + config.segmentCompressMillis;
+    }
+
+    public void unmapIfNecessary()
+    {
+        final Node head = sentinel.previous;
+        for (Node node = sentinel.next; node != head; node = node.next)
+        {
+            if (node.segment.mapped())
+            {
+                mappedNodes.add(node);
+            }
+        }
+
+        final int unmappable = mappedNodes.size() - config.segmentMappedMax;
+        if (unmappable > 0)
+        {
+            mappedNodes.sort(LEAST_RECENTLY_ACCESSED);
+            for (int index = 0; index < unmappable; index++)
+            {
+                mappedNodes.get(index).unmapIfIdle();
+            }
+        }
+
+        mappedNodes.clear();
+    }
+
     public long compactAt(
         KafkaCacheSegment segment)
     {
@@ -480,10 +730,15 @@ public final class KafkaCachePartition
         return config.cleanupPolicy;
     }
 
+    public KafkaCacheHeaderIndexPolicy headerIndexPolicy()
+    {
+        return config.headerIndexPolicy;
+    }
+
     public long computeKeyHash(
         KafkaKeyFW key)
     {
-        return computeHash(key);
+        return key.length() != -1 ? computeHash(key) : nullKeyHash;
     }
 
     @Override
@@ -492,19 +747,199 @@ public final class KafkaCachePartition
         return String.format("[%s] %s[%d]", cache, topic, id);
     }
 
+    void flush()
+    {
+        this.flushPending = false;
+
+        final Node head = sentinel.previous;
+        final KafkaCacheSegment segment = !head.sentinel() ? head.segment().acquire() : null;
+        if (segment != null)
+        {
+            try
+            {
+                if (lastIndexedOffset(segment) > flushedOffset)
+                {
+                    flush(segment);
+                }
+            }
+            finally
+            {
+                segment.release();
+            }
+        }
+    }
+
+    void flush(
+        KafkaCacheSegment segment)
+    {
+        final KafkaCacheIndexFile indexFile = segment.indexFile();
+        final int indexSize = indexFile.capacity();
+        final long indexEntry = indexSize != 0 ? indexFile.readLong(indexSize - SIZEOF_INDEX_RECORD) : 0L;
+        final long offset = indexSize != 0 ? segment.baseOffset() + indexKey(indexEntry) : NO_FLUSHED_OFFSET;
+
+        segment.flush();
+
+        // frozen tails may flush after a newer head, so never move backwards
+        if (offset > flushedOffset)
+        {
+            checkpoint.write(segment.baseOffset(), segment.baseTimestamp(), offset,
+                indexValue(indexEntry), segment.entryFormat());
+            this.flushedOffset = offset;
+        }
+    }
+
+    private void recoverIfNecessary()
+    {
+        if (checkpoint.read())
+        {
+            final long baseOffset = checkpoint.baseOffset();
+            final KafkaCacheFile recoverLog = KafkaCacheFile.Log.recover(location, baseOffset);
+
+            if (recoverLog != null)
+            {
+                final KafkaCacheSegment recovered = new KafkaCacheSegment(location, topic, id, baseOffset,
+                    checkpoint.baseTimestamp(), checkpoint.entryFormat(), recoverLog);
+                final KafkaCacheEntryFormat recoverFormat = newEntryFormat(checkpoint.entryFormat());
+
+                if (recoverable(recovered, recoverFormat))
+                {
+                    replay(recovered, recoverFormat);
+                }
+
+                recoverLog.close();
+                recoverLog.delete();
+            }
+
+            if (head().sentinel())
+            {
+                checkpoint.delete();
+            }
+        }
+    }
+
+    private boolean recoverable(
+        KafkaCacheSegment recovered,
+        KafkaCacheEntryFormat recoverFormat)
+    {
+        final int checkpointPosition = checkpoint.position();
+        final int capacity = recovered.logView().capacity();
+
+        int position = 0;
+        while (position < checkpointPosition && position < capacity)
+        {
+            position = recoverFormat.limit(recovered, position);
+        }
+
+        return position == checkpointPosition &&
+               position < capacity &&
+               recoverFormat.readEntry(recovered, position, logEntryRO).offset$() == checkpoint.offset();
+    }
+
+    private void replay(
+        KafkaCacheSegment recovered,
+        KafkaCacheEntryFormat recoverFormat)
+    {
+        final KafkaCacheEntry ancestorEntry = new KafkaCacheEntry();
+        final int checkpointPosition = checkpoint.position();
+
+        newHeadIfNecessary(recovered.baseOffset());
+
+        // entries are rewritten in full, so the index and hash files of the new head are rebuilt too
+        for (int position = 0; position <= checkpointPosition; position = recoverFormat.limit(recovered, position))
+        {
+            final KafkaCacheEntry entry = recoverFormat.readEntry(recovered, position, logEntryRO);
+            final long offset = entry.offset$();
+            final KafkaKeyFW key = entry.key();
+            final OctetsFW value = entry.value();
+            final ArrayFW<KafkaHeaderFW> headers = entry.headers();
+
+            final Node head = newHeadIfNecessary(offset, key, entry.valueLen(), headers.sizeof());
+            final long keyHash = computeKeyHash(key);
+            final KafkaCacheEntry ancestor = head.findAndMarkAncestor(key, keyHash, offset, ancestorEntry);
+
+            writeEntryStart(offset, entry.timestamp(), key, keyHash, entry.valueLen(), ancestor, NONE);
+            if (value != null)
+            {
+                writeEntryContinue(value);
+            }
+            writeEntryFinish(headers, NONE);
+        }
+
+        flush(head().segment());
+    }
+
+    private static long lastIndexedOffset(
+        KafkaCacheSegment segment)
+    {
+        // index is appended after log, so each indexed entry is complete within log size
+        final KafkaCacheIndexFile indexFile = segment.indexFile();
+        final int indexSize = indexFile.capacity();
+
+        return indexSize != 0
+                ? segment.baseOffset() + indexKey(indexFile.readLong(indexSize - SIZEOF_INDEX_RECORD))
+                : NO_FLUSHED_OFFSET;
+    }
+
+    private void appendHeaderHashes(
+        ArrayFW<KafkaHeaderFW> headers,
+        KafkaCacheHeaderIndexPolicy headerIndexPolicy,
+        KafkaCacheIndexFile hashFile,
+        int position)
+    {
+        this.headerHashPolicy = headerIndexPolicy;
+        this.headerHashFile = hashFile;
+        this.headerHashPosition = position;
+
+        headers.forEach(appendHeaderHash);
+
+        this.headerHashPolicy = null;
+        this.headerHashFile = null;
+    }
+
+    private void appendHeaderHash(
+        KafkaHeaderFW header)
+    {
+        if (headerHashPolicy.indexes(header))
+        {
+            final long hash = computeHash(header);
+            final long hashEntry = (hash << 32) | headerHashPosition;
+            headerHashFile.appendEntry(hashEntry, hash);
+        }
+    }
+
     private long computeHash(
         Flyweight keyOrHeader)
     {
-        // TODO: compute null key hash in advance
         final DirectBuffer buffer = keyOrHeader.buffer();
-        final ByteBuffer byteBuffer = buffer.byteBuffer();
-        byteBuffer.clear();
-        assert byteBuffer != null;
-        checksum.reset();
-        byteBuffer.position(keyOrHeader.offset());
-        byteBuffer.limit(keyOrHeader.limit());
-        checksum.update(byteBuffer);
-        return checksum.getValue();
+
+        long hash;
+
+        if (config.wideHashIndex)
+        {
+            hash = wideHash(buffer, keyOrHeader.offset(), keyOrHeader.sizeof());
+        }
+        else
+        {
+            final ByteBuffer byteBuffer = buffer.byteBuffer();
+            assert byteBuffer != null;
+            byteBuffer.clear();
+            checksum.reset();
+            byteBuffer.position(keyOrHeader.offset());
+            byteBuffer.limit(keyOrHeader.limit());
+            checksum.update(byteBuffer);
+            hash = checksum.getValue();
+        }
+
+        return hash;
+    }
+
+    private static KafkaKeyFW initNullKey()
+    {
+        return new KafkaKeyFW.Builder()
+                .wrap(new UnsafeBuffer(ByteBuffer.allocate(5)), 0, 5)
+                .length(-1)
+                .value((OctetsFW) null)
+                .build();
     }
 
     public final class Node
@@ -513,6 +948,8 @@ public final class KafkaCachePartition
         private volatile KafkaCachePartition.Node previous;
         private volatile KafkaCachePartition.Node next;
 
+        private long bytes;
+
         Node()
         {
             this.segment = null;
@@ -548,6 +985,14 @@ public final class KafkaCachePartition
             return segment;
         }
 
+        public int prefetch(
+            KafkaCacheSegment segment,
+            int index,
+            int position)
+        {
+            return next != sentinel ? prefetcher.prefetch(segment, index, position) : NO_PREFETCH;
+        }
+
         public Node seekAncestor(
             long baseOffset)
         {
@@ -564,6 +1009,18 @@ public final class KafkaCachePartition
         public void remove()
         {
             assert segment != null;
+            if (next != sentinel)
+            {
+                keyFilter.removeAll(segment.keysFile());
+            }
+
+            unlink();
+        }
+
+        private void unlink()
+        {
+            account(0L);
+
             segment.delete();
             segment.close();
 
@@ -577,6 +1034,8 @@ public final class KafkaCachePartition
             assert segment != null;
             this.segment.close();
             this.segment = segment;
+
+            account(segment.size());
         }
 
         public void clean(
@@ -586,6 +1045,8 @@ public final class KafkaCachePartition
 
             if (segment.cleanableAt() <= now)
             {
+                keyFilter.removeAll(segment.keysFile());
+
                 // TODO: use temporary files plus move to avoid corrupted log on restart
                 segment.delete();
 
@@ -595,35 +1056,44 @@ public final class KafkaCachePartition
 
                 for (int logPosition = 0; logPosition < logFile.capacity(); )
                 {
-                    final KafkaCacheEntryFW logEntry = logFile.readBytes(logPosition, logEntryRO::wrap);
+                    final KafkaCacheEntry logEntry = cleanFormat.readEntry(segment, logPosition, logEntryRO);
                     if ((logEntry.flags() & CACHE_ENTRY_FLAGS_DIRTY) == 0)
                     {
                         final long logOffset = logEntry.offset$();
                         final KafkaKeyFW key = logEntry.key();
                         final ArrayFW<KafkaHeaderFW> headers = logEntry.headers();
                         final int deltaPosition = logEntry.deltaPosition();
-                        final long keyHash = computeHash(key);
+                        final long keyHash = computeKeyHash(key);
 
                         final long offsetDelta = (int)(logOffset - segment.baseOffset());
                         final long indexEntry = (offsetDelta << 32) | appender.logFile().capacity();
                         appender.indexFile().appendLong(indexEntry);
 
                         final long keyHashEntry = keyHash << 32 | appender.logFile().capacity();
-                        appender.hashFile().appendLong(keyHashEntry);
+                        appender.hashFile().appendEntry(keyHashEntry, keyHash);
 
-                        headers.forEach(header ->
+                        final KafkaCacheHeaderIndexPolicy headerIndexPolicy = config.headerIndexPolicy;
+                        if (headerIndexPolicy != KafkaCacheHeaderIndexPolicy.NONE)
                         {
-                            final long headerHash = computeHash(header);
-                            final long headerHashEntry = headerHash << 32 | appender.logFile().capacity();
-                            appender.hashFile().appendLong(headerHashEntry);
-                        });
+                            appendHeaderHashes(headers, headerIndexPolicy, appender.hashFile(), appender.logFile().capacity());
+                        }
+
+                        final int newDeltaPosition = deltaPosition != NO_DELTA_POSITION
+                                ? appender.deltaFile().capacity()
+                                : NO_DELTA_POSITION;
+
+                        cleanFormat.appendEntryHeader(appender, logOffset, logEntry.timestamp(), logEntry.ancestor(),
+                                logEntry.descendant(), logEntry.flags(), newDeltaPosition, key, logEntry.valueLen());
 
-                        appender.logFile().appendBytes(logEntry);
-                        if (deltaPosition != -1)
+                        final OctetsFW value = logEntry.value();
+                        if (value != null)
                         {
-                            final int newLogEntryAt = appender.logFile().capacity() - logEntry.sizeof();
-                            appender.logFile().writeInt(newLogEntryAt + FIELD_OFFSET_DELTA_POSITION, deltaFile.capacity());
+                            appender.logFile().appendBytes(value);
+                        }
+                        appender.logFile().appendBytes(headers);
 
+                        if (deltaPosition != NO_DELTA_POSITION)
+                        {
                             final KafkaCacheDeltaFW deltaEntry = deltaFile.readBytes(deltaPosition, deltaEntryRO::wrap);
                             appender.deltaFile().appendBytes(deltaEntry);
                         }
@@ -636,7 +1106,7 @@ public final class KafkaCachePartition
                         appender.lastOffset(logOffset);
                     }
 
-                    logPosition = logEntry.limit();
+                    logPosition = cleanFormat.limit(segment, logPosition);
                 }
 
                 segment.close();
@@ -647,39 +1117,91 @@ public final class KafkaCachePartition
                 if (frozen.logFile().empty())
                 {
                     frozen.delete();
-                    remove();
+                    unlink();
                 }
                 else
                 {
+                    keyFilter.addAll(frozen.keysFile());
                     segment(frozen);
                 }
             }
         }
 
-        public KafkaCacheEntryFW findAndMarkAncestor(
+        public void compressLog(
+            KafkaCacheSegment compressible)
+        {
+            try
+            {
+                compressible.compressLog(config.segmentBlockBytes);
+            }
+            finally
+            {
+                compressible.release();
+            }
+        }
+
+        public boolean compress(
+            long baseOffset)
+        {
+            final boolean linked = previous.next == this;
+            final boolean compressible = linked &&
+                    !segment.compressed() &&
+                    segment.baseOffset() == baseOffset &&
+                    KafkaCacheFile.CompressedLog.exists(segment.location(), baseOffset);
+
+            if (compressible)
+            {
+                assert next != sentinel; // not head segment
+
+                final KafkaCacheSegment compressed = segment.compress();
+                segment(compressed);
+            }
+            else if (!linked || segment.baseOffset() != baseOffset || !segment.compressed())
+            {
+                KafkaCacheFile.CompressedLog.deleteIfExists(segment.location(), baseOffset);
+            }
+
+            return compressible;
+        }
+
+        public void unmapIfIdle()
+        {
+            assert next != sentinel; // not head segment
+
+            // only the node holds a reference, so no cursor can be reading the mapping
+            if (segment.references() == 1)
+            {
+                final KafkaCacheSegment unmapped = segment.unmapped();
+                segment(unmapped);
+            }
+        }
+
+        public KafkaCacheEntry findAndMarkAncestor(
             KafkaKeyFW key,
             long hash,
             long descendantOffset,
-            KafkaCacheEntryFW ancestorEntry)
+            KafkaCacheEntry ancestorEntry)
         {
-            KafkaCacheEntryFW ancestor = null;
+            KafkaCacheEntry ancestor = null;
 
             ancestor:
-            if (key.length() != -1)
+            if (key.length() != -1 && !segment.compressed())
             {
                 final KafkaCacheIndexFile hashFile = segment.hashFile();
-                final KafkaCacheFile logFile = segment.logFile();
                 long hashCursor = hashFile.last((int) hash);
                 while (hashCursor != NEXT_SEGMENT && cursorValue(hashCursor) != cursorValue(RETRY_SEGMENT))
                 {
-                    final int position = cursorValue(hashCursor);
-                    final KafkaCacheEntryFW cacheEntry = logFile.readBytes(position, ancestorEntry::wrap);
-                    assert cacheEntry != null;
-                    if (key.equals(cacheEntry.key()))
+                    if (!hashFile.wide() || hashFile.extension(hashCursor) == hash)
                     {
-                        ancestor = cacheEntry;
-                        markDescendantAndDirty(ancestor, descendantOffset);
-                        break ancestor;
+                        final int position = cursorValue(hashCursor);
+                        final KafkaCacheEntry cacheEntry = ancestorFormat.readEntry(segment, position, ancestorEntry);
+                        assert cacheEntry != null;
+                        if (key.equals(cacheEntry.key()))
+                        {
+                            ancestorFormat.markDescendantAndDirty(segment, position, descendantOffset);
+                            ancestor = ancestorFormat.readEntry(segment, position, ancestorEntry);
+                            break ancestor;
+                        }
                     }
 
                     hashCursor = hashFile.lower((int) hash, hashCursor);
@@ -690,14 +1212,14 @@ public final class KafkaCachePartition
             return ancestor;
         }
 
-        private void markDescendantAndDirty(
-            KafkaCacheEntryFW ancestor,
-            long descendantOffset)
+        private void account(
+            long newBytes)
         {
-            final KafkaCacheFile logFile = segment.logFile();
-            logFile.writeLong(ancestor.offset() + FIELD_OFFSET_DESCENDANT, descendantOffset);
-            logFile.writeInt(ancestor.offset() + FIELD_OFFSET_FLAGS, CACHE_ENTRY_FLAGS_DIRTY);
-            segment.markDirtyBytes(ancestor.sizeof());
+            final long delta = newBytes - bytes;
+            this.bytes = newBytes;
+
+            KafkaCachePartition.this.bytes += delta;
+            budget.account(delta);
         }
 
         @Override
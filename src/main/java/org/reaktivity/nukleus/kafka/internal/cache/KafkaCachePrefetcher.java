@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public final class KafkaCachePrefetcher implements AutoCloseable
+{
+    public static final int NO_PREFETCH = Integer.MAX_VALUE;
+
+    private static final int PREFETCH_QUEUE_CAPACITY = 64;
+    private static final long PREFETCH_IDLE_SECONDS = 10L;
+
+    private final int prefetchBytes;
+    private final ThreadPoolExecutor executor;
+
+    private int touched;
+
+    public KafkaCachePrefetcher(
+        int prefetchBytes)
+    {
+        this.prefetchBytes = prefetchBytes;
+        this.executor = prefetchBytes > 0 ? newExecutor() : null;
+    }
+
+    public boolean enabled()
+    {
+        return executor != null;
+    }
+
+    public int prefetch(
+        KafkaCacheSegment segment,
+        int index,
+        int position)
+    {
+        int prefetchAt = NO_PREFETCH;
+
+        if (executor != null)
+        {
+            final KafkaCacheSegment acquired = segment.acquire();
+            if (acquired != null)
+            {
+                try
+                {
+                    executor.execute(() -> load(acquired, index, position));
+                }
+                catch (RejectedExecutionException ex)
+                {
+                    acquired.release();
+                }
+            }
+
+            prefetchAt = (int) Math.min((long) position + (prefetchBytes >> 1), NO_PREFETCH);
+        }
+
+        return prefetchAt;
+    }
+
+    @Override
+    public void close()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %d", getClass().getSimpleName(), prefetchBytes);
+    }
+
+    private void load(
+        KafkaCacheSegment segment,
+        int index,
+        int position)
+    {
+        try
+        {
+            // index entries are 8 bytes, typically much smaller than the log entries they locate
+            touched += segment.logView().prefetch(position, prefetchBytes);
+            touched += segment.indexFile().prefetch(index << 3, prefetchBytes >> 3);
+        }
+        finally
+        {
+            segment.release();
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor()
+    {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, PREFETCH_IDLE_SECONDS, SECONDS,
+            new ArrayBlockingQueue<>(PREFETCH_QUEUE_CAPACITY), KafkaCachePrefetcher::newThread);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static Thread newThread(
+        Runnable runnable)
+    {
+        final Thread thread = new Thread(runnable, "kafka-cache-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,373 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.agrona.BitUtil.align;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+public final class KafkaCacheProduceLog implements AutoCloseable
+{
+    private static final String EXT_REJECTED = ".rejected";
+
+    private static final int FIELD_OFFSET_POSITIONS = 0;
+    private static final int SIZEOF_HEADER = 64;
+
+    private static final int FIELD_OFFSET_ENTRY_LENGTH = 0;
+    private static final int SIZEOF_ENTRY_HEADER = Integer.BYTES;
+    private static final int ENTRY_ALIGNMENT = Long.BYTES;
+
+    private static final int FIELD_OFFSET_REJECTED_ERROR = 0;
+    private static final int FIELD_OFFSET_REJECTED_LENGTH = FIELD_OFFSET_REJECTED_ERROR + Integer.BYTES;
+    private static final int SIZEOF_REJECTED_HEADER = FIELD_OFFSET_REJECTED_LENGTH + Integer.BYTES;
+
+    private final Path location;
+    private final Path rejectedLocation;
+    private final MappedByteBuffer mappedByteBuf;
+    private final AtomicBuffer headerBuf;
+    private final MutableDirectBuffer entriesBuf;
+
+    private int sendPosition;
+
+    public KafkaCacheProduceLog(
+        Path location,
+        int capacity)
+    {
+        final int entriesCapacity = align(Math.max(capacity, SIZEOF_ENTRY_HEADER), ENTRY_ALIGNMENT);
+
+        this.location = location;
+        this.rejectedLocation = location.resolveSibling(location.getFileName() + EXT_REJECTED);
+        this.mappedByteBuf = mapLog(location, SIZEOF_HEADER + entriesCapacity);
+        this.headerBuf = new UnsafeBuffer(mappedByteBuf, 0, SIZEOF_HEADER);
+        this.entriesBuf = new UnsafeBuffer(mappedByteBuf, SIZEOF_HEADER, mappedByteBuf.capacity() - SIZEOF_HEADER);
+
+        final int ackPosition = ackPosition();
+        final int writePosition = writePosition();
+        if (ackPosition < 0 || ackPosition > writePosition || writePosition > entriesBuf.capacity())
+        {
+            reset();
+        }
+
+        // unacknowledged entries survive restart and are sent again
+        this.sendPosition = ackPosition();
+    }
+
+    public Path location()
+    {
+        return location;
+    }
+
+    public Path rejectedLocation()
+    {
+        return rejectedLocation;
+    }
+
+    public int capacity()
+    {
+        return entriesBuf.capacity();
+    }
+
+    public boolean isEmpty()
+    {
+        return ackPosition() == writePosition();
+    }
+
+    public boolean hasUnsent()
+    {
+        return sendPosition < writePosition();
+    }
+
+    public boolean hasUnacked()
+    {
+        return ackPosition() < sendPosition;
+    }
+
+    public DirectBuffer entries()
+    {
+        return entriesBuf;
+    }
+
+    public int ackPosition()
+    {
+        return ackPosition(headerBuf.getLongVolatile(FIELD_OFFSET_POSITIONS));
+    }
+
+    public int writePosition()
+    {
+        return writePosition(headerBuf.getLongVolatile(FIELD_OFFSET_POSITIONS));
+    }
+
+    public int sendPosition()
+    {
+        return sendPosition;
+    }
+
+    public int entryOffset(
+        int position)
+    {
+        return position + SIZEOF_ENTRY_HEADER;
+    }
+
+    public int entryLength(
+        int position)
+    {
+        return entriesBuf.getInt(position + FIELD_OFFSET_ENTRY_LENGTH);
+    }
+
+    public int entryLimit(
+        int position)
+    {
+        return position + align(SIZEOF_ENTRY_HEADER + entryLength(position), ENTRY_ALIGNMENT);
+    }
+
+    public boolean append(
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        final int entrySize = align(SIZEOF_ENTRY_HEADER + length, ENTRY_ALIGNMENT);
+
+        if (writePosition() + entrySize > entriesBuf.capacity() && isEmpty())
+        {
+            reset();
+        }
+
+        final int writePosition = writePosition();
+        final boolean appended = writePosition + entrySize <= entriesBuf.capacity();
+
+        if (appended)
+        {
+            entriesBuf.putBytes(writePosition + SIZEOF_ENTRY_HEADER, buffer, index, length);
+            entriesBuf.putInt(writePosition + FIELD_OFFSET_ENTRY_LENGTH, length);
+            updatePositions(ackPosition(), writePosition + entrySize);
+        }
+
+        return appended;
+    }
+
+    public void force()
+    {
+        // forcing the mapping writes back only dirty pages, the appended entries and the header
+        mappedByteBuf.force();
+    }
+
+    public void sent()
+    {
+        assert hasUnsent();
+        sendPosition = entryLimit(sendPosition);
+    }
+
+    public void acked()
+    {
+        assert hasUnacked();
+        final int ackPosition = entryLimit(ackPosition());
+
+        if (ackPosition == writePosition())
+        {
+            reset();
+        }
+        else
+        {
+            updatePositions(ackPosition, writePosition());
+        }
+    }
+
+    public void ackSent()
+    {
+        final int writePosition = writePosition();
+
+        if (sendPosition == writePosition)
+        {
+            reset();
+        }
+        else
+        {
+            updatePositions(sendPosition, writePosition);
+        }
+    }
+
+    public void rejectSent(
+        int error)
+    {
+        final int ackPosition = ackPosition();
+
+        if (ackPosition < sendPosition)
+        {
+            // entries rejected by the broker are kept with the error code instead of being discarded
+            try (FileChannel channel = FileChannel.open(rejectedLocation, CREATE, WRITE, APPEND))
+            {
+                for (int position = ackPosition; position < sendPosition; position = entryLimit(position))
+                {
+                    final int length = entryLength(position);
+                    final ByteBuffer rejected = ByteBuffer.allocate(SIZEOF_REJECTED_HEADER + length)
+                                                          .order(ByteOrder.nativeOrder());
+                    rejected.putInt(FIELD_OFFSET_REJECTED_ERROR, error);
+                    rejected.putInt(FIELD_OFFSET_REJECTED_LENGTH, length);
+                    entriesBuf.getBytes(entryOffset(position), rejected.array(), SIZEOF_REJECTED_HEADER, length);
+
+                    while (rejected.hasRemaining())
+                    {
+                        channel.write(rejected);
+                    }
+                }
+
+                channel.force(true);
+            }
+            catch (IOException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+
+        ackSent();
+    }
+
+    public void rewind()
+    {
+        sendPosition = ackPosition();
+    }
+
+    @Override
+    public void close()
+    {
+        IoUtil.unmap(mappedByteBuf);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %s (%d - %d)", getClass().getSimpleName(), location.getFileName(),
+            ackPosition(), writePosition());
+    }
+
+    static boolean unacked(
+        Path file)
+    {
+        boolean unacked = false;
+
+        try
+        {
+            unacked = hasUnackedEntries(file);
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        return unacked;
+    }
+
+    private void reset()
+    {
+        sendPosition = 0;
+        updatePositions(0, 0);
+    }
+
+    private void updatePositions(
+        int ackPosition,
+        int writePosition)
+    {
+        // single ordered write, so a crash never observes ack and write positions out of step
+        headerBuf.putLongOrdered(FIELD_OFFSET_POSITIONS, ((long) ackPosition << Integer.SIZE) | (writePosition & 0xFFFF_FFFFL));
+    }
+
+    private static int ackPosition(
+        long positions)
+    {
+        return (int) (positions >>> Integer.SIZE);
+    }
+
+    private static int writePosition(
+        long positions)
+    {
+        return (int) positions;
+    }
+
+    private static MappedByteBuffer mapLog(
+        Path file,
+        int capacity)
+    {
+        MappedByteBuffer mapped = null;
+
+        try
+        {
+            Files.createDirectories(file.getParent());
+
+            int mapCapacity = capacity;
+
+            if (Files.exists(file))
+            {
+                final long size = Files.size(file);
+                if (size != capacity)
+                {
+                    if (size > SIZEOF_HEADER && size <= Integer.MAX_VALUE && hasUnackedEntries(file))
+                    {
+                        // unacknowledged entries keep the previous capacity until drained
+                        mapCapacity = (int) size;
+                    }
+                    else
+                    {
+                        Files.delete(file);
+                    }
+                }
+            }
+
+            try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE))
+            {
+                mapped = channel.map(MapMode.READ_WRITE, 0, mapCapacity);
+            }
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        assert mapped != null;
+        return mapped;
+    }
+
+    private static boolean hasUnackedEntries(
+        Path file) throws IOException
+    {
+        final ByteBuffer header = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder());
+
+        try (FileChannel channel = FileChannel.open(file, READ))
+        {
+            channel.read(header, FIELD_OFFSET_POSITIONS);
+        }
+
+        final long positions = header.getLong(0);
+        return ackPosition(positions) != writePosition(positions);
+    }
+}
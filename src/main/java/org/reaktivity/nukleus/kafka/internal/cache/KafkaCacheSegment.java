@@ -22,6 +22,7 @@ import java.nio.file.Path;
 import java.util.function.IntFunction;
 
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntArrayList;
 
 public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
 {
@@ -30,8 +31,11 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
     private final int id;
     private final long baseOffset;
     private long timestamp;
+    private long baseTimestamp;
+    private int entryFormat;
 
     private final KafkaCacheFile logFile;
+    private final KafkaCacheFileView logView;
     private final KafkaCacheFile deltaFile;
     private final KafkaCacheIndexFile indexFile;
     private final KafkaCacheIndexFile hashFile;
@@ -44,6 +48,8 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
     private long dirtySince = -1L;
     private long cleanableAt = Long.MAX_VALUE;
 
+    private volatile long accessedAt;
+
     public KafkaCacheSegment(
         KafkaCacheSegment segment,
         KafkaCacheTopicConfig config,
@@ -57,6 +63,8 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
                 segment.baseOffset,
                 appendBuf,
                 sortSpaceRef);
+        this.baseTimestamp = segment.baseTimestamp;
+        this.entryFormat = segment.entryFormat;
     }
 
     public KafkaCacheSegment(
@@ -74,10 +82,16 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
         this.baseOffset = baseOffset;
         this.lastOffset = OFFSET_LATEST;
         this.timestamp = currentTimeMillis();
+        this.accessedAt = timestamp;
+        this.baseTimestamp = timestamp;
+        this.entryFormat = config.entryFormat;
         this.logFile = new KafkaCacheFile.Log(location, baseOffset, config.segmentBytes, appendBuf);
+        this.logView = logFile;
         this.deltaFile = new KafkaCacheFile.Delta(location, baseOffset, config.segmentBytes, appendBuf);
         this.indexFile = new KafkaCacheFile.Index(location, baseOffset, config.segmentIndexBytes, appendBuf);
-        this.hashFile = new KafkaCacheFile.HashScan(location, baseOffset, config.segmentIndexBytes, appendBuf, sortSpaceRef);
+        this.hashFile = new KafkaCacheFile.HashScan(location, baseOffset,
+                config.wideHashIndex ? config.segmentIndexBytes << 1 : config.segmentIndexBytes,
+                appendBuf, sortSpaceRef, config.wideHashIndex);
         this.keysFile = new KafkaCacheFile.KeysScan(location, baseOffset, config.segmentIndexBytes, appendBuf, sortSpaceRef);
         this.nullsFile = new KafkaCacheFile.NullsScan(location, baseOffset, config.segmentIndexBytes, appendBuf, sortSpaceRef);
     }
@@ -87,7 +101,61 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
         String name,
         int id,
         long baseOffset,
-        long lastOffset)
+        long lastOffset,
+        boolean wideHash)
+    {
+        this(location, name, id, baseOffset, lastOffset, wideHash, new KafkaCacheFile.Log(location, baseOffset));
+    }
+
+    KafkaCacheSegment(
+        Path location,
+        String name,
+        int id,
+        long baseOffset,
+        long baseTimestamp,
+        int entryFormat,
+        KafkaCacheFile logFile)
+    {
+        // log only view, used to replay a recovered head segment and never published
+        this.location = location;
+        this.name = name;
+        this.id = id;
+        this.baseOffset = baseOffset;
+        this.lastOffset = OFFSET_LATEST;
+        this.timestamp = currentTimeMillis();
+        this.accessedAt = timestamp;
+        this.baseTimestamp = baseTimestamp;
+        this.entryFormat = entryFormat;
+        this.logFile = logFile;
+        this.logView = logFile;
+        this.deltaFile = null;
+        this.indexFile = null;
+        this.hashFile = null;
+        this.keysFile = null;
+        this.nullsFile = null;
+    }
+
+    private KafkaCacheSegment(
+        Path location,
+        String name,
+        int id,
+        long baseOffset,
+        long lastOffset,
+        boolean wideHash,
+        KafkaCacheFile logFile)
+    {
+        this(location, name, id, baseOffset, lastOffset, wideHash, logFile, logFile);
+    }
+
+    private KafkaCacheSegment(
+        Path location,
+        String name,
+        int id,
+        long baseOffset,
+        long lastOffset,
+        boolean wideHash,
+        KafkaCacheFile logFile,
+        KafkaCacheFileView logView)
     {
         this.location = location;
         this.name = name;
@@ -95,10 +163,12 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
         this.baseOffset = baseOffset;
         this.lastOffset = lastOffset;
         this.timestamp = currentTimeMillis();
-        this.logFile = new KafkaCacheFile.Log(location, baseOffset);
+        this.accessedAt = timestamp;
+        this.logFile = logFile;
+        this.logView = logView;
         this.deltaFile = new KafkaCacheFile.Delta(location, baseOffset);
         this.indexFile = new KafkaCacheFile.Index(location, baseOffset);
-        this.hashFile = new KafkaCacheFile.HashIndex(location, baseOffset);
+        this.hashFile = new KafkaCacheFile.HashIndex(location, baseOffset, wideHash);
         this.keysFile = new KafkaCacheFile.KeysIndex(location, baseOffset);
         this.nullsFile = new KafkaCacheFile.NullsIndex(location, baseOffset);
     }
@@ -145,11 +215,68 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
         return timestamp;
     }
 
+    public long baseTimestamp()
+    {
+        return baseTimestamp;
+    }
+
+    public int entryFormat()
+    {
+        return entryFormat;
+    }
+
+    public boolean compressed()
+    {
+        return logFile == null;
+    }
+
+    public boolean mapped()
+    {
+        return logView.mapped() ||
+                deltaFile.mapped() ||
+                indexFile.mapped() ||
+                hashFile.mapped() ||
+                nullsFile.mapped() ||
+                keysFile.mapped();
+    }
+
+    public long size()
+    {
+        return (long) logView.size() + deltaFile.size() + indexFile.size() +
+            hashFile.size() + keysFile.size() + nullsFile.size();
+    }
+
+    public void flush()
+    {
+        logView.flush();
+        deltaFile.flush();
+        indexFile.flush();
+        hashFile.flush();
+        nullsFile.flush();
+        keysFile.flush();
+    }
+
+    public long accessedAt()
+    {
+        return accessedAt;
+    }
+
+    public void touch()
+    {
+        this.accessedAt = currentTimeMillis();
+    }
+
     public KafkaCacheFile logFile()
     {
+        assert !compressed();
         return logFile;
     }
 
+    public KafkaCacheFileView logView()
+    {
+        return logView;
+    }
+
     public KafkaCacheFile deltaFile()
     {
         return deltaFile;
@@ -184,18 +311,97 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
         nullsFile.freeze();
         keysFile.freeze();
 
-        final KafkaCacheSegment frozen = new KafkaCacheSegment(location, name, id, baseOffset, lastOffset);
+        final KafkaCacheSegment frozen = new KafkaCacheSegment(location, name, id, baseOffset, lastOffset, hashFile.wide());
 
         frozen.dirtySince = dirtySince;
         frozen.dirtyBytes = dirtyBytes;
         frozen.cleanableAt = cleanableAt;
+        frozen.baseTimestamp = baseTimestamp;
+        frozen.entryFormat = entryFormat;
 
         return frozen;
     }
 
-    public void delete()
+    public void compressLog(
+        int blockBytes)
     {
+        assert logFile.available() == 0;
+        assert !compressed();
+
+        final KafkaCacheEntryFormat format = KafkaCacheEntryFormat.newEntryFormat(entryFormat);
+        final IntArrayList blockLimits = new IntArrayList();
+
+        int blockStart = 0;
+        for (int position = 0; position < logFile.capacity(); )
+        {
+            final int limit = format.limit(this, position);
+            if (position != blockStart && limit - blockStart > blockBytes)
+            {
+                blockLimits.addInt(position);
+                blockStart = position;
+            }
+            position = limit;
+        }
+
+        if (logFile.capacity() != blockStart)
+        {
+            blockLimits.addInt(logFile.capacity());
+        }
+
+        KafkaCacheFile.CompressedLog.compress(location, baseOffset, logFile, blockLimits);
+    }
+
+    public KafkaCacheSegment compress()
+    {
+        assert !compressed();
+        assert KafkaCacheFile.CompressedLog.exists(location, baseOffset);
+
         logFile.delete();
+
+        final KafkaCacheFileView compressedLog = new KafkaCacheFile.CompressedLog(location, baseOffset);
+        final KafkaCacheSegment compressed =
+                new KafkaCacheSegment(location, name, id, baseOffset, lastOffset, hashFile.wide(), null, compressedLog);
+
+        compressed.timestamp = timestamp;
+        compressed.dirtySince = dirtySince;
+        compressed.dirtyBytes = dirtyBytes;
+        compressed.cleanableAt = cleanableAt;
+        compressed.baseTimestamp = baseTimestamp;
+        compressed.entryFormat = entryFormat;
+
+        return compressed;
+    }
+
+    public KafkaCacheSegment unmapped()
+    {
+        assert logView.available() == 0;
+
+        final KafkaCacheFile unmappedLog = compressed() ? null : new KafkaCacheFile.Log(location, baseOffset);
+        final KafkaCacheFileView unmappedView = compressed()
+                ? new KafkaCacheFile.CompressedLog(location, baseOffset)
+                : unmappedLog;
+        final KafkaCacheSegment unmapped =
+                new KafkaCacheSegment(location, name, id, baseOffset, lastOffset, hashFile.wide(), unmappedLog, unmappedView);
+
+        unmapped.timestamp = timestamp;
+        unmapped.accessedAt = accessedAt;
+        unmapped.dirtySince = dirtySince;
+        unmapped.dirtyBytes = dirtyBytes;
+        unmapped.cleanableAt = cleanableAt;
+        unmapped.baseTimestamp = baseTimestamp;
+        unmapped.entryFormat = entryFormat;
+
+        return unmapped;
+    }
+
+    public void delete()
+    {
+        if (!compressed())
+        {
+            KafkaCacheFile.CompressedLog.deleteIfExists(location, baseOffset);
+        }
+
+        logView.delete();
         indexFile.delete();
         hashFile.delete();
         nullsFile.delete();
@@ -232,7 +438,7 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
 
     public double cleanableDirtyRatio()
     {
-        final int capacity = logFile.capacity();
+        final int capacity = logView.capacity();
         return capacity == 0 ? 0.0 : (double) dirtyBytes / capacity;
     }
 
@@ -251,7 +457,7 @@ public final class KafkaCacheSegment extends KafkaCacheObject<KafkaCacheSegment>
     @Override
     protected void onClosed()
     {
-        logFile.close();
+        logView.close();
         indexFile.close();
         hashFile.close();
         nullsFile.close();
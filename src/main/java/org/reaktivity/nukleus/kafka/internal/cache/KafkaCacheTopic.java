@@ -18,6 +18,7 @@ package org.reaktivity.nukleus.kafka.internal.cache;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.IntFunction;
@@ -32,6 +33,9 @@ public final class KafkaCacheTopic
     private final KafkaCacheTopicConfig config;
     private final int appendCapacity;
     private final Map<Integer, KafkaCachePartition> partitionsById;
+    private final KafkaCacheBudget budget;
+    private final KafkaCachePrefetcher prefetcher;
+    private final KafkaCacheFlusher flusher;
     private IntFunction<long[]> sortSpaceRef;
 
     public KafkaCacheTopic(
@@ -40,14 +44,33 @@ public final class KafkaCacheTopic
         String cache,
         String name,
         IntFunction<long[]> sortSpaceRef)
+    {
+        this(location, config, cache, name, sortSpaceRef,
+            new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED),
+            new KafkaCachePrefetcher(0),
+            new KafkaCacheFlusher(0L, 0L, false));
+    }
+
+    public KafkaCacheTopic(
+        Path location,
+        KafkaConfiguration config,
+        String cache,
+        String name,
+        IntFunction<long[]> sortSpaceRef,
+        KafkaCacheBudget budget,
+        KafkaCachePrefetcher prefetcher,
+        KafkaCacheFlusher flusher)
     {
         this.location = location;
-        this.config = new KafkaCacheTopicConfig(config);
+        this.config = new KafkaCacheTopicConfig(config, name);
         this.appendCapacity = REAKTOR_BUFFER_SLOT_CAPACITY.get(config);
         this.cache = cache;
         this.name = name;
         this.partitionsById = new ConcurrentHashMap<>();
         this.sortSpaceRef = sortSpaceRef;
+        this.budget = budget;
+        this.prefetcher = prefetcher;
+        this.flusher = flusher;
     }
 
     public String cache()
@@ -71,6 +94,17 @@ public final class KafkaCacheTopic
         return partitionsById.computeIfAbsent(id, this::newPartition);
     }
 
+    public Collection<KafkaCachePartition> partitions()
+    {
+        return partitionsById.values();
+    }
+
+    public void close()
+    {
+        partitionsById.values().forEach(KafkaCachePartition::close);
+        partitionsById.clear();
+    }
+
     @Override
     public String toString()
     {
@@ -80,6 +114,6 @@ public final class KafkaCacheTopic
     private KafkaCachePartition newPartition(
         int id)
     {
-        return new KafkaCachePartition(location, config, cache, name, id, appendCapacity, sortSpaceRef);
+        return new KafkaCachePartition(location, config, cache, name, id, appendCapacity, sortSpaceRef, budget, prefetcher, flusher);
     }
 }
@@ -44,6 +44,8 @@ public final class KafkaCacheTopicConfig
     private static final String16FW CLEANUP_POLICY_DELETE = new String16FW("delete");
     private static final String16FW CLEANUP_POLICY_COMPACT_DELETE = new String16FW("compact, delete");
 
+    private static final String WIDE_HASH_ALL = "*";
+
     public volatile KafkaCacheCleanupPolicy cleanupPolicy;
     public volatile int maxMessageBytes;
     public volatile int segmentBytes;
@@ -56,6 +58,13 @@ public final class KafkaCacheTopicConfig
     public volatile long minCompactionLagMillis;
     public volatile long maxCompactionLagMillis;
     public volatile double minCleanableDirtyRatio;
+    public volatile int entryFormat;
+    public volatile long segmentCompressMillis;
+    public volatile int segmentBlockBytes;
+    public volatile int segmentMappedMax;
+    public volatile KafkaCacheHeaderIndexPolicy headerIndexPolicy;
+    public volatile int keyFilterCapacity;
+    public volatile boolean wideHashIndex;
 
     private static final Map<String16FW, BiConsumer<KafkaCacheTopicConfig, String16FW>> CHANGE_HANDLERS;
 
@@ -78,6 +87,13 @@ public final class KafkaCacheTopicConfig
 
     public KafkaCacheTopicConfig(
         KafkaConfiguration config)
+    {
+        this(config, null);
+    }
+
+    public KafkaCacheTopicConfig(
+        KafkaConfiguration config,
+        String topic)
     {
         this.cleanupPolicy = config.cacheCleanupPolicy();
         this.maxMessageBytes = config.cacheMaxMessageBytes();
@@ -90,6 +106,13 @@ public final class KafkaCacheTopicConfig
         this.minCompactionLagMillis = config.cacheMinCompactionLagMillis();
         this.maxCompactionLagMillis = config.cacheMaxCompactionLagMillis();
         this.minCleanableDirtyRatio = config.cacheMinCleanableDirtyRatio();
+        this.entryFormat = config.cacheEntryFormat();
+        this.segmentCompressMillis = config.cacheSegmentCompressMillis();
+        this.segmentBlockBytes = config.cacheSegmentBlockBytes();
+        this.segmentMappedMax = config.cacheSegmentMappedMax();
+        this.headerIndexPolicy = KafkaCacheHeaderIndexPolicy.of(topic, config.cacheIndexHeaders());
+        this.keyFilterCapacity = config.cacheKeyFilterCapacity();
+        this.wideHashIndex = wideHashIndex(topic, config.cacheIndexWideHashTopics());
     }
 
     public void onChanged(
@@ -196,6 +219,25 @@ public final class KafkaCacheTopicConfig
         topicConfig.minCleanableDirtyRatio = parseDoubleAscii(value);
     }
 
+    private static boolean wideHashIndex(
+        String topic,
+        String topics)
+    {
+        boolean wide = false;
+
+        for (String entry : topics.split(","))
+        {
+            final String entryTopic = entry.trim();
+            if (WIDE_HASH_ALL.equals(entryTopic) || entryTopic.equals(topic))
+            {
+                wide = true;
+                break;
+            }
+        }
+
+        return wide;
+    }
+
     private static int parseIntAscii(
         String16FW value)
     {
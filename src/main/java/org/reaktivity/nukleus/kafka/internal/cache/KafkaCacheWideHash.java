@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+import org.agrona.DirectBuffer;
+
+// xxHash64, seed 0
+public final class KafkaCacheWideHash
+{
+    private static final long PRIME64_1 = 0x9E37_79B1_85EB_CA87L;
+    private static final long PRIME64_2 = 0xC2B2_AE3D_27D4_EB4FL;
+    private static final long PRIME64_3 = 0x1656_67B1_9E37_79F9L;
+    private static final long PRIME64_4 = 0x85EB_CA77_C2B2_AE63L;
+    private static final long PRIME64_5 = 0x27D4_EB2F_1656_67C5L;
+
+    public static long wideHash(
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        final int limit = index + length;
+        int progress = index;
+        long hash;
+
+        if (length >= 32)
+        {
+            long v1 = PRIME64_1 + PRIME64_2;
+            long v2 = PRIME64_2;
+            long v3 = 0L;
+            long v4 = -PRIME64_1;
+
+            do
+            {
+                v1 = round(v1, buffer.getLong(progress, LITTLE_ENDIAN));
+                v2 = round(v2, buffer.getLong(progress + 8, LITTLE_ENDIAN));
+                v3 = round(v3, buffer.getLong(progress + 16, LITTLE_ENDIAN));
+                v4 = round(v4, buffer.getLong(progress + 24, LITTLE_ENDIAN));
+                progress += 32;
+            } while (progress <= limit - 32);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        }
+        else
+        {
+            hash = PRIME64_5;
+        }
+
+        hash += length;
+
+        for (; progress <= limit - Long.BYTES; progress += Long.BYTES)
+        {
+            hash ^= round(0L, buffer.getLong(progress, LITTLE_ENDIAN));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+        }
+
+        if (progress <= limit - Integer.BYTES)
+        {
+            hash ^= (buffer.getInt(progress, LITTLE_ENDIAN) & 0xFFFF_FFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            progress += Integer.BYTES;
+        }
+
+        for (; progress < limit; progress++)
+        {
+            hash ^= (buffer.getByte(progress) & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        return hash;
+    }
+
+    private static long round(
+        long accumulator,
+        long input)
+    {
+        return Long.rotateLeft(accumulator + input * PRIME64_2, 31) * PRIME64_1;
+    }
+
+    private static long mergeRound(
+        long hash,
+        long accumulator)
+    {
+        return (hash ^ round(0L, accumulator)) * PRIME64_1 + PRIME64_4;
+    }
+
+    private KafkaCacheWideHash()
+    {
+        // no instances
+    }
+}
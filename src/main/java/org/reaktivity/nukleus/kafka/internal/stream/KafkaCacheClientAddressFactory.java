@@ -0,0 +1,482 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToIntFunction;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.reaktivity.nukleus.function.MessageConsumer;
+import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
+import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheTopic;
+import org.reaktivity.nukleus.kafka.internal.types.ArrayFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaPartitionFW;
+import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
+import org.reaktivity.nukleus.kafka.internal.types.StringFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.RouteFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.UnrouteFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.AbortFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.BeginFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.DataFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.EndFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.ExtensionFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.KafkaBeginExFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.KafkaDataExFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.KafkaMetaDataExFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.ResetFW;
+import org.reaktivity.nukleus.kafka.internal.types.stream.WindowFW;
+import org.reaktivity.nukleus.route.Address;
+import org.reaktivity.nukleus.route.AddressFactory;
+import org.reaktivity.nukleus.route.RouteManager;
+
+public class KafkaCacheClientAddressFactory implements AddressFactory
+{
+    private static final Consumer<OctetsFW.Builder> EMPTY_EXTENSION = ex -> {};
+
+    private static final String TRANSACTION_NONE = null;
+
+    private final RouteFW routeRO = new RouteFW();
+    private final UnrouteFW unrouteRO = new UnrouteFW();
+    private final KafkaRouteExFW kafkaRouteExRO = new KafkaRouteExFW();
+
+    private final DataFW dataRO = new DataFW();
+    private final ExtensionFW extensionRO = new ExtensionFW();
+    private final KafkaDataExFW kafkaDataExRO = new KafkaDataExFW();
+
+    private final BeginFW.Builder beginRW = new BeginFW.Builder();
+    private final EndFW.Builder endRW = new EndFW.Builder();
+    private final ResetFW.Builder resetRW = new ResetFW.Builder();
+    private final WindowFW.Builder windowRW = new WindowFW.Builder();
+
+    private final KafkaBeginExFW.Builder kafkaBeginExRW = new KafkaBeginExFW.Builder();
+
+    private final int kafkaTypeId;
+    private final RouteManager router;
+    private final LongSupplier supplyTraceId;
+    private final LongUnaryOperator supplyInitialId;
+    private final LongUnaryOperator supplyReplyId;
+    private final MutableDirectBuffer writeBuffer;
+    private final Function<String, KafkaCache> supplyCache;
+    private final Long2ObjectHashMap<MessageConsumer> correlations;
+    private final int metaWindow;
+
+    private final Long2ObjectHashMap<KafkaDrainMetaStream> streamsByRouteId;
+
+    public KafkaCacheClientAddressFactory(
+        KafkaConfiguration config,
+        RouteManager router,
+        MutableDirectBuffer writeBuffer,
+        ToIntFunction<String> supplyTypeId,
+        LongSupplier supplyTraceId,
+        LongUnaryOperator supplyInitialId,
+        LongUnaryOperator supplyReplyId,
+        Function<String, KafkaCache> supplyCache,
+        Long2ObjectHashMap<MessageConsumer> correlations)
+    {
+        this.kafkaTypeId = supplyTypeId.applyAsInt(KafkaNukleus.NAME);
+        this.router = router;
+        this.writeBuffer = writeBuffer;
+        this.supplyTraceId = supplyTraceId;
+        this.supplyInitialId = supplyInitialId;
+        this.supplyReplyId = supplyReplyId;
+        this.supplyCache = supplyCache;
+        this.correlations = correlations;
+        this.metaWindow = writeBuffer.capacity();
+        this.streamsByRouteId = new Long2ObjectHashMap<>();
+    }
+
+    @Override
+    public KafkaCacheClientAddress newAddress(
+        String localName)
+    {
+        return new KafkaCacheClientAddress(localName);
+    }
+
+    private void onCacheClientMessage(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        switch (msgTypeId)
+        {
+        case RouteFW.TYPE_ID:
+            final RouteFW route = routeRO.wrap(buffer, index, index + length);
+            onCacheClientRouted(route);
+            break;
+        case UnrouteFW.TYPE_ID:
+            final UnrouteFW unroute = unrouteRO.wrap(buffer, index, index + length);
+            onCacheClientUnrouted(unroute);
+            break;
+        }
+    }
+
+    private void onCacheClientRouted(
+        RouteFW route)
+    {
+        final StringFW localAddress = route.localAddress();
+        final StringFW remoteAddress = route.remoteAddress();
+        final long authorization = route.authorization();
+        final OctetsFW extension = route.extension();
+        final KafkaRouteExFW kafkaRouteEx = extension.get(kafkaRouteExRO::tryWrap);
+
+        if (!remoteAddress.equals(localAddress) &&
+            kafkaRouteEx != null)
+        {
+            final String topic = kafkaRouteEx.topic().asString();
+
+            if (topic != null)
+            {
+                final long routeId = route.correlationId();
+                assert !streamsByRouteId.containsKey(routeId);
+
+                final KafkaCache cache = supplyCache.apply(remoteAddress.asString());
+                final KafkaCacheTopic cacheTopic = cache.supplyTopic(topic);
+                final KafkaDrainMetaStream stream = new KafkaDrainMetaStream(routeId, authorization, cacheTopic);
+                streamsByRouteId.put(routeId, stream);
+
+                stream.doMetaInitialBegin();
+            }
+        }
+    }
+
+    private void onCacheClientUnrouted(
+        UnrouteFW unroute)
+    {
+        final long routeId = unroute.correlationId();
+        final KafkaDrainMetaStream stream = streamsByRouteId.remove(routeId);
+
+        if (stream != null)
+        {
+            stream.doMetaInitialEndIfNecessary();
+        }
+    }
+
+    private final class KafkaDrainMetaStream
+    {
+        private final long routeId;
+        private final long authorization;
+        private final long initialId;
+        private final long replyId;
+        private final MessageConsumer receiver;
+        private final KafkaCacheTopic topic;
+        private final Int2ObjectHashMap<KafkaDrainProduceStream> drainsByPartitionId;
+
+        private int state;
+
+        private KafkaDrainMetaStream(
+            long routeId,
+            long authorization,
+            KafkaCacheTopic topic)
+        {
+            this.routeId = routeId;
+            this.authorization = authorization;
+            this.initialId = supplyInitialId.applyAsLong(routeId);
+            this.replyId = supplyReplyId.applyAsLong(initialId);
+            this.receiver = router.supplyReceiver(initialId);
+            this.topic = topic;
+            this.drainsByPartitionId = new Int2ObjectHashMap<>();
+        }
+
+        private void doMetaInitialBegin()
+        {
+            final long traceId = supplyTraceId.getAsLong();
+
+            state = KafkaState.openingInitial(state);
+
+            correlations.put(replyId, this::onMetaReply);
+            router.setThrottle(initialId, this::onMetaReply);
+            doBegin(receiver, routeId, initialId, traceId, authorization, 0L,
+                ex -> ex.set((b, o, l) -> kafkaBeginExRW.wrap(b, o, l)
+                        .typeId(kafkaTypeId)
+                        .meta(m -> m.topic(topic.name()))
+                        .build()
+                        .sizeof()));
+        }
+
+        private void doMetaInitialEndIfNecessary()
+        {
+            if (!KafkaState.initialClosed(state))
+            {
+                final long traceId = supplyTraceId.getAsLong();
+
+                state = KafkaState.closedInitial(state);
+
+                correlations.remove(replyId);
+                doEnd(receiver, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
+            }
+        }
+
+        private void onMetaReply(
+            int msgTypeId,
+            DirectBuffer buffer,
+            int index,
+            int length)
+        {
+            final long traceId = supplyTraceId.getAsLong();
+
+            switch (msgTypeId)
+            {
+            case BeginFW.TYPE_ID:
+                state = KafkaState.openedReply(state);
+                doWindow(receiver, routeId, replyId, traceId, authorization, 0L, metaWindow, 0);
+                break;
+            case DataFW.TYPE_ID:
+                final DataFW data = dataRO.wrap(buffer, index, index + length);
+                onMetaReplyData(data);
+                break;
+            case EndFW.TYPE_ID:
+            case AbortFW.TYPE_ID:
+                state = KafkaState.closedReply(state);
+                doMetaInitialEndIfNecessary();
+                break;
+            case ResetFW.TYPE_ID:
+                correlations.remove(replyId);
+                state = KafkaState.closedInitial(state);
+                if (KafkaState.replyOpening(state) && !KafkaState.replyClosed(state))
+                {
+                    state = KafkaState.closedReply(state);
+                    doReset(receiver, routeId, replyId, traceId, authorization);
+                }
+                break;
+            case WindowFW.TYPE_ID:
+                state = KafkaState.openedInitial(state);
+                break;
+            }
+        }
+
+        private void onMetaReplyData(
+            DataFW data)
+        {
+            final long traceId = data.traceId();
+            final int reserved = data.reserved();
+            final OctetsFW extension = data.extension();
+            final ExtensionFW dataEx = extension.get(extensionRO::tryWrap);
+            final KafkaDataExFW kafkaDataEx = dataEx.typeId() == kafkaTypeId ? extension.get(kafkaDataExRO::tryWrap) : null;
+            final KafkaMetaDataExFW kafkaMetaDataEx = kafkaDataEx != null ? kafkaDataEx.meta() : null;
+
+            if (kafkaMetaDataEx != null)
+            {
+                final ArrayFW<KafkaPartitionFW> partitions = kafkaMetaDataEx.partitions();
+                partitions.forEach(p -> onMetaReplyPartition(traceId, p.partitionId(), p.leaderId()));
+            }
+
+            doWindow(receiver, routeId, replyId, traceId, authorization, 0L, reserved, 0);
+        }
+
+        private void onMetaReplyPartition(
+            long traceId,
+            int partitionId,
+            int leaderId)
+        {
+            if (!drainsByPartitionId.containsKey(partitionId))
+            {
+                final KafkaCachePartition partition = topic.supplyPartition(partitionId);
+
+                if (partition.hasUnackedProduceLog())
+                {
+                    final KafkaDrainProduceStream drain = new KafkaDrainProduceStream(this, partitionId, leaderId);
+                    drainsByPartitionId.put(partitionId, drain);
+
+                    drain.doProduceInitialBegin(traceId);
+                }
+            }
+        }
+    }
+
+    private final class KafkaDrainProduceStream
+    {
+        private final KafkaDrainMetaStream meta;
+        private final int partitionId;
+        private final long leaderId;
+        private final long initialId;
+        private final long replyId;
+        private final MessageConsumer receiver;
+
+        private KafkaDrainProduceStream(
+            KafkaDrainMetaStream meta,
+            int partitionId,
+            long leaderId)
+        {
+            this.meta = meta;
+            this.partitionId = partitionId;
+            this.leaderId = leaderId;
+            this.initialId = supplyInitialId.applyAsLong(meta.routeId);
+            this.replyId = supplyReplyId.applyAsLong(initialId);
+            this.receiver = router.supplyReceiver(initialId);
+        }
+
+        private void doProduceInitialBegin(
+            long traceId)
+        {
+            correlations.put(replyId, this::onProduceReply);
+            router.setThrottle(initialId, this::onProduceReply);
+            doBegin(receiver, meta.routeId, initialId, traceId, meta.authorization, leaderId,
+                ex -> ex.set((b, o, l) -> kafkaBeginExRW.wrap(b, o, l)
+                        .typeId(kafkaTypeId)
+                        .produce(p -> p.transaction(TRANSACTION_NONE)
+                                       .topic(meta.topic.name())
+                                       .partitionId(partitionId))
+                        .build()
+                        .sizeof()));
+        }
+
+        private void onProduceReply(
+            int msgTypeId,
+            DirectBuffer buffer,
+            int index,
+            int length)
+        {
+            final long traceId = supplyTraceId.getAsLong();
+
+            switch (msgTypeId)
+            {
+            case BeginFW.TYPE_ID:
+                // the produce fan keeps sending logged entries after its last member closes, until drained
+                doWindow(receiver, meta.routeId, replyId, traceId, meta.authorization, 0L, 0, 0);
+                doEnd(receiver, meta.routeId, initialId, traceId, meta.authorization, EMPTY_EXTENSION);
+                break;
+            case EndFW.TYPE_ID:
+            case AbortFW.TYPE_ID:
+                meta.drainsByPartitionId.remove(partitionId);
+                break;
+            case ResetFW.TYPE_ID:
+                correlations.remove(replyId);
+                meta.drainsByPartitionId.remove(partitionId);
+                break;
+            }
+        }
+    }
+
+    public final class KafkaCacheClientAddress implements Address
+    {
+        private final String name;
+
+        private KafkaCacheClientAddress(
+            String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public String name()
+        {
+            return name;
+        }
+
+        @Override
+        public String nukleus()
+        {
+            return KafkaNukleus.NAME;
+        }
+
+        @Override
+        public MessageConsumer routeHandler()
+        {
+            return KafkaCacheClientAddressFactory.this::onCacheClientMessage;
+        }
+    }
+
+    private void doBegin(
+        MessageConsumer receiver,
+        long routeId,
+        long streamId,
+        long traceId,
+        long authorization,
+        long affinity,
+        Consumer<OctetsFW.Builder> extension)
+    {
+        final BeginFW begin = beginRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+                .routeId(routeId)
+                .streamId(streamId)
+                .traceId(traceId)
+                .authorization(authorization)
+                .affinity(affinity)
+                .extension(extension)
+                .build();
+
+        receiver.accept(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof());
+    }
+
+    private void doEnd(
+        MessageConsumer receiver,
+        long routeId,
+        long streamId,
+        long traceId,
+        long authorization,
+        Consumer<OctetsFW.Builder> extension)
+    {
+        final EndFW end = endRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+                               .routeId(routeId)
+                               .streamId(streamId)
+                               .traceId(traceId)
+                               .authorization(authorization)
+                               .extension(extension)
+                               .build();
+
+        receiver.accept(end.typeId(), end.buffer(), end.offset(), end.sizeof());
+    }
+
+    private void doReset(
+        MessageConsumer sender,
+        long routeId,
+        long streamId,
+        long traceId,
+        long authorization)
+    {
+        final ResetFW reset = resetRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+               .routeId(routeId)
+               .streamId(streamId)
+               .traceId(traceId)
+               .authorization(authorization)
+               .build();
+
+        sender.accept(reset.typeId(), reset.buffer(), reset.offset(), reset.sizeof());
+    }
+
+    private void doWindow(
+        MessageConsumer sender,
+        long routeId,
+        long streamId,
+        long traceId,
+        long authorization,
+        long budgetId,
+        int credit,
+        int padding)
+    {
+        final WindowFW window = windowRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+                .routeId(routeId)
+                .streamId(streamId)
+                .traceId(traceId)
+                .authorization(authorization)
+                .budgetId(budgetId)
+                .credit(credit)
+                .padding(padding)
+                .build();
+
+        sender.accept(window.typeId(), window.buffer(), window.offset(), window.sizeof());
+    }
+}
@@ -21,6 +21,7 @@ import java.util.function.Function;
 import java.util.function.LongFunction;
 import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 
 import org.agrona.DirectBuffer;
@@ -36,6 +37,7 @@ import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
 import org.reaktivity.nukleus.kafka.internal.budget.KafkaMergedBudgetAccountant;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.stream.BeginFW;
 import org.reaktivity.nukleus.kafka.internal.types.stream.ExtensionFW;
@@ -67,9 +69,11 @@ public final class KafkaCacheClientFactory implements StreamFactory
         LongSupplier supplyBudgetId,
         LongFunction<BudgetDebitor> supplyDebitor,
         Function<String, KafkaCache> supplyCache,
-        LongFunction<KafkaCacheRoute> supplyCacheRoute)
+        Supplier<KafkaCacheOffsetStore> supplyOffsetStore,
+        LongFunction<KafkaCacheRoute> supplyCacheRoute,
+        KafkaCacheClientPoller poller,
+        Long2ObjectHashMap<MessageConsumer> correlations)
     {
-        final Long2ObjectHashMap<MessageConsumer> correlations = new Long2ObjectHashMap<>();
         final KafkaMergedBudgetAccountant accountant = new KafkaMergedBudgetAccountant(supplyDebitor, supplyBudgetId, creditor);
 
         final KafkaCacheMetaFactory cacheMetaFactory = new KafkaCacheMetaFactory(
@@ -82,15 +86,15 @@ public final class KafkaCacheClientFactory implements StreamFactory
 
         final KafkaCacheClientFetchFactory cacheFetchFactory = new KafkaCacheClientFetchFactory(
                 config, router, writeBuffer, bufferPool, signaler, supplyInitialId, supplyReplyId, supplyTraceId,
-                supplyTypeId, accountant::supplyDebitor, supplyCache, supplyCacheRoute, correlations);
+                supplyTypeId, accountant::supplyDebitor, supplyCache, supplyCacheRoute, correlations, poller);
 
         final KafkaCacheClientProduceFactory cacheProduceFactory = new KafkaCacheClientProduceFactory(
-                config, router, writeBuffer, bufferPool, creditor, supplyInitialId, supplyReplyId, supplyTraceId,
+                config, router, writeBuffer, bufferPool, signaler, creditor, supplyInitialId, supplyReplyId, supplyTraceId,
                 supplyBudgetId, supplyTypeId, supplyDebitor, supplyCache, supplyCacheRoute, correlations);
 
         final KafkaMergedFactory cacheMergedFactory = new KafkaMergedFactory(
-                config, router, writeBuffer, supplyInitialId, supplyReplyId, supplyTraceId, supplyTypeId,
-                correlations, accountant.creditor());
+                config, router, signaler, writeBuffer, supplyInitialId, supplyReplyId, supplyTraceId, supplyTypeId,
+                correlations, accountant.creditor(), supplyOffsetStore);
 
         final Int2ObjectHashMap<StreamFactory> streamFactoriesByKind = new Int2ObjectHashMap<>();
         streamFactoriesByKind.put(KafkaBeginExFW.KIND_META, cacheMetaFactory);
@@ -23,12 +23,16 @@ import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
 import org.reaktivity.nukleus.budget.BudgetCreditor;
 import org.reaktivity.nukleus.budget.BudgetDebitor;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.concurrent.Signaler;
+import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore;
+import org.reaktivity.nukleus.route.AddressFactoryBuilder;
 import org.reaktivity.nukleus.route.RouteManager;
 import org.reaktivity.nukleus.stream.StreamFactory;
 import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
@@ -37,7 +41,11 @@ public final class KafkaCacheClientFactoryBuilder implements KafkaStreamFactoryB
 {
     private final KafkaConfiguration config;
     private final Function<String, KafkaCache> supplyCache;
+    private final Supplier<KafkaCacheOffsetStore> supplyOffsetStore;
     private final LongFunction<KafkaCacheRoute> supplyCacheRoute;
+    private final KafkaCacheClientPoller poller;
+    private final AddressFactoryBuilder addressFactoryBuilder;
+    private final Long2ObjectHashMap<MessageConsumer> correlations;
 
     private RouteManager router;
     private Signaler signaler;
@@ -54,11 +62,23 @@ public final class KafkaCacheClientFactoryBuilder implements KafkaStreamFactoryB
     public KafkaCacheClientFactoryBuilder(
         KafkaConfiguration config,
         Function<String, KafkaCache> supplyCache,
-        LongFunction<KafkaCacheRoute> supplyCacheRoute)
+        Supplier<KafkaCacheOffsetStore> supplyOffsetStore,
+        LongFunction<KafkaCacheRoute> supplyCacheRoute,
+        KafkaCacheClientPoller poller)
     {
         this.config = config;
         this.supplyCache = supplyCache;
+        this.supplyOffsetStore = supplyOffsetStore;
         this.supplyCacheRoute = supplyCacheRoute;
+        this.poller = poller;
+        this.correlations = new Long2ObjectHashMap<>();
+        this.addressFactoryBuilder = new KafkaCacheClientAddressFactoryBuilder(config, supplyCache, correlations);
+    }
+
+    @Override
+    public AddressFactoryBuilder addressFactoryBuilder()
+    {
+        return addressFactoryBuilder;
     }
 
     @Override
@@ -168,6 +188,9 @@ public final class KafkaCacheClientFactoryBuilder implements KafkaStreamFactoryB
                 supplyBudgetId,
                 supplyDebitor,
                 supplyCache,
-                supplyCacheRoute);
+                supplyOffsetStore,
+                supplyCacheRoute,
+                poller,
+                correlations);
     }
 }
@@ -46,6 +46,7 @@ import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorFactory;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorFactory.KafkaCacheCursor;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorFactory.KafkaFilterCondition;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheEntry;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition.Node;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheTopic;
@@ -59,7 +60,6 @@ import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetFW;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.String16FW;
-import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW;
 import org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW;
 import org.reaktivity.nukleus.kafka.internal.types.control.RouteFW;
 import org.reaktivity.nukleus.kafka.internal.types.stream.AbortFW;
@@ -124,7 +124,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
     private final MessageFunction<RouteFW> wrapRoute = (t, b, i, l) -> routeRO.wrap(b, i, i + l);
 
     private final OctetsFW valueFragmentRO = new OctetsFW();
-    private final KafkaCacheEntryFW entryRO = new KafkaCacheEntryFW();
+    private final KafkaCacheEntry entryRO = new KafkaCacheEntry();
 
     private final int kafkaTypeId;
     private final RouteManager router;
@@ -134,11 +134,13 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
     private final Signaler signaler;
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
+    private final LongSupplier supplyTraceId;
     private final LongFunction<BudgetDebitor> supplyDebitor;
     private final Function<String, KafkaCache> supplyCache;
     private final LongFunction<KafkaCacheRoute> supplyCacheRoute;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final KafkaCacheCursorFactory cursorFactory;
+    private final KafkaCacheClientPoller poller;
 
     public KafkaCacheClientFetchFactory(
         KafkaConfiguration config,
@@ -153,7 +155,8 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
         LongFunction<BudgetDebitor> supplyDebitor,
         Function<String, KafkaCache> supplyCache,
         LongFunction<KafkaCacheRoute> supplyCacheRoute,
-        Long2ObjectHashMap<MessageConsumer> correlations)
+        Long2ObjectHashMap<MessageConsumer> correlations,
+        KafkaCacheClientPoller poller)
     {
         this.kafkaTypeId = supplyTypeId.applyAsInt(KafkaNukleus.NAME);
         this.router = router;
@@ -163,11 +166,13 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
         this.signaler = signaler;
         this.supplyInitialId = supplyInitialId;
         this.supplyReplyId = supplyReplyId;
+        this.supplyTraceId = supplyTraceId;
         this.supplyDebitor = supplyDebitor;
         this.supplyCache = supplyCache;
         this.supplyCacheRoute = supplyCacheRoute;
         this.correlations = correlations;
-        this.cursorFactory = new KafkaCacheCursorFactory(writeBuffer);
+        this.cursorFactory = new KafkaCacheCursorFactory();
+        this.poller = poller;
     }
 
     @Override
@@ -242,7 +247,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
                 fanout = newFanout;
             }
 
-            final KafkaFilterCondition condition = cursorFactory.asCondition(filters);
+            final KafkaFilterCondition condition = cursorFactory.asCondition(filters, fanout.partition.headerIndexPolicy());
             final int leaderId = cacheRoute.leadersByPartitionId.get(partitionId);
 
             newStream = new KafkaCacheClientFetchStream(
@@ -388,7 +393,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
         sender.accept(reset.typeId(), reset.buffer(), reset.offset(), reset.sizeof());
     }
 
-    final class KafkaCacheClientFetchFanout
+    final class KafkaCacheClientFetchFanout implements KafkaCacheClientPoller.Subscriber
     {
         private final long routeId;
         private final long authorization;
@@ -404,6 +409,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
 
         private long partitionOffset;
         private long latestOffset;
+        private long flushOffset;
 
         private KafkaCacheClientFetchFanout(
             long routeId,
@@ -417,6 +423,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
             this.partition = partition;
             this.partitionOffset = defaultOffset;
             this.latestOffset = DEFAULT_LATEST_OFFSET;
+            this.flushOffset = defaultOffset;
             this.members = new ArrayList<>();
             this.leaderId = leaderId;
             this.receiver = NO_RECEIVER;
@@ -600,9 +607,36 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
 
             members.forEach(s -> s.doClientReplyBeginIfNecessary(traceId));
 
+            poller.attach(this);
+
             doClientFanoutReplyWindow(traceId, bufferPool.slotCapacity());
         }
 
+        @Override
+        public KafkaCachePartition partition()
+        {
+            return partition;
+        }
+
+        @Override
+        public long partitionOffset()
+        {
+            return partitionOffset;
+        }
+
+        @Override
+        public void onPublished(
+            long partitionOffset,
+            long latestOffset)
+        {
+            final long traceId = supplyTraceId.getAsLong();
+
+            this.partitionOffset = partitionOffset;
+            this.latestOffset = Math.max(latestOffset, this.latestOffset);
+
+            members.forEach(s -> s.doClientReplyDataIfNecessary(traceId));
+        }
+
         private void onClientFanoutReplyFlush(
             FlushFW flush)
         {
@@ -615,9 +649,12 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
             final long partitionOffset = partition.partitionOffset();
             final long latestOffset = partition.latestOffset();
 
-            assert partitionOffset >= this.partitionOffset;
-            this.partitionOffset = partitionOffset;
-            this.latestOffset = latestOffset;
+            assert partitionOffset >= flushOffset;
+            this.flushOffset = partitionOffset;
+
+            // poller may have already delivered a later published offset
+            this.partitionOffset = Math.max(partitionOffset, this.partitionOffset);
+            this.latestOffset = Math.max(latestOffset, this.latestOffset);
 
             members.forEach(s -> s.doClientReplyDataIfNecessary(traceId));
 
@@ -633,6 +670,8 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
 
             members.forEach(s -> s.doClientReplyEndIfNecessary(traceId));
 
+            poller.detach(this);
+
             state = KafkaState.closedReply(state);
         }
 
@@ -643,6 +682,8 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
 
             members.forEach(s -> s.doClientReplyAbortIfNecessary(traceId));
 
+            poller.detach(this);
+
             state = KafkaState.closedReply(state);
         }
 
@@ -687,6 +728,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
             state = KafkaState.closedReply(state);
 
             correlations.remove(replyId);
+            poller.detach(this);
 
             doReset(receiver, routeId, replyId, traceId, authorization, EMPTY_OCTETS);
         }
@@ -932,7 +974,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
                 replyBudget >= replyPadding &&
                 partitionOffset <= group.partitionOffset)
             {
-                final KafkaCacheEntryFW nextEntry = cursor.next(entryRO);
+                final KafkaCacheEntry nextEntry = cursor.next(entryRO);
 
                 if (nextEntry == null || nextEntry.offset$() > group.latestOffset)
                 {
@@ -964,7 +1006,7 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
 
         private void doClientReplyData(
             long traceId,
-            KafkaCacheEntryFW nextEntry)
+            KafkaCacheEntry nextEntry)
         {
             assert nextEntry != null;
 
@@ -972,8 +1014,8 @@ public final class KafkaCacheClientFetchFactory implements StreamFactory
             final long timestamp = nextEntry.timestamp();
             final KafkaKeyFW key = nextEntry.key();
             final ArrayFW<KafkaHeaderFW> headers = nextEntry.headers();
-            final long ancestor = nextEntry.ancestor();
-            final OctetsFW value = nextEntry.value();
+            final long ancestor = cursor.ancestor();
+            final OctetsFW value = cursor.value();
             final int remaining = value != null ? value.sizeof() - messageOffset : 0;
             final int lengthMin = Math.min(remaining, 1024);
             final int reservedMax = Math.min(remaining + replyPadding, replyBudget);
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import org.agrona.collections.ArrayUtil;
+import org.agrona.concurrent.Agent;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
+
+public final class KafkaCacheClientPoller implements Agent
+{
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    private Subscriber[] subscribers = NO_SUBSCRIBERS;
+
+    @Override
+    public String roleName()
+    {
+        return "kafka.cache.client.poller";
+    }
+
+    @Override
+    public int doWork()
+    {
+        int workCount = 0;
+
+        final Subscriber[] subscribers = this.subscribers;
+        for (int i = 0; i < subscribers.length; i++)
+        {
+            final Subscriber subscriber = subscribers[i];
+            final KafkaCachePartition partition = subscriber.partition();
+            final long partitionOffset = partition.publishedOffset();
+            if (partitionOffset > subscriber.partitionOffset())
+            {
+                subscriber.onPublished(partitionOffset, partition.publishedLatestOffset());
+                workCount++;
+            }
+        }
+
+        return workCount;
+    }
+
+    void attach(
+        Subscriber subscriber)
+    {
+        subscribers = ArrayUtil.add(subscribers, subscriber);
+    }
+
+    void detach(
+        Subscriber subscriber)
+    {
+        subscribers = ArrayUtil.remove(subscribers, subscriber);
+    }
+
+    interface Subscriber
+    {
+        KafkaCachePartition partition();
+
+        long partitionOffset();
+
+        void onPublished(
+            long partitionOffset,
+            long latestOffset);
+    }
+}
@@ -17,9 +17,11 @@ package org.reaktivity.nukleus.kafka.internal.stream;
 
 import static java.lang.System.currentTimeMillis;
 import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.reaktivity.nukleus.budget.BudgetCreditor.NO_CREDITOR_INDEX;
 import static org.reaktivity.nukleus.budget.BudgetDebitor.NO_DEBITOR_INDEX;
 import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+import static org.reaktivity.nukleus.concurrent.Signaler.NO_CANCEL_ID;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +39,7 @@ import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.budget.BudgetCreditor;
 import org.reaktivity.nukleus.budget.BudgetDebitor;
 import org.reaktivity.nukleus.buffer.BufferPool;
+import org.reaktivity.nukleus.concurrent.Signaler;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.function.MessageFunction;
 import org.reaktivity.nukleus.function.MessagePredicate;
@@ -45,6 +48,7 @@ import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
 import org.reaktivity.nukleus.kafka.internal.budget.KafkaCacheClientBudget;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheProduceLog;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheTopic;
 import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
@@ -69,7 +73,17 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
     private static final OctetsFW EMPTY_OCTETS = new OctetsFW().wrap(new UnsafeBuffer(), 0, 0);
     private static final Consumer<OctetsFW.Builder> EMPTY_EXTENSION = ex -> {};
 
+    private static final int ERROR_NONE = 0;
+    private static final int ERROR_UNKNOWN_TOPIC_OR_PARTITION = 3;
     private static final int ERROR_NOT_LEADER_FOR_PARTITION = 6;
+    private static final int ERROR_MESSAGE_TOO_LARGE = 10;
+    private static final int ERROR_INVALID_TOPIC = 17;
+    private static final int ERROR_RECORD_LIST_TOO_LARGE = 18;
+    private static final int ERROR_TOPIC_AUTHORIZATION_FAILED = 29;
+    private static final int ERROR_CLUSTER_AUTHORIZATION_FAILED = 31;
+    private static final int ERROR_INVALID_RECORD = 87;
+
+    private static final int SIGNAL_RECONNECT = 1;
 
     private static final String TRANSACTION_NONE = null;
 
@@ -84,6 +98,7 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
     private final WindowFW windowRO = new WindowFW();
     private final ExtensionFW extensionRO = new ExtensionFW();
     private final KafkaBeginExFW kafkaBeginExRO = new KafkaBeginExFW();
+    private final KafkaResetExFW kafkaResetExRO = new KafkaResetExFW();
 
     private final BeginFW.Builder beginRW = new BeginFW.Builder();
     private final DataFW.Builder dataRW = new DataFW.Builder();
@@ -100,23 +115,30 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
     private final int kafkaTypeId;
     private final RouteManager router;
     private final BufferPool bufferPool;
+    private final Signaler signaler;
     private final BudgetCreditor creditor;
     private final MutableDirectBuffer writeBuffer;
     private final MutableDirectBuffer extBuffer;
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
+    private final LongSupplier supplyTraceId;
     private final LongSupplier supplyBudgetId;
     private final LongFunction<BudgetDebitor> supplyDebitor;
     private final Function<String, KafkaCache> supplyCache;
     private final LongFunction<KafkaCacheRoute> supplyCacheRoute;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final int initialBudgetMax;
+    private final boolean localAck;
+    private final int produceLogCapacity;
+    private final boolean produceLogSync;
+    private final long reconnectMaxMillis;
 
     public KafkaCacheClientProduceFactory(
         KafkaConfiguration config,
         RouteManager router,
         MutableDirectBuffer writeBuffer,
         BufferPool bufferPool,
+        Signaler signaler,
         BudgetCreditor creditor,
         LongUnaryOperator supplyInitialId,
         LongUnaryOperator supplyReplyId,
@@ -133,15 +155,21 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         this.writeBuffer = new UnsafeBuffer(new byte[writeBuffer.capacity()]);
         this.extBuffer = new UnsafeBuffer(new byte[writeBuffer.capacity()]);
         this.bufferPool = bufferPool;
+        this.signaler = signaler;
         this.creditor = creditor;
         this.supplyInitialId = supplyInitialId;
         this.supplyReplyId = supplyReplyId;
+        this.supplyTraceId = supplyTraceId;
         this.supplyBudgetId = supplyBudgetId;
         this.supplyDebitor = supplyDebitor;
         this.supplyCache = supplyCache;
         this.supplyCacheRoute = supplyCacheRoute;
         this.correlations = correlations;
         this.initialBudgetMax = bufferPool.slotCapacity();
+        this.localAck = config.cacheProduceLocalAck();
+        this.produceLogCapacity = config.cacheProduceLogCapacity();
+        this.produceLogSync = config.cacheProduceLogSync();
+        this.reconnectMaxMillis = SECONDS.toMillis(Math.max(config.cacheServerReconnect(), 1));
     }
 
     @Override
@@ -351,6 +379,24 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         sender.accept(reset.typeId(), reset.buffer(), reset.offset(), reset.sizeof());
     }
 
+    private static boolean retriable(
+        int error)
+    {
+        switch (error)
+        {
+        case ERROR_UNKNOWN_TOPIC_OR_PARTITION:
+        case ERROR_MESSAGE_TOO_LARGE:
+        case ERROR_INVALID_TOPIC:
+        case ERROR_RECORD_LIST_TOO_LARGE:
+        case ERROR_TOPIC_AUTHORIZATION_FAILED:
+        case ERROR_CLUSTER_AUTHORIZATION_FAILED:
+        case ERROR_INVALID_RECORD:
+            return false;
+        default:
+            return true;
+        }
+    }
+
     final class KafkaCacheClientProduceFan
     {
         private final long routeId;
@@ -360,6 +406,8 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         private final int partitionId;
         private final List<KafkaCacheClientProduceStream> members;
 
+        private KafkaCacheProduceLog log;
+
         private long leaderId;
         private long initialId;
         private long replyId;
@@ -375,9 +423,16 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         private int initialPadding;
         private int initialSlot = NO_SLOT;
         private int initialSlotOffset;
+        private int initialSlotReserved;
+
+        private int initialAcked;
+        private int localBudget;
 
         private long partitionIndex = NO_CREDITOR_INDEX;
 
+        private long reconnectAt = NO_CANCEL_ID;
+        private int reconnectAttempt;
+
         private KafkaCacheClientProduceFan(
             long routeId,
             long authorization,
@@ -432,10 +487,11 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         {
             members.remove(member);
 
-            if (members.isEmpty())
+            if (members.isEmpty() && drained())
             {
                 doClientFanInitialAbortIfNecessary(traceId);
                 doClientFanReplyResetIfNecessary(traceId);
+                cleanupClientFanLogIfNecessary();
             }
         }
 
@@ -449,6 +505,12 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
 
             if (!KafkaState.initialOpening(state))
             {
+                if (localAck && log == null)
+                {
+                    // each fan writes its own produce log, so local ack works on every core
+                    log = partition.acquireProduceLog(produceLogCapacity);
+                }
+
                 doClientFanInitialBegin(traceId);
             }
         }
@@ -493,9 +555,37 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
                         initialId, partition, initialBudget, reserved, initialBudget - reserved);
             }
 
-            initialBudget -= reserved;
-            assert initialBudget >= -initialBudgetMax;
+            if (log != null)
+            {
+                localBudget -= reserved;
+
+                if (initialSlot == NO_SLOT && log.append(data.buffer(), data.offset(), data.sizeof()))
+                {
+                    forceClientFanLogIfNecessary();
+                    doClientFanLocalCredit(traceId, reserved);
+                }
+                else
+                {
+                    doClientFanInitialSlotData(data);
+                    initialSlotReserved += reserved;
+                }
+
+                flushClientFanLogData(traceId);
+            }
+            else
+            {
+                initialBudget -= reserved;
+                assert initialBudget >= -initialBudgetMax;
+
+                doClientFanInitialSlotData(data);
 
+                flushClientFanInitialData(traceId);
+            }
+        }
+
+        private void doClientFanInitialSlotData(
+            DataFW data)
+        {
             if (initialSlot == NO_SLOT)
             {
                 initialSlot = bufferPool.acquire(initialId);
@@ -507,8 +597,6 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             final MutableDirectBuffer initialSlotBuffer = bufferPool.buffer(initialSlot);
             initialSlotBuffer.putBytes(initialSlotOffset, data.buffer(), data.offset(), data.sizeof());
             initialSlotOffset += data.sizeof();
-
-            flushClientFanInitialData(traceId);
         }
 
         private void flushClientFanInitialData(
@@ -554,6 +642,195 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             }
         }
 
+        private void flushClientFanLogData(
+            long traceId)
+        {
+            if (initialSlot != NO_SLOT)
+            {
+                appendClientFanInitialSlotData(traceId);
+            }
+
+            if (KafkaState.initialOpened(state) && !KafkaState.initialClosed(state))
+            {
+                final DirectBuffer entries = log.entries();
+
+                while (log.hasUnsent())
+                {
+                    final int sendPosition = log.sendPosition();
+                    final int entryOffset = log.entryOffset(sendPosition);
+                    final int entryLimit = entryOffset + log.entryLength(sendPosition);
+                    final DataFW loggedData = bufferedDataRO.wrap(entries, entryOffset, entryLimit);
+                    final int reserved = loggedData.reserved();
+
+                    if (reserved > initialBudget)
+                    {
+                        break;
+                    }
+
+                    final long claimed = initialDebitor.claim(traceId, initialDebitorIndex, initialId, reserved, reserved, 0);
+                    if (claimed != reserved)
+                    {
+                        break;
+                    }
+
+                    doData(receiver, routeId, initialId, traceId, authorization, loggedData.flags(),
+                            initialBudgetId, reserved, loggedData.payload(), loggedData.extension());
+
+                    initialBudget -= reserved;
+                    log.sent();
+                }
+            }
+        }
+
+        private void appendClientFanInitialSlotData(
+            long traceId)
+        {
+            assert initialSlot != NO_SLOT;
+            final MutableDirectBuffer initialSlotBuffer = bufferPool.buffer(initialSlot);
+
+            int initialSlotProgress = 0;
+            int appendedReserved = 0;
+            while (initialSlotProgress < initialSlotOffset)
+            {
+                final DataFW bufferedData = bufferedDataRO.wrap(initialSlotBuffer, initialSlotProgress, initialSlotOffset);
+                final int reserved = bufferedData.reserved();
+
+                if (!log.append(bufferedData.buffer(), bufferedData.offset(), bufferedData.sizeof()))
+                {
+                    break;
+                }
+
+                appendedReserved += reserved;
+                initialSlotProgress = bufferedData.limit();
+            }
+
+            if (appendedReserved > 0)
+            {
+                forceClientFanLogIfNecessary();
+                initialSlotReserved -= appendedReserved;
+                doClientFanLocalCredit(traceId, appendedReserved);
+            }
+
+            final int initialSlotRemaining = initialSlotOffset - initialSlotProgress;
+            if (initialSlotRemaining > 0)
+            {
+                if (initialSlotProgress != 0)
+                {
+                    initialSlotBuffer.putBytes(0, initialSlotBuffer, initialSlotProgress, initialSlotRemaining);
+                    initialSlotOffset = initialSlotRemaining;
+                }
+            }
+            else
+            {
+                assert initialSlotRemaining == 0;
+                cleanupInitialSlotIfNecessary();
+            }
+        }
+
+        private void forceClientFanLogIfNecessary()
+        {
+            if (produceLogSync)
+            {
+                log.force();
+            }
+        }
+
+        private void doClientFanLocalCredit(
+            long traceId,
+            int credit)
+        {
+            if (partitionIndex != NO_CREDITOR_INDEX && credit > 0)
+            {
+                localBudget += credit;
+                budget.credit(traceId, partitionIndex, credit);
+
+                members.forEach(s -> s.doClientInitialWindowIfNecessary(traceId));
+            }
+        }
+
+        private void onClientFanLogAcked(
+            long traceId,
+            int credit)
+        {
+            // once opened, the server produce fan credits only the reserved bytes of this fan's acknowledged data,
+            // in the order it was sent, so sent entries are acknowledged while their reserved bytes are covered
+            initialAcked += credit;
+
+            final DirectBuffer entries = log.entries();
+
+            while (log.hasUnacked())
+            {
+                final int ackPosition = log.ackPosition();
+                final int entryOffset = log.entryOffset(ackPosition);
+                final int entryLimit = entryOffset + log.entryLength(ackPosition);
+                final DataFW loggedData = bufferedDataRO.wrap(entries, entryOffset, entryLimit);
+                final int reserved = loggedData.reserved();
+
+                if (reserved > initialAcked)
+                {
+                    break;
+                }
+
+                initialAcked -= reserved;
+                log.acked();
+            }
+
+            flushClientFanLogData(traceId);
+
+            if (members.isEmpty() && drained())
+            {
+                doClientFanInitialAbortIfNecessary(traceId);
+                doClientFanReplyResetIfNecessary(traceId);
+                cleanupClientFanLogIfNecessary();
+            }
+        }
+
+        private boolean drained()
+        {
+            return log == null || log.isEmpty() && initialSlot == NO_SLOT;
+        }
+
+        private void cleanupClientFanLogIfNecessary()
+        {
+            if (log != null && members.isEmpty() && drained() && KafkaState.initialClosed(state))
+            {
+                partition.releaseProduceLog(log);
+                log = null;
+            }
+        }
+
+        private void doClientFanReconnect(
+            long traceId)
+        {
+            if (reconnectAt != NO_CANCEL_ID)
+            {
+                signaler.cancel(reconnectAt);
+            }
+
+            this.reconnectAt = signaler.signalAt(
+                currentTimeMillis() + Math.min(50L << Math.min(reconnectAttempt++, 16), reconnectMaxMillis),
+                SIGNAL_RECONNECT,
+                this::onClientFanSignal);
+        }
+
+        private void onClientFanSignal(
+            int signalId)
+        {
+            assert signalId == SIGNAL_RECONNECT;
+
+            this.reconnectAt = NO_CANCEL_ID;
+
+            final long traceId = supplyTraceId.getAsLong();
+            final KafkaCacheRoute cacheRoute = supplyCacheRoute.apply(routeId);
+            final int newLeaderId = cacheRoute.leadersByPartitionId.get(partitionId);
+            if (newLeaderId != cacheRoute.leadersByPartitionId.missingValue())
+            {
+                this.leaderId = newLeaderId;
+            }
+
+            doClientFanInitialBeginIfNecessary(traceId);
+        }
+
         private void doClientFanInitialAbortIfNecessary(
             long traceId)
         {
@@ -577,7 +854,23 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             final long traceId = reset.traceId();
             final OctetsFW extension = reset.extension();
 
-            members.forEach(s -> s.doClientInitialResetIfNecessary(traceId, extension));
+            if (log == null)
+            {
+                members.forEach(s -> s.doClientInitialResetIfNecessary(traceId, extension));
+            }
+            else
+            {
+                final KafkaResetExFW kafkaResetEx = extension.get(kafkaResetExRO::tryWrap);
+                final int error = kafkaResetEx != null ? kafkaResetEx.error() : ERROR_NONE;
+
+                if (!retriable(error))
+                {
+                    // rejected entries would fail again on every retry, so set them aside and fail the producers
+                    log.rejectSent(error);
+                    members.forEach(s -> s.cleanupClient(traceId, extension));
+                    members.clear();
+                }
+            }
 
             if (!KafkaState.initialClosed(state))
             {
@@ -585,6 +878,13 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             }
 
             doClientFanReplyResetIfNecessary(traceId);
+
+            if (log != null && (!members.isEmpty() || !drained()))
+            {
+                doClientFanReconnect(traceId);
+            }
+
+            cleanupClientFanLogIfNecessary();
         }
 
         private void onClientFanInitialWindow(
@@ -602,6 +902,8 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
                         initialId, partition, initialBudget, credit, initialBudget + credit);
             }
 
+            final int acked = KafkaState.initialOpened(state) ? credit : 0;
+
             initialBudgetId = budgetId;
             initialBudget += credit;
             initialPadding = padding;
@@ -609,14 +911,27 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             if (!KafkaState.initialOpened(state))
             {
                 onClientFanInitialOpened();
+
+                if (log != null)
+                {
+                    reconnectAttempt = 0;
+                    doClientFanLocalCredit(traceId, initialBudgetMax - initialSlotReserved);
+                }
             }
 
-            if (initialSlot != NO_SLOT)
+            if (log != null)
             {
-                flushClientFanInitialData(traceId);
+                onClientFanLogAcked(traceId, acked);
             }
+            else
+            {
+                if (initialSlot != NO_SLOT)
+                {
+                    flushClientFanInitialData(traceId);
+                }
 
-            budget.credit(traceId, partitionIndex, credit);
+                budget.credit(traceId, partitionIndex, credit);
+            }
 
             members.forEach(s -> s.doClientInitialWindowIfNecessary(traceId));
         }
@@ -629,7 +944,8 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             if (initialBudgetId != 0L && initialDebitorIndex == NO_DEBITOR_INDEX)
             {
                 initialDebitor = supplyDebitor.apply(initialBudgetId);
-                initialDebitorIndex =
+                initialDebitorIndex = log != null ?
+                        initialDebitor.acquire(initialBudgetId, initialId, this::flushClientFanLogData) :
                         initialDebitor.acquire(initialBudgetId, initialId, this::flushClientFanInitialData);
                 assert initialDebitorIndex != NO_DEBITOR_INDEX;
             }
@@ -642,7 +958,7 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
 
             if (partitionIndex != NO_CREDITOR_INDEX)
             {
-                budget.release(partitionIndex, initialBudget);
+                budget.release(partitionIndex, log != null ? localBudget : initialBudget);
                 partitionIndex = NO_CREDITOR_INDEX;
             }
 
@@ -656,7 +972,17 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
             initialBudget = 0;
             initialPadding = 0;
 
-            cleanupInitialSlotIfNecessary();
+            if (log != null)
+            {
+                // unacknowledged entries are sent again after reconnect
+                localBudget = 0;
+                initialAcked = 0;
+                log.rewind();
+            }
+            else
+            {
+                cleanupInitialSlotIfNecessary();
+            }
         }
 
         private void cleanupInitialSlotIfNecessary()
@@ -728,9 +1054,16 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         {
             final long traceId = end.traceId();
 
-            members.forEach(s -> s.doClientReplyEndIfNecessary(traceId));
+            if (log != null)
+            {
+                onClientFanLogReplyClosed(traceId);
+            }
+            else
+            {
+                members.forEach(s -> s.doClientReplyEndIfNecessary(traceId));
 
-            state = KafkaState.closedReply(state);
+                state = KafkaState.closedReply(state);
+            }
         }
 
         private void onClientFanReplyAbort(
@@ -738,9 +1071,31 @@ public final class KafkaCacheClientProduceFactory implements StreamFactory
         {
             final long traceId = abort.traceId();
 
-            members.forEach(s -> s.doClientReplyAbortIfNecessary(traceId));
+            if (log != null)
+            {
+                onClientFanLogReplyClosed(traceId);
+            }
+            else
+            {
+                members.forEach(s -> s.doClientReplyAbortIfNecessary(traceId));
+
+                state = KafkaState.closedReply(state);
+            }
+        }
 
+        private void onClientFanLogReplyClosed(
+            long traceId)
+        {
             state = KafkaState.closedReply(state);
+
+            doClientFanInitialAbortIfNecessary(traceId);
+
+            if (!members.isEmpty() || !drained())
+            {
+                doClientFanReconnect(traceId);
+            }
+
+            cleanupClientFanLogIfNecessary();
         }
 
         private void doClientFanReplyResetIfNecessary(
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.ManyToOneConcurrentArrayQueue;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaCacheServerFetchFactory.KafkaCacheServerFetchFanout;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandType;
+
+public final class KafkaCacheCommandAgent implements Agent
+{
+    private static final int NO_PARTITION_ID = -1;
+
+    private final ManyToOneConcurrentArrayQueue<KafkaCacheCommand<?>> commands;
+    private final Long2ObjectHashMap<KafkaCacheRoute> cacheRoutesById;
+    private final Consumer<KafkaCacheCommand<?>> onCommand;
+    private final List<KafkaCacheServerFetchFanout> fanouts;
+
+    public KafkaCacheCommandAgent(
+        int capacity,
+        Long2ObjectHashMap<KafkaCacheRoute> cacheRoutesById)
+    {
+        this.commands = new ManyToOneConcurrentArrayQueue<>(capacity);
+        this.cacheRoutesById = cacheRoutesById;
+        this.onCommand = this::onCommand;
+        this.fanouts = new ArrayList<>();
+    }
+
+    @Override
+    public String roleName()
+    {
+        return "kafka.cache.commands";
+    }
+
+    @Override
+    public int doWork()
+    {
+        return commands.drain(onCommand);
+    }
+
+    public <R> CompletableFuture<List<R>> submit(
+        KafkaCacheCommandType type,
+        String cache,
+        String topic,
+        int partitionId,
+        BiFunction<KafkaCachePartition, Boolean, R> report)
+    {
+        final KafkaCacheCommand<R> command = new KafkaCacheCommand<>(type, cache, topic, partitionId, report);
+
+        if (!commands.offer(command))
+        {
+            command.result.completeExceptionally(new IllegalStateException("cache commands full"));
+        }
+
+        return command.result;
+    }
+
+    private void onCommand(
+        KafkaCacheCommand<?> command)
+    {
+        try
+        {
+            onCommandReport(command);
+        }
+        catch (Throwable ex)
+        {
+            command.result.completeExceptionally(ex);
+        }
+        finally
+        {
+            fanouts.clear();
+        }
+    }
+
+    private <R> void onCommandReport(
+        KafkaCacheCommand<R> command)
+    {
+        // eviction removes the fan-out from its route, so collect matches before acting on them
+        for (KafkaCacheRoute cacheRoute : cacheRoutesById.values())
+        {
+            for (KafkaCacheServerFetchFanout fanout : cacheRoute.serverFetchFanoutsByTopicPartition.values())
+            {
+                if (command.matches(fanout.partition()))
+                {
+                    fanouts.add(fanout);
+                }
+            }
+        }
+
+        final List<R> reports = new ArrayList<>(fanouts.size());
+        for (KafkaCacheServerFetchFanout fanout : fanouts)
+        {
+            final KafkaCachePartition partition = fanout.partition();
+
+            boolean applied;
+            switch (command.type)
+            {
+            case ROLL:
+                applied = fanout.onServerFanoutSegmentRoll();
+                break;
+            case COMPACT:
+                applied = fanout.onServerFanoutSegmentCompact();
+                break;
+            case EVICT:
+                applied = fanout.onServerFanoutEvict();
+                break;
+            case PREWARM:
+                applied = fanout.caughtUp();
+                break;
+            default:
+                applied = true;
+                break;
+            }
+
+            reports.add(command.report.apply(partition, applied));
+        }
+
+        command.result.complete(reports);
+    }
+
+    private static final class KafkaCacheCommand<R>
+    {
+        private final KafkaCacheCommandType type;
+        private final String cache;
+        private final String topic;
+        private final int partitionId;
+        private final BiFunction<KafkaCachePartition, Boolean, R> report;
+        private final CompletableFuture<List<R>> result;
+
+        private KafkaCacheCommand(
+            KafkaCacheCommandType type,
+            String cache,
+            String topic,
+            int partitionId,
+            BiFunction<KafkaCachePartition, Boolean, R> report)
+        {
+            this.type = type;
+            this.cache = cache;
+            this.topic = topic;
+            this.partitionId = partitionId;
+            this.report = report;
+            this.result = new CompletableFuture<>();
+        }
+
+        private boolean matches(
+            KafkaCachePartition partition)
+        {
+            return cache.equals(partition.cache()) &&
+                    topic.equals(partition.topic()) &&
+                    (partitionId == NO_PARTITION_ID || partitionId == partition.id());
+        }
+    }
+}
@@ -15,7 +15,10 @@
  */
 package org.reaktivity.nukleus.kafka.internal.stream;
 
+import static java.util.stream.Collectors.toList;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
@@ -114,6 +117,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
+    private final KafkaCacheServerBootstrapScheduler scheduler;
 
     public KafkaCacheServerBootstrapFactory(
         KafkaConfiguration config,
@@ -131,6 +135,11 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
         this.supplyInitialId = supplyInitialId;
         this.supplyReplyId = supplyReplyId;
         this.correlations = correlations;
+        final List<String> priorityTopics = Arrays.stream(config.cacheServerBootstrapPriorityTopics().split(","))
+                .map(String::trim)
+                .filter(t -> !t.isEmpty())
+                .collect(toList());
+        this.scheduler = new KafkaCacheServerBootstrapScheduler(config.cacheServerBootstrapFetchesMax(), priorityTopics);
     }
 
     @Override
@@ -306,6 +315,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
         private final List<KafkaBootstrapFetchStream> fetchStreams;
         private final Long2LongHashMap nextOffsetsById;
         private final long defaultOffset;
+        private final int priority;
 
         private int state;
 
@@ -335,6 +345,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             this.fetchStreams = new ArrayList<>();
             this.nextOffsetsById = new Long2LongHashMap(-1L);
             this.defaultOffset = defaultOffset;
+            this.priority = scheduler.priority(topic);
         }
 
         private void onBootstrapInitial(
@@ -432,7 +443,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
 
             describeStream.doDescribeReplyReset(traceId);
             metaStream.doMetaReplyReset(traceId);
-            fetchStreams.forEach(f -> f.doFetchReplyReset(traceId));
+            fetchStreams.forEach(f -> f.doFetchReplyResetIfNecessary(traceId));
 
             doBootstrapInitialResetIfNecessary(traceId);
         }
@@ -585,8 +596,8 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             if (leader == null)
             {
                 leader = new KafkaBootstrapFetchStream(partitionId, leaderId, this);
-                leader.doFetchInitialBegin(traceId, partitionOffset);
                 fetchStreams.add(leader);
+                leader.doFetchInitialBeginIfAvailable(traceId);
             }
 
             assert leader != null;
@@ -629,6 +640,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
                 else
                 {
                     fetchStreams.remove(leader);
+                    leader.doFetchReleaseIfNecessary(traceId);
                 }
             }
             else
@@ -1150,8 +1162,10 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
 
         private int replyBudget;
 
-        @SuppressWarnings("unused")
         private long partitionOffset;
+        private long latestOffset;
+
+        private final KafkaCacheServerBootstrapScheduler.Fetch fetch;
 
         private KafkaBootstrapFetchStream(
             int partitionId,
@@ -1161,13 +1175,28 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             this.leaderId = leaderId;
             this.partitionId = partitionId;
             this.bootstrap = bootstrap;
+            this.fetch = new KafkaCacheServerBootstrapScheduler.Fetch(bootstrap.priority)
+            {
+                @Override
+                void onScheduled(
+                    long traceId)
+                {
+                    doFetchInitialBegin(traceId, bootstrap.nextPartitionOffset(partitionId));
+                }
+            };
+        }
+
+        private void doFetchInitialBeginIfAvailable(
+            long traceId)
+        {
+            scheduler.schedule(fetch, traceId);
         }
 
         private void doFetchInitialBeginIfNecessary(
             long traceId,
             long partitionOffset)
         {
-            if (!KafkaState.initialOpening(state))
+            if (!fetch.deferred() && !KafkaState.initialOpening(state))
             {
                 doFetchInitialBegin(traceId, partitionOffset);
             }
@@ -1201,9 +1230,26 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
                         .sizeof()));
         }
 
+        private void doFetchReleaseIfNecessary(
+            long traceId)
+        {
+            scheduler.release(fetch, traceId);
+        }
+
+        private void doFetchDeferredCancelIfNecessary()
+        {
+            if (fetch.deferred())
+            {
+                scheduler.cancel(fetch);
+                this.state = KafkaState.closedReply(KafkaState.closedInitial(state));
+            }
+        }
+
         private void doFetchInitialEndIfNecessary(
             long traceId)
         {
+            doFetchDeferredCancelIfNecessary();
+
             if (!KafkaState.initialClosed(state))
             {
                 doFetchInitialEnd(traceId);
@@ -1216,11 +1262,15 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             state = KafkaState.closedInitial(state);
 
             doEnd(receiver, bootstrap.resolvedId, initialId, traceId, bootstrap.authorization, EMPTY_EXTENSION);
+
+            doFetchReleaseIfNecessary(traceId);
         }
 
         private void doFetchInitialAbortIfNecessary(
             long traceId)
         {
+            doFetchDeferredCancelIfNecessary();
+
             if (KafkaState.initialOpening(state) && !KafkaState.initialClosed(state))
             {
                 doFetchInitialAbort(traceId);
@@ -1233,6 +1283,8 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             state = KafkaState.closedInitial(state);
 
             doAbort(receiver, bootstrap.resolvedId, initialId, traceId, bootstrap.authorization, EMPTY_EXTENSION);
+
+            doFetchReleaseIfNecessary(traceId);
         }
 
         private void onFetchInitialReset(
@@ -1248,9 +1300,13 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
 
             doFetchReplyResetIfNecessary(traceId);
 
-            assert KafkaState.closed(state);
-
             bootstrap.onPartitionLeaderError(traceId, partitionId, error);
+
+            // leader error retried on this stream keeps its slot
+            if (KafkaState.closed(state))
+            {
+                doFetchReleaseIfNecessary(traceId);
+            }
         }
 
         private void onFetchInitialWindow(
@@ -1335,6 +1391,12 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
                 final KafkaOffsetFW partition = kafkaFetchFlushEx.partition();
 
                 this.partitionOffset = partition.partitionOffset();
+                this.latestOffset = partition.latestOffset();
+
+                if (partitionOffset >= latestOffset)
+                {
+                    doFetchReleaseIfNecessary(traceId);
+                }
 
                 doFetchReplyWindow(traceId, reserved);
             }
@@ -1350,6 +1412,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             bootstrap.doBootstrapReplyEndIfNecessary(traceId);
 
             doFetchInitialEndIfNecessary(traceId);
+            doFetchReleaseIfNecessary(traceId);
         }
 
         private void onFetchReplyAbort(
@@ -1362,6 +1425,7 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
             bootstrap.doBootstrapReplyAbortIfNecessary(traceId);
 
             doFetchInitialAbortIfNecessary(traceId);
+            doFetchReleaseIfNecessary(traceId);
         }
 
         private void doFetchReplyWindow(
@@ -1382,6 +1446,8 @@ public final class KafkaCacheServerBootstrapFactory implements StreamFactory
         private void doFetchReplyResetIfNecessary(
             long traceId)
         {
+            doFetchDeferredCancelIfNecessary();
+
             if (!KafkaState.replyClosed(state))
             {
                 doFetchReplyReset(traceId);
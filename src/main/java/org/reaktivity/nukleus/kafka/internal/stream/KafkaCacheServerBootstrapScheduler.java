@@ -0,0 +1,146 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+final class KafkaCacheServerBootstrapScheduler
+{
+    private final int fetchesMax;
+    private final List<String> priorityTopics;
+    private final PriorityQueue<Fetch> deferred;
+
+    private int scheduled;
+    private long nextSequence;
+
+    KafkaCacheServerBootstrapScheduler(
+        int fetchesMax,
+        List<String> priorityTopics)
+    {
+        this.fetchesMax = fetchesMax;
+        this.priorityTopics = priorityTopics;
+        this.deferred = new PriorityQueue<>(
+                Comparator.comparingInt((Fetch f) -> f.priority)
+                          .thenComparingLong(f -> f.sequence));
+    }
+
+    int priority(
+        String topic)
+    {
+        final int index = priorityTopics.indexOf(topic);
+        return index != -1 ? index : priorityTopics.size();
+    }
+
+    int scheduled()
+    {
+        return scheduled;
+    }
+
+    int deferred()
+    {
+        return deferred.size();
+    }
+
+    void schedule(
+        Fetch fetch,
+        long traceId)
+    {
+        assert !fetch.scheduled && !fetch.deferred;
+
+        if (available())
+        {
+            start(fetch, traceId);
+        }
+        else
+        {
+            fetch.deferred = true;
+            fetch.sequence = nextSequence++;
+            deferred.add(fetch);
+        }
+    }
+
+    void cancel(
+        Fetch fetch)
+    {
+        if (fetch.deferred)
+        {
+            deferred.remove(fetch);
+            fetch.deferred = false;
+        }
+    }
+
+    void release(
+        Fetch fetch,
+        long traceId)
+    {
+        if (fetch.scheduled)
+        {
+            fetch.scheduled = false;
+            scheduled--;
+
+            while (!deferred.isEmpty() && available())
+            {
+                final Fetch next = deferred.poll();
+                next.deferred = false;
+                start(next, traceId);
+            }
+        }
+    }
+
+    private boolean available()
+    {
+        return fetchesMax <= 0 || scheduled < fetchesMax;
+    }
+
+    private void start(
+        Fetch fetch,
+        long traceId)
+    {
+        fetch.scheduled = true;
+        scheduled++;
+        fetch.onScheduled(traceId);
+    }
+
+    abstract static class Fetch
+    {
+        private final int priority;
+
+        private long sequence;
+        private boolean deferred;
+        private boolean scheduled;
+
+        Fetch(
+            int priority)
+        {
+            this.priority = priority;
+        }
+
+        final boolean deferred()
+        {
+            return deferred;
+        }
+
+        final boolean scheduled()
+        {
+            return scheduled;
+        }
+
+        abstract void onScheduled(
+            long traceId);
+    }
+}
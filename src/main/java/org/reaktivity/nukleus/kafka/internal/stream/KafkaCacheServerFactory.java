@@ -30,6 +30,7 @@ import org.agrona.collections.Long2ObjectHashMap;
 import org.reaktivity.nukleus.budget.BudgetCreditor;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.concurrent.Signaler;
+import org.reaktivity.nukleus.concurrent.SignalingExecutor;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
@@ -58,6 +59,7 @@ public final class KafkaCacheServerFactory implements StreamFactory
         BufferPool bufferPool,
         BudgetCreditor creditor,
         Signaler signaler,
+        SignalingExecutor executor,
         LongUnaryOperator supplyInitialId,
         LongUnaryOperator supplyReplyId,
         LongSupplier supplyTraceId,
@@ -82,7 +84,7 @@ public final class KafkaCacheServerFactory implements StreamFactory
                 supplyTraceId, supplyTypeId, supplyCache, supplyCacheRoute, correlations));
 
         streamFactoriesByKind.put(KafkaBeginExFW.KIND_FETCH, new KafkaCacheServerFetchFactory(
-                config, router, writeBuffer, bufferPool, signaler, supplyInitialId, supplyReplyId,
+                config, router, writeBuffer, bufferPool, signaler, executor, supplyInitialId, supplyReplyId,
                 supplyTraceId, supplyTypeId, supplyCache, supplyCacheRoute, correlations));
 
         streamFactoriesByKind.put(KafkaBeginExFW.KIND_PRODUCE, new KafkaCacheServerProduceFactory(
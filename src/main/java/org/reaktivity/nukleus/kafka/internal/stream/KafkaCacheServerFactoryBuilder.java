@@ -27,6 +27,7 @@ import org.agrona.collections.Long2ObjectHashMap;
 import org.reaktivity.nukleus.budget.BudgetCreditor;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.concurrent.Signaler;
+import org.reaktivity.nukleus.concurrent.SignalingExecutor;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
@@ -53,6 +54,7 @@ public final class KafkaCacheServerFactoryBuilder implements KafkaStreamFactoryB
     private ToIntFunction<String> supplyTypeId;
     private BudgetCreditor creditor;
     private Signaler signaler;
+    private SignalingExecutor executor;
 
     public KafkaCacheServerFactoryBuilder(
         KafkaConfiguration config,
@@ -96,6 +98,14 @@ public final class KafkaCacheServerFactoryBuilder implements KafkaStreamFactoryB
         return this;
     }
 
+    @Override
+    public KafkaCacheServerFactoryBuilder setExecutor(
+        SignalingExecutor executor)
+    {
+        this.executor = executor;
+        return this;
+    }
+
     @Override
     public KafkaCacheServerFactoryBuilder setWriteBuffer(
         MutableDirectBuffer writeBuffer)
@@ -164,6 +174,7 @@ public final class KafkaCacheServerFactoryBuilder implements KafkaStreamFactoryB
                 bufferPool,
                 creditor,
                 signaler,
+                executor,
                 supplyInitialId,
                 supplyReplyId,
                 supplyTraceId,
@@ -29,6 +29,7 @@ import static org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.LongFunction;
@@ -38,16 +39,19 @@ import java.util.function.ToIntFunction;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Int2IntHashMap;
 import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.concurrent.Signaler;
+import org.reaktivity.nukleus.concurrent.SignalingExecutor;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.function.MessageFunction;
 import org.reaktivity.nukleus.function.MessagePredicate;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheEntry;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexFile;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition.Node;
@@ -63,7 +67,6 @@ import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetFW;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.String16FW;
-import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW;
 import org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW;
 import org.reaktivity.nukleus.kafka.internal.types.control.RouteFW;
 import org.reaktivity.nukleus.kafka.internal.types.stream.AbortFW;
@@ -101,6 +104,15 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
     private static final int SIGNAL_SEGMENT_RETAIN = 2;
     private static final int SIGNAL_SEGMENT_DELETE = 3;
     private static final int SIGNAL_SEGMENT_COMPACT = 4;
+    private static final int SIGNAL_SEGMENT_COMPRESS = 5;
+    private static final int SIGNAL_SEGMENT_UNMAP = 6;
+    private static final int SIGNAL_REPLY_FLUSH = 7;
+    private static final int SIGNAL_SEGMENT_COMPRESSED = 8;
+    private static final int SIGNAL_BUDGET_CHECK = 9;
+
+    private static final long SEGMENT_UNMAP_INTERVAL_MILLIS = 5000L;
+
+    private static final long NO_FAILOVER = -1L;
 
     private final RouteFW routeRO = new RouteFW();
     private final KafkaRouteExFW routeExRO = new KafkaRouteExFW();
@@ -129,7 +141,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
 
     private final MessageFunction<RouteFW> wrapRoute = (t, b, i, l) -> routeRO.wrap(b, i, i + l);
 
-    private final KafkaCacheEntryFW ancestorEntryRO = new KafkaCacheEntryFW();
+    private final KafkaCacheEntry ancestorEntryRO = new KafkaCacheEntry();
 
     private final int kafkaTypeId;
     private final RouteManager router;
@@ -137,6 +149,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
     private final MutableDirectBuffer extBuffer;
     private final BufferPool bufferPool;
     private final Signaler signaler;
+    private final SignalingExecutor executor;
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
     private final LongSupplier supplyTraceId;
@@ -144,6 +157,9 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
     private final LongFunction<KafkaCacheRoute> supplyCacheRoute;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final int reconnectDelay;
+    private final long failoverMaxMillis;
+    private final long flushMaxLatencyMillis;
+    private final long budgetCheckIntervalMillis;
 
     public KafkaCacheServerFetchFactory(
         KafkaConfiguration config,
@@ -151,6 +167,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
         MutableDirectBuffer writeBuffer,
         BufferPool bufferPool,
         Signaler signaler,
+        SignalingExecutor executor,
         LongUnaryOperator supplyInitialId,
         LongUnaryOperator supplyReplyId,
         LongSupplier supplyTraceId,
@@ -165,6 +182,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
         this.extBuffer = new UnsafeBuffer(new byte[writeBuffer.capacity()]);
         this.bufferPool = bufferPool;
         this.signaler = signaler;
+        this.executor = executor;
         this.supplyInitialId = supplyInitialId;
         this.supplyReplyId = supplyReplyId;
         this.supplyTraceId = supplyTraceId;
@@ -172,6 +190,9 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
         this.supplyCacheRoute = supplyCacheRoute;
         this.correlations = correlations;
         this.reconnectDelay = config.cacheServerReconnect();
+        this.failoverMaxMillis = config.cacheServerFailoverMaxMillis();
+        this.flushMaxLatencyMillis = config.cacheServerFlushMaxLatencyMillis();
+        this.budgetCheckIntervalMillis = config.cacheBudgetBytes() >= 0L ? config.cacheBudgetCheckIntervalMillis() : 0L;
     }
 
     @Override
@@ -234,7 +255,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
                 final KafkaCacheTopic topic = cache.supplyTopic(topicName);
                 final KafkaCachePartition partition = topic.supplyPartition(partitionId);
                 final KafkaCacheServerFetchFanout newFanout = new KafkaCacheServerFetchFanout(resolvedId, authorization,
-                        affinity, partition, routeDeltaType, defaultOffset);
+                        affinity, cacheRoute, partition, routeDeltaType, defaultOffset);
 
                 cacheRoute.serverFetchFanoutsByTopicPartition.put(partitionKey, newFanout);
                 fanout = newFanout;
@@ -383,6 +404,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
     {
         private final long routeId;
         private final long authorization;
+        private final KafkaCacheRoute cacheRoute;
         private final KafkaCachePartition partition;
         private final KafkaDeltaType deltaType;
         private final KafkaOffsetType defaultOffset;
@@ -402,19 +424,31 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
         private long deleteId = NO_CANCEL_ID;
         private long compactId = NO_CANCEL_ID;
         private long compactAt = Long.MAX_VALUE;
+        private long compressId = NO_CANCEL_ID;
+        private Future<?> compressFuture;
+        private Node compressNode;
+        private long compressBaseOffset;
+        private long unmapId = NO_CANCEL_ID;
+        private long budgetCheckId = NO_CANCEL_ID;
         private long reconnectAt = NO_CANCEL_ID;
         private int reconnectAttempt;
+        private long failoverUntil = NO_FAILOVER;
+        private int failoverAttempt;
+        private long flushId = NO_CANCEL_ID;
+        private boolean caughtUp;
 
         private KafkaCacheServerFetchFanout(
             long routeId,
             long authorization,
             long leaderId,
+            KafkaCacheRoute cacheRoute,
             KafkaCachePartition partition,
             KafkaDeltaType deltaType,
             KafkaOffsetType defaultOffset)
         {
             this.routeId = routeId;
             this.authorization = authorization;
+            this.cacheRoute = cacheRoute;
             this.partition = partition;
             this.deltaType = deltaType;
             this.defaultOffset = defaultOffset;
@@ -432,10 +466,8 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
                 correlations.remove(replyId);
                 doServerFanoutInitialAbortIfNecessary(traceId);
                 doServerFanoutReplyResetIfNecessary(traceId);
-                leaderId = member.leaderId;
 
-                members.forEach(m -> m.cleanupServer(traceId, ERROR_NOT_LEADER_FOR_PARTITION));
-                members.clear();
+                onServerFanoutLeaderChanged(member.leaderId);
             }
 
             members.add(member);
@@ -455,6 +487,33 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             }
         }
 
+        private boolean onServerFanoutLeaderResolved()
+        {
+            final Int2IntHashMap leadersByPartitionId = cacheRoute.leadersByPartitionId;
+            final int newLeaderId = leadersByPartitionId.get(partition.id());
+            final boolean changed = newLeaderId != leadersByPartitionId.missingValue() && newLeaderId != leaderId;
+
+            if (changed)
+            {
+                onServerFanoutLeaderChanged(newLeaderId);
+            }
+
+            return changed;
+        }
+
+        private void onServerFanoutLeaderChanged(
+            long newLeaderId)
+        {
+            if (KafkaConfiguration.DEBUG)
+            {
+                System.out.format("[0x%016x] %s FETCH leader %d -> %d\n", initialId, partition, leaderId, newLeaderId);
+            }
+
+            this.leaderId = newLeaderId;
+
+            members.forEach(m -> m.leaderId = newLeaderId);
+        }
+
         private void onServerFanoutMemberClosed(
             long traceId,
             KafkaCacheServerFetchStream member)
@@ -469,6 +528,8 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
                     this.reconnectAt = NO_CANCEL_ID;
                 }
 
+                this.failoverUntil = NO_FAILOVER;
+
                 correlations.remove(replyId);
                 doServerFanoutInitialAbortIfNecessary(traceId);
                 doServerFanoutReplyResetIfNecessary(traceId);
@@ -613,9 +674,21 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             assert partitionOffset >= 0L && partitionOffset >= this.partitionOffset;
             this.partitionOffset = partitionOffset;
             this.latestOffset = progress.latestOffset();
+            this.caughtUp = partitionOffset > latestOffset;
 
             partition.newHeadIfNecessary(partitionOffset);
 
+            if (budgetCheckIntervalMillis != 0L)
+            {
+                if (budgetCheckId != NO_CANCEL_ID)
+                {
+                    signaler.cancel(budgetCheckId);
+                }
+
+                this.budgetCheckId = doServerFanoutInitialSignalAt(currentTimeMillis() + budgetCheckIntervalMillis,
+                        SIGNAL_BUDGET_CHECK);
+            }
+
             members.forEach(s -> s.doServerReplyBeginIfNecessary(traceId));
 
             doServerFanoutReplyWindow(traceId, bufferPool.slotCapacity());
@@ -685,10 +758,35 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
                         final long deleteAt = partition.deleteAt(nextHead.previous().segment(), retentionMillisMax);
                         this.deleteId = doServerFanoutInitialSignalAt(deleteAt, SIGNAL_SEGMENT_DELETE);
                     }
+
+                    if (partition.bytesExceeded())
+                    {
+                        if (deleteId != NO_CANCEL_ID)
+                        {
+                            signaler.cancel(deleteId);
+                        }
+
+                        this.deleteId = doServerFanoutInitialSignalAt(currentTimeMillis(), SIGNAL_SEGMENT_DELETE);
+                    }
+
+                    if (compressId == NO_CANCEL_ID &&
+                        partition.compressible() &&
+                        !nextHead.previous().sentinel())
+                    {
+                        final long compressAt = partition.compressAt(nextHead.previous().segment());
+                        this.compressId = doServerFanoutInitialSignalAt(compressAt, SIGNAL_SEGMENT_COMPRESS);
+                    }
+
+                    if (unmapId == NO_CANCEL_ID &&
+                        !nextHead.previous().sentinel())
+                    {
+                        final long unmapAt = currentTimeMillis() + SEGMENT_UNMAP_INTERVAL_MILLIS;
+                        this.unmapId = doServerFanoutInitialSignalAt(unmapAt, SIGNAL_SEGMENT_UNMAP);
+                    }
                 }
 
                 final long keyHash = partition.computeKeyHash(key);
-                final KafkaCacheEntryFW ancestor = findAndMarkAncestor(key, nextHead, (int) keyHash, partitionOffset);
+                final KafkaCacheEntry ancestor = findAndMarkAncestor(key, nextHead, keyHash, partitionOffset);
                 partition.writeEntryStart(partitionOffset, timestamp, key, keyHash, valueLength, ancestor, deltaType);
             }
 
@@ -715,20 +813,23 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
 
                 this.partitionOffset = partitionOffset;
                 this.latestOffset = latestOffset;
+                this.caughtUp = partitionOffset >= latestOffset;
 
-                members.forEach(s -> s.doServerReplyFlushIfNecessary(traceId));
+                partition.publish(partitionOffset, latestOffset);
+
+                doServerFanoutReplyFlush(traceId);
             }
 
             doServerFanoutReplyWindow(traceId, reserved);
         }
 
-        private KafkaCacheEntryFW findAndMarkAncestor(
+        private KafkaCacheEntry findAndMarkAncestor(
             KafkaKeyFW key,
             KafkaCachePartition.Node head,
-            int keyHash,
+            long keyHash,
             long descendantOffset)
         {
-            KafkaCacheEntryFW ancestorEntry = null;
+            KafkaCacheEntry ancestorEntry = null;
             ancestor:
             if (key.length() != -1)
             {
@@ -756,13 +857,18 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
                     break ancestor;
                 }
 
+                if (!partition.mayContainKey((int) keyHash))
+                {
+                    break ancestor;
+                }
+
                 Node previousNode = head.previous();
                 while (!previousNode.sentinel())
                 {
                     final KafkaCacheSegment previousSegment = previousNode.segment();
                     final KafkaCacheIndexFile previousKeys = previousSegment.keysFile();
 
-                    long keyCursor = previousKeys.last(keyHash);
+                    long keyCursor = previousKeys.last((int) keyHash);
                     while (keyCursor != NEXT_SEGMENT && cursorValue(keyCursor) != cursorValue(RETRY_SEGMENT))
                     {
                         final int keyBaseOffsetDelta = cursorValue(keyCursor);
@@ -799,7 +905,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
                             }
                         }
 
-                        final long nextKeyCursor = previousKeys.lower(keyHash, keyCursor);
+                        final long nextKeyCursor = previousKeys.lower((int) keyHash, keyCursor);
                         if (nextKeyCursor == NEXT_SEGMENT || cursorRetryValue(nextKeyCursor))
                         {
                             break;
@@ -821,6 +927,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
 
             state = KafkaState.closedReply(state);
 
+            doServerFanoutReplyFlushIfNecessary(traceId);
             doServerFanoutInitialEndIfNecessary(traceId);
 
             if (reconnectDelay != 0 && !members.isEmpty())
@@ -858,6 +965,7 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
 
             state = KafkaState.closedReply(state);
 
+            doServerFanoutReplyFlushIfNecessary(traceId);
             doServerFanoutInitialAbortIfNecessary(traceId);
 
             if (reconnectDelay != 0 && !members.isEmpty())
@@ -902,6 +1010,12 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             final int error = kafkaResetEx != null ? kafkaResetEx.error() : -1;
 
             if (reconnectDelay != 0 && !members.isEmpty() &&
+                error == ERROR_NOT_LEADER_FOR_PARTITION &&
+                failoverMaxMillis != 0L)
+            {
+                onServerFanoutFailover(traceId, extension);
+            }
+            else if (reconnectDelay != 0 && !members.isEmpty() &&
                 error != ERROR_NOT_LEADER_FOR_PARTITION)
             {
                 if (KafkaConfiguration.DEBUG)
@@ -931,12 +1045,65 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             }
         }
 
+        private void onServerFanoutFailover(
+            long traceId,
+            OctetsFW extension)
+        {
+            final long now = currentTimeMillis();
+
+            if (failoverUntil == NO_FAILOVER)
+            {
+                this.failoverUntil = now + failoverMaxMillis;
+                this.failoverAttempt = 0;
+            }
+
+            if (reconnectAt != NO_CANCEL_ID)
+            {
+                signaler.cancel(reconnectAt);
+                this.reconnectAt = NO_CANCEL_ID;
+            }
+
+            if (now >= failoverUntil)
+            {
+                if (KafkaConfiguration.DEBUG)
+                {
+                    System.out.format("[0x%016x] %s FETCH failover expired after %d attempts\n", initialId, partition,
+                        failoverAttempt);
+                }
+
+                this.failoverUntil = NO_FAILOVER;
+
+                members.forEach(s -> s.doServerInitialResetIfNecessary(traceId, extension));
+            }
+            else if (onServerFanoutLeaderResolved())
+            {
+                this.failoverAttempt++;
+
+                doServerFanoutInitialBeginIfNecessary(traceId);
+            }
+            else
+            {
+                final long failoverDelay = Math.min(50L << Math.min(failoverAttempt++, 16), failoverUntil - now);
+
+                if (KafkaConfiguration.DEBUG)
+                {
+                    System.out.format("[0x%016x] %s FETCH failover in %dms\n", initialId, partition, failoverDelay);
+                }
+
+                this.reconnectAt = signaler.signalAt(
+                    now + failoverDelay,
+                    SIGNAL_RECONNECT,
+                    this::onServerFanoutSignal);
+            }
+        }
+
         private void onServerFanoutInitialWindow(
             WindowFW window)
         {
             if (!KafkaState.initialOpened(state))
             {
                 this.reconnectAttempt = 0;
+                this.failoverUntil = NO_FAILOVER;
 
                 final long traceId = window.traceId();
 
@@ -955,6 +1122,8 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
 
             final long traceId = supplyTraceId.getAsLong();
 
+            onServerFanoutLeaderResolved();
+
             doServerFanoutInitialBeginIfNecessary(traceId);
         }
 
@@ -974,6 +1143,52 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             case SIGNAL_SEGMENT_COMPACT:
                 onServerFanoutInitialSignalSegmentCompact(signal);
                 break;
+            case SIGNAL_SEGMENT_COMPRESS:
+                onServerFanoutInitialSignalSegmentCompress(signal);
+                break;
+            case SIGNAL_SEGMENT_COMPRESSED:
+                onServerFanoutInitialSignalSegmentCompressed(signal);
+                break;
+            case SIGNAL_SEGMENT_UNMAP:
+                onServerFanoutInitialSignalSegmentUnmap(signal);
+                break;
+            case SIGNAL_REPLY_FLUSH:
+                onServerFanoutInitialSignalReplyFlush(signal);
+                break;
+            case SIGNAL_BUDGET_CHECK:
+                onServerFanoutInitialSignalBudgetCheck(signal);
+                break;
+            }
+        }
+
+        private void onServerFanoutInitialSignalBudgetCheck(
+            SignalFW signal)
+        {
+            final long now = currentTimeMillis();
+
+            // partitions that no longer roll still give up segments once the shared budget is exceeded
+            if (partition.bytesExceeded())
+            {
+                if (deleteId != NO_CANCEL_ID)
+                {
+                    signaler.cancel(deleteId);
+                }
+
+                this.deleteId = doServerFanoutInitialSignalAt(now, SIGNAL_SEGMENT_DELETE);
+            }
+
+            this.budgetCheckId = doServerFanoutInitialSignalAt(now + budgetCheckIntervalMillis, SIGNAL_BUDGET_CHECK);
+        }
+
+        private void onServerFanoutInitialSignalReplyFlush(
+            SignalFW signal)
+        {
+            final long traceId = signal.traceId();
+
+            if (flushId != NO_CANCEL_ID)
+            {
+                this.flushId = NO_CANCEL_ID;
+                members.forEach(s -> s.doServerReplyFlushIfNecessary(traceId));
             }
         }
 
@@ -987,17 +1202,19 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             SignalFW signal)
         {
             final long now = currentTimeMillis();
+            final boolean delete = partition.cleanupPolicy().delete();
 
             Node segmentNode = partition.sentinel().next();
             while (segmentNode != partition.head() &&
-                    partition.deleteAt(segmentNode.segment(), retentionMillisMax) <= now)
+                    (delete && partition.deleteAt(segmentNode.segment(), retentionMillisMax) <= now ||
+                     partition.bytesExceeded()))
             {
                 segmentNode.remove();
                 segmentNode = segmentNode.next();
             }
             assert segmentNode != null;
 
-            if (segmentNode != partition.head())
+            if (segmentNode != partition.head() && delete)
             {
                 final long deleteAt = partition.deleteAt(segmentNode.segment(), retentionMillisMax);
                 this.deleteId = doServerFanoutInitialSignalAt(deleteAt, SIGNAL_SEGMENT_DELETE);
@@ -1024,6 +1241,209 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
             this.compactId = NO_CANCEL_ID;
         }
 
+        private void onServerFanoutInitialSignalSegmentCompress(
+            SignalFW signal)
+        {
+            this.compressId = NO_CANCEL_ID;
+
+            doServerFanoutSegmentCompressIfNecessary();
+        }
+
+        private void onServerFanoutInitialSignalSegmentCompressed(
+            SignalFW signal)
+        {
+            if (compressId == NO_CANCEL_ID)
+            {
+                doServerFanoutSegmentCompressIfNecessary();
+            }
+        }
+
+        private void doServerFanoutSegmentCompressIfNecessary()
+        {
+            if (compressFuture != null && compressFuture.isDone())
+            {
+                compressNode.compress(compressBaseOffset);
+                this.compressFuture = null;
+                this.compressNode = null;
+            }
+
+            if (compressFuture == null)
+            {
+                Node segmentNode = partition.sentinel().next();
+                while (segmentNode != partition.head() && segmentNode.segment().compressed())
+                {
+                    segmentNode = segmentNode.next();
+                }
+                assert segmentNode != null;
+
+                if (partition.compressible() &&
+                    segmentNode != partition.head())
+                {
+                    final long compressAt = partition.compressAt(segmentNode.segment());
+                    final KafkaCacheSegment compressible = compressAt <= currentTimeMillis()
+                            ? segmentNode.segment().acquire()
+                            : null;
+
+                    if (compressible != null)
+                    {
+                        // deflate off the I/O thread, then swap in the compressed segment when signaled
+                        final Node node = segmentNode;
+                        this.compressNode = node;
+                        this.compressBaseOffset = compressible.baseOffset();
+                        this.compressFuture = executor.execute(() -> node.compressLog(compressible),
+                                routeId, initialId, SIGNAL_SEGMENT_COMPRESSED);
+                    }
+                    else if (compressId == NO_CANCEL_ID)
+                    {
+                        this.compressId = doServerFanoutInitialSignalAt(compressAt, SIGNAL_SEGMENT_COMPRESS);
+                    }
+                }
+            }
+        }
+
+        private void onServerFanoutInitialSignalSegmentUnmap(
+            SignalFW signal)
+        {
+            partition.unmapIfNecessary();
+
+            if (partition.sentinel().next() != partition.head())
+            {
+                final long unmapAt = currentTimeMillis() + SEGMENT_UNMAP_INTERVAL_MILLIS;
+                this.unmapId = doServerFanoutInitialSignalAt(unmapAt, SIGNAL_SEGMENT_UNMAP);
+            }
+            else
+            {
+                this.unmapId = NO_CANCEL_ID;
+            }
+        }
+
+        KafkaCachePartition partition()
+        {
+            return partition;
+        }
+
+        boolean caughtUp()
+        {
+            return caughtUp;
+        }
+
+        boolean onServerFanoutSegmentRoll()
+        {
+            final Node head = partition.head();
+            final boolean rollable = !head.sentinel() && !head.segment().logFile().empty();
+
+            if (rollable)
+            {
+                if (retainId != NO_CANCEL_ID)
+                {
+                    signaler.cancel(retainId);
+                    this.retainId = NO_CANCEL_ID;
+                }
+
+                partition.append(partitionOffset + 1);
+            }
+
+            return rollable;
+        }
+
+        boolean onServerFanoutSegmentCompact()
+        {
+            final boolean compactable = partition.cleanupPolicy().compact();
+
+            if (compactable)
+            {
+                if (compactId != NO_CANCEL_ID)
+                {
+                    signaler.cancel(compactId);
+                    this.compactId = NO_CANCEL_ID;
+                }
+
+                final long now = currentTimeMillis();
+
+                Node segmentNode = partition.sentinel().next();
+                while (!segmentNode.next().sentinel()) // avoid cleaning head
+                {
+                    final KafkaCacheSegment segment = segmentNode.segment();
+                    if (segment.cleanableDirtyRatio() != 0.0)
+                    {
+                        segment.cleanableAt(now);
+                    }
+
+                    segmentNode.clean(now);
+                    segmentNode = segmentNode.next();
+                }
+
+                this.compactAt = Long.MAX_VALUE;
+            }
+
+            return compactable;
+        }
+
+        boolean onServerFanoutEvict()
+        {
+            final long traceId = supplyTraceId.getAsLong();
+
+            members.forEach(m -> m.cleanupServer(traceId, EMPTY_OCTETS));
+            members.clear();
+
+            cacheRoute.serverFetchFanoutsByTopicPartition.remove(cacheRoute.topicPartitionKey(partition.topic(), partition.id()));
+
+            if (reconnectAt != NO_CANCEL_ID)
+            {
+                signaler.cancel(reconnectAt);
+                this.reconnectAt = NO_CANCEL_ID;
+            }
+
+            if (retainId != NO_CANCEL_ID)
+            {
+                signaler.cancel(retainId);
+                this.retainId = NO_CANCEL_ID;
+            }
+
+            if (deleteId != NO_CANCEL_ID)
+            {
+                signaler.cancel(deleteId);
+                this.deleteId = NO_CANCEL_ID;
+            }
+
+            if (compactId != NO_CANCEL_ID)
+            {
+                signaler.cancel(compactId);
+                this.compactId = NO_CANCEL_ID;
+                this.compactAt = Long.MAX_VALUE;
+            }
+
+            if (compressId != NO_CANCEL_ID)
+            {
+                signaler.cancel(compressId);
+                this.compressId = NO_CANCEL_ID;
+            }
+
+            // in-flight compression still releases its segment, leaving only a discardable compressed log
+            this.compressFuture = null;
+            this.compressNode = null;
+
+            if (budgetCheckId != NO_CANCEL_ID)
+            {
+                signaler.cancel(budgetCheckId);
+                this.budgetCheckId = NO_CANCEL_ID;
+            }
+
+            if (unmapId != NO_CANCEL_ID)
+            {
+                signaler.cancel(unmapId);
+                this.unmapId = NO_CANCEL_ID;
+            }
+
+            correlations.remove(replyId);
+            doServerFanoutInitialAbortIfNecessary(traceId);
+            doServerFanoutReplyResetIfNecessary(traceId);
+
+            partition.evict();
+
+            return true;
+        }
+
         private void doServerFanoutReplyResetIfNecessary(
             long traceId)
         {
@@ -1040,9 +1460,40 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
 
             state = KafkaState.closedReply(state);
 
+            doServerFanoutReplyFlushIfNecessary(traceId);
             doReset(receiver, routeId, replyId, traceId, authorization, EMPTY_OCTETS);
         }
 
+        private void doServerFanoutReplyFlush(
+            long traceId)
+        {
+            if (flushMaxLatencyMillis == 0L || caughtUp)
+            {
+                if (flushId != NO_CANCEL_ID)
+                {
+                    signaler.cancel(flushId);
+                    this.flushId = NO_CANCEL_ID;
+                }
+
+                members.forEach(s -> s.doServerReplyFlushIfNecessary(traceId));
+            }
+            else if (flushId == NO_CANCEL_ID)
+            {
+                this.flushId = doServerFanoutInitialSignalAt(currentTimeMillis() + flushMaxLatencyMillis, SIGNAL_REPLY_FLUSH);
+            }
+        }
+
+        private void doServerFanoutReplyFlushIfNecessary(
+            long traceId)
+        {
+            if (flushId != NO_CANCEL_ID)
+            {
+                signaler.cancel(flushId);
+                this.flushId = NO_CANCEL_ID;
+                members.forEach(s -> s.doServerReplyFlushIfNecessary(traceId));
+            }
+        }
+
         private void doServerFanoutReplyWindow(
             long traceId,
             int credit)
@@ -1067,9 +1518,9 @@ public final class KafkaCacheServerFetchFactory implements StreamFactory
         private final long routeId;
         private final long initialId;
         private final long replyId;
-        private final long leaderId;
         private final long authorization;
 
+        private long leaderId;
         private int state;
 
         private int replyBudget;
@@ -32,7 +32,9 @@ import java.util.function.ToIntFunction;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntArrayQueue;
 import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayQueue;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.budget.BudgetCreditor;
 import org.reaktivity.nukleus.concurrent.Signaler;
@@ -113,6 +115,7 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
     private final LongFunction<KafkaCacheRoute> supplyCacheRoute;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final int reconnectDelay;
+    private final boolean localAck;
 
     public KafkaCacheServerProduceFactory(
         KafkaConfiguration config,
@@ -142,7 +145,9 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
         this.supplyCache = supplyCache;
         this.supplyCacheRoute = supplyCacheRoute;
         this.correlations = correlations;
-        this.reconnectDelay = config.cacheServerReconnect();
+        this.localAck = config.cacheProduceLocalAck();
+        // cache client fans rewind and resend logged entries themselves, so resets must reach them
+        this.reconnectDelay = localAck ? 0 : config.cacheServerReconnect();
     }
 
     @Override
@@ -352,6 +357,8 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
         private final long creditorId;
         private final KafkaCachePartition partition;
         private final List<KafkaCacheServerProduceStream> members;
+        private final LongArrayQueue unackedIds;
+        private final IntArrayQueue unackedReserved;
 
         private long leaderId;
         private long initialId;
@@ -362,7 +369,9 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
 
         private long initialBudgetId;
         private int initialBudget;
+        private int initialBudgetMax;
         private int initialPadding;
+        private int initialAcked;
 
         private long creditorIndex = NO_CREDITOR_INDEX;
 
@@ -379,6 +388,8 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
             this.authorization = authorization;
             this.partition = partition;
             this.members = new ArrayList<>();
+            this.unackedIds = new LongArrayQueue();
+            this.unackedReserved = new IntArrayQueue();
             this.leaderId = leaderId;
             this.creditorId = supplyBudgetId.getAsLong();
         }
@@ -488,6 +499,7 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
 
         private void doServerFanInitialData(
             long traceId,
+            long memberId,
             int flags,
             long budgetId,
             int reserved,
@@ -504,6 +516,12 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
             initialBudget -= reserved;
             assert initialBudget >= 0;
 
+            if (localAck)
+            {
+                unackedIds.offerLong(memberId);
+                unackedReserved.offerInt(reserved);
+            }
+
             doData(receiver, routeId, initialId, traceId, authorization, flags, initialBudgetId, reserved, payload, extension);
         }
 
@@ -599,12 +617,17 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
 
             initialBudgetId = budgetId;
             initialBudget += credit;
+            initialBudgetMax = Math.max(initialBudgetMax, initialBudget);
             initialPadding = padding;
 
             if (!KafkaState.initialOpened(state))
             {
                 onServerFanInitialOpened();
             }
+            else if (localAck)
+            {
+                onServerFanInitialAcked(credit);
+            }
 
             assert creditorIndex != NO_CREDITOR_INDEX;
             creditor.credit(traceId, creditorIndex, credit);
@@ -623,13 +646,43 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
             this.creditorIndex = creditor.acquire(creditorId);
         }
 
+        private void onServerFanInitialAcked(
+            int credit)
+        {
+            // produce responses credit the reserved bytes of acknowledged data in the order it was sent,
+            // so each member is credited only for its own acknowledged data
+            initialAcked += credit;
+
+            while (!unackedReserved.isEmpty() && unackedReserved.peekInt() <= initialAcked)
+            {
+                final long memberId = unackedIds.pollLong();
+                final int reserved = unackedReserved.pollInt();
+
+                initialAcked -= reserved;
+
+                for (int index = 0; index < members.size(); index++)
+                {
+                    final KafkaCacheServerProduceStream member = members.get(index);
+                    if (member.initialId == memberId)
+                    {
+                        member.initialAcked += reserved;
+                        break;
+                    }
+                }
+            }
+        }
+
         private void onServerFanInitialClosed()
         {
             assert !KafkaState.initialClosed(state);
             state = KafkaState.closedInitial(state);
 
             initialBudget = 0;
+            initialBudgetMax = 0;
             initialPadding = 0;
+            initialAcked = 0;
+            unackedIds.clear();
+            unackedReserved.clear();
 
             if (creditorIndex != NO_CREDITOR_INDEX)
             {
@@ -820,6 +873,7 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
         private int state;
 
         private int initialBudget;
+        private int initialAcked;
 
         KafkaCacheServerProduceStream(
             KafkaCacheServerProduceFan fan,
@@ -922,7 +976,7 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
             }
             else
             {
-                fan.doServerFanInitialData(traceId, flags, budgetId, reserved, payload, extension);
+                fan.doServerFanInitialData(traceId, initialId, flags, budgetId, reserved, payload, extension);
             }
         }
 
@@ -974,11 +1028,28 @@ public final class KafkaCacheServerProduceFactory implements StreamFactory
         private void doServerInitialWindowIfNecessary(
             long traceId)
         {
-            final int credit = Math.max(fan.initialBudget - initialBudget, 0);
+            if (localAck && KafkaState.initialOpened(state))
+            {
+                // locally acking cache clients ack their produce log from this credit, so it covers only their own data
+                final int credit = initialAcked;
 
-            if (!KafkaState.initialOpened(state) || credit > 0)
+                if (credit > 0)
+                {
+                    initialAcked = 0;
+                    doServerInitialWindow(traceId, credit);
+                }
+            }
+            else
             {
-                doServerInitialWindow(traceId, credit);
+                final int credit = Math.max(fan.initialBudget - initialBudget, 0);
+
+                // locally acking cache clients are opened at the full downstream window, then credited only when acked
+                final boolean deferred = localAck && !KafkaState.initialOpened(state) && fan.initialBudget < fan.initialBudgetMax;
+
+                if (!deferred && (!KafkaState.initialOpened(state) || credit > 0))
+                {
+                    doServerInitialWindow(traceId, credit);
+                }
             }
         }
 
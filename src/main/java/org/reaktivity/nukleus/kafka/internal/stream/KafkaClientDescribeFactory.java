@@ -19,6 +19,7 @@ import static java.lang.System.currentTimeMillis;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+import static org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.FLIGHT_LEASE_MILLIS;
 
 import java.nio.ByteOrder;
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ import org.reaktivity.nukleus.function.MessageFunction;
 import org.reaktivity.nukleus.function.MessagePredicate;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.Results;
 import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.String16FW;
@@ -78,6 +80,7 @@ public final class KafkaClientDescribeFactory implements StreamFactory
 
     private static final int SIGNAL_NEXT_REQUEST = 1;
 
+
     private static final DirectBuffer EMPTY_BUFFER = new UnsafeBuffer();
     private static final OctetsFW EMPTY_OCTETS = new OctetsFW().wrap(EMPTY_BUFFER, 0, 0);
     private static final Consumer<OctetsFW.Builder> EMPTY_EXTENSION = ex -> {};
@@ -138,6 +141,7 @@ public final class KafkaClientDescribeFactory implements StreamFactory
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
+    private final Results<Map<String, String>> configCache;
 
     public KafkaClientDescribeFactory(
         KafkaConfiguration config,
@@ -150,7 +154,8 @@ public final class KafkaClientDescribeFactory implements StreamFactory
         LongSupplier supplyTraceId,
         ToIntFunction<String> supplyTypeId,
         LongFunction<BudgetDebitor> supplyDebitor,
-        Long2ObjectHashMap<MessageConsumer> correlations)
+        Long2ObjectHashMap<MessageConsumer> correlations,
+        KafkaClientMetaCache clientMetaCache)
     {
         this.maxAgeMillis = Math.min(config.clientDescribeMaxAgeMillis(), config.clientMaxIdleMillis() >> 1);
         this.kafkaTypeId = supplyTypeId.applyAsInt(KafkaNukleus.NAME);
@@ -163,6 +168,7 @@ public final class KafkaClientDescribeFactory implements StreamFactory
         this.supplyInitialId = supplyInitialId;
         this.supplyReplyId = supplyReplyId;
         this.correlations = correlations;
+        this.configCache = clientMetaCache != null ? clientMetaCache.configs : null;
     }
 
     @Override
@@ -601,6 +607,7 @@ public final class KafkaClientDescribeFactory implements StreamFactory
             state = KafkaState.openingInitial(state);
 
             client.doNetworkBegin(traceId, authorization, affinity);
+            client.onCachedResponseIfNecessary(traceId);
         }
 
         private void onApplicationData(
@@ -775,6 +782,8 @@ public final class KafkaClientDescribeFactory implements StreamFactory
             private final MessageConsumer network;
             private final String topic;
             private final Map<String, String> configs;
+            private final String cacheKey;
+            private final Runnable waker;
 
             private int state;
             private long authorization;
@@ -794,6 +803,7 @@ public final class KafkaClientDescribeFactory implements StreamFactory
 
             private int nextRequestId;
             private int nextResponseId;
+            private boolean flight;
 
             private KafkaDescribeClientDecoder decoder;
 
@@ -810,6 +820,8 @@ public final class KafkaClientDescribeFactory implements StreamFactory
                 this.topic = requireNonNull(topic);
                 this.configs = new LinkedHashMap<>(configs.size());
                 configs.forEach(c -> this.configs.put(c, null));
+                this.cacheKey = configCache != null ? Results.key(routeId, topic) : null;
+                this.waker = () -> signaler.signalNow(routeId, initialId, SIGNAL_NEXT_REQUEST);
             }
 
             public void onDecodeResource(
@@ -824,6 +836,11 @@ public final class KafkaClientDescribeFactory implements StreamFactory
                     assert resource.equals(this.topic);
                     break;
                 default:
+                    if (configCache != null)
+                    {
+                        configCache.invalidate(cacheKey);
+                    }
+
                     final KafkaResetExFW resetEx = kafkaResetExRW.wrap(extBuffer, 0, extBuffer.capacity())
                                                                  .typeId(kafkaTypeId)
                                                                  .error(errorCode)
@@ -1043,6 +1060,7 @@ public final class KafkaClientDescribeFactory implements StreamFactory
                 state = KafkaState.closedInitial(state);
 
                 cleanupEncodeSlotIfNecessary();
+                releaseFlightIfNecessary();
 
                 doEnd(network, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
             }
@@ -1050,6 +1068,8 @@ public final class KafkaClientDescribeFactory implements StreamFactory
             private void doNetworkAbortIfNecessary(
                 long traceId)
             {
+                releaseFlightIfNecessary();
+
                 if (!KafkaState.initialClosed(state))
                 {
                     doAbort(network, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
@@ -1090,7 +1110,25 @@ public final class KafkaClientDescribeFactory implements StreamFactory
             {
                 if (nextRequestId == nextResponseId)
                 {
-                    doEncodeRequest(traceId, budgetId);
+                    final long now = currentTimeMillis();
+                    final Map<String, String> cached = lookupCachedResponse(now);
+
+                    if (cached != null)
+                    {
+                        onCachedResponse(traceId, cached);
+                    }
+                    else if (configCache == null || configCache.acquire(cacheKey, now))
+                    {
+                        flight = configCache != null;
+                        doEncodeRequest(traceId, budgetId);
+                    }
+                    else
+                    {
+                        configCache.await(cacheKey, waker);
+
+                        // in case the flight holder goes away without releasing
+                        signaler.signalAt(now + FLIGHT_LEASE_MILLIS, routeId, initialId, SIGNAL_NEXT_REQUEST);
+                    }
                 }
             }
 
@@ -1265,6 +1303,60 @@ public final class KafkaClientDescribeFactory implements StreamFactory
             private void onDecodeResponse(
                 long traceId,
                 Map<String, String> newConfigs)
+            {
+                if (flight)
+                {
+                    final Map<String, String> cachedConfigs = new LinkedHashMap<>(configs.size());
+                    configs.keySet().forEach(n -> cachedConfigs.put(n, newConfigs.get(n)));
+                    configCache.publish(cacheKey, cachedConfigs, currentTimeMillis() + maxAgeMillis);
+                    flight = false;
+                }
+
+                onConfigsChanged(traceId, newConfigs);
+
+                nextResponseId++;
+                signaler.signalAt(currentTimeMillis() + maxAgeMillis, routeId, initialId, SIGNAL_NEXT_REQUEST);
+            }
+
+            private Map<String, String> lookupCachedResponse(
+                long now)
+            {
+                final Map<String, String> cached = configCache != null ? configCache.lookup(cacheKey, now) : null;
+                return cached != null && cached.keySet().containsAll(configs.keySet()) ? cached : null;
+            }
+
+            private void onCachedResponseIfNecessary(
+                long traceId)
+            {
+                final Map<String, String> cached = lookupCachedResponse(currentTimeMillis());
+
+                if (cached != null)
+                {
+                    onCachedResponse(traceId, cached);
+                }
+            }
+
+            private void onCachedResponse(
+                long traceId,
+                Map<String, String> cached)
+            {
+                onConfigsChanged(traceId, cached);
+
+                signaler.signalAt(currentTimeMillis() + maxAgeMillis, routeId, initialId, SIGNAL_NEXT_REQUEST);
+            }
+
+            private void releaseFlightIfNecessary()
+            {
+                if (flight)
+                {
+                    configCache.release(cacheKey);
+                    flight = false;
+                }
+            }
+
+            private void onConfigsChanged(
+                long traceId,
+                Map<String, String> newConfigs)
             {
                 doApplicationWindow(traceId, 0L, 0, 0);
                 doApplicationBeginIfNecessary(traceId, authorization, topic, configs.keySet());
@@ -1291,14 +1383,12 @@ public final class KafkaClientDescribeFactory implements StreamFactory
 
                     doApplicationData(traceId, authorization, kafkaDataEx);
                 }
-
-                nextResponseId++;
-                signaler.signalAt(currentTimeMillis() + maxAgeMillis, routeId, initialId, SIGNAL_NEXT_REQUEST);
             }
 
             private void cleanupNetwork(
                 long traceId)
             {
+                releaseFlightIfNecessary();
                 doNetworkResetIfNecessary(traceId);
                 doNetworkAbortIfNecessary(traceId);
 
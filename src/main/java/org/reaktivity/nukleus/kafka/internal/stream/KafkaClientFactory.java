@@ -62,7 +62,8 @@ public final class KafkaClientFactory implements StreamFactory
         LongSupplier supplyBudgetId,
         LongFunction<BudgetDebitor> supplyDebitor,
         BudgetCreditor creditor,
-        LongFunction<KafkaClientRoute> supplyClientRoute)
+        LongFunction<KafkaClientRoute> supplyClientRoute,
+        KafkaClientMetaCache clientMetaCache)
     {
         final Long2ObjectHashMap<MessageConsumer> correlations = new Long2ObjectHashMap<>();
         final KafkaMergedBudgetAccountant accountant = new KafkaMergedBudgetAccountant(supplyDebitor, supplyBudgetId, creditor);
@@ -70,12 +71,12 @@ public final class KafkaClientFactory implements StreamFactory
         final KafkaClientMetaFactory clientMetaFactory = new KafkaClientMetaFactory(
                 config, router, signaler, writeBuffer, bufferPool,
                 supplyInitialId, supplyReplyId, supplyTraceId,
-                supplyTypeId, accountant::supplyDebitor, correlations, supplyClientRoute);
+                supplyTypeId, accountant::supplyDebitor, correlations, supplyClientRoute, clientMetaCache);
 
         final KafkaClientDescribeFactory clientDescribeFactory = new KafkaClientDescribeFactory(
                 config, router, signaler, writeBuffer, bufferPool,
                 supplyInitialId, supplyReplyId, supplyTraceId,
-                supplyTypeId, accountant::supplyDebitor, correlations);
+                supplyTypeId, accountant::supplyDebitor, correlations, clientMetaCache);
 
         final KafkaClientFetchFactory clientFetchFactory = new KafkaClientFetchFactory(
                 config, router, signaler, writeBuffer, bufferPool,
@@ -88,8 +89,8 @@ public final class KafkaClientFactory implements StreamFactory
                 supplyTypeId, correlations, supplyClientRoute);
 
         final KafkaMergedFactory clientMergedFactory = new KafkaMergedFactory(
-                config, router, writeBuffer, supplyInitialId, supplyReplyId, supplyTraceId,
-                supplyTypeId, correlations, accountant.creditor());
+                config, router, signaler, writeBuffer, supplyInitialId, supplyReplyId, supplyTraceId,
+                supplyTypeId, correlations, accountant.creditor(), null);
 
         final Int2ObjectHashMap<StreamFactory> streamFactoriesByKind = new Int2ObjectHashMap<>();
         streamFactoriesByKind.put(KafkaBeginExFW.KIND_META, clientMetaFactory);
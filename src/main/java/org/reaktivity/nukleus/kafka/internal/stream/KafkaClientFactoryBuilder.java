@@ -35,6 +35,7 @@ public final class KafkaClientFactoryBuilder implements KafkaStreamFactoryBuilde
 {
     private final KafkaConfiguration config;
     private final LongFunction<KafkaClientRoute> supplyClientRoute;
+    private final KafkaClientMetaCache clientMetaCache;
 
     private RouteManager router;
     private Signaler signaler;
@@ -50,10 +51,12 @@ public final class KafkaClientFactoryBuilder implements KafkaStreamFactoryBuilde
 
     public KafkaClientFactoryBuilder(
         KafkaConfiguration config,
-        LongFunction<KafkaClientRoute> supplyClientRoute)
+        LongFunction<KafkaClientRoute> supplyClientRoute,
+        KafkaClientMetaCache clientMetaCache)
     {
         this.config = config;
         this.supplyClientRoute = supplyClientRoute;
+        this.clientMetaCache = clientMetaCache;
     }
 
     @Override
@@ -162,6 +165,7 @@ public final class KafkaClientFactoryBuilder implements KafkaStreamFactoryBuilde
                 supplyBudgetId,
                 supplyDebitor,
                 creditor,
-                supplyClientRoute);
+                supplyClientRoute,
+                clientMetaCache);
     }
 }
@@ -15,12 +15,18 @@
  */
 package org.reaktivity.nukleus.kafka.internal.stream;
 
+import static java.lang.System.currentTimeMillis;
 import static java.util.Objects.requireNonNull;
 import static org.reaktivity.nukleus.budget.BudgetDebitor.NO_DEBITOR_INDEX;
 import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+import static org.reaktivity.nukleus.kafka.internal.types.codec.offsets.IsolationLevel.READ_COMMITTED;
 import static org.reaktivity.nukleus.kafka.internal.types.codec.offsets.IsolationLevel.READ_UNCOMMITTED;
 import static org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW.Builder.DEFAULT_DELTA_TYPE;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.LongFunction;
 import java.util.function.LongSupplier;
@@ -29,7 +35,11 @@ import java.util.function.ToIntFunction;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntHashSet;
+import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
+import org.agrona.collections.LongHashSet;
 import org.agrona.collections.LongLongConsumer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.budget.BudgetDebitor;
@@ -52,9 +62,14 @@ import org.reaktivity.nukleus.kafka.internal.types.Varint32FW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.RequestHeaderFW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.ResponseHeaderFW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.FetchRequestFW;
+import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.FetchRequestTrailerV11FW;
+import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.FetchRequestV11FW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.FetchResponseFW;
+import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.FetchResponseV11FW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.PartitionRequestFW;
+import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.PartitionRequestV11FW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.PartitionResponseFW;
+import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.PartitionResponseTrailerV11FW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.TopicRequestFW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.TopicResponseFW;
 import org.reaktivity.nukleus.kafka.internal.types.codec.fetch.TransactionResponseFW;
@@ -102,8 +117,12 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
     private static final long OFFSET_LATEST = KafkaOffsetType.LATEST.value();
     private static final long OFFSET_EARLIEST = KafkaOffsetType.EARLIEST.value();
+    private static final long OFFSET_UNRESOLVED = Long.MIN_VALUE;
+
+    private static final long NO_PREFERRED_REPLICA = -1L;
 
     private static final int SIGNAL_NEXT_REQUEST = 1;
+    private static final int SIGNAL_REDIRECT = 2;
 
     private static final DirectBuffer EMPTY_BUFFER = new UnsafeBuffer();
     private static final OctetsFW EMPTY_OCTETS = new OctetsFW().wrap(EMPTY_BUFFER, 0, 0);
@@ -115,6 +134,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
     private static final short FETCH_API_KEY = 1;
     private static final short FETCH_API_VERSION = 5;
+    private static final short FETCH_RACK_API_VERSION = 11;
 
     private final RouteFW routeRO = new RouteFW();
     private final KafkaRouteExFW kafkaRouteExRO = new KafkaRouteExFW();
@@ -148,6 +168,9 @@ public final class KafkaClientFetchFactory implements StreamFactory
     private final FetchRequestFW.Builder fetchRequestRW = new FetchRequestFW.Builder();
     private final TopicRequestFW.Builder fetchTopicRequestRW = new TopicRequestFW.Builder();
     private final PartitionRequestFW.Builder fetchPartitionRequestRW = new PartitionRequestFW.Builder();
+    private final FetchRequestV11FW.Builder fetchRequestV11RW = new FetchRequestV11FW.Builder();
+    private final PartitionRequestV11FW.Builder fetchPartitionRequestV11RW = new PartitionRequestV11FW.Builder();
+    private final FetchRequestTrailerV11FW.Builder fetchRequestTrailerV11RW = new FetchRequestTrailerV11FW.Builder();
 
     private final ResponseHeaderFW responseHeaderRO = new ResponseHeaderFW();
     private final OffsetsResponseFW offsetsResponseRO = new OffsetsResponseFW();
@@ -157,6 +180,8 @@ public final class KafkaClientFetchFactory implements StreamFactory
     private final TopicResponseFW topicResponseRO = new TopicResponseFW();
     private final PartitionResponseFW partitionResponseRO = new PartitionResponseFW();
     private final TransactionResponseFW transactionResponseRO = new TransactionResponseFW();
+    private final FetchResponseV11FW fetchResponseV11RO = new FetchResponseV11FW();
+    private final PartitionResponseTrailerV11FW partitionResponseTrailerV11RO = new PartitionResponseTrailerV11FW();
     private final RecordSetFW recordSetRO = new RecordSetFW();
     private final RecordBatchFW recordBatchRO = new RecordBatchFW();
     private final Varint32FW recordLengthRO = new Varint32FW();
@@ -174,9 +199,11 @@ public final class KafkaClientFetchFactory implements StreamFactory
     private final KafkaFetchClientDecoder decodeOffsetsPartition = this::decodeOffsetsPartition;
     private final KafkaFetchClientDecoder decodeFetchResponse = this::decodeFetchResponse;
     private final KafkaFetchClientDecoder decodeFetch = this::decodeFetch;
+    private final KafkaFetchClientDecoder decodeFetchV11 = this::decodeFetchV11;
     private final KafkaFetchClientDecoder decodeFetchTopic = this::decodeFetchTopic;
     private final KafkaFetchClientDecoder decodeFetchPartition = this::decodeFetchPartition;
     private final KafkaFetchClientDecoder decodeFetchTransaction = this::decodeFetchTransaction;
+    private final KafkaFetchClientDecoder decodeFetchReadReplica = this::decodeFetchReadReplica;
     private final KafkaFetchClientDecoder decodeFetchRecordSet = this::decodeFetchRecordSet;
     private final KafkaFetchClientDecoder decodeFetchRecordBatch = this::decodeFetchRecordBatch;
     private final KafkaFetchClientDecoder decodeFetchRecordLength = this::decodeFetchRecordLength;
@@ -190,9 +217,15 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
     private final MessageFunction<RouteFW> wrapRoute = (t, b, i, l) -> routeRO.wrap(b, i, i + l);
 
+    private final List<String> offsetsTopics = new ArrayList<>();
+    private final IntHashSet offsetsPartitionIds = new IntHashSet();
+
     private final int fetchMaxBytes;
     private final int fetchMaxWaitMillis;
     private final int partitionMaxBytes;
+    private final int offsetsMaxAgeMillis;
+    private final boolean readCommitted;
+    private final String rack;
     private final int kafkaTypeId;
     private final int tcpTypeId;
     private final RouteManager router;
@@ -207,6 +240,11 @@ public final class KafkaClientFetchFactory implements StreamFactory
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final LongFunction<KafkaClientRoute> supplyClientRoute;
     private final int decodeMaxBytes;
+    private final Long2ObjectHashMap<Long2ObjectHashMap<KafkaFetchOffsets>> offsetsByRouteId;
+    private final LongArrayList evictableRouteIds;
+    private final LongArrayList evictableLeaderIds;
+
+    private long offsetsEvictAt;
 
     public KafkaClientFetchFactory(
         KafkaConfiguration config,
@@ -225,6 +263,9 @@ public final class KafkaClientFetchFactory implements StreamFactory
         this.fetchMaxBytes = config.clientFetchMaxBytes();
         this.fetchMaxWaitMillis = config.clientFetchMaxWaitMillis();
         this.partitionMaxBytes = config.clientFetchPartitionMaxBytes();
+        this.offsetsMaxAgeMillis = config.clientFetchOffsetsMaxAgeMillis();
+        this.readCommitted = config.clientFetchReadCommitted();
+        this.rack = config.clientRack().isEmpty() ? null : config.clientRack();
         this.kafkaTypeId = supplyTypeId.applyAsInt(KafkaNukleus.NAME);
         this.tcpTypeId = supplyTypeId.applyAsInt("tcp");
         this.router = router;
@@ -239,6 +280,9 @@ public final class KafkaClientFetchFactory implements StreamFactory
         this.correlations = correlations;
         this.supplyClientRoute = supplyClientRoute;
         this.decodeMaxBytes = decodePool.slotCapacity();
+        this.offsetsByRouteId = new Long2ObjectHashMap<>();
+        this.evictableRouteIds = new LongArrayList();
+        this.evictableLeaderIds = new LongArrayList();
     }
 
     @Override
@@ -518,7 +562,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
             long authorization,
             long budgetId,
             int reserved,
-            MutableDirectBuffer buffer,
+            DirectBuffer buffer,
             int offset,
             int progress,
             int limit);
@@ -596,9 +640,18 @@ public final class KafkaClientFetchFactory implements StreamFactory
     {
         if (client.decodableTopics == 0)
         {
+            client.onDecodeOffsetsResponse(traceId);
             client.onDecodeResponse(traceId);
-            client.encoder = client.encodeFetchRequest;
-            client.decoder = decodeFetchResponse;
+
+            if (client.nextOffset >= 0L)
+            {
+                client.encoder = client.encodeFetchRequest;
+                client.decoder = decodeFetchResponse;
+            }
+            else
+            {
+                client.decoder = decodeOffsetsResponse;
+            }
         }
         else
         {
@@ -631,13 +684,13 @@ public final class KafkaClientFetchFactory implements StreamFactory
             }
 
             final String topicName = topic.name().asString();
-            assert client.topic.equals(topicName);
 
             progress = topic.limit();
 
             client.decodableResponseBytes -= topic.sizeof();
             assert client.decodableResponseBytes >= 0;
 
+            client.decodeTopic = topicName;
             client.decodablePartitions = topic.partitionCount();
             client.decoder = decodeOffsetsPartitions;
         }
@@ -733,7 +786,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
             {
                 progress = responseHeader.limit();
                 client.decodableResponseBytes = responseHeader.length();
-                client.decoder = decodeFetch;
+                client.decoder = rack != null ? decodeFetchV11 : decodeFetch;
             }
         }
 
@@ -771,6 +824,37 @@ public final class KafkaClientFetchFactory implements StreamFactory
         return progress;
     }
 
+    private int decodeFetchV11(
+        KafkaFetchStream.KafkaFetchClient client,
+        long traceId,
+        long authorization,
+        long budgetId,
+        int reserved,
+        DirectBuffer buffer,
+        int offset,
+        int progress,
+        int limit)
+    {
+        final int length = limit - progress;
+
+        if (length != 0)
+        {
+            final FetchResponseV11FW fetchResponse = fetchResponseV11RO.tryWrap(buffer, progress, limit);
+
+            if (fetchResponse != null)
+            {
+                progress = fetchResponse.limit();
+
+                client.decodableTopics = fetchResponse.topicCount();
+                client.decodableResponseBytes -= fetchResponse.sizeof();
+                assert client.decodableResponseBytes >= 0;
+                client.decoder = decodeFetchTopic;
+            }
+        }
+
+        return progress;
+    }
+
     private int decodeFetchTopic(
         KafkaFetchStream.KafkaFetchClient client,
         long traceId,
@@ -841,12 +925,17 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 final int partitionId = partition.partitionId();
                 final int errorCode = partition.errorCode();
 
-                client.latestOffset = partition.highWatermark() - 1;
+                client.latestOffset = (readCommitted ? partition.lastStableOffset() : partition.highWatermark()) - 1;
 
                 client.decodePartitionError = errorCode;
                 client.decodePartitionId = partitionId;
                 client.decodableTransactions = partition.abortedTransactionCount();
 
+                if (readCommitted)
+                {
+                    client.cleanupAbortedTransactions();
+                }
+
                 progress = partition.limit();
 
                 client.decodableResponseBytes -= partition.sizeof();
@@ -876,7 +965,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
         decode:
         if (client.decodableTransactions <= 0)
         {
-            client.decoder = decodeFetchRecordSet;
+            client.decoder = rack != null ? decodeFetchReadReplica : decodeFetchRecordSet;
             break decode;
         }
         else if (length != 0)
@@ -886,6 +975,11 @@ public final class KafkaClientFetchFactory implements StreamFactory
             {
                 progress = transaction.limit();
 
+                if (readCommitted)
+                {
+                    client.onDecodeFetchTransaction(transaction.producerId(), transaction.firstOffset());
+                }
+
                 client.decodableResponseBytes -= transaction.sizeof();
                 assert client.decodableResponseBytes >= 0;
                 client.decodableTransactions--;
@@ -896,6 +990,37 @@ public final class KafkaClientFetchFactory implements StreamFactory
         return progress;
     }
 
+    private int decodeFetchReadReplica(
+        KafkaFetchStream.KafkaFetchClient client,
+        long traceId,
+        long authorization,
+        long budgetId,
+        int reserved,
+        DirectBuffer buffer,
+        int offset,
+        int progress,
+        int limit)
+    {
+        final int length = limit - progress;
+
+        if (length != 0)
+        {
+            final PartitionResponseTrailerV11FW trailer = partitionResponseTrailerV11RO.tryWrap(buffer, progress, limit);
+            if (trailer != null)
+            {
+                progress = trailer.limit();
+
+                client.decodableResponseBytes -= trailer.sizeof();
+                assert client.decodableResponseBytes >= 0;
+
+                client.onDecodeFetchReadReplica(trailer.preferredReadReplica());
+                client.decoder = decodeFetchRecordSet;
+            }
+        }
+
+        return progress;
+    }
+
     private int decodeFetchRecordSet(
         KafkaFetchStream.KafkaFetchClient client,
         long traceId,
@@ -1018,6 +1143,15 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 client.decodableRecordBatchBytes -= recordBatchProgress;
                 assert client.decodableRecordBatchBytes >= 0;
 
+                // transactional and control attributes are not compressed, so aborted compressed batches are skipped too
+                if (readCommitted &&
+                    client.isAbortedOrControlBatch(attributes, recordBatch.producerId(), recordBatch.baseOffset()))
+                {
+                    client.nextOffset = Math.max(client.nextOffset, client.decodeRecordBatchLastOffset + 1);
+                    client.decoder = decodeIgnoreRecordBatch;
+                    break decode;
+                }
+
                 if (isCompressedBatch(attributes) || isControlBatch(attributes))
                 {
                     client.decoder = decodeIgnoreRecordBatch;
@@ -1896,12 +2030,20 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
             private final KafkaFetchStream stream;
             private final long routeId;
-            private final long initialId;
-            private final long replyId;
-            private final MessageConsumer network;
             private final String topic;
             private final int partitionId;
 
+            private long initialId;
+            private long replyId;
+            private MessageConsumer network;
+            private long affinity;
+            private long preferredAffinity = NO_PREFERRED_REPLICA;
+
+            private final LongArrayList abortedTransactionProducerIds;
+            private final LongArrayList abortedTransactionFirstOffsets;
+            private final LongHashSet abortedProducerIds;
+
+            private KafkaFetchOffsets offsets;
             private long nextOffset;
             private long latestOffset;
 
@@ -1923,6 +2065,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
             private int decodableResponseBytes;
             private int decodableTopics;
+            private String decodeTopic;
             private int decodableTransactions;
             private int decodablePartitions;
             private int decodePartitionError;
@@ -1961,6 +2104,9 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 this.latestOffset = latestOffset;
                 this.encoder = encodeFetchRequest;
                 this.decoder = decodeFetchResponse;
+                this.abortedTransactionProducerIds = readCommitted ? new LongArrayList() : null;
+                this.abortedTransactionFirstOffsets = readCommitted ? new LongArrayList() : null;
+                this.abortedProducerIds = readCommitted ? new LongHashSet() : null;
             }
 
             private void onNetwork(
@@ -2032,35 +2178,33 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 {
                     cleanupNetwork(traceId);
                 }
-                else
+                else if (decodeSlot == NO_SLOT)
                 {
-                    if (decodeSlot == NO_SLOT)
-                    {
-                        decodeSlot = decodePool.acquire(initialId);
-                    }
+                    final OctetsFW payload = data.payload();
+                    final int reserved = data.reserved();
+                    final int offset = payload.offset();
+                    final int limit = payload.limit();
 
-                    if (decodeSlot == NO_SLOT)
-                    {
-                        cleanupNetwork(traceId);
-                    }
-                    else
-                    {
-                        final OctetsFW payload = data.payload();
-                        int reserved = data.reserved();
-                        int offset = payload.offset();
-                        int limit = payload.limit();
+                    // decode in place, only the undecoded remainder is copied to decodeSlot
+                    decodeNetwork(traceId, authorization, budgetId, reserved, payload.buffer(), offset, limit);
+                }
+                else
+                {
+                    final OctetsFW payload = data.payload();
+                    int reserved = data.reserved();
+                    int offset = payload.offset();
+                    int limit = payload.limit();
 
-                        final MutableDirectBuffer buffer = decodePool.buffer(decodeSlot);
-                        buffer.putBytes(decodeSlotOffset, payload.buffer(), offset, limit - offset);
-                        decodeSlotOffset += limit - offset;
-                        decodeSlotReserved += reserved;
+                    final MutableDirectBuffer buffer = decodePool.buffer(decodeSlot);
+                    buffer.putBytes(decodeSlotOffset, payload.buffer(), offset, limit - offset);
+                    decodeSlotOffset += limit - offset;
+                    decodeSlotReserved += reserved;
 
-                        offset = 0;
-                        limit = decodeSlotOffset;
-                        reserved = decodeSlotReserved;
+                    offset = 0;
+                    limit = decodeSlotOffset;
+                    reserved = decodeSlotReserved;
 
-                        decodeNetwork(traceId, authorization, budgetId, reserved, buffer, offset, limit);
-                    }
+                    decodeNetwork(traceId, authorization, budgetId, reserved, buffer, offset, limit);
                 }
             }
 
@@ -2090,7 +2234,14 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
                 state = KafkaState.closedReply(state);
 
-                cleanupNetwork(traceId);
+                if (affinity != leaderId && !KafkaState.initialClosed(stream.state))
+                {
+                    doNetworkRedirect(traceId, leaderId);
+                }
+                else
+                {
+                    cleanupNetwork(traceId);
+                }
             }
 
             private void onNetworkReset(
@@ -2106,7 +2257,14 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
                 state = KafkaState.closedInitial(state);
 
-                cleanupNetwork(traceId);
+                if (affinity != leaderId && !KafkaState.initialClosed(stream.state))
+                {
+                    doNetworkRedirect(traceId, leaderId);
+                }
+                else
+                {
+                    cleanupNetwork(traceId);
+                }
             }
 
             private void onNetworkWindow(
@@ -2142,9 +2300,14 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 final long traceId = signal.traceId();
                 final int signalId = signal.signalId();
 
-                if (signalId == SIGNAL_NEXT_REQUEST)
+                switch (signalId)
                 {
+                case SIGNAL_NEXT_REQUEST:
                     doEncodeRequestIfNecessary(traceId, initialBudgetId);
+                    break;
+                case SIGNAL_REDIRECT:
+                    doNetworkRedirect(traceId, preferredAffinity);
+                    break;
                 }
             }
 
@@ -2153,6 +2316,8 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 long authorization,
                 long affinity)
             {
+                this.affinity = affinity;
+
                 state = KafkaState.openingInitial(state);
                 correlations.put(replyId, this::onNetwork);
 
@@ -2182,6 +2347,38 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 doBegin(network, routeId, initialId, traceId, authorization, affinity, extension);
             }
 
+            private void doNetworkRedirect(
+                long traceId,
+                long affinity)
+            {
+                doNetworkResetIfNecessary(traceId);
+                doNetworkAbortIfNecessary(traceId);
+                correlations.remove(replyId);
+
+                cleanupDecodeSlotIfNecessary();
+                cleanupEncodeSlotIfNecessary();
+
+                this.initialId = supplyInitialId.applyAsLong(routeId);
+                this.replyId = supplyReplyId.applyAsLong(initialId);
+                this.network = router.supplyReceiver(initialId);
+
+                state = 0;
+                initialBudgetId = 0L;
+                initialBudget = 0;
+                initialPadding = 0;
+                replyBudget = 0;
+                nextRequestId = 0;
+                nextResponseId = 0;
+                preferredAffinity = NO_PREFERRED_REPLICA;
+                decodePartitionError = ERROR_NONE;
+                decodableResponseBytes = 0;
+                decodableRecordSetBytes = 0;
+                encoder = encodeFetchRequest;
+                decoder = decodeFetchResponse;
+
+                doNetworkBegin(traceId, authorization, affinity);
+            }
+
             private void doNetworkData(
                 long traceId,
                 long budgetId,
@@ -2224,6 +2421,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 doEnd(network, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
 
                 cleanupEncodeSlotIfNecessary();
+                cleanupOffsetsIfNecessary(traceId);
             }
 
             private void doNetworkAbortIfNecessary(
@@ -2236,6 +2434,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 }
 
                 cleanupEncodeSlotIfNecessary();
+                cleanupOffsetsIfNecessary(traceId);
             }
 
             private void doNetworkResetIfNecessary(
@@ -2277,6 +2476,59 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 long traceId,
                 long budgetId)
             {
+                if (offsets == null)
+                {
+                    offsets = supplyOffsets(routeId, leaderId);
+                }
+
+                final long now = currentTimeMillis();
+                final int failedError = offsets.cache.failed(topic, partitionId, nextOffset, now);
+                final long resolvedOffset = offsets.cache.resolved(topic, partitionId, nextOffset, now);
+                if (failedError != ERROR_NONE)
+                {
+                    offsets.pending.remove(this);
+                    cleanupApplication(traceId, failedError);
+                    doNetworkEnd(traceId, authorization);
+                }
+                else if (resolvedOffset != OFFSET_UNRESOLVED)
+                {
+                    offsets.pending.remove(this);
+                    nextOffset = resolvedOffset;
+                    encoder = encodeFetchRequest;
+                    decoder = decodeFetchResponse;
+                    doEncodeFetchRequest(traceId, budgetId);
+                }
+                else
+                {
+                    if (!offsets.pending.contains(this))
+                    {
+                        offsets.pending.add(this);
+                    }
+
+                    if (offsets.requester == null)
+                    {
+                        offsets.requester = this;
+                        doEncodeOffsetsRequestPending(traceId, budgetId);
+                    }
+                }
+            }
+
+            private void doEncodeOffsetsRequestPending(
+                long traceId,
+                long budgetId)
+            {
+                final List<KafkaFetchClient> pending = offsets.pending;
+
+                offsetsTopics.clear();
+                for (int index = 0; index < pending.size(); index++)
+                {
+                    final String pendingTopic = pending.get(index).topic;
+                    if (!offsetsTopics.contains(pendingTopic))
+                    {
+                        offsetsTopics.add(pendingTopic);
+                    }
+                }
+
                 final MutableDirectBuffer encodeBuffer = writeBuffer;
                 final int encodeOffset = DataFW.FIELD_OFFSET_PAYLOAD;
                 final int encodeLimit = encodeBuffer.capacity();
@@ -2294,30 +2546,63 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 encodeProgress = requestHeader.limit();
 
                 final OffsetsRequestFW offsetsRequest = offsetsRequestRW.wrap(encodeBuffer, encodeProgress, encodeLimit)
-                        .isolationLevel(i -> i.set(READ_UNCOMMITTED))
-                        .topicCount(1)
+                        .isolationLevel(i -> i.set(readCommitted ? READ_COMMITTED : READ_UNCOMMITTED))
+                        .topicCount(offsetsTopics.size())
                         .build();
 
                 encodeProgress = offsetsRequest.limit();
 
-                final OffsetsTopicRequestFW topicRequest = offsetsTopicRequestRW.wrap(encodeBuffer, encodeProgress, encodeLimit)
-                        .name(topic)
-                        .partitionCount(1)
-                        .build();
+                for (int topicIndex = 0; topicIndex < offsetsTopics.size(); topicIndex++)
+                {
+                    final String requestTopic = offsetsTopics.get(topicIndex);
 
-                encodeProgress = topicRequest.limit();
+                    offsetsPartitionIds.clear();
+                    for (int index = 0; index < pending.size(); index++)
+                    {
+                        final KafkaFetchClient requestClient = pending.get(index);
+                        if (requestClient.topic.equals(requestTopic))
+                        {
+                            offsetsPartitionIds.add(requestClient.partitionId);
+                        }
+                    }
 
-                final long timestamp = nextOffset;
+                    final OffsetsTopicRequestFW topicRequest = offsetsTopicRequestRW
+                            .wrap(encodeBuffer, encodeProgress, encodeLimit)
+                            .name(requestTopic)
+                            .partitionCount(offsetsPartitionIds.size())
+                            .build();
 
-                assert timestamp < 0;
+                    encodeProgress = topicRequest.limit();
 
-                final OffsetsPartitionRequestFW partitionRequest = offsetsPartitionRequestRW
-                        .wrap(encodeBuffer, encodeProgress, encodeLimit)
-                        .partitionId(partitionId)
-                        .timestamp(timestamp)
-                        .build();
+                    offsetsPartitionIds.clear();
+                    for (int index = 0; index < pending.size(); index++)
+                    {
+                        final KafkaFetchClient requestClient = pending.get(index);
+                        if (requestClient.topic.equals(requestTopic) &&
+                            offsetsPartitionIds.add(requestClient.partitionId))
+                        {
+                            final long timestamp = requestClient.nextOffset;
+
+                            assert timestamp < 0;
+
+                            final OffsetsPartitionRequestFW partitionRequest = offsetsPartitionRequestRW
+                                    .wrap(encodeBuffer, encodeProgress, encodeLimit)
+                                    .partitionId(requestClient.partitionId)
+                                    .timestamp(timestamp)
+                                    .build();
 
-                encodeProgress = partitionRequest.limit();
+                            encodeProgress = partitionRequest.limit();
+
+                            offsets.request(requestTopic, requestClient.partitionId, timestamp);
+
+                            if (KafkaConfiguration.DEBUG)
+                            {
+                                System.out.format("[0x%016x] %s[%d] OFFSETS %d\n",
+                                    replyId, requestTopic, requestClient.partitionId, timestamp);
+                            }
+                        }
+                    }
+                }
 
                 final int requestId = nextRequestId++;
                 final int requestSize = encodeProgress - encodeOffset - RequestHeaderFW.FIELD_OFFSET_API_KEY;
@@ -2330,11 +2615,6 @@ public final class KafkaClientFetchFactory implements StreamFactory
                         .clientId(requestHeader.clientId().asString())
                         .build();
 
-                if (KafkaConfiguration.DEBUG)
-                {
-                    System.out.format("[0x%016x] %s[%d] OFFSETS %d\n", replyId, topic, partitionId, timestamp);
-                }
-
                 doNetworkData(traceId, budgetId, encodeBuffer, encodeOffset, encodeProgress);
             }
 
@@ -2351,22 +2631,37 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 final RequestHeaderFW requestHeader = requestHeaderRW.wrap(encodeBuffer, encodeProgress, encodeLimit)
                         .length(0)
                         .apiKey(FETCH_API_KEY)
-                        .apiVersion(FETCH_API_VERSION)
+                        .apiVersion(rack != null ? FETCH_RACK_API_VERSION : FETCH_API_VERSION)
                         .correlationId(0)
                         .clientId((String) null)
                         .build();
 
                 encodeProgress = requestHeader.limit();
 
-                final FetchRequestFW fetchRequest = fetchRequestRW.wrap(encodeBuffer, encodeProgress, encodeLimit)
-                        .maxWaitTimeMillis(fetchMaxWaitMillis)
-                        .minBytes(1)
-                        .maxBytes(fetchMaxBytes)
-                        .isolationLevel((byte) 0)
-                        .topicCount(1)
-                        .build();
-
-                encodeProgress = fetchRequest.limit();
+                if (rack != null)
+                {
+                    final FetchRequestV11FW fetchRequest = fetchRequestV11RW.wrap(encodeBuffer, encodeProgress, encodeLimit)
+                            .maxWaitTimeMillis(fetchMaxWaitMillis)
+                            .minBytes(1)
+                            .maxBytes(fetchMaxBytes)
+                            .isolationLevel((byte) (readCommitted ? 1 : 0))
+                            .topicCount(1)
+                            .build();
+
+                    encodeProgress = fetchRequest.limit();
+                }
+                else
+                {
+                    final FetchRequestFW fetchRequest = fetchRequestRW.wrap(encodeBuffer, encodeProgress, encodeLimit)
+                            .maxWaitTimeMillis(fetchMaxWaitMillis)
+                            .minBytes(1)
+                            .maxBytes(fetchMaxBytes)
+                            .isolationLevel((byte) (readCommitted ? 1 : 0))
+                            .topicCount(1)
+                            .build();
+
+                    encodeProgress = fetchRequest.limit();
+                }
 
                 final TopicRequestFW topicRequest = fetchTopicRequestRW.wrap(encodeBuffer, encodeProgress, encodeLimit)
                         .name(topic)
@@ -2375,14 +2670,35 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
                 encodeProgress = topicRequest.limit();
 
-                final PartitionRequestFW partitionRequest = fetchPartitionRequestRW
-                        .wrap(encodeBuffer, encodeProgress, encodeLimit)
-                        .partitionId((int) partitionId)
-                        .fetchOffset(nextOffset)
-                        .maxBytes(partitionMaxBytes)
-                        .build();
+                if (rack != null)
+                {
+                    final PartitionRequestV11FW partitionRequest = fetchPartitionRequestV11RW
+                            .wrap(encodeBuffer, encodeProgress, encodeLimit)
+                            .partitionId((int) partitionId)
+                            .fetchOffset(nextOffset)
+                            .maxBytes(partitionMaxBytes)
+                            .build();
 
-                encodeProgress = partitionRequest.limit();
+                    encodeProgress = partitionRequest.limit();
+
+                    final FetchRequestTrailerV11FW trailer = fetchRequestTrailerV11RW
+                            .wrap(encodeBuffer, encodeProgress, encodeLimit)
+                            .rackId(rack)
+                            .build();
+
+                    encodeProgress = trailer.limit();
+                }
+                else
+                {
+                    final PartitionRequestFW partitionRequest = fetchPartitionRequestRW
+                            .wrap(encodeBuffer, encodeProgress, encodeLimit)
+                            .partitionId((int) partitionId)
+                            .fetchOffset(nextOffset)
+                            .maxBytes(partitionMaxBytes)
+                            .build();
+
+                    encodeProgress = partitionRequest.limit();
+                }
 
                 final int requestId = nextRequestId++;
                 final int requestSize = encodeProgress - encodeOffset - RequestHeaderFW.FIELD_OFFSET_API_KEY;
@@ -2476,7 +2792,7 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 long authorization,
                 long budgetId,
                 int reserved,
-                MutableDirectBuffer buffer,
+                DirectBuffer buffer,
                 int offset,
                 int limit)
             {
@@ -2536,16 +2852,44 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 int partitionId,
                 long partitionOffset)
             {
-                switch (errorCode)
+                final long timestamp = offsets.requested(decodeTopic, partitionId);
+
+                if (timestamp != OFFSET_UNRESOLVED && offsetsMaxAgeMillis > 0)
                 {
-                case ERROR_NONE:
-                    assert partitionId == this.partitionId;
-                    this.nextOffset = partitionOffset;
-                    break;
-                default:
-                    cleanupApplication(traceId, errorCode);
-                    doNetworkEnd(traceId, authorization);
-                    break;
+                    if (errorCode == ERROR_NONE)
+                    {
+                        offsets.cache.resolve(decodeTopic, partitionId, timestamp, partitionOffset, currentTimeMillis());
+                    }
+                    else
+                    {
+                        offsets.cache.fail(decodeTopic, partitionId, timestamp, errorCode, currentTimeMillis());
+                    }
+                }
+
+                if (topic.equals(decodeTopic) && partitionId == this.partitionId && timestamp == nextOffset)
+                {
+                    switch (errorCode)
+                    {
+                    case ERROR_NONE:
+                        offsets.pending.remove(this);
+                        this.nextOffset = partitionOffset;
+                        break;
+                    default:
+                        cleanupApplication(traceId, errorCode);
+                        doNetworkEnd(traceId, authorization);
+                        break;
+                    }
+                }
+            }
+
+            private void onDecodeOffsetsResponse(
+                long traceId)
+            {
+                if (offsets.requester == this)
+                {
+                    offsets.requester = null;
+                    offsets.requests.clear();
+                    offsets.signalPending(traceId);
                 }
             }
 
@@ -2555,6 +2899,13 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 int partitionId,
                 int errorCode)
             {
+                if (errorCode != ERROR_NONE && affinity != leaderId)
+                {
+                    // follower error, ignore this response and fall back to the leader
+                    preferredAffinity = leaderId;
+                    return;
+                }
+
                 switch (errorCode)
                 {
                 case ERROR_NONE:
@@ -2565,6 +2916,10 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 case ERROR_OFFSET_OUT_OF_RANGE:
                     assert partitionId == this.partitionId;
                     // TODO: recover at EARLIEST or LATEST ?
+                    if (offsets != null)
+                    {
+                        offsets.cache.invalidate(topic, partitionId);
+                    }
                     nextOffset = OFFSET_EARLIEST;
                     client.encoder = client.encodeOffsetsRequest;
                     client.decoder = decodeOffsetsResponse;
@@ -2587,6 +2942,63 @@ public final class KafkaClientFetchFactory implements StreamFactory
                 }
             }
 
+            private void onDecodeFetchReadReplica(
+                int replicaId)
+            {
+                if (decodePartitionError == ERROR_NONE &&
+                    replicaId >= 0 &&
+                    replicaId != affinity &&
+                    clientRoute.brokers.containsKey(replicaId))
+                {
+                    preferredAffinity = replicaId;
+                }
+            }
+
+            private void cleanupAbortedTransactions()
+            {
+                abortedTransactionProducerIds.clear();
+                abortedTransactionFirstOffsets.clear();
+                abortedProducerIds.clear();
+            }
+
+            private void onDecodeFetchTransaction(
+                long producerId,
+                long firstOffset)
+            {
+                abortedTransactionProducerIds.addLong(producerId);
+                abortedTransactionFirstOffsets.addLong(firstOffset);
+            }
+
+            private boolean isAbortedOrControlBatch(
+                int attributes,
+                long producerId,
+                long baseOffset)
+            {
+                for (int index = abortedTransactionFirstOffsets.size() - 1; index >= 0; index--)
+                {
+                    if (abortedTransactionFirstOffsets.getLong(index) <= baseOffset)
+                    {
+                        abortedProducerIds.add(abortedTransactionProducerIds.getLong(index));
+                        abortedTransactionProducerIds.fastUnorderedRemove(index);
+                        abortedTransactionFirstOffsets.fastUnorderedRemove(index);
+                    }
+                }
+
+                boolean ignore = false;
+
+                if (isControlBatch(attributes))
+                {
+                    abortedProducerIds.remove(producerId);
+                    ignore = true;
+                }
+                else if (isTransactionalBatch(attributes))
+                {
+                    ignore = abortedProducerIds.contains(producerId);
+                }
+
+                return ignore;
+            }
+
             private void onDecodeFetchRecord(
                 long traceId,
                 int reserved,
@@ -2688,7 +3100,8 @@ public final class KafkaClientFetchFactory implements StreamFactory
 
                 if (clientRoute.partitions.get(partitionId) == leaderId)
                 {
-                    signaler.signalNow(routeId, initialId, SIGNAL_NEXT_REQUEST);
+                    final int signalId = preferredAffinity != NO_PREFERRED_REPLICA ? SIGNAL_REDIRECT : SIGNAL_NEXT_REQUEST;
+                    signaler.signalNow(routeId, initialId, signalId);
                 }
                 else
                 {
@@ -2727,6 +3140,141 @@ public final class KafkaClientFetchFactory implements StreamFactory
                     encodeSlotTraceId = 0;
                 }
             }
+
+            private void cleanupOffsetsIfNecessary(
+                long traceId)
+            {
+                if (offsets != null)
+                {
+                    offsets.pending.remove(this);
+
+                    if (offsets.requester == this)
+                    {
+                        offsets.requester = null;
+                        offsets.requests.clear();
+                        offsets.signalPending(traceId);
+                    }
+
+                    evictOffsetsIfIdle(routeId, leaderId, currentTimeMillis());
+                }
+            }
+        }
+    }
+
+    private final class KafkaFetchOffsets
+    {
+        private final List<KafkaFetchStream.KafkaFetchClient> pending;
+        private final Map<String, Long2LongHashMap> requests;
+        private final KafkaClientOffsetsCache cache;
+
+        private KafkaFetchStream.KafkaFetchClient requester;
+
+        private KafkaFetchOffsets()
+        {
+            this.pending = new ArrayList<>();
+            this.requests = new HashMap<>();
+            this.cache = new KafkaClientOffsetsCache(offsetsMaxAgeMillis);
+        }
+
+        private void request(
+            String topic,
+            int partitionId,
+            long timestamp)
+        {
+            requests.computeIfAbsent(topic, t -> new Long2LongHashMap(OFFSET_UNRESOLVED)).put(partitionId, timestamp);
+        }
+
+        private long requested(
+            String topic,
+            int partitionId)
+        {
+            final Long2LongHashMap timestamps = requests.get(topic);
+            return timestamps != null ? timestamps.get(partitionId) : OFFSET_UNRESOLVED;
+        }
+
+        private boolean idle(
+            long now)
+        {
+            final boolean expired = cache.expire(now);
+            return expired && requester == null && pending.isEmpty();
+        }
+
+        private void signalPending(
+            long traceId)
+        {
+            for (int index = 0; index < pending.size(); index++)
+            {
+                final KafkaFetchStream.KafkaFetchClient waiter = pending.get(index);
+                signaler.signalNow(waiter.routeId, waiter.initialId, SIGNAL_NEXT_REQUEST);
+            }
+        }
+    }
+
+    // fetch clients, their network streams and signals are owned by one core,
+    // so ListOffsets batching and results are shared per core, per route and leader
+    private KafkaFetchOffsets supplyOffsets(
+        long routeId,
+        long leaderId)
+    {
+        KafkaFetchOffsets offsets;
+
+        if (offsetsMaxAgeMillis > 0)
+        {
+            evictOffsetsIfNecessary(currentTimeMillis());
+
+            final Long2ObjectHashMap<KafkaFetchOffsets> offsetsByLeaderId =
+                offsetsByRouteId.computeIfAbsent(routeId, r -> new Long2ObjectHashMap<>());
+            offsets = offsetsByLeaderId.computeIfAbsent(leaderId, l -> new KafkaFetchOffsets());
+        }
+        else
+        {
+            offsets = new KafkaFetchOffsets();
+        }
+
+        return offsets;
+    }
+
+    private void evictOffsetsIfNecessary(
+        long now)
+    {
+        if (now >= offsetsEvictAt)
+        {
+            offsetsEvictAt = now + offsetsMaxAgeMillis;
+
+            evictableRouteIds.clear();
+            evictableLeaderIds.clear();
+            offsetsByRouteId.forEach((r, offsetsByLeaderId) ->
+                offsetsByLeaderId.forEach((l, offsets) ->
+                {
+                    evictableRouteIds.addLong(r);
+                    evictableLeaderIds.addLong(l);
+                }));
+
+            for (int index = 0; index < evictableRouteIds.size(); index++)
+            {
+                evictOffsetsIfIdle(evictableRouteIds.getLong(index), evictableLeaderIds.getLong(index), now);
+            }
+        }
+    }
+
+    private void evictOffsetsIfIdle(
+        long routeId,
+        long leaderId,
+        long now)
+    {
+        final Long2ObjectHashMap<KafkaFetchOffsets> offsetsByLeaderId = offsetsByRouteId.get(routeId);
+        if (offsetsByLeaderId != null)
+        {
+            final KafkaFetchOffsets offsets = offsetsByLeaderId.get(leaderId);
+            if (offsets != null && offsets.idle(now))
+            {
+                offsetsByLeaderId.remove(leaderId);
+
+                if (offsetsByLeaderId.isEmpty())
+                {
+                    offsetsByRouteId.remove(routeId);
+                }
+            }
         }
     }
 
@@ -2802,4 +3350,11 @@ public final class KafkaClientFetchFactory implements StreamFactory
         // sixth lowest bit indicates whether the RecordBatch includes a control message
         return (attributes & 0x20) != 0;
     }
+
+    private static boolean isTransactionalBatch(
+        int attributes)
+    {
+        // fifth lowest bit indicates whether the RecordBatch is part of a transaction
+        return (attributes & 0x10) != 0;
+    }
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.agrona.collections.Int2IntHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+
+public final class KafkaClientMetaCache
+{
+    static final long FLIGHT_LEASE_MILLIS = 30000L;
+
+    final Results<KafkaTopicMeta> topics;
+    final Results<Map<String, String>> configs;
+
+    public KafkaClientMetaCache()
+    {
+        this.topics = new Results<>();
+        this.configs = new Results<>();
+    }
+
+    static final class KafkaTopicMeta
+    {
+        final Long2ObjectHashMap<KafkaBrokerInfo> brokers;
+        final Int2IntHashMap partitions;
+
+        KafkaTopicMeta(
+            Long2ObjectHashMap<KafkaBrokerInfo> brokers,
+            Int2IntHashMap partitions)
+        {
+            this.brokers = new Long2ObjectHashMap<>();
+            this.brokers.putAll(brokers);
+            this.partitions = new Int2IntHashMap(partitions.missingValue());
+            partitions.forEach(this.partitions::put);
+        }
+    }
+
+    static final class Results<V>
+    {
+        private final ConcurrentMap<String, Result<V>> resultsByKey;
+        private final ConcurrentMap<String, Long> flightsByKey;
+        private final ConcurrentMap<String, Queue<Runnable>> waitersByKey;
+
+        Results()
+        {
+            this.resultsByKey = new ConcurrentHashMap<>();
+            this.flightsByKey = new ConcurrentHashMap<>();
+            this.waitersByKey = new ConcurrentHashMap<>();
+        }
+
+        V lookup(
+            String key,
+            long now)
+        {
+            final Result<V> result = resultsByKey.get(key);
+            return result != null && now < result.expiresAt ? result.value : null;
+        }
+
+        boolean acquire(
+            String key,
+            long now)
+        {
+            final Long leaseAt = flightsByKey.get(key);
+
+            return leaseAt == null
+                    ? flightsByKey.putIfAbsent(key, now + FLIGHT_LEASE_MILLIS) == null
+                    : leaseAt <= now && flightsByKey.replace(key, leaseAt, now + FLIGHT_LEASE_MILLIS);
+        }
+
+        void await(
+            String key,
+            Runnable waiter)
+        {
+            waitersByKey.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>()).add(waiter);
+
+            // flight may have landed before waiter was added
+            if (!flightsByKey.containsKey(key))
+            {
+                notifyWaiters(key);
+            }
+        }
+
+        void release(
+            String key)
+        {
+            flightsByKey.remove(key);
+            notifyWaiters(key);
+        }
+
+        void publish(
+            String key,
+            V value,
+            long expiresAt)
+        {
+            resultsByKey.put(key, new Result<>(value, expiresAt));
+            flightsByKey.remove(key);
+            notifyWaiters(key);
+        }
+
+        void invalidate(
+            String key)
+        {
+            resultsByKey.remove(key);
+        }
+
+        private void notifyWaiters(
+            String key)
+        {
+            final Queue<Runnable> waiters = waitersByKey.get(key);
+            if (waiters != null)
+            {
+                for (Runnable waiter = waiters.poll(); waiter != null; waiter = waiters.poll())
+                {
+                    waiter.run();
+                }
+            }
+        }
+
+        static String key(
+            long routeId,
+            String topic)
+        {
+            return routeId + ":" + topic;
+        }
+    }
+
+    private static final class Result<V>
+    {
+        private final V value;
+        private final long expiresAt;
+
+        private Result(
+            V value,
+            long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
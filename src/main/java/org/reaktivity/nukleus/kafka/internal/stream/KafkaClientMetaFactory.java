@@ -19,6 +19,7 @@ import static java.lang.System.currentTimeMillis;
 import static java.util.Objects.requireNonNull;
 import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
 import static org.reaktivity.nukleus.concurrent.Signaler.NO_CANCEL_ID;
+import static org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.FLIGHT_LEASE_MILLIS;
 
 import java.util.function.Consumer;
 import java.util.function.LongFunction;
@@ -39,6 +40,8 @@ import org.reaktivity.nukleus.function.MessageFunction;
 import org.reaktivity.nukleus.function.MessagePredicate;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.KafkaTopicMeta;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.Results;
 import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
 import org.reaktivity.nukleus.kafka.internal.types.String16FW;
@@ -72,6 +75,7 @@ public final class KafkaClientMetaFactory implements StreamFactory
     private static final int ERROR_NONE = 0;
 
     private static final int SIGNAL_NEXT_REQUEST = 1;
+    private static final int SIGNAL_FLIGHT_LANDED = 2;
 
     private static final DirectBuffer EMPTY_BUFFER = new UnsafeBuffer();
     private static final OctetsFW EMPTY_OCTETS = new OctetsFW().wrap(EMPTY_BUFFER, 0, 0);
@@ -138,6 +142,7 @@ public final class KafkaClientMetaFactory implements StreamFactory
     private final LongUnaryOperator supplyReplyId;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final LongFunction<KafkaClientRoute> supplyClientRoute;
+    private final Results<KafkaTopicMeta> metaCache;
 
     public KafkaClientMetaFactory(
         KafkaConfiguration config,
@@ -151,7 +156,8 @@ public final class KafkaClientMetaFactory implements StreamFactory
         ToIntFunction<String> supplyTypeId,
         LongFunction<BudgetDebitor> supplyDebitor,
         Long2ObjectHashMap<MessageConsumer> correlations,
-        LongFunction<KafkaClientRoute> supplyClientRoute)
+        LongFunction<KafkaClientRoute> supplyClientRoute,
+        KafkaClientMetaCache clientMetaCache)
     {
         this.maxAgeMillis = Math.min(config.clientMetaMaxAgeMillis(), config.clientMaxIdleMillis() >> 1);
         this.kafkaTypeId = supplyTypeId.applyAsInt(KafkaNukleus.NAME);
@@ -165,6 +171,7 @@ public final class KafkaClientMetaFactory implements StreamFactory
         this.supplyReplyId = supplyReplyId;
         this.correlations = correlations;
         this.supplyClientRoute = supplyClientRoute;
+        this.metaCache = clientMetaCache != null ? clientMetaCache.topics : null;
     }
 
     @Override
@@ -797,7 +804,8 @@ public final class KafkaClientMetaFactory implements StreamFactory
             state = KafkaState.openingInitial(state);
             clientRoute.metaInitialId = initialId;
 
-            client.doNetworkBegin(traceId, authorization, affinity);
+            client.authorization = authorization;
+            client.doEncodeRequestIfNecessary(traceId);
         }
 
         private void onApplicationData(
@@ -836,6 +844,7 @@ public final class KafkaClientMetaFactory implements StreamFactory
         {
             final long traceId = flush.traceId();
 
+            client.invalidateCachedResponseIfNecessary();
             client.doEncodeRequestIfNecessary(traceId);
         }
 
@@ -909,6 +918,15 @@ public final class KafkaClientMetaFactory implements StreamFactory
             doEnd(application, routeId, replyId, traceId, client.authorization, EMPTY_EXTENSION);
         }
 
+        private void doApplicationEndIfNecessary(
+            long traceId)
+        {
+            if (KafkaState.replyOpening(state) && !KafkaState.replyClosed(state))
+            {
+                doApplicationEnd(traceId);
+            }
+        }
+
         private void doApplicationAbort(
             long traceId)
         {
@@ -977,6 +995,8 @@ public final class KafkaClientMetaFactory implements StreamFactory
             private final long replyId;
             private final MessageConsumer network;
             private final String topic;
+            private final String cacheKey;
+            private final Runnable waker;
 
             private final Long2ObjectHashMap<KafkaBrokerInfo> newBrokers;
             private final Int2IntHashMap newPartitions;
@@ -1000,6 +1020,8 @@ public final class KafkaClientMetaFactory implements StreamFactory
             private int nextRequestId;
             private int nextResponseId;
             private long nextRequestAt = NO_CANCEL_ID;
+            private boolean flight;
+            private boolean cacheable;
 
             private KafkaMetaClientDecoder decoder;
             private int decodeableResponseBytes;
@@ -1018,6 +1040,8 @@ public final class KafkaClientMetaFactory implements StreamFactory
                 this.network = router.supplyReceiver(initialId);
                 this.decoder = decodeResponse;
                 this.topic = requireNonNull(topic);
+                this.cacheKey = metaCache != null ? Results.key(routeId, topic) : null;
+                this.waker = () -> signaler.signalNow(routeId, initialId, SIGNAL_FLIGHT_LANDED);
                 this.partitions = new Int2IntHashMap(-1);
                 this.newBrokers = new Long2ObjectHashMap<>();
                 this.newPartitions = new Int2IntHashMap(-1);
@@ -1185,11 +1209,18 @@ public final class KafkaClientMetaFactory implements StreamFactory
                 final long traceId = signal.traceId();
                 final int signalId = signal.signalId();
 
-                if (signalId == SIGNAL_NEXT_REQUEST)
+                switch (signalId)
                 {
+                case SIGNAL_NEXT_REQUEST:
                     nextRequestAt = NO_CANCEL_ID;
-
                     doEncodeRequestIfNecessary(traceId);
+                    break;
+                case SIGNAL_FLIGHT_LANDED:
+                    cancelNextRequestSignal();
+                    doEncodeRequestIfNecessary(traceId);
+                    break;
+                default:
+                    break;
                 }
             }
 
@@ -1232,16 +1263,33 @@ public final class KafkaClientMetaFactory implements StreamFactory
                 long authorization)
             {
                 cancelNextRequestSignal();
-                state = KafkaState.closedInitial(state);
+                releaseFlightIfNecessary();
 
-                doEnd(network, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
+                if (KafkaState.initialOpening(state))
+                {
+                    state = KafkaState.closedInitial(state);
+                    doEnd(network, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
+                }
+                else
+                {
+                    // served from cache only, so no network reply will end the application
+                    state = KafkaState.closedInitial(state);
+                    router.clearThrottle(initialId);
+                    doApplicationEndIfNecessary(traceId);
+                }
             }
 
             private void doNetworkAbortIfNecessary(
                 long traceId)
             {
                 cancelNextRequestSignal();
-                if (!KafkaState.initialClosed(state))
+                releaseFlightIfNecessary();
+                if (!KafkaState.initialOpening(state))
+                {
+                    state = KafkaState.closedInitial(state);
+                    router.clearThrottle(initialId);
+                }
+                else if (!KafkaState.initialClosed(state))
                 {
                     doAbort(network, routeId, initialId, traceId, authorization, EMPTY_EXTENSION);
                     state = KafkaState.closedInitial(state);
@@ -1253,7 +1301,7 @@ public final class KafkaClientMetaFactory implements StreamFactory
             private void doNetworkResetIfNecessary(
                 long traceId)
             {
-                if (!KafkaState.replyClosed(state))
+                if (KafkaState.initialOpening(state) && !KafkaState.replyClosed(state))
                 {
                     doReset(network, routeId, replyId, traceId, authorization, EMPTY_OCTETS);
                     state = KafkaState.closedReply(state);
@@ -1278,9 +1326,37 @@ public final class KafkaClientMetaFactory implements StreamFactory
             private void doEncodeRequestIfNecessary(
                 long traceId)
             {
-                if (nextRequestId == nextResponseId)
+                if (nextRequestId == nextResponseId && !KafkaState.initialClosed(state))
                 {
-                    doEncodeRequest(traceId, initialBudgetId);
+                    final long now = currentTimeMillis();
+                    final KafkaTopicMeta cached = metaCache != null ? metaCache.lookup(cacheKey, now) : null;
+
+                    if (cached != null)
+                    {
+                        onCachedResponse(traceId, cached);
+                    }
+                    else if (flight || metaCache == null || metaCache.acquire(cacheKey, now))
+                    {
+                        flight = metaCache != null;
+
+                        if (!KafkaState.initialOpening(state))
+                        {
+                            doNetworkBegin(traceId, authorization, affinity);
+                        }
+                        else if (KafkaState.initialOpened(state))
+                        {
+                            doEncodeRequest(traceId, initialBudgetId);
+                        }
+                    }
+                    else
+                    {
+                        router.setThrottle(initialId, this::onNetwork);
+                        metaCache.await(cacheKey, waker);
+
+                        // in case the flight holder goes away without releasing
+                        cancelNextRequestSignal();
+                        nextRequestAt = signaler.signalAt(now + FLIGHT_LEASE_MILLIS, routeId, initialId, SIGNAL_NEXT_REQUEST);
+                    }
                 }
             }
 
@@ -1332,6 +1408,23 @@ public final class KafkaClientMetaFactory implements StreamFactory
                 doNetworkData(traceId, budgetId, encodeBuffer, encodeOffset, encodeProgress);
             }
 
+            private void releaseFlightIfNecessary()
+            {
+                if (flight)
+                {
+                    metaCache.release(cacheKey);
+                    flight = false;
+                }
+            }
+
+            private void invalidateCachedResponseIfNecessary()
+            {
+                if (metaCache != null)
+                {
+                    metaCache.invalidate(cacheKey);
+                }
+            }
+
             private void cancelNextRequestSignal()
             {
                 if (nextRequestAt != NO_CANCEL_ID)
@@ -1477,8 +1570,10 @@ public final class KafkaClientMetaFactory implements StreamFactory
                 case ERROR_NONE:
                     assert topic.equals(this.topic);
                     newPartitions.clear();
+                    cacheable = true;
                     break;
                 default:
+                    invalidateCachedResponseIfNecessary();
                     final KafkaResetExFW resetEx = kafkaResetExRW.wrap(extBuffer, 0, extBuffer.capacity())
                                                                  .typeId(kafkaTypeId)
                                                                  .error(errorCode)
@@ -1499,10 +1594,59 @@ public final class KafkaClientMetaFactory implements StreamFactory
                 {
                     newPartitions.put(partitionId, leaderId);
                 }
+                else
+                {
+                    cacheable = false;
+                }
             }
 
             private void onDecodeResponse(
                 long traceId)
+            {
+                if (flight)
+                {
+                    if (cacheable)
+                    {
+                        final KafkaTopicMeta meta = new KafkaTopicMeta(clientRoute.brokers, newPartitions);
+                        metaCache.publish(cacheKey, meta, currentTimeMillis() + maxAgeMillis);
+                        flight = false;
+                    }
+                    else
+                    {
+                        releaseFlightIfNecessary();
+                    }
+                }
+
+                onTopicMetaChanged(traceId);
+
+                nextResponseId++;
+                nextRequestAt = signaler.signalAt(currentTimeMillis() + maxAgeMillis, routeId, initialId, SIGNAL_NEXT_REQUEST);
+            }
+
+            private void onCachedResponse(
+                long traceId,
+                KafkaTopicMeta cached)
+            {
+                if (!clientRoute.brokers.equals(cached.brokers))
+                {
+                    clientRoute.brokers.clear();
+                    clientRoute.brokers.putAll(cached.brokers);
+                }
+
+                newPartitions.clear();
+                cached.partitions.forEach(newPartitions::put);
+
+                onTopicMetaChanged(traceId);
+
+                // refresh signal arrives via throttle even when network not yet begun
+                router.setThrottle(initialId, this::onNetwork);
+
+                cancelNextRequestSignal();
+                nextRequestAt = signaler.signalAt(currentTimeMillis() + maxAgeMillis, routeId, initialId, SIGNAL_NEXT_REQUEST);
+            }
+
+            private void onTopicMetaChanged(
+                long traceId)
             {
                 doApplicationWindow(traceId, 0L, 0, 0);
                 doApplicationBeginIfNecessary(traceId, authorization, topic);
@@ -1527,15 +1671,13 @@ public final class KafkaClientMetaFactory implements StreamFactory
 
                     doApplicationData(traceId, authorization, kafkaDataEx);
                 }
-
-                nextResponseId++;
-                nextRequestAt = signaler.signalAt(currentTimeMillis() + maxAgeMillis, routeId, initialId, SIGNAL_NEXT_REQUEST);
             }
 
             private void cleanupNetwork(
                 long traceId)
             {
                 cancelNextRequestSignal();
+                releaseFlightIfNecessary();
 
                 doNetworkResetIfNecessary(traceId);
                 doNetworkAbortIfNecessary(traceId);
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.LongArrayList;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
+
+final class KafkaClientOffsetsCache
+{
+    static final long OFFSET_UNRESOLVED = Long.MIN_VALUE;
+    static final int ERROR_NONE = 0;
+
+    private static final long OFFSET_LATEST = KafkaOffsetType.LATEST.value();
+    private static final long OFFSET_EARLIEST = KafkaOffsetType.EARLIEST.value();
+
+    private final long maxAgeMillis;
+    private final Map<String, Long2LongHashMap> offsetsByTopic;
+    private final Map<String, Long2LongHashMap> errorsByTopic;
+    private final Map<String, Long2LongHashMap> expiresAtByTopic;
+    private final LongArrayList expiredKeys;
+
+    KafkaClientOffsetsCache(
+        long maxAgeMillis)
+    {
+        this.maxAgeMillis = maxAgeMillis;
+        this.offsetsByTopic = new HashMap<>();
+        this.errorsByTopic = new HashMap<>();
+        this.expiresAtByTopic = new HashMap<>();
+        this.expiredKeys = new LongArrayList();
+    }
+
+    void resolve(
+        String topic,
+        int partitionId,
+        long timestamp,
+        long offset,
+        long now)
+    {
+        final long key = offsetKey(partitionId, timestamp);
+        supplyEntries(errorsByTopic, topic).remove(key);
+        supplyEntries(offsetsByTopic, topic).put(key, offset);
+        supplyEntries(expiresAtByTopic, topic).put(key, now + maxAgeMillis);
+    }
+
+    void fail(
+        String topic,
+        int partitionId,
+        long timestamp,
+        int errorCode,
+        long now)
+    {
+        final long key = offsetKey(partitionId, timestamp);
+        supplyEntries(offsetsByTopic, topic).remove(key);
+        supplyEntries(errorsByTopic, topic).put(key, errorCode);
+        supplyEntries(expiresAtByTopic, topic).put(key, now + maxAgeMillis);
+    }
+
+    long resolved(
+        String topic,
+        int partitionId,
+        long timestamp,
+        long now)
+    {
+        final long key = offsetKey(partitionId, timestamp);
+        final Long2LongHashMap offsets = offsetsByTopic.get(topic);
+
+        return offsets != null && live(topic, key, now) ? offsets.get(key) : OFFSET_UNRESOLVED;
+    }
+
+    int failed(
+        String topic,
+        int partitionId,
+        long timestamp,
+        long now)
+    {
+        final long key = offsetKey(partitionId, timestamp);
+        final Long2LongHashMap errors = errorsByTopic.get(topic);
+
+        return errors != null && live(topic, key, now) ? (int) errors.get(key) : ERROR_NONE;
+    }
+
+    void invalidate(
+        String topic,
+        int partitionId)
+    {
+        remove(topic, offsetKey(partitionId, OFFSET_LATEST));
+        remove(topic, offsetKey(partitionId, OFFSET_EARLIEST));
+    }
+
+    boolean expire(
+        long now)
+    {
+        for (Iterator<Map.Entry<String, Long2LongHashMap>> i = expiresAtByTopic.entrySet().iterator(); i.hasNext();)
+        {
+            final Map.Entry<String, Long2LongHashMap> entry = i.next();
+            final String topic = entry.getKey();
+            final Long2LongHashMap expiresAt = entry.getValue();
+
+            expiredKeys.clear();
+            expiresAt.forEach((k, v) ->
+            {
+                if (v <= now)
+                {
+                    expiredKeys.addLong(k);
+                }
+            });
+
+            for (int index = 0; index < expiredKeys.size(); index++)
+            {
+                final long key = expiredKeys.getLong(index);
+                expiresAt.remove(key);
+                removeEntry(offsetsByTopic, topic, key);
+                removeEntry(errorsByTopic, topic, key);
+            }
+
+            if (expiresAt.isEmpty())
+            {
+                i.remove();
+                offsetsByTopic.remove(topic);
+                errorsByTopic.remove(topic);
+            }
+        }
+
+        return expiresAtByTopic.isEmpty();
+    }
+
+    private boolean live(
+        String topic,
+        long key,
+        long now)
+    {
+        final Long2LongHashMap expiresAt = expiresAtByTopic.get(topic);
+        final long expiry = expiresAt != null ? expiresAt.get(key) : OFFSET_UNRESOLVED;
+        final boolean live = expiry > now;
+
+        if (!live && expiry != OFFSET_UNRESOLVED)
+        {
+            remove(topic, key);
+        }
+
+        return live;
+    }
+
+    private void remove(
+        String topic,
+        long key)
+    {
+        removeEntry(expiresAtByTopic, topic, key);
+        removeEntry(offsetsByTopic, topic, key);
+        removeEntry(errorsByTopic, topic, key);
+    }
+
+    private static void removeEntry(
+        Map<String, Long2LongHashMap> entriesByTopic,
+        String topic,
+        long key)
+    {
+        final Long2LongHashMap entries = entriesByTopic.get(topic);
+        if (entries != null)
+        {
+            entries.remove(key);
+        }
+    }
+
+    private static Long2LongHashMap supplyEntries(
+        Map<String, Long2LongHashMap> entriesByTopic,
+        String topic)
+    {
+        return entriesByTopic.computeIfAbsent(topic, t -> new Long2LongHashMap(OFFSET_UNRESOLVED));
+    }
+
+    private static long offsetKey(
+        int partitionId,
+        long timestamp)
+    {
+        return ((long) partitionId << 32) | (timestamp & 0xffff_ffffL);
+    }
+}
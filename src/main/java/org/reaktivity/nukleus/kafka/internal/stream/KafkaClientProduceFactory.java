@@ -20,6 +20,7 @@ import static java.lang.Thread.currentThread;
 import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.util.Objects.requireNonNull;
 import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+import static org.reaktivity.nukleus.concurrent.Signaler.NO_CANCEL_ID;
 import static org.reaktivity.nukleus.kafka.internal.types.codec.RequestHeaderFW.FIELD_OFFSET_API_KEY;
 import static org.reaktivity.nukleus.kafka.internal.types.codec.message.RecordBatchFW.FIELD_OFFSET_LENGTH;
 import static org.reaktivity.nukleus.kafka.internal.types.codec.message.RecordBatchFW.FIELD_OFFSET_RECORD_COUNT;
@@ -108,6 +109,7 @@ public final class KafkaClientProduceFactory implements StreamFactory
     private static final int ERROR_NONE = 0;
 
     private static final int SIGNAL_NEXT_REQUEST = 1;
+    private static final int SIGNAL_LINGER_EXPIRED = 2;
 
     private static final DirectBuffer EMPTY_BUFFER = new UnsafeBuffer();
     private static final OctetsFW EMPTY_OCTETS = new OctetsFW().wrap(EMPTY_BUFFER, 0, 0);
@@ -167,6 +169,8 @@ public final class KafkaClientProduceFactory implements StreamFactory
 
     private final int produceMaxWaitMillis;
     private final long produceRequestMaxDelay;
+    private final long produceLingerMillis;
+    private final int produceBatchBytes;
     private final ProduceAck produceAcks;
     private final int kafkaTypeId;
     private final int tcpTypeId;
@@ -215,6 +219,8 @@ public final class KafkaClientProduceFactory implements StreamFactory
         this.decodeMaxBytes = decodePool.slotCapacity();
         this.encodeMaxBytes = Math.min(config.clientProduceMaxBytes(),
                 encodePool.slotCapacity() - PRODUCE_REQUEST_RECORDS_OFFSET_MAX);
+        this.produceLingerMillis = config.clientProduceLingerMillis();
+        this.produceBatchBytes = Math.min(config.clientProduceBatchBytes(), encodeMaxBytes);
         this.crc32c = new CRC32C();
     }
 
@@ -787,6 +793,13 @@ public final class KafkaClientProduceFactory implements StreamFactory
                 }
 
                 client.doEncodeRecord(traceId, timestamp, key, value, headers);
+                client.encodeSlotReserved += reserved;
+
+                if (produceLingerMillis != 0 && client.encodeableRecordBytes >= produceBatchBytes)
+                {
+                    client.doEncodeRequestIfNecessary(traceId);
+                }
+
                 client.doSignalNextRequestIfNecessary(traceId);
             }
         }
@@ -968,10 +981,13 @@ public final class KafkaClientProduceFactory implements StreamFactory
         private int encodeSlot = NO_SLOT;
         private int encodeSlotOffset;
         private int encodeSlotLimit;
+        private int encodeSlotReserved;
         private long encodeSlotTraceId;
 
         private long encodeableRecordBatchTimestamp;
         private long encodeableRecordBatchTimestampMax;
+        private long encodeableRecordBatchDeadline;
+        private long encodeableRecordBatchExpiresAt = NO_CANCEL_ID;
         private int encodeableRecordCount;
         private int encodeableRecordBytes;
         private int encodeableRequestBytes;
@@ -1182,9 +1198,18 @@ public final class KafkaClientProduceFactory implements StreamFactory
             final long traceId = signal.traceId();
             final int signalId = signal.signalId();
 
-            if (signalId == SIGNAL_NEXT_REQUEST)
+            switch (signalId)
             {
+            case SIGNAL_NEXT_REQUEST:
                 doEncodeRequestIfNecessary(traceId);
+                break;
+            case SIGNAL_LINGER_EXPIRED:
+                encodeableRecordBatchExpiresAt = NO_CANCEL_ID;
+                if (encodeableRecordCount != 0 && currentTimeMillis() >= encodeableRecordBatchDeadline)
+                {
+                    doEncodeRequestIfNecessary(traceId);
+                }
+                break;
             }
         }
 
@@ -1307,6 +1332,11 @@ public final class KafkaClientProduceFactory implements StreamFactory
                 encodeableRecordBatchTimestamp = timestamp;
             }
 
+            if (encodeableRecordCount == 0 && produceLingerMillis != 0)
+            {
+                encodeableRecordBatchDeadline = currentTimeMillis() + produceLingerMillis;
+            }
+
             final MutableDirectBuffer encodeBuffer = writeBuffer;
             final int encodeLimit = writeBuffer.capacity();
             final int encodeOffset = 0;
@@ -1419,6 +1449,8 @@ public final class KafkaClientProduceFactory implements StreamFactory
         private void doEncodeProduceRequest(
             long traceId)
         {
+            doCancelLingerIfNecessary();
+
             final MutableDirectBuffer encodeBuffer = writeBuffer;
             final int encodeOffset = 0;
             final int encodeLimit = encodeBuffer.capacity();
@@ -1509,6 +1541,7 @@ public final class KafkaClientProduceFactory implements StreamFactory
             encodeableRecordCount = 0;
             encodeableRecordBytes = 0;
             encodeableRecordBatchTimestamp = TIMESTAMP_NONE;
+            encodeSlotReserved = 0;
 
             assert encodeableRequestBytes == 0;
             encodeableRequestBytes = encodeSizeOf + encodeSlotLimit - encodeSlotOffset;
@@ -1680,17 +1713,47 @@ public final class KafkaClientProduceFactory implements StreamFactory
         {
             nextResponseId++;
 
-            stream.doApplicationWindowIfNecessary(traceId, encodeMaxBytes - encodeSlotLimit);
+            // records still buffered are not yet acknowledged, so credit never exceeds the reserved bytes acknowledged
+            stream.doApplicationWindowIfNecessary(traceId, encodeMaxBytes - Math.max(encodeSlotLimit, encodeSlotReserved));
 
             if (encodeSlot != NO_SLOT)
+            {
+                doSignalLingeredRequest(traceId);
+            }
+        }
+
+        private void doSignalLingeredRequest(
+            long traceId)
+        {
+            if (produceLingerMillis == 0 ||
+                encodeableRecordBytes >= produceBatchBytes ||
+                currentTimeMillis() >= encodeableRecordBatchDeadline)
             {
                 signaler.signalNow(routeId, initialId, SIGNAL_NEXT_REQUEST);
             }
+            else
+            {
+                doCancelLingerIfNecessary();
+                encodeableRecordBatchExpiresAt =
+                        signaler.signalAt(encodeableRecordBatchDeadline, routeId, initialId, SIGNAL_LINGER_EXPIRED);
+                signaledRequestId = nextRequestId + 1;
+            }
+        }
+
+        private void doCancelLingerIfNecessary()
+        {
+            if (encodeableRecordBatchExpiresAt != NO_CANCEL_ID)
+            {
+                signaler.cancel(encodeableRecordBatchExpiresAt);
+                encodeableRecordBatchExpiresAt = NO_CANCEL_ID;
+            }
         }
 
         private void cleanupNetwork(
             long traceId)
         {
+            doCancelLingerIfNecessary();
+
             doNetworkResetIfNecessary(traceId);
             doNetworkAbortIfNecessary(traceId);
 
@@ -1716,6 +1779,7 @@ public final class KafkaClientProduceFactory implements StreamFactory
                 encodeSlot = NO_SLOT;
                 encodeSlotOffset = 0;
                 encodeSlotLimit = 0;
+                encodeSlotReserved = 0;
                 encodeSlotTraceId = 0;
             }
         }
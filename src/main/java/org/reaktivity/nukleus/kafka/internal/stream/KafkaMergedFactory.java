@@ -15,7 +15,10 @@
  */
 package org.reaktivity.nukleus.kafka.internal.stream;
 
+import static java.lang.System.currentTimeMillis;
 import static org.reaktivity.nukleus.budget.BudgetCreditor.NO_CREDITOR_INDEX;
+import static org.reaktivity.nukleus.concurrent.Signaler.NO_CANCEL_ID;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore.NO_OFFSET;
 import static org.reaktivity.nukleus.kafka.internal.types.KafkaCapabilities.FETCH_ONLY;
 import static org.reaktivity.nukleus.kafka.internal.types.KafkaCapabilities.PRODUCE_ONLY;
 import static org.reaktivity.nukleus.kafka.internal.types.control.KafkaRouteExFW.Builder.DEFAULT_DELTA_TYPE;
@@ -28,6 +31,7 @@ import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 
 import org.agrona.DirectBuffer;
@@ -37,12 +41,14 @@ import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.collections.MutableInteger;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.concurrent.Signaler;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.function.MessageFunction;
 import org.reaktivity.nukleus.function.MessagePredicate;
 import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
 import org.reaktivity.nukleus.kafka.internal.KafkaNukleus;
 import org.reaktivity.nukleus.kafka.internal.budget.MergedBudgetCreditor;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore;
 import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
 import org.reaktivity.nukleus.kafka.internal.types.ArrayFW;
 import org.reaktivity.nukleus.kafka.internal.types.Flyweight;
@@ -113,6 +119,10 @@ public final class KafkaMergedFactory implements StreamFactory
     private static final Consumer<OctetsFW.Builder> EMPTY_EXTENSION = ex -> {};
     private static final MessageConsumer NO_RECEIVER = (m, b, i, l) -> {};
 
+    private static final long NO_CONSUMER_ID = 0L;
+
+    private static final int SIGNAL_COMMIT_OFFSETS = 1;
+
     private static final List<KafkaMergedFilter> EMPTY_MERGED_FILTERS = Collections.emptyList();
 
     private final RouteFW routeRO = new RouteFW();
@@ -148,32 +158,42 @@ public final class KafkaMergedFactory implements StreamFactory
 
     private final int kafkaTypeId;
     private final RouteManager router;
+    private final Signaler signaler;
     private final MutableDirectBuffer writeBuffer;
     private final MutableDirectBuffer extBuffer;
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
     private final Long2ObjectHashMap<MessageConsumer> correlations;
     private final MergedBudgetCreditor creditor;
+    private final KafkaCacheOffsetStore offsetStore;
+    private final long offsetsCommitMillis;
 
     public KafkaMergedFactory(
         KafkaConfiguration config,
         RouteManager router,
+        Signaler signaler,
         MutableDirectBuffer writeBuffer,
         LongUnaryOperator supplyInitialId,
         LongUnaryOperator supplyReplyId,
         LongSupplier supplyTraceId,
         ToIntFunction<String> supplyTypeId,
         Long2ObjectHashMap<MessageConsumer> correlations,
-        MergedBudgetCreditor creditor)
+        MergedBudgetCreditor creditor,
+        Supplier<KafkaCacheOffsetStore> supplyOffsetStore)
     {
         this.kafkaTypeId = supplyTypeId.applyAsInt(KafkaNukleus.NAME);
         this.router = router;
+        this.signaler = signaler;
         this.writeBuffer = new UnsafeBuffer(new byte[writeBuffer.capacity()]);
         this.extBuffer = new UnsafeBuffer(new byte[writeBuffer.capacity()]);
         this.supplyInitialId = supplyInitialId;
         this.supplyReplyId = supplyReplyId;
         this.correlations = correlations;
         this.creditor = creditor;
+        this.offsetStore = supplyOffsetStore != null && config.cacheConsumerOffsetsCapacity() > 0
+                ? supplyOffsetStore.get()
+                : null;
+        this.offsetsCommitMillis = config.cacheConsumerOffsetsCommitMillis();
     }
 
     @Override
@@ -227,6 +247,7 @@ public final class KafkaMergedFactory implements StreamFactory
 
             final KafkaOffsetFW partition = partitions.matchFirst(p -> p.partitionId() == -1L);
             final long defaultOffset = partition != null ? partition.partitionOffset() : KafkaOffsetType.EARLIEST.value();
+            final boolean defaultOffsetExplicit = partition != null;
 
             final Long2LongHashMap initialOffsetsById = new Long2LongHashMap(-3L);
             partitions.forEach(p ->
@@ -240,6 +261,11 @@ public final class KafkaMergedFactory implements StreamFactory
             });
             List<KafkaMergedFilter> mergedFilters = asMergedFilters(filters);
 
+            // offsets are only tracked for clients that identify themselves via a non-zero affinity
+            final long consumerId = offsetStore != null && affinity != 0L
+                    ? consumerId(routeId, authorization, affinity, topic, deltaType, filters)
+                    : NO_CONSUMER_ID;
+
             newStream = new KafkaMergedStream(
                     sender,
                     routeId,
@@ -251,13 +277,39 @@ public final class KafkaMergedFactory implements StreamFactory
                     capabilities,
                     initialOffsetsById,
                     defaultOffset,
+                    defaultOffsetExplicit,
                     mergedFilters,
-                    deltaType)::onMergedMessage;
+                    deltaType,
+                    consumerId)::onMergedMessage;
         }
 
         return newStream;
     }
 
+    private static long consumerId(
+        long routeId,
+        long authorization,
+        long affinity,
+        String topic,
+        KafkaDeltaType deltaType,
+        ArrayFW<KafkaFilterFW> filters)
+    {
+        long hash = routeId;
+        hash = hash * 31L + authorization;
+        hash = hash * 31L + affinity;
+        hash = hash * 31L + (topic != null ? topic.hashCode() : 0);
+        hash = hash * 31L + deltaType.ordinal();
+
+        final DirectBuffer buffer = filters.buffer();
+        for (int index = filters.offset(); index < filters.limit(); index++)
+        {
+            hash = hash * 31L + buffer.getByte(index);
+        }
+
+        final long consumerId = hash * 0x9E37_79B9_7F4A_7C15L;
+        return consumerId != NO_CONSUMER_ID ? consumerId : 1L;
+    }
+
     private static List<KafkaMergedFilter> asMergedFilters(
         ArrayFW<KafkaFilterFW> filters)
     {
@@ -683,8 +735,10 @@ public final class KafkaMergedFactory implements StreamFactory
         private final Int2IntHashMap leadersByPartitionId;
         private final Long2LongHashMap nextOffsetsById;
         private final long defaultOffset;
+        private final boolean defaultOffsetExplicit;
         private final List<KafkaMergedFilter> filters;
         private final KafkaDeltaType deltaType;
+        private final long consumerId;
 
         private int state;
         private KafkaCapabilities capabilities;
@@ -699,6 +753,7 @@ public final class KafkaMergedFactory implements StreamFactory
         private int nextNullKeyHash;
         private int fetchStreamIndex;
         private long mergedReplyBudgetId = NO_CREDITOR_INDEX;
+        private long offsetsCommitId = NO_CANCEL_ID;
 
         private KafkaUnmergedProduceStream producer;
 
@@ -713,8 +768,10 @@ public final class KafkaMergedFactory implements StreamFactory
             KafkaCapabilities capabilities,
             Long2LongHashMap initialOffsetsById,
             long defaultOffset,
+            boolean defaultOffsetExplicit,
             List<KafkaMergedFilter> filters,
-            KafkaDeltaType deltaType)
+            KafkaDeltaType deltaType,
+            long consumerId)
         {
             this.sender = sender;
             this.routeId = routeId;
@@ -732,8 +789,10 @@ public final class KafkaMergedFactory implements StreamFactory
             this.leadersByPartitionId = new Int2IntHashMap(-1);
             this.nextOffsetsById = initialOffsetsById;
             this.defaultOffset = defaultOffset;
+            this.defaultOffsetExplicit = defaultOffsetExplicit;
             this.filters = filters;
             this.deltaType = deltaType;
+            this.consumerId = consumerId;
         }
 
         private void onMergedMessage(
@@ -975,6 +1034,7 @@ public final class KafkaMergedFactory implements StreamFactory
             final long traceId = reset.traceId();
 
             state = KafkaState.closedReply(state);
+            commitOffsets();
             nextOffsetsById.clear();
 
             describeStream.doDescribeReplyResetIfNecessary(traceId);
@@ -1038,6 +1098,7 @@ public final class KafkaMergedFactory implements StreamFactory
                 final KafkaDeltaFW delta = kafkaFetchDataEx.delta();
 
                 nextOffsetsById.put(partitionId, partitionOffset + 1);
+                commitOffsetsIfNecessary();
 
                 newKafkaDataEx = kafkaDataExRW.wrap(extBuffer, 0, extBuffer.capacity())
                      .typeId(kafkaTypeId)
@@ -1140,6 +1201,7 @@ public final class KafkaMergedFactory implements StreamFactory
                 produceStreams.forEach(f -> f.doProduceReplyResetIfNecessary(traceId));
 
                 state = KafkaState.closingReply(state);
+                commitOffsets();
                 nextOffsetsById.clear();
                 fetchStreams.forEach(f -> f.doFetchInitialAbortIfNecessary(traceId));
                 if (fetchStreams.isEmpty())
@@ -1180,6 +1242,7 @@ public final class KafkaMergedFactory implements StreamFactory
                 produceStreams.forEach(f -> f.doProduceInitialAbortIfNecessary(traceId));
 
                 state = KafkaState.closingInitial(state);
+                commitOffsets();
                 nextOffsetsById.clear();
                 fetchStreams.forEach(f -> f.doFetchReplyResetIfNecessary(traceId));
                 creditor.cleanupChild(mergedReplyBudgetId);
@@ -1293,7 +1356,7 @@ public final class KafkaMergedFactory implements StreamFactory
             long traceId,
             long partitionId)
         {
-            nextOffsetsById.putIfAbsent(partitionId, defaultOffset);
+            nextOffsetsById.putIfAbsent(partitionId, committedOffset((int) partitionId));
 
             if (nextOffsetsById.size() == fetchStreams.size())
             {
@@ -1349,11 +1412,72 @@ public final class KafkaMergedFactory implements StreamFactory
             long partitionOffset = nextOffsetsById.get(partitionId);
             if (partitionOffset == nextOffsetsById.missingValue())
             {
-                partitionOffset = defaultOffset;
+                partitionOffset = committedOffset(partitionId);
+            }
+            return partitionOffset;
+        }
+
+        private long committedOffset(
+            int partitionId)
+        {
+            long partitionOffset = defaultOffset;
+
+            if (consumerId != NO_CONSUMER_ID && !defaultOffsetExplicit)
+            {
+                final long committedOffset = offsetStore.offset(consumerId, partitionId);
+                if (committedOffset != NO_OFFSET)
+                {
+                    partitionOffset = committedOffset;
+                }
             }
+
             return partitionOffset;
         }
 
+        private void commitOffsetsIfNecessary()
+        {
+            if (consumerId != NO_CONSUMER_ID && offsetsCommitId == NO_CANCEL_ID)
+            {
+                offsetsCommitId = signaler.signalAt(
+                        currentTimeMillis() + offsetsCommitMillis,
+                        SIGNAL_COMMIT_OFFSETS,
+                        this::onMergedSignal);
+            }
+        }
+
+        private void onMergedSignal(
+            int signalId)
+        {
+            assert signalId == SIGNAL_COMMIT_OFFSETS;
+
+            offsetsCommitId = NO_CANCEL_ID;
+            commitOffsets();
+        }
+
+        private void commitOffsets()
+        {
+            if (offsetsCommitId != NO_CANCEL_ID)
+            {
+                signaler.cancel(offsetsCommitId);
+                offsetsCommitId = NO_CANCEL_ID;
+            }
+
+            if (consumerId != NO_CONSUMER_ID)
+            {
+                nextOffsetsById.longForEach(this::commitOffset);
+            }
+        }
+
+        private void commitOffset(
+            long partitionId,
+            long partitionOffset)
+        {
+            if (partitionOffset >= 0L)
+            {
+                offsetStore.commit(consumerId, (int) partitionId, partitionOffset);
+            }
+        }
+
         private KafkaUnmergedFetchStream findFetchPartitionLeader(
             int partitionId)
         {
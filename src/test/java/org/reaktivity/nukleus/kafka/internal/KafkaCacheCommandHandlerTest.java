@@ -0,0 +1,213 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_COMMAND_TIMEOUT_MILLIS;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_DIRECTORY;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_BOOTSTRAP;
+
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.function.CommandHandler;
+import org.reaktivity.nukleus.kafka.internal.types.control.ErrorFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandResultFW;
+import org.reaktivity.nukleus.kafka.internal.types.control.KafkaCacheCommandType;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class KafkaCacheCommandHandlerTest
+{
+    private final KafkaCacheCommandFW.Builder commandRW = new KafkaCacheCommandFW.Builder();
+    private final KafkaCacheCommandResultFW resultRO = new KafkaCacheCommandResultFW();
+
+    private final MutableDirectBuffer commandBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+    private final MutableDirectBuffer replyBuffer = new UnsafeBuffer(ByteBuffer.allocate(8192));
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    private int replyTypeId;
+    private String replyResult;
+    private Thread elektronThread;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @After
+    public void stopElektron() throws Exception
+    {
+        running.set(false);
+
+        if (elektronThread != null)
+        {
+            elektronThread.join();
+        }
+    }
+
+    @Test
+    public void shouldReportRollNotAppliedWithoutFanout() throws Exception
+    {
+        KafkaNukleus nukleus = newNukleus(true, 5000L);
+        startElektron(nukleus.supplyElektron().agent());
+
+        handle(nukleus, KafkaCacheCommandType.ROLL, "cache", "test", 0);
+
+        assertEquals(KafkaCacheCommandResultFW.TYPE_ID, replyTypeId);
+        JsonObject status = new JsonParser().parse(replyResult).getAsJsonObject();
+        assertEquals(0, status.get("applied").getAsInt());
+        JsonArray cores = status.getAsJsonArray("cores");
+        assertEquals(1, cores.size());
+        assertEquals(0, cores.get(0).getAsJsonObject().getAsJsonArray("partitions").size());
+    }
+
+    @Test
+    public void shouldReportTimeoutWhenCoreIdle() throws Exception
+    {
+        KafkaNukleus nukleus = newNukleus(true, 10L);
+        nukleus.supplyElektron();
+
+        handle(nukleus, KafkaCacheCommandType.EVICT, "cache", "test", -1);
+
+        assertEquals(KafkaCacheCommandResultFW.TYPE_ID, replyTypeId);
+        JsonObject status = new JsonParser().parse(replyResult).getAsJsonObject();
+        assertEquals(0, status.get("applied").getAsInt());
+        JsonObject core = status.getAsJsonArray("cores").get(0).getAsJsonObject();
+        assertEquals("timeout", core.get("error").getAsString());
+    }
+
+    @Test
+    public void shouldReportUnownedPartitionsInStats() throws Exception
+    {
+        KafkaNukleus nukleus = newNukleus(true, 5000L);
+        startElektron(nukleus.supplyElektron().agent());
+        nukleus.supplyCache("cache").supplyTopic("test").supplyPartition(0);
+
+        handle(nukleus, KafkaCacheCommandType.STATS, "cache", "test", -1);
+
+        assertEquals(KafkaCacheCommandResultFW.TYPE_ID, replyTypeId);
+        JsonObject stats = new JsonParser().parse(replyResult).getAsJsonObject();
+        JsonArray unowned = stats.getAsJsonArray("unowned");
+        assertEquals(1, unowned.size());
+        assertEquals(0, unowned.get(0).getAsInt());
+    }
+
+    @Test
+    public void shouldRejectStatsWhenTopicUnknown() throws Exception
+    {
+        KafkaNukleus nukleus = newNukleus(true, 5000L);
+        startElektron(nukleus.supplyElektron().agent());
+
+        handle(nukleus, KafkaCacheCommandType.STATS, "cache", "test", -1);
+
+        assertEquals(ErrorFW.TYPE_ID, replyTypeId);
+    }
+
+    @Test
+    public void shouldReportNotWarmWithoutFanout() throws Exception
+    {
+        KafkaNukleus nukleus = newNukleus(true, 5000L);
+        startElektron(nukleus.supplyElektron().agent());
+        nukleus.supplyCache("cache").supplyTopic("test").supplyPartition(0);
+
+        handle(nukleus, KafkaCacheCommandType.PREWARM, "cache", "test", -1);
+
+        assertEquals(KafkaCacheCommandResultFW.TYPE_ID, replyTypeId);
+        JsonObject status = new JsonParser().parse(replyResult).getAsJsonObject();
+        assertFalse(status.get("warm").getAsBoolean());
+    }
+
+    @Test
+    public void shouldRejectPrewarmWithoutBootstrap() throws Exception
+    {
+        KafkaNukleus nukleus = newNukleus(false, 5000L);
+        startElektron(nukleus.supplyElektron().agent());
+
+        handle(nukleus, KafkaCacheCommandType.PREWARM, "cache", "test", -1);
+
+        assertEquals(ErrorFW.TYPE_ID, replyTypeId);
+    }
+
+    private KafkaNukleus newNukleus(
+        boolean bootstrap,
+        long timeoutMillis)
+    {
+        Properties properties = new Properties();
+        properties.setProperty(KAFKA_CACHE_DIRECTORY.name(), tempFolder.getRoot().getAbsolutePath());
+        properties.setProperty(KAFKA_CACHE_SERVER_BOOTSTRAP.name(), Boolean.toString(bootstrap));
+        properties.setProperty(KAFKA_CACHE_COMMAND_TIMEOUT_MILLIS.name(), Long.toString(timeoutMillis));
+
+        return new KafkaNukleus(new KafkaConfiguration(new Configuration(properties)));
+    }
+
+    private void startElektron(
+        Agent agent)
+    {
+        elektronThread = new Thread(() ->
+        {
+            while (running.get())
+            {
+                agent.doWork();
+            }
+        });
+        elektronThread.start();
+    }
+
+    private void handle(
+        KafkaNukleus nukleus,
+        KafkaCacheCommandType type,
+        String cache,
+        String topic,
+        int partitionId)
+    {
+        KafkaCacheCommandFW command = commandRW.wrap(commandBuffer, 0, commandBuffer.capacity())
+                                               .correlationId(1L)
+                                               .nukleus(KafkaNukleus.NAME)
+                                               .type(t -> t.set(type))
+                                               .cache(cache)
+                                               .topic(topic)
+                                               .partitionId(partitionId)
+                                               .build();
+
+        CommandHandler handler = nukleus.commandHandler(KafkaCacheCommandFW.TYPE_ID);
+        handler.handle(command.buffer(), command.offset(), command.sizeof(), this::onReply, replyBuffer);
+    }
+
+    private void onReply(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        replyTypeId = msgTypeId;
+        replyResult = msgTypeId == KafkaCacheCommandResultFW.TYPE_ID
+                ? resultRO.wrap(buffer, index, index + length).result().asString()
+                : null;
+    }
+}
@@ -16,10 +16,30 @@
 package org.reaktivity.nukleus.kafka.internal;
 
 import static org.junit.Assert.assertEquals;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_PRODUCE_LOCAL_ACK;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_PRODUCE_LOCAL_ACK_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_RECONNECT_DELAY;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_RECONNECT_DELAY_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_FETCH_READ_COMMITTED;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_BATCH_BYTES;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_BATCH_BYTES_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_LINGER_MILLIS;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_LINGER_MILLIS_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_RACK;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_RACK_NAME;
 
 import org.junit.Test;
 
@@ -29,6 +49,16 @@ public class KafkaConfigurationTest
     public void shouldVerifyConstants() throws Exception
     {
         assertEquals(KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS.name(), KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS_NAME);
+        assertEquals(KAFKA_CLIENT_PRODUCE_LINGER_MILLIS.name(), KAFKA_CLIENT_PRODUCE_LINGER_MILLIS_NAME);
+        assertEquals(KAFKA_CLIENT_PRODUCE_BATCH_BYTES.name(), KAFKA_CLIENT_PRODUCE_BATCH_BYTES_NAME);
+        assertEquals(KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS.name(), KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS_NAME);
+        assertEquals(KAFKA_CLIENT_FETCH_READ_COMMITTED.name(), KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME);
+        assertEquals(KAFKA_CLIENT_RACK.name(), KAFKA_CLIENT_RACK_NAME);
         assertEquals(KAFKA_CACHE_SERVER_RECONNECT_DELAY.name(), KAFKA_CACHE_SERVER_RECONNECT_DELAY_NAME);
+        assertEquals(KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS.name(), KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS_NAME);
+        assertEquals(KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS.name(), KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS_NAME);
+        assertEquals(KAFKA_CACHE_PRODUCE_LOCAL_ACK.name(), KAFKA_CACHE_PRODUCE_LOCAL_ACK_NAME);
+        assertEquals(KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY.name(), KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY_NAME);
+        assertEquals(KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS.name(), KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS_NAME);
     }
 }
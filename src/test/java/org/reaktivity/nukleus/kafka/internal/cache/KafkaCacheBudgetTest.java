@@ -0,0 +1,152 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
+import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
+import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
+
+public class KafkaCacheBudgetTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldAccountBytes() throws Exception
+    {
+        KafkaCacheBudget budget = new KafkaCacheBudget(100L);
+
+        budget.account(60L);
+        budget.account(30L);
+        budget.account(-20L);
+
+        assertEquals(70L, budget.bytes());
+    }
+
+    @Test
+    public void shouldExceedOnlyForLargestPartition() throws Exception
+    {
+        KafkaCacheBudget budget = new KafkaCacheBudget(0L);
+
+        KafkaCachePartition larger = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 0, 2);
+        KafkaCachePartition smaller = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 1, 1);
+
+        assertTrue(larger.bytes() > smaller.bytes());
+        assertTrue(budget.exceeded(larger));
+        assertFalse(budget.exceeded(smaller));
+    }
+
+    @Test
+    public void shouldNotExceedForCompactedPartition() throws Exception
+    {
+        KafkaCacheBudget budget = new KafkaCacheBudget(0L);
+
+        KafkaCachePartition compacted = newPartition(budget, KafkaCacheCleanupPolicy.COMPACT, 0, 2);
+        KafkaCachePartition deleted = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 1, 1);
+
+        assertFalse(budget.exceeded(compacted));
+        assertTrue(budget.exceeded(deleted));
+    }
+
+    @Test
+    public void shouldNotExceedForClosedPartition() throws Exception
+    {
+        KafkaCacheBudget budget = new KafkaCacheBudget(0L);
+
+        KafkaCachePartition larger = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 0, 2);
+        KafkaCachePartition smaller = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 1, 1);
+
+        larger.close();
+
+        assertFalse(budget.exceeded(larger));
+        assertTrue(budget.exceeded(smaller));
+    }
+
+    @Test
+    public void shouldNotExceedWithinCapacity() throws Exception
+    {
+        KafkaCacheBudget budget = new KafkaCacheBudget(Long.MAX_VALUE);
+
+        KafkaCachePartition partition = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 0, 1);
+
+        assertFalse(budget.exceeded(partition));
+    }
+
+    @Test
+    public void shouldNeverExceedWhenUnlimited() throws Exception
+    {
+        KafkaCacheBudget budget = new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED);
+
+        KafkaCachePartition partition = newPartition(budget, KafkaCacheCleanupPolicy.DELETE, 0, 1);
+        budget.account(Long.MAX_VALUE);
+
+        assertFalse(budget.exceeded(partition));
+    }
+
+    private KafkaCachePartition newPartition(
+        KafkaCacheBudget budget,
+        KafkaCacheCleanupPolicy cleanupPolicy,
+        int id,
+        int segments) throws Exception
+    {
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        config.cleanupPolicy = cleanupPolicy;
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        KafkaCachePartition partition = new KafkaCachePartition(tempFolder.newFolder().toPath(), config, "cache", "test", id,
+                65536, long[]::new, budget, new KafkaCachePrefetcher(0), new KafkaCacheFlusher(0L, 0L, false));
+
+        long offset = 10L;
+        partition.append(offset);
+        for (int segment = 0; segment < segments; segment++)
+        {
+            partition.writeEntry(++offset, 1000L, key, headers, value, null, KafkaDeltaType.NONE);
+            partition.append(++offset);
+        }
+
+        return partition;
+    }
+}
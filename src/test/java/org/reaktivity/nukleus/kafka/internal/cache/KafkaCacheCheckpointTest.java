@@ -0,0 +1,76 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCheckpoint.NO_OFFSET;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KafkaCacheCheckpointTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldNotReadMissingCheckpoint() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath().resolve("checkpoint");
+        KafkaCacheCheckpoint checkpoint = new KafkaCacheCheckpoint(location);
+
+        assertFalse(checkpoint.read());
+        assertEquals(NO_OFFSET, checkpoint.baseOffset());
+        assertEquals(NO_OFFSET, checkpoint.offset());
+    }
+
+    @Test
+    public void shouldWriteThenReadCheckpoint() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath().resolve("checkpoint");
+
+        KafkaCacheCheckpoint checkpoint = new KafkaCacheCheckpoint(location);
+        checkpoint.write(10L, 1000L, 12L, 256, 1);
+        checkpoint.write(20L, 2000L, 21L, 128, 2);
+
+        KafkaCacheCheckpoint recovered = new KafkaCacheCheckpoint(location);
+
+        assertTrue(recovered.read());
+        assertEquals(20L, recovered.baseOffset());
+        assertEquals(2000L, recovered.baseTimestamp());
+        assertEquals(21L, recovered.offset());
+        assertEquals(128, recovered.position());
+        assertEquals(2, recovered.entryFormat());
+    }
+
+    @Test
+    public void shouldNotReadDeletedCheckpoint() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath().resolve("checkpoint");
+
+        KafkaCacheCheckpoint checkpoint = new KafkaCacheCheckpoint(location);
+        checkpoint.write(10L, 1000L, 12L, 256, 1);
+        checkpoint.delete();
+
+        assertFalse(new KafkaCacheCheckpoint(location).read());
+        assertEquals(NO_OFFSET, checkpoint.offset());
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorFactory.KafkaCacheCursor;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorFactory.KafkaFilterCondition;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition.Node;
+import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaConditionFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaFilterFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
+import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
+
+public class KafkaCacheCursorFactoryTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final KafkaCacheCursorFactory cursorFactory = new KafkaCacheCursorFactory();
+
+    @Test
+    public void shouldCanonicalizeDuplicateAndReorderedConditions() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        Array32FW<KafkaFilterFW> filters = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, 0, writeBuffer.capacity())
+                .item(f -> f.conditionsItem(c -> key(c, "key1"))
+                            .conditionsItem(c -> header(c, "name1", "value1"))
+                            .conditionsItem(c -> key(c, "key1"))
+                            .conditionsItem(c -> header(c, "name2", "value2")))
+                .build();
+
+        Array32FW<KafkaFilterFW> reordered = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, filters.limit(), writeBuffer.capacity())
+                .item(f -> f.conditionsItem(c -> header(c, "name2", "value2"))
+                            .conditionsItem(c -> header(c, "name1", "value1"))
+                            .conditionsItem(c -> key(c, "key1")))
+                .build();
+
+        KafkaFilterCondition condition = cursorFactory.asCondition(filters);
+        KafkaFilterCondition reorderedCondition = cursorFactory.asCondition(reordered);
+
+        assertEquals(condition, reorderedCondition);
+        assertEquals(condition.hashCode(), reorderedCondition.hashCode());
+        assertEquals(condition.toString(), reorderedCondition.toString());
+        assertTrue(condition.toString().startsWith("And["));
+        assertEquals(3, condition.toString().split(",").length);
+    }
+
+    @Test
+    public void shouldCanonicalizeDuplicateAndReorderedFilters() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        Array32FW<KafkaFilterFW> filters = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, 0, writeBuffer.capacity())
+                .item(f -> f.conditionsItem(c -> key(c, "key1"))
+                            .conditionsItem(c -> header(c, "name1", "value1")))
+                .item(f -> f.conditionsItem(c -> key(c, "key2")))
+                .item(f -> f.conditionsItem(c -> header(c, "name1", "value1"))
+                            .conditionsItem(c -> key(c, "key1")))
+                .build();
+
+        Array32FW<KafkaFilterFW> reordered = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, filters.limit(), writeBuffer.capacity())
+                .item(f -> f.conditionsItem(c -> key(c, "key2")))
+                .item(f -> f.conditionsItem(c -> key(c, "key1"))
+                            .conditionsItem(c -> header(c, "name1", "value1")))
+                .build();
+
+        KafkaFilterCondition condition = cursorFactory.asCondition(filters);
+        KafkaFilterCondition reorderedCondition = cursorFactory.asCondition(reordered);
+
+        assertEquals(condition, reorderedCondition);
+        assertEquals(condition.toString(), reorderedCondition.toString());
+        assertTrue(condition.toString().startsWith("Or["));
+    }
+
+    @Test
+    public void shouldNotCanonicalizeDistinctConditions() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        Array32FW<KafkaFilterFW> filters = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, 0, writeBuffer.capacity())
+                .item(f -> f.conditionsItem(c -> key(c, "key1"))
+                            .conditionsItem(c -> header(c, "name1", "value1")))
+                .build();
+
+        Array32FW<KafkaFilterFW> distinct = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, filters.limit(), writeBuffer.capacity())
+                .item(f -> f.conditionsItem(c -> key(c, "key1"))
+                            .conditionsItem(c -> header(c, "name1", "value2")))
+                .build();
+
+        assertNotEquals(cursorFactory.asCondition(filters), cursorFactory.asCondition(distinct));
+    }
+
+    @Test
+    public void shouldEqualValuesOfEveryLength() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        for (int length = 0; length <= 3 * Long.BYTES + 1; length++)
+        {
+            byte[] bytes = new byte[length];
+            for (int index = 0; index < length; index++)
+            {
+                bytes[index] = (byte) ('a' + index);
+            }
+
+            // odd offset, so the long-wise comparison is also unaligned
+            OctetsFW octets = new OctetsFW.Builder()
+                    .wrap(writeBuffer, 1, writeBuffer.capacity())
+                    .set(bytes)
+                    .build();
+
+            DirectBuffer value = new UnsafeBuffer(bytes.clone());
+            assertTrue(KafkaFilterCondition.equalsValue(octets, value));
+
+            DirectBuffer longer = new UnsafeBuffer(new byte[length + 1]);
+            assertFalse(KafkaFilterCondition.equalsValue(octets, longer));
+
+            for (int index = 0; index < length; index++)
+            {
+                byte[] different = bytes.clone();
+                different[index]++;
+                assertFalse(KafkaFilterCondition.equalsValue(octets, new UnsafeBuffer(different)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadDeltaValueWhenAncestorDelivered() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+        KafkaCachePartition partition = newPartitionWithDescendant(writeBuffer);
+
+        Array32FW<KafkaFilterFW> filters = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, 512, writeBuffer.capacity())
+                .build();
+
+        KafkaCacheCursor cursor = cursorFactory.newCursor(cursorFactory.asCondition(filters), KafkaDeltaType.JSON_PATCH);
+        cursor.init(partition.head(), 10L, 11L);
+
+        KafkaCacheEntry entry10 = cursor.next(new KafkaCacheEntry());
+        assertNotNull(entry10);
+        assertEquals(10L, entry10.offset$());
+        assertEquals(-1L, cursor.ancestor());
+        assertEquals("{\"a\":1}", asString(cursor.value()));
+
+        cursor.advance(11L);
+
+        KafkaCacheEntry entry11 = cursor.next(new KafkaCacheEntry());
+        assertNotNull(entry11);
+        assertEquals(11L, entry11.offset$());
+        assertEquals(10L, entry11.ancestor());
+        assertEquals("{\"a\":2}", asString(entry11.value()));
+        assertEquals(10L, cursor.ancestor());
+
+        String delta = asString(cursor.value());
+        assertTrue(delta, delta.startsWith("["));
+        assertTrue(delta, delta.contains("\"replace\""));
+        assertTrue(delta, delta.contains("\"/a\""));
+
+        cursor.close();
+    }
+
+    @Test
+    public void shouldReadFullValueWhenAncestorNotDelivered() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+        KafkaCachePartition partition = newPartitionWithDescendant(writeBuffer);
+
+        Array32FW<KafkaFilterFW> filters = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, 512, writeBuffer.capacity())
+                .build();
+
+        KafkaCacheCursor cursor = cursorFactory.newCursor(cursorFactory.asCondition(filters), KafkaDeltaType.JSON_PATCH);
+        cursor.init(partition.head(), 11L, 11L);
+
+        KafkaCacheEntry entry11 = cursor.next(new KafkaCacheEntry());
+        assertNotNull(entry11);
+        assertEquals(11L, entry11.offset$());
+        assertEquals(10L, entry11.ancestor());
+        assertEquals(-1L, cursor.ancestor());
+        assertEquals("{\"a\":2}", asString(cursor.value()));
+
+        cursor.close();
+    }
+
+    @Test
+    public void shouldReadFullValueWithoutDeltaType() throws Exception
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+        KafkaCachePartition partition = newPartitionWithDescendant(writeBuffer);
+
+        Array32FW<KafkaFilterFW> filters = new Array32FW.Builder<>(new KafkaFilterFW.Builder(), new KafkaFilterFW())
+                .wrap(writeBuffer, 512, writeBuffer.capacity())
+                .build();
+
+        KafkaCacheCursor cursor = cursorFactory.newCursor(cursorFactory.asCondition(filters), KafkaDeltaType.NONE);
+        cursor.init(partition.head(), 10L, 11L);
+
+        assertNotNull(cursor.next(new KafkaCacheEntry()));
+        cursor.advance(11L);
+
+        KafkaCacheEntry entry11 = cursor.next(new KafkaCacheEntry());
+        assertNotNull(entry11);
+        assertEquals(11L, entry11.offset$());
+        assertEquals(10L, cursor.ancestor());
+        assertEquals("{\"a\":2}", asString(cursor.value()));
+
+        cursor.close();
+    }
+
+    private KafkaCachePartition newPartitionWithDescendant(
+        MutableDirectBuffer writeBuffer) throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+                .length(3)
+                .value(k -> k.set("key".getBytes(UTF_8)))
+                .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value10 = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("{\"a\":1}".getBytes(UTF_8))
+                .build();
+
+        OctetsFW value11 = new OctetsFW.Builder()
+                .wrap(writeBuffer, value10.limit(), writeBuffer.capacity())
+                .set("{\"a\":2}".getBytes(UTF_8))
+                .build();
+
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+        Node head10 = partition.append(10L);
+
+        partition.writeEntry(10L, 0L, key, headers, value10, null, KafkaDeltaType.JSON_PATCH);
+
+        long keyHash = partition.computeKeyHash(key);
+        KafkaCacheEntry ancestor = head10.findAndMarkAncestor(key, keyHash, 11L, new KafkaCacheEntry());
+        assertNotNull(ancestor);
+
+        partition.writeEntry(11L, 0L, key, headers, value11, ancestor, KafkaDeltaType.JSON_PATCH);
+
+        return partition;
+    }
+
+    private static String asString(
+        OctetsFW value)
+    {
+        return value.buffer().getStringWithoutLengthUtf8(value.offset(), value.sizeof());
+    }
+
+    private static void key(
+        KafkaConditionFW.Builder condition,
+        String key)
+    {
+        final byte[] value = key.getBytes(UTF_8);
+        condition.key(k -> k.length(value.length).value(new UnsafeBuffer(value), 0, value.length));
+    }
+
+    private static void header(
+        KafkaConditionFW.Builder condition,
+        String name,
+        String value)
+    {
+        final byte[] nameBytes = name.getBytes(UTF_8);
+        final byte[] valueBytes = value.getBytes(UTF_8);
+        condition.header(h -> h.nameLen(nameBytes.length).name(new UnsafeBuffer(nameBytes), 0, nameBytes.length)
+                               .valueLen(valueBytes.length).value(new UnsafeBuffer(valueBytes), 0, valueBytes.length));
+    }
+}
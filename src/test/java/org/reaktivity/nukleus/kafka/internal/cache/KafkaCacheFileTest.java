@@ -17,6 +17,7 @@ package org.reaktivity.nukleus.kafka.internal.cache;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.nio.ByteBuffer;
@@ -25,6 +26,7 @@ import java.nio.file.Path;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntArrayList;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Rule;
 import org.junit.Test;
@@ -68,6 +70,23 @@ public class KafkaCacheFileTest
         assertEquals("Hello, world", new String(Files.readAllBytes(location), UTF_8));
     }
 
+    @Test
+    public void shouldPrefetchBytes() throws Exception
+    {
+        Path location = tempFolder.newFile().toPath();
+        int capacity = 1024;
+        MutableDirectBuffer appendBuf = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        try (KafkaCacheFile file = new KafkaCacheFile(location, capacity, appendBuf))
+        {
+            file.appendBytes(new UnsafeBuffer("Hello, world".getBytes(UTF_8)));
+
+            assertEquals('H', file.prefetch(0, 4096));
+            assertEquals('w', file.prefetch(7, 4096));
+            assertEquals(0, file.prefetch(12, 4096));
+        }
+    }
+
     @Test
     public void shouldWriteBytes() throws Exception
     {
@@ -84,6 +103,57 @@ public class KafkaCacheFileTest
         assertEquals("Hello, again", new String(Files.readAllBytes(location), UTF_8));
     }
 
+    @Test
+    public void shouldCompressLogBlocks() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        Path logPath = location.resolve("00000000000000000000.log");
+        int capacity = 0x40000;
+        MutableDirectBuffer appendBuf = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        int recordCount = 2000;
+        IntArrayList positions = new IntArrayList();
+        IntArrayList blockLimits = new IntArrayList();
+
+        try (KafkaCacheFile logFile = new KafkaCacheFile(logPath, capacity, appendBuf))
+        {
+            int blockStart = 0;
+            for (int index = 0; index < recordCount; index++)
+            {
+                int position = logFile.capacity();
+                if (position - blockStart > 0x4000)
+                {
+                    blockLimits.addInt(position);
+                    blockStart = position;
+                }
+
+                positions.addInt(position);
+                logFile.appendBytes(new UnsafeBuffer(record(index).getBytes(UTF_8)));
+            }
+            blockLimits.addInt(logFile.capacity());
+
+            KafkaCacheFile.CompressedLog.compress(location, 0L, logFile, blockLimits);
+
+            try (KafkaCacheFile.CompressedLog compressedLog = new KafkaCacheFile.CompressedLog(location, 0L))
+            {
+                assertEquals(logFile.capacity(), compressedLog.capacity());
+                assertTrue(String.format("%d * 4 <= %d", compressedLog.size(), logFile.capacity()),
+                        compressedLog.size() * 4 <= logFile.capacity());
+
+                KafkaCacheFile.BlockBuffer blockBuf = new KafkaCacheFile.BlockBuffer();
+                for (int index = recordCount - 1; index >= 0; index--)
+                {
+                    String record = record(index);
+                    int length = record.length();
+                    String read = compressedLog.readBytes(positions.getInt(index),
+                        (b, i, m) -> b.getStringWithoutLengthUtf8(i, length), blockBuf);
+
+                    assertEquals(record, read);
+                }
+            }
+        }
+    }
+
     @Test
     public void shouldDescribeObject() throws Exception
     {
@@ -96,4 +166,11 @@ public class KafkaCacheFileTest
             assertEquals("[KafkaCacheFile] filename.ext (0)", file.toString());
         }
     }
+
+    private static String record(
+        int index)
+    {
+        return String.format("{\"id\":\"order-%08d\",\"status\":\"%s\",\"amount\":%d}",
+            index, index % 3 == 0 ? "PAID" : "NEW", index % 1000);
+    }
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+public class KafkaCacheHeaderIndexPolicyTest
+{
+    @Test
+    public void shouldIndexAllHeadersByDefault()
+    {
+        KafkaCacheHeaderIndexPolicy policy = KafkaCacheHeaderIndexPolicy.of("test", "*");
+
+        assertSame(KafkaCacheHeaderIndexPolicy.ALL, policy);
+        assertTrue(indexes(policy, "trace-id"));
+        assertEquals(64 >> 2, policy.hashRequiredMax(64));
+    }
+
+    @Test
+    public void shouldIndexKeysOnly()
+    {
+        KafkaCacheHeaderIndexPolicy policy = KafkaCacheHeaderIndexPolicy.of("test", "");
+
+        assertSame(KafkaCacheHeaderIndexPolicy.NONE, policy);
+        assertFalse(indexes(policy, "trace-id"));
+        assertEquals(0, policy.hashRequiredMax(64));
+    }
+
+    @Test
+    public void shouldIndexAllowedHeaders()
+    {
+        KafkaCacheHeaderIndexPolicy policy = KafkaCacheHeaderIndexPolicy.of("test", "tenant, type");
+
+        assertTrue(indexes(policy, "tenant"));
+        assertTrue(indexes(policy, "type"));
+        assertFalse(indexes(policy, "types"));
+        assertFalse(indexes(policy, "trace-id"));
+        assertEquals(64 / 6, policy.hashRequiredMax(64));
+    }
+
+    @Test
+    public void shouldPreferTopicPolicy()
+    {
+        String policies = "tenant;events=;orders=*";
+
+        assertTrue(indexes(KafkaCacheHeaderIndexPolicy.of("test", policies), "tenant"));
+        assertFalse(indexes(KafkaCacheHeaderIndexPolicy.of("test", policies), "trace-id"));
+        assertSame(KafkaCacheHeaderIndexPolicy.NONE, KafkaCacheHeaderIndexPolicy.of("events", policies));
+        assertSame(KafkaCacheHeaderIndexPolicy.ALL, KafkaCacheHeaderIndexPolicy.of("orders", policies));
+    }
+
+    private static boolean indexes(
+        KafkaCacheHeaderIndexPolicy policy,
+        String name)
+    {
+        final DirectBuffer buffer = new UnsafeBuffer(name.getBytes(UTF_8));
+        return policy.indexes(buffer, 0, buffer.capacity());
+    }
+}
@@ -16,6 +16,7 @@
 package org.reaktivity.nukleus.kafka.internal.cache;
 
 import static java.nio.ByteBuffer.allocate;
+import static java.nio.ByteBuffer.allocateDirect;
 import static java.nio.ByteOrder.nativeOrder;
 import static java.nio.file.StandardOpenOption.APPEND;
 import static java.nio.file.StandardOpenOption.CREATE;
@@ -28,8 +29,10 @@ import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorIndex;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheCursorRecord.cursorValue;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.SIZEOF_INDEX_RECORD;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.SIZEOF_WIDE_INDEX_RECORD;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexEntry;
 import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexKey;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheIndexRecord.indexValue;
 
 import java.io.File;
 import java.nio.ByteBuffer;
@@ -38,6 +41,8 @@ import java.nio.file.Path;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -302,6 +307,62 @@ public class KafkaCacheIndexFileTest
         }
     }
 
+    public static class SortedByValueHashedTest
+    {
+        @Rule
+        public TemporaryFolder tempFolder = new TemporaryFolder();
+
+        private KafkaCacheIndexFile.SortedByValue hashedFile;
+        private KafkaCacheIndexFile.SortedByValue scannedFile;
+        private int keys;
+        private int entries;
+
+        @Before
+        public void initEntries() throws Exception
+        {
+            Random random = ThreadLocalRandom.current();
+            MutableDirectBuffer appendBuf = new UnsafeBuffer(allocateDirect(SIZEOF_INDEX_RECORD));
+
+            keys = 64;
+            entries = 1024;
+            int capacity = SIZEOF_INDEX_RECORD * entries * 2;
+            hashedFile = new KafkaCacheIndexFile.SortedByValue(tempFolder.newFile().toPath(),
+                    capacity, appendBuf, long[]::new, true);
+            scannedFile = new KafkaCacheIndexFile.SortedByValue(tempFolder.newFile().toPath(),
+                    capacity, appendBuf, long[]::new, false);
+
+            for (int index = 0; index < entries; index++)
+            {
+                long indexEntry = indexEntry(random.nextInt(keys), index >> 1);
+                hashedFile.appendLong(indexEntry);
+                scannedFile.appendLong(indexEntry);
+            }
+        }
+
+        @Test
+        public void shouldSeekSameAsScan()
+        {
+            for (int key = 0; key < keys; key++)
+            {
+                assertEquals(scannedFile.first(key), hashedFile.first(key));
+                assertEquals(scannedFile.last(key), hashedFile.last(key));
+
+                for (int index = 0; index <= entries; index += 7)
+                {
+                    long cursor = cursor(index, index >> 1);
+
+                    assertEquals(scannedFile.higher(key, cursor), hashedFile.higher(key, cursor));
+                    assertEquals(scannedFile.ceiling(key, cursor), hashedFile.ceiling(key, cursor));
+                    assertEquals(scannedFile.floor(key, cursor), hashedFile.floor(key, cursor));
+                    assertEquals(scannedFile.lower(key, cursor), hashedFile.lower(key, cursor));
+                }
+
+                long retry = cursor(entries, cursorValue(RETRY_SEGMENT));
+                assertEquals(scannedFile.ceiling(key, retry), hashedFile.ceiling(key, retry));
+            }
+        }
+    }
+
     public static class SortedByValueWithDuplicatesTest
     {
         @Rule
@@ -362,4 +423,123 @@ public class KafkaCacheIndexFileTest
             }
         }
     }
+
+    public static class WideSortedByValueTest
+    {
+        @Rule
+        public TemporaryFolder tempFolder = new TemporaryFolder();
+
+        private KafkaCacheIndexFile.SortedByValue wideFile;
+        private KafkaCacheIndexFile.SortedByValue narrowFile;
+        private int keys;
+        private int entries;
+
+        @Before
+        public void initEntries() throws Exception
+        {
+            Random random = ThreadLocalRandom.current();
+            MutableDirectBuffer appendBuf = new UnsafeBuffer(allocateDirect(SIZEOF_WIDE_INDEX_RECORD));
+
+            keys = 64;
+            entries = 1024;
+            wideFile = new KafkaCacheIndexFile.SortedByValue(tempFolder.newFile().toPath(),
+                    SIZEOF_WIDE_INDEX_RECORD * entries, appendBuf, long[]::new, true, true);
+            narrowFile = new KafkaCacheIndexFile.SortedByValue(tempFolder.newFile().toPath(),
+                    SIZEOF_INDEX_RECORD * entries, appendBuf, long[]::new, true, false);
+
+            for (int index = 0; index < entries; index++)
+            {
+                int key = random.nextInt(keys);
+                long indexEntry = indexEntry(key, index >> 1);
+                wideFile.appendEntry(indexEntry, extension(key, index >> 1));
+                narrowFile.appendEntry(indexEntry, extension(key, index >> 1));
+            }
+        }
+
+        @Test
+        public void shouldSeekSameAsNarrow()
+        {
+            assertEquals(SIZEOF_WIDE_INDEX_RECORD * entries, wideFile.capacity());
+            assertEquals(SIZEOF_INDEX_RECORD * entries, narrowFile.capacity());
+
+            for (int key = 0; key < keys; key++)
+            {
+                assertEquals(narrowFile.first(key), wideFile.first(key));
+                assertEquals(narrowFile.last(key), wideFile.last(key));
+
+                for (int index = 0; index <= entries; index += 7)
+                {
+                    long cursor = cursor(index, index >> 1);
+
+                    assertEquals(narrowFile.higher(key, cursor), wideFile.higher(key, cursor));
+                    assertEquals(narrowFile.ceiling(key, cursor), wideFile.ceiling(key, cursor));
+                    assertEquals(narrowFile.floor(key, cursor), wideFile.floor(key, cursor));
+                    assertEquals(narrowFile.lower(key, cursor), wideFile.lower(key, cursor));
+                }
+            }
+        }
+
+        @Test
+        public void shouldReadExtension()
+        {
+            for (int key = 0; key < keys; key++)
+            {
+                long cursor = wideFile.first(key);
+                while (cursor != NEXT_SEGMENT && cursorValue(cursor) != cursorValue(RETRY_SEGMENT))
+                {
+                    assertEquals(extension(key, cursorValue(cursor)), wideFile.extension(cursor));
+                    cursor = wideFile.higher(key, cursor);
+                }
+            }
+        }
+
+        @Test
+        public void shouldSortByKeyWithExtension() throws Exception
+        {
+            Path workingFile = new File(tempFolder.getRoot(), "working").toPath();
+            Path sortedFile = new File(tempFolder.getRoot(), "sorted").toPath();
+
+            wideFile.freeze();
+            wideFile.sortByKey(workingFile, sortedFile);
+
+            ByteBuffer indexEntryHolder = allocate(SIZEOF_WIDE_INDEX_RECORD).order(nativeOrder());
+            try (FileChannel channel = FileChannel.open(sortedFile, READ))
+            {
+                assertEquals(SIZEOF_WIDE_INDEX_RECORD * entries, channel.size());
+
+                long previousIndexEntry = 0L;
+                while (channel.position() < channel.size())
+                {
+                    indexEntryHolder.clear();
+                    int read = channel.read(indexEntryHolder);
+                    assertEquals(SIZEOF_WIDE_INDEX_RECORD, read);
+                    indexEntryHolder.flip();
+
+                    long indexEntry = indexEntryHolder.getLong();
+                    long extension = indexEntryHolder.getLong();
+
+                    assert Long.compareUnsigned(indexEntry, previousIndexEntry) >= 0;
+                    assertEquals(extension(indexKey(indexEntry), indexValue(indexEntry)), extension);
+                    previousIndexEntry = indexEntry;
+                }
+            }
+
+            KafkaCacheIndexFile sortedIndex = new KafkaCacheIndexFile.SortedByKey(sortedFile, true);
+            for (int key = 0; key < keys; key++)
+            {
+                long first = sortedIndex.first(key);
+                if (first != NEXT_SEGMENT)
+                {
+                    assertEquals(extension(key, cursorValue(first)), sortedIndex.extension(first));
+                }
+            }
+        }
+
+        private static long extension(
+            int key,
+            int value)
+        {
+            return (long) value << 32 | key;
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KafkaCacheKeyFilterTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldAddAndRemoveKeys() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("keys.filter");
+
+        try (KafkaCacheKeyFilter filter = new KafkaCacheKeyFilter(location, 1024))
+        {
+            assertFalse(filter.mayContain(0x1234_5678));
+
+            filter.add(0x1234_5678);
+            filter.add(0x1234_5678);
+            assertTrue(filter.mayContain(0x1234_5678));
+
+            filter.remove(0x1234_5678);
+            assertTrue(filter.mayContain(0x1234_5678));
+
+            filter.remove(0x1234_5678);
+            assertFalse(filter.mayContain(0x1234_5678));
+        }
+    }
+
+    @Test
+    public void shouldClearKeysOnReopen() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("keys.filter");
+
+        try (KafkaCacheKeyFilter filter = new KafkaCacheKeyFilter(location, 1024))
+        {
+            filter.add(0x1234_5678);
+            assertTrue(filter.mayContain(0x1234_5678));
+        }
+
+        try (KafkaCacheKeyFilter filter = new KafkaCacheKeyFilter(location, 1024))
+        {
+            assertFalse(filter.mayContain(0x1234_5678));
+        }
+    }
+
+    @Test
+    public void shouldRetainSaturatedKeys() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("keys.filter");
+
+        try (KafkaCacheKeyFilter filter = new KafkaCacheKeyFilter(location, 1024))
+        {
+            for (int i = 0; i < 0x100; i++)
+            {
+                filter.add(0x1234_5678);
+            }
+
+            for (int i = 0; i < 0x100; i++)
+            {
+                filter.remove(0x1234_5678);
+            }
+
+            assertTrue(filter.mayContain(0x1234_5678));
+        }
+    }
+
+    @Test
+    public void shouldMayContainAnyKeyWhenDisabled() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("keys.filter");
+
+        try (KafkaCacheKeyFilter filter = new KafkaCacheKeyFilter(location, 0))
+        {
+            assertFalse(filter.enabled());
+            assertTrue(filter.mayContain(0x1234_5678));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheOffsetStore.NO_OFFSET;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KafkaCacheOffsetStoreTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldCommitOffsets() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("consumer-offsets");
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 4))
+        {
+            assertEquals(NO_OFFSET, store.offset(1L, 0));
+
+            assertTrue(store.commit(1L, 0, 10L));
+            assertTrue(store.commit(1L, 0, 11L));
+            assertTrue(store.commit(2L, 0, 20L));
+
+            assertEquals(11L, store.offset(1L, 0));
+            assertEquals(20L, store.offset(2L, 0));
+            assertEquals(NO_OFFSET, store.offset(1L, 1));
+        }
+    }
+
+    @Test
+    public void shouldResumeCommittedOffsetsAfterReopen() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("consumer-offsets");
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 4))
+        {
+            assertTrue(store.commit(1L, 0, 10L));
+            assertTrue(store.commit(1L, 1, 20L));
+        }
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 4))
+        {
+            assertEquals(10L, store.offset(1L, 0));
+            assertEquals(20L, store.offset(1L, 1));
+        }
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyCommittedWhenFull() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("consumer-offsets");
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 2))
+        {
+            assertTrue(store.commit(1L, 0, 10L));
+            assertTrue(store.commit(1L, 1, 20L));
+            assertTrue(store.commit(1L, 0, 11L));
+            assertTrue(store.commit(1L, 2, 30L));
+
+            assertEquals(11L, store.offset(1L, 0));
+            assertEquals(NO_OFFSET, store.offset(1L, 1));
+            assertEquals(30L, store.offset(1L, 2));
+        }
+    }
+
+    @Test
+    public void shouldRetainMostRecentlyCommittedWhenFilled() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("consumer-offsets");
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 64))
+        {
+            for (long consumerId = 1L; consumerId <= 256L; consumerId++)
+            {
+                assertTrue(store.commit(consumerId, 0, consumerId * 10L));
+            }
+
+            for (long consumerId = 1L; consumerId <= 192L; consumerId++)
+            {
+                assertEquals(NO_OFFSET, store.offset(consumerId, 0));
+            }
+
+            for (long consumerId = 193L; consumerId <= 256L; consumerId++)
+            {
+                assertEquals(consumerId * 10L, store.offset(consumerId, 0));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyCommittedAfterReopen() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("consumer-offsets");
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 2))
+        {
+            assertTrue(store.commit(1L, 0, 10L));
+            assertTrue(store.commit(1L, 1, 20L));
+        }
+
+        try (KafkaCacheOffsetStore store = new KafkaCacheOffsetStore(location, 2))
+        {
+            assertTrue(store.commit(1L, 0, 11L));
+            assertTrue(store.commit(1L, 2, 30L));
+
+            assertEquals(11L, store.offset(1L, 0));
+            assertEquals(NO_OFFSET, store.offset(1L, 1));
+            assertEquals(30L, store.offset(1L, 2));
+        }
+    }
+}
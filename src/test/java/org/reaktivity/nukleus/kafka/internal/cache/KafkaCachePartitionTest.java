@@ -18,15 +18,22 @@ package org.reaktivity.nukleus.kafka.internal.cache;
 import static java.lang.System.currentTimeMillis;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Random;
 
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntHashSet;
+import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Rule;
 import org.junit.Test;
@@ -37,8 +44,8 @@ import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
 import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
 import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
-import org.reaktivity.nukleus.kafka.internal.types.cache.KafkaCacheEntryFW;
 
 public class KafkaCachePartitionTest
 {
@@ -172,6 +179,344 @@ public class KafkaCachePartitionTest
         assertSame(node30, node10.next());
     }
 
+    @Test
+    public void shouldEvictSegments() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        partition.append(10);
+        partition.append(20);
+        partition.append(30);
+
+        partition.evict();
+
+        Node sentinel = partition.sentinel();
+        assertSame(sentinel, sentinel.next());
+        assertSame(sentinel, partition.head());
+        assertEquals(-1L, partition.publishedOffset());
+
+        Node node10 = partition.append(10);
+        assertSame(node10, partition.head());
+    }
+
+    @Test
+    public void shouldTrackKeysOfFrozenSegments() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        config.keyFilterCapacity = 0x10000;
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        int keyHash = (int) partition.computeKeyHash(key);
+
+        Node node10 = partition.append(10L);
+        partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        assertFalse(partition.mayContainKey(keyHash));
+
+        partition.append(20L);
+        assertTrue(partition.mayContainKey(keyHash));
+
+        node10.remove();
+        assertFalse(partition.mayContainKey(keyHash));
+    }
+
+    @Test
+    public void shouldNotFilterKeysByDefault() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        partition.append(10L);
+        partition.append(20L);
+
+        assertTrue(partition.mayContainKey(0x1234_5678));
+
+        partition.close();
+    }
+
+    @Test
+    public void shouldComputeWideKeyHashWithFewerCollisions() throws Exception
+    {
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(tempFolder.newFolder().toPath(),
+                config, "cache", "test", 0, 65536, long[]::new);
+
+        KafkaCacheTopicConfig wideConfig = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        wideConfig.wideHashIndex = true;
+        KafkaCachePartition widePartition = new KafkaCachePartition(tempFolder.newFolder().toPath(),
+                wideConfig, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+        KafkaKeyFW.Builder keyRW = new KafkaKeyFW.Builder();
+
+        Random random = new Random(0L);
+        IntHashSet hashes = new IntHashSet();
+        LongHashSet wideHashes = new LongHashSet();
+        int collisions = 0;
+        int wideCollisions = 0;
+
+        for (int index = 0; index < 500_000; index++)
+        {
+            byte[] value = String.format("key-%016x", random.nextLong()).getBytes(UTF_8);
+            KafkaKeyFW key = keyRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+                .length(value.length)
+                .value(k -> k.set(value))
+                .build();
+
+            collisions += hashes.add((int) partition.computeKeyHash(key)) ? 0 : 1;
+            wideCollisions += wideHashes.add(widePartition.computeKeyHash(key)) ? 0 : 1;
+        }
+
+        assertTrue(collisions > 0);
+        assertEquals(0, wideCollisions);
+
+        partition.close();
+        widePartition.close();
+    }
+
+    @Test
+    public void shouldExceedRetentionBytes() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        config.retentionBytes = 0L;
+
+        Node node10 = partition.append(10L);
+        partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        assertEquals(0L, partition.bytes());
+        assertFalse(partition.bytesExceeded());
+
+        partition.append(20L);
+        assertEquals(node10.segment().size(), partition.bytes());
+        assertTrue(partition.bytesExceeded());
+
+        node10.remove();
+        assertEquals(0L, partition.bytes());
+        assertFalse(partition.bytesExceeded());
+    }
+
+    @Test
+    public void shouldFlushSegmentsMonotonically() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        Node head10 = partition.append(10L);
+        partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.writeEntry(12L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.flush();
+
+        assertEquals(12L, partition.flushedOffset());
+
+        partition.append(20L);
+        partition.writeEntry(21L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.flush();
+
+        assertEquals(21L, partition.flushedOffset());
+
+        partition.flush(head10.segment());
+
+        assertEquals(21L, partition.flushedOffset());
+    }
+
+    @Test
+    public void shouldRecoverFlushedHeadWhenReopened() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        partition.append(10L);
+        partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.writeEntry(12L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.flush();
+        partition.writeEntry(13L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.close();
+
+        KafkaCachePartition reopened = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+        Node head = reopened.head();
+
+        assertFalse(head.sentinel());
+        assertEquals(10L, head.segment().baseOffset());
+        assertEquals(12L, head.segment().lastOffset());
+        assertEquals(13L, reopened.nextOffset(KafkaOffsetType.LATEST));
+        assertEquals(12L, reopened.flushedOffset());
+
+        KafkaCacheEntryFormat format = KafkaCacheEntryFormat.newEntryFormat(config.entryFormat);
+        KafkaCacheEntry entry = format.readEntry(head.segment(), 0, new KafkaCacheEntry());
+
+        assertEquals(11L, entry.offset$());
+        assertEquals(key, entry.key());
+        assertEquals(value.sizeof(), entry.value().sizeof());
+
+        KafkaCacheEntry ancestor = head.findAndMarkAncestor(key, reopened.computeKeyHash(key), 13L, new KafkaCacheEntry());
+
+        assertNotNull(ancestor);
+        assertEquals(12L, ancestor.offset$());
+    }
+
+    @Test
+    public void shouldDiscardCheckpointWhenLogMissing() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        partition.append(10L);
+        partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.flush();
+        partition.close();
+
+        Path directory = location.resolve("test-0");
+        Files.delete(directory.resolve(String.format("%019d.log", 10L)));
+
+        KafkaCachePartition reopened = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+
+        assertTrue(reopened.head().sentinel());
+        assertEquals(KafkaOffsetType.LATEST.value(), reopened.nextOffset(KafkaOffsetType.LATEST));
+        assertFalse(Files.exists(directory.resolve("checkpoint")));
+    }
+
+    @Test
+    public void shouldCancelScheduledFlushWhenClosed() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+
+        try (KafkaCacheFlusher flusher = new KafkaCacheFlusher(60000L, 0L, false))
+        {
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new,
+                new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED), new KafkaCachePrefetcher(0), flusher);
+
+            assertEquals(1, flusher.scheduled());
+
+            partition.close();
+
+            assertEquals(0, flusher.scheduled());
+        }
+    }
+
+    @Test
+    public void shouldPublishOffsets() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaConfiguration config = new KafkaConfiguration();
+        KafkaCacheTopicConfig topic = new KafkaCacheTopicConfig(config);
+        KafkaCachePartition partition = new KafkaCachePartition(location, topic, "cache", "test", 0, 65536, long[]::new);
+
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        assertEquals(-1L, partition.publishedOffset());
+        assertEquals(-1L, partition.publishedLatestOffset());
+
+        partition.append(10L);
+        partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+        partition.publish(11L, 20L);
+
+        assertEquals(11L, partition.publishedOffset());
+        assertEquals(20L, partition.publishedLatestOffset());
+    }
+
     @Test
     public void shouldDescribeObject() throws Exception
     {
@@ -185,6 +530,35 @@ public class KafkaCachePartitionTest
         assertEquals("[cache] test[0]", partition.toString());
     }
 
+    @Test
+    public void shouldAcquireDistinctProduceLogs() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+        UnsafeBuffer entry = new UnsafeBuffer("entry".getBytes(UTF_8));
+
+        KafkaCacheProduceLog log0 = partition.acquireProduceLog(1024);
+        KafkaCacheProduceLog log1 = partition.acquireProduceLog(1024);
+
+        assertFalse(log0.location().equals(log1.location()));
+        assertFalse(partition.hasUnackedProduceLog());
+
+        log1.append(entry, 0, entry.capacity());
+        partition.releaseProduceLog(log1);
+        partition.releaseProduceLog(log0);
+
+        assertTrue(partition.hasUnackedProduceLog());
+
+        KafkaCacheProduceLog unacked = partition.acquireProduceLog(1024);
+
+        assertEquals(log1.location(), unacked.location());
+        assertTrue(unacked.hasUnsent());
+        assertFalse(partition.hasUnackedProduceLog());
+
+        partition.releaseProduceLog(unacked);
+    }
+
     public static class NodeTest
     {
         @Rule
@@ -216,7 +590,7 @@ public class KafkaCachePartitionTest
                     .set(new byte[slotCapacity + 1])
                     .build();
 
-            KafkaCacheEntryFW ancestorRO = new KafkaCacheEntryFW();
+            KafkaCacheEntry ancestorRO = new KafkaCacheEntry();
 
             KafkaCachePartition partition = new KafkaCachePartition(location, topic, "cache", "test", 0, 65536, long[]::new);
             Node head10 = partition.append(10L);
@@ -225,7 +599,7 @@ public class KafkaCachePartitionTest
             partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
 
             long keyHash = partition.computeKeyHash(key);
-            KafkaCacheEntryFW ancestor = head10.findAndMarkAncestor(key, keyHash, 11L, ancestorRO);
+            KafkaCacheEntry ancestor = head10.findAndMarkAncestor(key, keyHash, 11L, ancestorRO);
 
             partition.writeEntry(12L, 0L, key, headers, value, ancestor, KafkaDeltaType.NONE);
 
@@ -247,6 +621,260 @@ public class KafkaCachePartitionTest
             assertEquals("[KafkaCacheSegment] test[0] @ 15 +1", head15s.toString());
         }
 
+        @Test
+        public void shouldCleanSegmentWithWideHashIndex() throws Exception
+        {
+            Path location = tempFolder.newFolder().toPath();
+            KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+            config.wideHashIndex = true;
+
+            MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+            KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+                .length(4)
+                .value(k -> k.set("test".getBytes(UTF_8)))
+                .build();
+
+            Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                    .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                    .item(h -> h.nameLen(6).name(n -> n.set("header".getBytes(UTF_8)))
+                                .valueLen(5).value(v -> v.set("value".getBytes(UTF_8))))
+                    .build();
+
+            OctetsFW value = new OctetsFW.Builder()
+                    .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                    .set("value".getBytes(UTF_8))
+                    .build();
+
+            KafkaCacheEntry ancestorRO = new KafkaCacheEntry();
+
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+            Node head10 = partition.append(10L);
+            KafkaCacheSegment head10s = head10.segment();
+
+            partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+
+            long keyHash = partition.computeKeyHash(key);
+            KafkaCacheEntry ancestor = head10.findAndMarkAncestor(key, keyHash, 12L, ancestorRO);
+
+            assertTrue(head10s.hashFile().wide());
+            assertNotNull(ancestor);
+            assertEquals(11L, ancestor.offset$());
+            assertNull(head10.findAndMarkAncestor(key, keyHash ^ 0x1_0000_0000L, 12L, ancestorRO));
+
+            partition.writeEntry(12L, 0L, key, headers, value, ancestor, KafkaDeltaType.NONE);
+
+            Node head15 = partition.append(15L);
+            Node tail10 = head15.previous();
+            KafkaCacheSegment tail10s = tail10.segment();
+
+            long now = currentTimeMillis();
+            tail10s.cleanableAt(now);
+            tail10.clean(now);
+
+            KafkaCacheSegment clean10s = tail10.segment();
+            KafkaCacheIndexFile hashFile = clean10s.hashFile();
+            long hashCursor = hashFile.first((int) keyHash);
+
+            assertTrue(hashFile.wide());
+            assertEquals(keyHash, hashFile.extension(hashCursor));
+        }
+
+        @Test
+        public void shouldCleanSegmentWithCompactEntryFormat() throws Exception
+        {
+            Path location = tempFolder.newFolder().toPath();
+            KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+            config.entryFormat = KafkaCacheEntryFormat.VERSION_2;
+
+            MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+            KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+                .length(4)
+                .value(k -> k.set("test".getBytes(UTF_8)))
+                .build();
+
+            Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                    .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                    .item(h -> h.nameLen(6).name(n -> n.set("header".getBytes(UTF_8)))
+                                .valueLen(5).value(v -> v.set("value".getBytes(UTF_8))))
+                    .build();
+
+            OctetsFW value = new OctetsFW.Builder()
+                    .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                    .set("value".getBytes(UTF_8))
+                    .build();
+
+            KafkaCacheEntry ancestorRO = new KafkaCacheEntry();
+
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+            Node head10 = partition.append(10L);
+
+            partition.writeEntry(11L, 1000L, key, headers, value, null, KafkaDeltaType.NONE);
+
+            long keyHash = partition.computeKeyHash(key);
+            KafkaCacheEntry ancestor = head10.findAndMarkAncestor(key, keyHash, 12L, ancestorRO);
+
+            assertEquals(11L, ancestor.offset$());
+            assertEquals(1000L, ancestor.timestamp());
+            assertEquals(12L, ancestor.descendant());
+            assertEquals(1, ancestor.flags());
+            assertSame(head10.segment().logFile().readBytes(0, (b, o, l) -> b), ancestor.buffer());
+
+            partition.writeEntry(12L, 2000L, key, headers, value, ancestor, KafkaDeltaType.NONE);
+
+            Node head15 = partition.append(15L);
+            Node tail10 = head15.previous();
+
+            long now = currentTimeMillis();
+            tail10.segment().cleanableAt(now);
+            tail10.clean(now);
+
+            KafkaCacheSegment clean10s = tail10.segment();
+            KafkaCacheEntryFormat entryFormat = KafkaCacheEntryFormat.newEntryFormat(clean10s.entryFormat());
+            KafkaCacheEntry entry = entryFormat.readEntry(clean10s, 0, new KafkaCacheEntry());
+
+            assertEquals(KafkaCacheEntryFormat.VERSION_2, clean10s.entryFormat());
+            assertTrue(entryFormat.sizeofEntryHeaderMax() <
+                    KafkaCacheEntryFormat.newEntryFormat(KafkaCacheEntryFormat.VERSION_1).sizeofEntryHeaderMax());
+            assertEquals(12L, entry.offset$());
+            assertEquals(2000L, entry.timestamp());
+            assertEquals(11L, entry.ancestor());
+            assertEquals(-1L, entry.descendant());
+            assertEquals(0, entry.flags());
+            assertEquals(-1, entry.deltaPosition());
+            assertEquals(key, entry.key());
+            assertEquals(value.sizeof(), entry.valueLen());
+            assertEquals(headers.sizeof(), entry.headers().sizeof());
+            assertEquals(clean10s.logFile().capacity(), entryFormat.limit(clean10s, 0));
+        }
+
+        @Test
+        public void shouldCompressSegment() throws Exception
+        {
+            Path location = tempFolder.newFolder().toPath();
+            KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+            config.segmentBlockBytes = 64;
+
+            MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+            KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+                .length(4)
+                .value(k -> k.set("test".getBytes(UTF_8)))
+                .build();
+
+            Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                    .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                    .build();
+
+            OctetsFW value = new OctetsFW.Builder()
+                    .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                    .set(new byte[100])
+                    .build();
+
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+            partition.append(10L);
+
+            partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+            partition.writeEntry(12L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+            partition.writeEntry(13L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+
+            Node head15 = partition.append(15L);
+            Node tail10 = head15.previous();
+            int logBytes = tail10.segment().logFile().capacity();
+
+            KafkaCacheSegment compressible = tail10.segment().acquire();
+            long baseOffset = compressible.baseOffset();
+            tail10.compressLog(compressible);
+
+            assertFalse(tail10.compress(baseOffset + 1L));
+            assertTrue(tail10.compress(baseOffset));
+
+            KafkaCacheSegment compressed10s = tail10.segment();
+            KafkaCacheEntryFormat entryFormat = KafkaCacheEntryFormat.newEntryFormat(compressed10s.entryFormat());
+            KafkaCacheEntry entry = new KafkaCacheEntry();
+
+            assertTrue(compressed10s.compressed());
+            assertEquals(logBytes, compressed10s.logView().capacity());
+
+            KafkaCacheEntryFormat otherFormat = KafkaCacheEntryFormat.newEntryFormat(compressed10s.entryFormat());
+            KafkaCacheEntry otherEntry = new KafkaCacheEntry();
+            entryFormat.readEntry(compressed10s, 0, entry);
+            otherFormat.readEntry(compressed10s, entryFormat.limit(compressed10s, 0), otherEntry);
+            assertEquals(11L, entry.offset$());
+            assertEquals(12L, otherEntry.offset$());
+
+            int position = 0;
+            for (long offset = 11L; offset <= 13L; offset++)
+            {
+                entryFormat.readEntry(compressed10s, position, entry);
+                assertEquals(offset, entry.offset$());
+                assertEquals(key, entry.key());
+                assertEquals(value.sizeof(), entry.valueLen());
+                position = entryFormat.limit(compressed10s, position);
+            }
+            assertEquals(logBytes, position);
+        }
+
+        @Test
+        public void shouldUnmapLeastRecentlyAccessedSegment() throws Exception
+        {
+            Path location = tempFolder.newFolder().toPath();
+            KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+            config.segmentMappedMax = 1;
+
+            MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+            KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+                .length(4)
+                .value(k -> k.set("test".getBytes(UTF_8)))
+                .build();
+
+            Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                    .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                    .build();
+
+            OctetsFW value = new OctetsFW.Builder()
+                    .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                    .set("value".getBytes(UTF_8))
+                    .build();
+
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
+            partition.append(10L);
+            partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+
+            partition.append(15L);
+            partition.writeEntry(16L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+
+            Node head20 = partition.append(20L);
+            Node tail15 = head20.previous();
+            Node tail10 = tail15.previous();
+
+            KafkaCacheEntryFormat entryFormat = KafkaCacheEntryFormat.newEntryFormat(tail10.segment().entryFormat());
+            KafkaCacheEntry entry = new KafkaCacheEntry();
+
+            entryFormat.readEntry(tail10.segment(), 0, entry);
+            tail10.segment().touch();
+            entryFormat.readEntry(tail15.segment(), 0, entry);
+            tail15.segment().touch();
+
+            assertTrue(tail10.segment().mapped());
+            assertTrue(tail15.segment().mapped());
+
+            KafkaCacheSegment mapped15 = tail15.segment().acquire();
+            partition.unmapIfNecessary();
+
+            assertFalse(tail10.segment().mapped());
+            assertTrue(tail15.segment().mapped());
+            assertSame(mapped15, tail15.segment());
+
+            entryFormat.readEntry(tail10.segment(), 0, entry);
+            assertEquals(11L, entry.offset$());
+            assertTrue(tail10.segment().mapped());
+
+            mapped15.release();
+        }
+
         @Test
         public void shouldSeekAncestor() throws Exception
         {
@@ -268,7 +896,7 @@ public class KafkaCachePartitionTest
                     .wrap(writeBuffer, headers.limit(), 0)
                     .build();
 
-            KafkaCacheEntryFW ancestorRO = new KafkaCacheEntryFW();
+            KafkaCacheEntry ancestorRO = new KafkaCacheEntry();
 
             KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536, long[]::new);
             Node head10 = partition.append(10L);
@@ -276,7 +904,7 @@ public class KafkaCachePartitionTest
             partition.writeEntry(11L, 0L, key, headers, value, null, KafkaDeltaType.NONE);
 
             long keyHash = partition.computeKeyHash(key);
-            KafkaCacheEntryFW ancestor = head10.findAndMarkAncestor(key, keyHash, 11L, ancestorRO);
+            KafkaCacheEntry ancestor = head10.findAndMarkAncestor(key, keyHash, 11L, ancestorRO);
 
             partition.writeEntry(12L, 0L, key, headers, value, ancestor, KafkaDeltaType.NONE);
 
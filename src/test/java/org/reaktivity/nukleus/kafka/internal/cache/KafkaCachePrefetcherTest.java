@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePrefetcher.NO_PREFETCH;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition.Node;
+
+public class KafkaCachePrefetcherTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldNotPrefetchWhenDisabled() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+
+        try (KafkaCachePrefetcher prefetcher = new KafkaCachePrefetcher(0))
+        {
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536,
+                long[]::new, new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED), prefetcher, new KafkaCacheFlusher(0L, 0L, false));
+            Node node10 = partition.append(10L);
+
+            assertFalse(prefetcher.enabled());
+            assertEquals(NO_PREFETCH, node10.prefetch(node10.segment(), 0, 0));
+        }
+    }
+
+    @Test
+    public void shouldPrefetchFromPosition() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+
+        try (KafkaCachePrefetcher prefetcher = new KafkaCachePrefetcher(8192))
+        {
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536,
+                long[]::new, new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED), prefetcher, new KafkaCacheFlusher(0L, 0L, false));
+            Node node10 = partition.append(10L);
+            partition.append(20L);
+
+            assertTrue(prefetcher.enabled());
+            assertEquals(4096, node10.prefetch(node10.segment(), 0, 0));
+            assertEquals(6144, node10.prefetch(node10.segment(), 4, 2048));
+            assertEquals(NO_PREFETCH, node10.prefetch(node10.segment(), 0, NO_PREFETCH - 1));
+        }
+    }
+
+    @Test
+    public void shouldNotPrefetchHeadSegment() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig config = new KafkaCacheTopicConfig(new KafkaConfiguration());
+
+        try (KafkaCachePrefetcher prefetcher = new KafkaCachePrefetcher(8192))
+        {
+            KafkaCachePartition partition = new KafkaCachePartition(location, config, "cache", "test", 0, 65536,
+                long[]::new, new KafkaCacheBudget(KafkaCacheBudget.UNLIMITED), prefetcher, new KafkaCacheFlusher(0L, 0L, false));
+            Node node10 = partition.append(10L);
+
+            assertTrue(prefetcher.enabled());
+            assertEquals(NO_PREFETCH, node10.prefetch(node10.segment(), 0, 0));
+        }
+    }
+}
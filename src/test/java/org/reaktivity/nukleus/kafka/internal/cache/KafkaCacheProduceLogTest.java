@@ -0,0 +1,222 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KafkaCacheProduceLogTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldAppendSendAndAckEntries() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("produce.log");
+        DirectBuffer entry = new UnsafeBuffer("entry".getBytes());
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 1024))
+        {
+            assertTrue(log.isEmpty());
+
+            assertTrue(log.append(entry, 0, entry.capacity()));
+            assertTrue(log.append(entry, 0, entry.capacity()));
+            assertFalse(log.isEmpty());
+            assertTrue(log.hasUnsent());
+
+            int position = log.sendPosition();
+            assertEquals(entry.capacity(), log.entryLength(position));
+            assertEquals("entry", log.entries().getStringWithoutLengthAscii(log.entryOffset(position), entry.capacity()));
+
+            log.sent();
+            log.sent();
+            assertFalse(log.hasUnsent());
+            assertTrue(log.hasUnacked());
+
+            log.acked();
+            assertFalse(log.isEmpty());
+
+            log.acked();
+            assertTrue(log.isEmpty());
+            assertEquals(0, log.writePosition());
+        }
+    }
+
+    @Test
+    public void shouldAckAllSentEntries() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("produce.log");
+        DirectBuffer entry = new UnsafeBuffer("entry".getBytes());
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 1024))
+        {
+            log.append(entry, 0, entry.capacity());
+            log.append(entry, 0, entry.capacity());
+            log.append(entry, 0, entry.capacity());
+            log.sent();
+            log.sent();
+
+            log.ackSent();
+            assertFalse(log.hasUnacked());
+            assertTrue(log.hasUnsent());
+            assertEquals(log.sendPosition(), log.ackPosition());
+
+            log.sent();
+            log.ackSent();
+            assertTrue(log.isEmpty());
+            assertEquals(0, log.writePosition());
+        }
+    }
+
+    @Test
+    public void shouldKeepRejectedEntriesWithError() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("produce.log");
+        DirectBuffer entry = new UnsafeBuffer("entry".getBytes());
+        DirectBuffer unsent = new UnsafeBuffer("unsent".getBytes());
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 1024))
+        {
+            log.append(entry, 0, entry.capacity());
+            log.append(entry, 0, entry.capacity());
+            log.append(entry, 0, entry.capacity());
+            log.append(unsent, 0, unsent.capacity());
+            log.sent();
+            log.acked();
+            log.sent();
+            log.sent();
+
+            log.rejectSent(10);
+            assertFalse(log.hasUnacked());
+            assertTrue(log.hasUnsent());
+            assertEquals(log.sendPosition(), log.ackPosition());
+
+            ByteBuffer rejected = ByteBuffer.wrap(Files.readAllBytes(log.rejectedLocation())).order(ByteOrder.nativeOrder());
+            for (int count = 0; count < 2; count++)
+            {
+                assertEquals(10, rejected.getInt());
+                assertEquals(entry.capacity(), rejected.getInt());
+                byte[] bytes = new byte[entry.capacity()];
+                rejected.get(bytes);
+                assertEquals("entry", new String(bytes));
+            }
+            assertFalse(rejected.hasRemaining());
+
+            log.sent();
+            log.acked();
+            assertTrue(log.isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldResendUnackedEntriesAfterReopen() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("produce.log");
+        DirectBuffer entry = new UnsafeBuffer("entry".getBytes());
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 1024))
+        {
+            log.append(entry, 0, entry.capacity());
+            log.append(entry, 0, entry.capacity());
+            log.sent();
+            log.sent();
+            log.acked();
+        }
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 1024))
+        {
+            assertFalse(log.isEmpty());
+            assertTrue(log.hasUnsent());
+            assertEquals(log.ackPosition(), log.sendPosition());
+
+            log.sent();
+            assertFalse(log.hasUnsent());
+
+            log.rewind();
+            assertTrue(log.hasUnsent());
+        }
+    }
+
+    @Test
+    public void shouldWrapOnlyWhenAllEntriesAcked() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("produce.log");
+        DirectBuffer entry = new UnsafeBuffer(new byte[28]);
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 64))
+        {
+            assertTrue(log.append(entry, 0, entry.capacity()));
+            assertTrue(log.append(entry, 0, entry.capacity()));
+            assertFalse(log.append(entry, 0, entry.capacity()));
+
+            log.sent();
+            log.acked();
+
+            assertFalse(log.append(entry, 0, entry.capacity()));
+            assertEquals(32, log.ackPosition());
+            assertEquals(64, log.writePosition());
+
+            log.sent();
+            log.acked();
+
+            assertTrue(log.append(entry, 0, entry.capacity()));
+            assertEquals(0, log.ackPosition());
+            assertEquals(0, log.sendPosition());
+            assertEquals(32, log.writePosition());
+        }
+    }
+
+    @Test
+    public void shouldKeepUnackedEntriesWhenCapacityChanges() throws Exception
+    {
+        Path location = tempFolder.getRoot().toPath().resolve("produce.log");
+        DirectBuffer entry = new UnsafeBuffer("entry".getBytes());
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 1024))
+        {
+            log.append(entry, 0, entry.capacity());
+        }
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 64))
+        {
+            assertEquals(1024, log.capacity());
+            assertTrue(log.hasUnsent());
+
+            log.sent();
+            log.acked();
+            assertTrue(log.isEmpty());
+        }
+
+        try (KafkaCacheProduceLog log = new KafkaCacheProduceLog(location, 64))
+        {
+            assertEquals(64, log.capacity());
+            assertTrue(log.isEmpty());
+        }
+    }
+}
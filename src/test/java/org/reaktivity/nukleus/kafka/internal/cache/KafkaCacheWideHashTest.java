@@ -0,0 +1,61 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+public class KafkaCacheWideHashTest
+{
+    @Test
+    public void shouldHashEmpty()
+    {
+        assertEquals(0xEF46_DB37_51D8_E999L, wideHash(""));
+    }
+
+    @Test
+    public void shouldHashShortInput()
+    {
+        assertEquals(0xD24E_C4F1_A98C_6E5BL, wideHash("a"));
+        assertEquals(0x44BC_2CF5_AD77_0999L, wideHash("abc"));
+    }
+
+    @Test
+    public void shouldHashLongInput()
+    {
+        assertEquals(0xFBCE_A83C_8A37_8BF1L, wideHash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void shouldHashUnalignedInput()
+    {
+        final byte[] bytes = "Nobody inspects the spammish repetition".getBytes(UTF_8);
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[bytes.length + 3]);
+        buffer.putBytes(3, bytes);
+
+        assertEquals(0xFBCE_A83C_8A37_8BF1L, KafkaCacheWideHash.wideHash(buffer, 3, bytes.length));
+    }
+
+    private static long wideHash(
+        String value)
+    {
+        final byte[] bytes = value.getBytes(UTF_8);
+        return KafkaCacheWideHash.wideHash(new UnsafeBuffer(bytes), 0, bytes.length);
+    }
+}
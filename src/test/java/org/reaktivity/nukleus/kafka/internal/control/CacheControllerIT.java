@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.control;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_BOOTSTRAP;
+
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.reaktivity.nukleus.kafka.internal.KafkaController;
+import org.reaktivity.reaktor.test.ReaktorRule;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class CacheControllerIT
+{
+    private final TestRule timeout = new DisableOnDebug(new Timeout(5, SECONDS));
+
+    private final ReaktorRule reaktor = new ReaktorRule()
+        .nukleus("kafka"::equals)
+        .controller("kafka"::equals)
+        .directory("target/nukleus-itests")
+        .commandBufferCapacity(1024)
+        .responseBufferCapacity(1024)
+        .counterValuesBufferCapacity(4096)
+        .configure(KAFKA_CACHE_SERVER_BOOTSTRAP, false)
+        .clean();
+
+    @Rule
+    public final TestRule chain = outerRule(timeout).around(reaktor);
+
+    @Test
+    public void shouldReportRollNotApplied() throws Exception
+    {
+        String result = reaktor.controller(KafkaController.class)
+               .cacheRoll("kafka-cache#0", "test", 0)
+               .get();
+
+        JsonObject status = new JsonParser().parse(result).getAsJsonObject();
+        assertEquals(0, status.get("applied").getAsInt());
+    }
+
+    @Test
+    public void shouldReportEvictNotApplied() throws Exception
+    {
+        String result = reaktor.controller(KafkaController.class)
+               .cacheEvict("kafka-cache#0", "test")
+               .get();
+
+        JsonObject status = new JsonParser().parse(result).getAsJsonObject();
+        assertEquals(0, status.get("applied").getAsInt());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void shouldRejectStatsWhenTopicUnknown() throws Exception
+    {
+        reaktor.controller(KafkaController.class)
+               .cacheStats("kafka-cache#0", "test")
+               .get();
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void shouldRejectPrewarmWithoutBootstrap() throws Exception
+    {
+        reaktor.controller(KafkaController.class)
+               .cachePrewarm("kafka-cache#0", "test")
+               .get();
+    }
+}
@@ -17,9 +17,11 @@ package org.reaktivity.nukleus.kafka.internal.stream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SEGMENT_BYTES;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SEGMENT_INDEX_BYTES;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_BOOTSTRAP;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_RECONNECT_DELAY;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_DRAIN_ON_CLOSE;
@@ -40,6 +42,7 @@ import org.reaktivity.nukleus.kafka.internal.cache.KafkaCache;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
 import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheTopic;
 import org.reaktivity.reaktor.test.ReaktorRule;
+import org.reaktivity.reaktor.test.annotation.Configure;
 
 public class CacheFetchIT
 {
@@ -324,6 +327,19 @@ public class CacheFetchIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/cache/controller",
+        "${client}/message.value.distinct/client",
+        "${server}/message.value.distinct/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_SERVER_FLUSH_MAX_LATENCY_MILLIS_NAME, value = "5")
+    public void shouldReceiveMessageValueDistinctWithFlushMaxLatency() throws Exception
+    {
+        partition.append(16L);
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/cache/controller",
@@ -402,6 +418,22 @@ public class CacheFetchIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/cache/controller",
+        "${client}/filter.key/client",
+        "${server}/filter.none/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_INDEX_WIDE_HASH_TOPICS_NAME, value = "test")
+    public void shouldReceiveMessagesWithKeyFilterAndWideHashIndex() throws Exception
+    {
+        partition.append(1L);
+        k3po.start();
+        k3po.awaitBarrier("RECEIVED_MESSAGE_2");
+        k3po.notifyBarrier("SEND_MESSAGE_3");
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/cache/controller",
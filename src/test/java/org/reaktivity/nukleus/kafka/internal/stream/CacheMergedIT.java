@@ -17,9 +17,11 @@ package org.reaktivity.nukleus.kafka.internal.stream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SEGMENT_BYTES;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SEGMENT_INDEX_BYTES;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_BOOTSTRAP;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_RECONNECT_DELAY_NAME;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
 import static org.reaktivity.reaktor.test.ReaktorRule.EXTERNAL_AFFINITY_MASK;
@@ -42,7 +44,8 @@ public class CacheMergedIT
     private final K3poRule k3po = new K3poRule()
             .addScriptRoot("route", "org/reaktivity/specification/nukleus/kafka/control/route.ext")
             .addScriptRoot("server", "org/reaktivity/specification/nukleus/kafka/streams/merged")
-            .addScriptRoot("client", "org/reaktivity/specification/nukleus/kafka/streams/merged");
+            .addScriptRoot("client", "org/reaktivity/specification/nukleus/kafka/streams/merged")
+            .addScriptRoot("clientAffinity", "org/reaktivity/nukleus/kafka/internal/streams/merged");
 
     private final TestRule timeout = new DisableOnDebug(new Timeout(10, SECONDS));
 
@@ -195,6 +198,22 @@ public class CacheMergedIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/cache.merged/controller",
+        "${clientAffinity}/merged.fetch.message.values.affinity/client",
+        "${server}/unmerged.fetch.message.values/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_CONSUMER_OFFSETS_CAPACITY_NAME, value = "64")
+    public void shouldFetchMergedMessageValuesWithConsumerOffsets() throws Exception
+    {
+        k3po.start();
+        k3po.awaitBarrier("CHANGING_PARTITION_COUNT");
+        Thread.sleep(200); // allow A1, B1, A2, B2 to be merged
+        k3po.notifyBarrier("CHANGED_PARTITION_COUNT");
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/cache.merged/controller",
@@ -221,6 +240,34 @@ public class CacheMergedIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/cache.merged/controller",
+        "${client}/merged.fetch.partition.leader.changed/client",
+        "${server}/unmerged.fetch.partition.leader.changed/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS_NAME, value = "0")
+    public void shouldFetchMergedPartitionLeaderChangedWithoutFailover() throws Exception
+    {
+        k3po.start();
+        k3po.awaitBarrier("CHANGING_PARTITION_LEADER");
+        Thread.sleep(200);
+        k3po.notifyBarrier("CHANGED_PARTITION_LEADER");
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/cache.merged/controller",
+        "${client}/merged.fetch.partition.leader.aborted/client",
+        "${server}/unmerged.fetch.partition.leader.aborted/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_SERVER_FAILOVER_MAX_MILLIS_NAME, value = "0")
+    public void shouldFetchMergedPartitionLeaderAbortedWithoutFailover() throws Exception
+    {
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/cache.merged/controller",
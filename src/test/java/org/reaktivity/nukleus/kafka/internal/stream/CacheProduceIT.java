@@ -17,6 +17,7 @@ package org.reaktivity.nukleus.kafka.internal.stream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_PRODUCE_LOCAL_ACK_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_BOOTSTRAP;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CACHE_SERVER_RECONNECT_DELAY;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
@@ -33,6 +34,7 @@ import org.kaazing.k3po.junit.annotation.ScriptProperty;
 import org.kaazing.k3po.junit.annotation.Specification;
 import org.kaazing.k3po.junit.rules.K3poRule;
 import org.reaktivity.reaktor.test.ReaktorRule;
+import org.reaktivity.reaktor.test.annotation.Configure;
 
 public class CacheProduceIT
 {
@@ -312,4 +314,28 @@ public class CacheProduceIT
     {
         k3po.finish();
     }
+
+    @Test
+    @Specification({
+        "${route}/cache/controller",
+        "${client}/message.value/client",
+        "${server}/message.value/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_PRODUCE_LOCAL_ACK_NAME, value = "true")
+    public void shouldSendMessageValueWithLocalAck() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/cache/controller",
+        "${client}/message.value.repeated/client",
+        "${server}/message.value.repeated/server"})
+    @ScriptProperty("serverAddress \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CACHE_PRODUCE_LOCAL_ACK_NAME, value = "true")
+    public void shouldSendMessageValueRepeatedWithLocalAck() throws Exception
+    {
+        k3po.finish();
+    }
 }
@@ -17,6 +17,9 @@ package org.reaktivity.nukleus.kafka.internal.stream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_RACK_NAME;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_DRAIN_ON_CLOSE;
 import static org.reaktivity.reaktor.test.ReaktorRule.EXTERNAL_AFFINITY_MASK;
@@ -44,7 +47,10 @@ public class ClientFetchIT
     private final K3poRule k3po = new K3poRule()
             .addScriptRoot("route", "org/reaktivity/specification/nukleus/kafka/control/route.ext")
             .addScriptRoot("server", "org/reaktivity/specification/kafka/fetch.v5")
-            .addScriptRoot("client", "org/reaktivity/specification/nukleus/kafka/streams/fetch");
+            .addScriptRoot("serverV5", "org/reaktivity/nukleus/kafka/internal/streams/fetch.v5")
+            .addScriptRoot("serverV11", "org/reaktivity/nukleus/kafka/internal/streams/fetch.v11")
+            .addScriptRoot("client", "org/reaktivity/specification/nukleus/kafka/streams/fetch")
+            .addScriptRoot("clientLocal", "org/reaktivity/nukleus/kafka/internal/streams/fetch");
 
     private final TestRule timeout = new DisableOnDebug(new Timeout(10, SECONDS));
 
@@ -113,6 +119,54 @@ public class ClientFetchIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/partition.offset/client",
+        "${serverV11}/partition.offset/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_RACK_NAME, value = "rack1")
+    public void shouldRequestPartitionOffsetWithRack() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/partition.offset/client",
+        "${serverV11}/partition.offset.preferred.replica/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_RACK_NAME, value = "rack1")
+    public void shouldRequestPartitionOffsetFromPreferredReplica() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/partition.offset/client",
+        "${serverV11}/partition.offset.preferred.replica.error/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_RACK_NAME, value = "rack1")
+    public void shouldRequestPartitionOffsetFromLeaderWhenPreferredReplicaErrors() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/partition.offset/client",
+        "${serverV11}/partition.offset.preferred.replica.aborted/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_RACK_NAME, value = "rack1")
+    public void shouldRequestPartitionOffsetFromLeaderWhenPreferredReplicaAborts() throws Exception
+    {
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/client/controller",
@@ -124,6 +178,18 @@ public class ClientFetchIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/partition.offset.earliest/client",
+        "${server}/partition.offset.earliest/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_FETCH_OFFSETS_MAX_AGE_MILLIS_NAME, value = "60000")
+    public void shouldRequestPartitionOffsetEarliestWithOffsetsMaxAge() throws Exception
+    {
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/client/controller",
@@ -212,6 +278,53 @@ public class ClientFetchIT
         k3po.finish();
     }
 
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/message.value/client",
+        "${serverV5}/message.value.fragmented/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    public void shouldReceiveMessageValueFragmented() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${client}/message.value/client",
+        "${serverV5}/message.value.read.committed/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME, value = "true")
+    public void shouldReceiveMessageValueReadCommitted() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${clientLocal}/message.values.read.committed.aborted/client",
+        "${serverV5}/message.values.read.committed.aborted/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME, value = "true")
+    public void shouldSkipAbortedAndControlBatchesReadCommitted() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${clientLocal}/message.value.read.committed.aborted.compressed/client",
+        "${serverV5}/message.value.read.committed.aborted.compressed/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_FETCH_READ_COMMITTED_NAME, value = "true")
+    public void shouldSkipAbortedCompressedBatchReadCommitted() throws Exception
+    {
+        k3po.finish();
+    }
+
     @Test
     @Specification({
         "${route}/client/controller",
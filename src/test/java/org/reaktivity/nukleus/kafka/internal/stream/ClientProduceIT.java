@@ -17,6 +17,8 @@ package org.reaktivity.nukleus.kafka.internal.stream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_BATCH_BYTES_NAME;
+import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_LINGER_MILLIS_NAME;
 import static org.reaktivity.nukleus.kafka.internal.KafkaConfiguration.KAFKA_CLIENT_PRODUCE_MAX_REQUEST_MILLIS_NAME;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_BUFFER_SLOT_CAPACITY;
 import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_DRAIN_ON_CLOSE;
@@ -39,7 +41,9 @@ public class ClientProduceIT
     private final K3poRule k3po = new K3poRule()
             .addScriptRoot("route", "org/reaktivity/specification/nukleus/kafka/control/route.ext")
             .addScriptRoot("server", "org/reaktivity/specification/kafka/produce.v3")
-            .addScriptRoot("client", "org/reaktivity/specification/nukleus/kafka/streams/produce");
+            .addScriptRoot("client", "org/reaktivity/specification/nukleus/kafka/streams/produce")
+            .addScriptRoot("serverLinger", "org/reaktivity/nukleus/kafka/internal/streams/produce.v3")
+            .addScriptRoot("clientLinger", "org/reaktivity/nukleus/kafka/internal/streams/produce");
 
     private final TestRule timeout = new DisableOnDebug(new Timeout(10, SECONDS));
 
@@ -311,4 +315,29 @@ public class ClientProduceIT
     {
         k3po.finish();
     }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${clientLinger}/message.values.lingered/client",
+        "${serverLinger}/message.values.lingered/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_PRODUCE_LINGER_MILLIS_NAME, value = "100")
+    public void shouldSendLingeredMessagesWhenLingerExpires() throws Exception
+    {
+        k3po.finish();
+    }
+
+    @Test
+    @Specification({
+        "${route}/client/controller",
+        "${clientLinger}/message.values.lingered/client",
+        "${serverLinger}/message.values.lingered/server"})
+    @ScriptProperty("networkAccept \"nukleus://streams/target#0\"")
+    @Configure(name = KAFKA_CLIENT_PRODUCE_LINGER_MILLIS_NAME, value = "60000")
+    @Configure(name = KAFKA_CLIENT_PRODUCE_BATCH_BYTES_NAME, value = "1")
+    public void shouldSendLingeredMessagesWhenBatchFull() throws Exception
+    {
+        k3po.finish();
+    }
 }
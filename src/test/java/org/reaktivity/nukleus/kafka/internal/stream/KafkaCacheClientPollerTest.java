@@ -0,0 +1,202 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reaktivity.nukleus.kafka.internal.KafkaConfiguration;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCachePartition;
+import org.reaktivity.nukleus.kafka.internal.cache.KafkaCacheTopicConfig;
+import org.reaktivity.nukleus.kafka.internal.types.Array32FW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaDeltaType;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaHeaderFW;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaKeyFW;
+import org.reaktivity.nukleus.kafka.internal.types.OctetsFW;
+
+public class KafkaCacheClientPollerTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldPollOffsetPublishedByAnotherThread() throws Exception
+    {
+        KafkaCachePartition partition = newPartition();
+        KafkaCacheClientPoller poller = new KafkaCacheClientPoller();
+        TestSubscriber subscriber = new TestSubscriber(partition, -1L);
+
+        poller.attach(subscriber);
+
+        assertEquals(0, poller.doWork());
+
+        Thread writer = new Thread(() ->
+        {
+            partition.append(10L);
+            writeEntry(partition, 11L);
+            partition.publish(11L, 20L);
+        });
+        writer.start();
+
+        int workCount = 0;
+        for (long deadline = currentTimeMillis() + 5000L; workCount == 0 && currentTimeMillis() < deadline; )
+        {
+            workCount = poller.doWork();
+            Thread.yield();
+        }
+        writer.join();
+
+        assertEquals(1, workCount);
+        assertEquals(1, subscriber.published);
+        assertEquals(11L, subscriber.partitionOffset);
+        assertEquals(20L, subscriber.latestOffset);
+        assertEquals(0, poller.doWork());
+    }
+
+    @Test
+    public void shouldNotPollOffsetAlreadyDelivered() throws Exception
+    {
+        KafkaCachePartition partition = newPartition();
+        KafkaCacheClientPoller poller = new KafkaCacheClientPoller();
+        TestSubscriber subscriber = new TestSubscriber(partition, 11L);
+
+        partition.append(10L);
+        writeEntry(partition, 11L);
+        partition.publish(11L, 20L);
+
+        poller.attach(subscriber);
+
+        assertEquals(0, poller.doWork());
+        assertEquals(0, subscriber.published);
+    }
+
+    @Test
+    public void shouldNotPollDetachedSubscriber() throws Exception
+    {
+        KafkaCachePartition partition = newPartition();
+        KafkaCacheClientPoller poller = new KafkaCacheClientPoller();
+        TestSubscriber subscriber = new TestSubscriber(partition, -1L);
+
+        poller.attach(subscriber);
+        poller.detach(subscriber);
+
+        partition.append(10L);
+        writeEntry(partition, 11L);
+        partition.publish(11L, 20L);
+
+        assertEquals(0, poller.doWork());
+        assertEquals(0, subscriber.published);
+    }
+
+    @Test
+    public void shouldPollEachSubscriberOnce() throws Exception
+    {
+        KafkaCachePartition partition = newPartition();
+        KafkaCacheClientPoller poller = new KafkaCacheClientPoller();
+        TestSubscriber subscriber1 = new TestSubscriber(partition, -1L);
+        TestSubscriber subscriber2 = new TestSubscriber(partition, -1L);
+
+        poller.attach(subscriber1);
+        poller.attach(subscriber2);
+
+        partition.append(10L);
+        writeEntry(partition, 11L);
+        partition.publish(11L, 20L);
+
+        assertEquals(2, poller.doWork());
+        assertEquals(0, poller.doWork());
+        assertEquals(1, subscriber1.published);
+        assertEquals(1, subscriber2.published);
+    }
+
+    private KafkaCachePartition newPartition() throws Exception
+    {
+        Path location = tempFolder.newFolder().toPath();
+        KafkaCacheTopicConfig topic = new KafkaCacheTopicConfig(new KafkaConfiguration());
+        return new KafkaCachePartition(location, topic, "cache", "test", 0, 65536, long[]::new);
+    }
+
+    private static void writeEntry(
+        KafkaCachePartition partition,
+        long offset)
+    {
+        MutableDirectBuffer writeBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        KafkaKeyFW key = new KafkaKeyFW.Builder().wrap(writeBuffer, 0, writeBuffer.capacity())
+            .length(4)
+            .value(k -> k.set("test".getBytes(UTF_8)))
+            .build();
+
+        Array32FW<KafkaHeaderFW> headers = new Array32FW.Builder<>(new KafkaHeaderFW.Builder(), new KafkaHeaderFW())
+                .wrap(writeBuffer, key.limit(), writeBuffer.capacity())
+                .build();
+
+        OctetsFW value = new OctetsFW.Builder()
+                .wrap(writeBuffer, headers.limit(), writeBuffer.capacity())
+                .set("value".getBytes(UTF_8))
+                .build();
+
+        partition.writeEntry(offset, 0L, key, headers, value, null, KafkaDeltaType.NONE);
+    }
+
+    private static final class TestSubscriber implements KafkaCacheClientPoller.Subscriber
+    {
+        private final KafkaCachePartition partition;
+
+        private long partitionOffset;
+        private long latestOffset;
+        private int published;
+
+        private TestSubscriber(
+            KafkaCachePartition partition,
+            long partitionOffset)
+        {
+            this.partition = partition;
+            this.partitionOffset = partitionOffset;
+        }
+
+        @Override
+        public KafkaCachePartition partition()
+        {
+            return partition;
+        }
+
+        @Override
+        public long partitionOffset()
+        {
+            return partitionOffset;
+        }
+
+        @Override
+        public void onPublished(
+            long partitionOffset,
+            long latestOffset)
+        {
+            this.partitionOffset = partitionOffset;
+            this.latestOffset = latestOffset;
+            this.published++;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class KafkaCacheServerBootstrapSchedulerTest
+{
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    public void shouldBoundScheduledFetches() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler = new KafkaCacheServerBootstrapScheduler(2, emptyList());
+        TestFetch fetch0 = new TestFetch("fetch0", 0);
+        TestFetch fetch1 = new TestFetch("fetch1", 0);
+        TestFetch fetch2 = new TestFetch("fetch2", 0);
+
+        scheduler.schedule(fetch0, 0L);
+        scheduler.schedule(fetch1, 0L);
+        scheduler.schedule(fetch2, 0L);
+
+        assertEquals(asList("fetch0", "fetch1"), started);
+        assertEquals(2, scheduler.scheduled());
+        assertEquals(1, scheduler.deferred());
+        assertTrue(fetch2.deferred());
+        assertFalse(fetch2.scheduled());
+
+        scheduler.release(fetch0, 0L);
+
+        assertEquals(asList("fetch0", "fetch1", "fetch2"), started);
+        assertEquals(2, scheduler.scheduled());
+        assertEquals(0, scheduler.deferred());
+        assertTrue(fetch2.scheduled());
+    }
+
+    @Test
+    public void shouldReleaseScheduledFetchOnce() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler = new KafkaCacheServerBootstrapScheduler(1, emptyList());
+        TestFetch fetch0 = new TestFetch("fetch0", 0);
+        TestFetch fetch1 = new TestFetch("fetch1", 0);
+        TestFetch fetch2 = new TestFetch("fetch2", 0);
+
+        scheduler.schedule(fetch0, 0L);
+        scheduler.schedule(fetch1, 0L);
+        scheduler.schedule(fetch2, 0L);
+
+        scheduler.release(fetch0, 0L);
+        scheduler.release(fetch0, 0L);
+
+        assertEquals(asList("fetch0", "fetch1"), started);
+        assertEquals(1, scheduler.scheduled());
+        assertEquals(1, scheduler.deferred());
+    }
+
+    @Test
+    public void shouldScheduleDeferredFetchesByPriority() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler =
+                new KafkaCacheServerBootstrapScheduler(1, asList("high", "low"));
+        TestFetch active = new TestFetch("active", scheduler.priority("other"));
+        TestFetch other = new TestFetch("other", scheduler.priority("other"));
+        TestFetch low = new TestFetch("low", scheduler.priority("low"));
+        TestFetch high = new TestFetch("high", scheduler.priority("high"));
+
+        scheduler.schedule(active, 0L);
+        scheduler.schedule(other, 0L);
+        scheduler.schedule(low, 0L);
+        scheduler.schedule(high, 0L);
+
+        scheduler.release(active, 0L);
+        scheduler.release(high, 0L);
+        scheduler.release(low, 0L);
+
+        assertEquals(asList("active", "high", "low", "other"), started);
+    }
+
+    @Test
+    public void shouldScheduleDeferredFetchesInArrivalOrderWithinPriority() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler = new KafkaCacheServerBootstrapScheduler(1, emptyList());
+        TestFetch fetch0 = new TestFetch("fetch0", 0);
+        TestFetch fetch1 = new TestFetch("fetch1", 0);
+        TestFetch fetch2 = new TestFetch("fetch2", 0);
+        TestFetch fetch3 = new TestFetch("fetch3", 0);
+
+        scheduler.schedule(fetch0, 0L);
+        scheduler.schedule(fetch1, 0L);
+        scheduler.schedule(fetch2, 0L);
+        scheduler.schedule(fetch3, 0L);
+
+        scheduler.release(fetch0, 0L);
+        scheduler.release(fetch1, 0L);
+        scheduler.release(fetch2, 0L);
+
+        assertEquals(asList("fetch0", "fetch1", "fetch2", "fetch3"), started);
+    }
+
+    @Test
+    public void shouldCancelDeferredFetch() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler = new KafkaCacheServerBootstrapScheduler(1, emptyList());
+        TestFetch fetch0 = new TestFetch("fetch0", 0);
+        TestFetch fetch1 = new TestFetch("fetch1", 0);
+        TestFetch fetch2 = new TestFetch("fetch2", 0);
+
+        scheduler.schedule(fetch0, 0L);
+        scheduler.schedule(fetch1, 0L);
+        scheduler.schedule(fetch2, 0L);
+
+        scheduler.cancel(fetch1);
+
+        assertFalse(fetch1.deferred());
+        assertEquals(1, scheduler.deferred());
+
+        scheduler.release(fetch0, 0L);
+
+        assertEquals(asList("fetch0", "fetch2"), started);
+        assertFalse(fetch1.scheduled());
+    }
+
+    @Test
+    public void shouldScheduleUnboundedWhenFetchesMaxZero() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler = new KafkaCacheServerBootstrapScheduler(0, emptyList());
+
+        for (int i = 0; i < 100; i++)
+        {
+            scheduler.schedule(new TestFetch("fetch" + i, 0), 0L);
+        }
+
+        assertEquals(100, started.size());
+        assertEquals(100, scheduler.scheduled());
+        assertEquals(0, scheduler.deferred());
+    }
+
+    @Test
+    public void shouldPrioritizeListedTopics() throws Exception
+    {
+        KafkaCacheServerBootstrapScheduler scheduler =
+                new KafkaCacheServerBootstrapScheduler(1, asList("high", "low"));
+
+        assertEquals(0, scheduler.priority("high"));
+        assertEquals(1, scheduler.priority("low"));
+        assertEquals(2, scheduler.priority("other"));
+    }
+
+    private final class TestFetch extends KafkaCacheServerBootstrapScheduler.Fetch
+    {
+        private final String name;
+
+        private TestFetch(
+            String name,
+            int priority)
+        {
+            super(priority);
+            this.name = name;
+        }
+
+        @Override
+        void onScheduled(
+            long traceId)
+        {
+            started.add(name);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.FLIGHT_LEASE_MILLIS;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.kafka.internal.stream.KafkaClientMetaCache.Results;
+
+public class KafkaClientMetaCacheTest
+{
+    @Test
+    public void shouldLookupPublishedUntilExpired() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+
+        assertNull(results.lookup(key, 0L));
+
+        results.publish(key, "value", 1000L);
+
+        assertEquals("value", results.lookup(key, 999L));
+        assertNull(results.lookup(key, 1000L));
+        assertNull(results.lookup(Results.key(2L, "test"), 0L));
+    }
+
+    @Test
+    public void shouldInvalidatePublished() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+
+        results.publish(key, "value", 1000L);
+        results.invalidate(key);
+
+        assertNull(results.lookup(key, 0L));
+    }
+
+    @Test
+    public void shouldAcquireSingleFlight() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+
+        assertTrue(results.acquire(key, 0L));
+        assertFalse(results.acquire(key, 0L));
+        assertTrue(results.acquire(Results.key(1L, "other"), 0L));
+
+        results.release(key);
+
+        assertTrue(results.acquire(key, 0L));
+    }
+
+    @Test
+    public void shouldAcquireFlightWhenLeaseExpired() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+
+        assertTrue(results.acquire(key, 0L));
+        assertFalse(results.acquire(key, FLIGHT_LEASE_MILLIS - 1L));
+        assertTrue(results.acquire(key, FLIGHT_LEASE_MILLIS));
+    }
+
+    @Test
+    public void shouldNotifyWaitersWhenPublished() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+        AtomicInteger notified = new AtomicInteger();
+
+        assertTrue(results.acquire(key, 0L));
+
+        results.await(key, notified::incrementAndGet);
+        results.await(key, notified::incrementAndGet);
+        assertEquals(0, notified.get());
+
+        results.publish(key, "value", 1000L);
+        assertEquals(2, notified.get());
+
+        results.publish(key, "value", 2000L);
+        assertEquals(2, notified.get());
+    }
+
+    @Test
+    public void shouldNotifyWaitersWhenReleased() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+        AtomicInteger notified = new AtomicInteger();
+
+        assertTrue(results.acquire(key, 0L));
+
+        results.await(key, notified::incrementAndGet);
+        results.release(key);
+
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    public void shouldNotifyWaiterImmediatelyWhenNoFlight() throws Exception
+    {
+        Results<String> results = new Results<>();
+        String key = Results.key(1L, "test");
+        AtomicInteger notified = new AtomicInteger();
+
+        results.await(key, notified::incrementAndGet);
+
+        assertEquals(1, notified.get());
+    }
+}
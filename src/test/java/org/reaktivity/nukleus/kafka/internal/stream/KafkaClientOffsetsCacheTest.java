@@ -0,0 +1,100 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.kafka.internal.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.kafka.internal.stream.KafkaClientOffsetsCache.ERROR_NONE;
+import static org.reaktivity.nukleus.kafka.internal.stream.KafkaClientOffsetsCache.OFFSET_UNRESOLVED;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.kafka.internal.types.KafkaOffsetType;
+
+public class KafkaClientOffsetsCacheTest
+{
+    private static final long OFFSET_EARLIEST = KafkaOffsetType.EARLIEST.value();
+    private static final long OFFSET_LATEST = KafkaOffsetType.LATEST.value();
+
+    @Test
+    public void shouldResolveUntilExpired() throws Exception
+    {
+        KafkaClientOffsetsCache cache = new KafkaClientOffsetsCache(1000L);
+
+        cache.resolve("test", 0, OFFSET_EARLIEST, 42L, 0L);
+
+        assertEquals(42L, cache.resolved("test", 0, OFFSET_EARLIEST, 999L));
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 0, OFFSET_LATEST, 999L));
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 1, OFFSET_EARLIEST, 999L));
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 0, OFFSET_EARLIEST, 1000L));
+        assertTrue(cache.expire(1000L));
+    }
+
+    @Test
+    public void shouldBackOffFailedUntilExpired() throws Exception
+    {
+        KafkaClientOffsetsCache cache = new KafkaClientOffsetsCache(1000L);
+
+        cache.fail("test", 0, OFFSET_LATEST, 3, 0L);
+
+        assertEquals(3, cache.failed("test", 0, OFFSET_LATEST, 999L));
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 0, OFFSET_LATEST, 999L));
+        assertEquals(ERROR_NONE, cache.failed("test", 0, OFFSET_LATEST, 1000L));
+    }
+
+    @Test
+    public void shouldReplaceFailedWhenResolved() throws Exception
+    {
+        KafkaClientOffsetsCache cache = new KafkaClientOffsetsCache(1000L);
+
+        cache.fail("test", 0, OFFSET_LATEST, 3, 0L);
+        cache.resolve("test", 0, OFFSET_LATEST, 42L, 10L);
+
+        assertEquals(ERROR_NONE, cache.failed("test", 0, OFFSET_LATEST, 20L));
+        assertEquals(42L, cache.resolved("test", 0, OFFSET_LATEST, 20L));
+    }
+
+    @Test
+    public void shouldInvalidatePartition() throws Exception
+    {
+        KafkaClientOffsetsCache cache = new KafkaClientOffsetsCache(1000L);
+
+        cache.resolve("test", 0, OFFSET_EARLIEST, 0L, 0L);
+        cache.resolve("test", 0, OFFSET_LATEST, 42L, 0L);
+        cache.resolve("test", 1, OFFSET_LATEST, 24L, 0L);
+
+        cache.invalidate("test", 0);
+
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 0, OFFSET_EARLIEST, 10L));
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 0, OFFSET_LATEST, 10L));
+        assertEquals(24L, cache.resolved("test", 1, OFFSET_LATEST, 10L));
+    }
+
+    @Test
+    public void shouldExpireIdleEntries() throws Exception
+    {
+        KafkaClientOffsetsCache cache = new KafkaClientOffsetsCache(1000L);
+
+        cache.resolve("test", 0, OFFSET_LATEST, 42L, 0L);
+        cache.fail("other", 0, OFFSET_LATEST, 3, 500L);
+
+        assertFalse(cache.expire(1000L));
+        assertEquals(OFFSET_UNRESOLVED, cache.resolved("test", 0, OFFSET_LATEST, 0L));
+        assertEquals(3, cache.failed("other", 0, OFFSET_LATEST, 1000L));
+
+        assertTrue(cache.expire(1500L));
+    }
+}